@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.web;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Computes the items of batch requests on a bounded worker pool shared by all requests, and
+ * writes the results in input order as they complete.
+ * <p>
+ * Each request keeps at most MAX_PENDING items in flight, so a batch of any size uses constant
+ * memory beyond its inputs. When the pool's queue is full the request thread computes the item
+ * itself, which throttles the requests instead of queuing without bound.
+ *
+ * @author Bruce Schubert
+ */
+public class BatchProcessor {
+
+    /** The number of worker threads shared by all batch requests. */
+    public static final int NUM_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    /** The maximum number of items a request has in flight. */
+    public static final int MAX_PENDING = NUM_WORKERS * 4;
+    /** The number of results written between flushes. */
+    static final int FLUSH_INTERVAL = 256;
+
+    private static final ExecutorService workers = new ThreadPoolExecutor(
+            NUM_WORKERS, NUM_WORKERS, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAX_PENDING * 4),
+            new WorkerThreadFactory(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * Receives the results of a batch in input order.
+     *
+     * @param <T> The item type.
+     * @param <R> The result type.
+     */
+    public interface ResultWriter<T, R> extends Flushable {
+
+        /**
+         * Writes the result of an item.
+         *
+         * @param item The input item.
+         * @param result The computed result.
+         * @throws IOException if the result cannot be written, e.g., the client disconnected.
+         */
+        void write(T item, R result) throws IOException;
+
+        /**
+         * Writes the failure of an item. The batch continues with the next item.
+         *
+         * @param item The input item.
+         * @param error The exception thrown by the computation.
+         * @throws IOException if the error cannot be written.
+         */
+        void writeError(T item, Throwable error) throws IOException;
+    }
+
+    /**
+     * Computes a batch of items and writes the results in input order.
+     *
+     * @param <T> The item type.
+     * @param <R> The result type.
+     * @param items The items to compute.
+     * @param function The computation; must be thread-safe.
+     * @param writer The receiver of the results; called on the calling thread.
+     * @throws IOException if the writer fails or the thread is interrupted. The pending items are
+     * cancelled.
+     */
+    public static <T, R> void process(Iterable<T> items, Function<T, R> function, ResultWriter<T, R> writer) throws IOException {
+        ArrayDeque<T> pendingItems = new ArrayDeque<>(MAX_PENDING);
+        ArrayDeque<Future<R>> pendingResults = new ArrayDeque<>(MAX_PENDING);
+        try {
+            int numWritten = 0;
+            for (T item : items) {
+                if (pendingResults.size() == MAX_PENDING) {
+                    writeNext(pendingItems, pendingResults, writer);
+                    if (++numWritten % FLUSH_INTERVAL == 0) {
+                        writer.flush();
+                    }
+                }
+                pendingItems.add(item);
+                pendingResults.add(workers.submit(() -> function.apply(item)));
+            }
+            while (!pendingResults.isEmpty()) {
+                writeNext(pendingItems, pendingResults, writer);
+            }
+            writer.flush();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The batch was interrupted.");
+        } finally {
+            // Release the workers if the batch was aborted
+            for (Future<R> future : pendingResults) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static <T, R> void writeNext(ArrayDeque<T> pendingItems, ArrayDeque<Future<R>> pendingResults,
+                                         ResultWriter<T, R> writer) throws IOException, InterruptedException {
+        T item = pendingItems.poll();
+        Future<R> future = pendingResults.poll();
+        R result;
+        try {
+            result = future.get();
+        } catch (ExecutionException ex) {
+            writer.writeError(item, ex.getCause());
+            return;
+        }
+        writer.write(item, result);
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNo = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "BatchProcessor-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private BatchProcessor() {
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.web;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Writes tabular results in a compact, columnar binary format. All numbers are little-endian.
+ * <pre>
+ * header:  "WMTC", int32 version, int32 numStringColumns, int32 numDoubleColumns,
+ *          then the column names, each as a string
+ * blocks:  int32 numRows, then each string column as numRows strings,
+ *          then each double column as numRows float64 values
+ * end:     int32 0
+ * string:  int32 byte length (-1 for null) followed by the UTF-8 bytes
+ * </pre>
+ * Rows are buffered into blocks, which are written when full or when the writer is flushed, so a
+ * reader can consume the results of a streamed batch as they arrive. Missing values are NaN.
+ *
+ * @author Bruce Schubert
+ */
+public class ColumnarWriter implements Flushable, Closeable {
+
+    public static final String APPLICATION_COLUMNS = "application/x-wmt-columns";
+    public static final MediaType APPLICATION_COLUMNS_TYPE = MediaType.valueOf(APPLICATION_COLUMNS);
+    public static final int VERSION = 1;
+    static final byte[] MAGIC = {'W', 'M', 'T', 'C'};
+    /** The maximum number of rows in a block. */
+    static final int BLOCK_SIZE = 1024;
+
+    private final OutputStream out;
+    private final String[][] strings;
+    private final double[][] doubles;
+    private int numRows;
+    private ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE * 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Creates a writer and writes the header.
+     *
+     * @param out The destination; not closed by the writer.
+     * @param stringColumns The names of the string columns.
+     * @param doubleColumns The names of the double columns.
+     * @throws IOException if the header cannot be written.
+     */
+    public ColumnarWriter(OutputStream out, List<String> stringColumns, List<String> doubleColumns) throws IOException {
+        this.out = out;
+        this.strings = new String[stringColumns.size()][BLOCK_SIZE];
+        this.doubles = new double[doubleColumns.size()][BLOCK_SIZE];
+        buffer.put(MAGIC).putInt(VERSION).putInt(stringColumns.size()).putInt(doubleColumns.size());
+        for (String name : stringColumns) {
+            putString(name);
+        }
+        for (String name : doubleColumns) {
+            putString(name);
+        }
+        writeBuffer();
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param stringValues The values of the string columns; null values are allowed.
+     * @param doubleValues The values of the double columns.
+     * @throws IOException if a full block cannot be written.
+     */
+    public void addRow(String[] stringValues, double[] doubleValues) throws IOException {
+        if (stringValues.length != strings.length || doubleValues.length != doubles.length) {
+            throw new IllegalArgumentException("The row doesn't match the columns.");
+        }
+        for (int i = 0; i < strings.length; i++) {
+            strings[i][numRows] = stringValues[i];
+        }
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i][numRows] = doubleValues[i];
+        }
+        if (++numRows == BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the buffered rows as a block and flushes the destination.
+     *
+     * @throws IOException if the block cannot be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    /**
+     * Writes the buffered rows and the end marker, and flushes the destination.
+     *
+     * @throws IOException if the output cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        writeBlock();
+        buffer.putInt(0);
+        writeBuffer();
+        out.flush();
+    }
+
+    private void writeBlock() throws IOException {
+        if (numRows == 0) {
+            return;
+        }
+        buffer.putInt(numRows);
+        for (String[] column : strings) {
+            for (int row = 0; row < numRows; row++) {
+                putString(column[row]);
+                column[row] = null;
+            }
+        }
+        for (double[] column : doubles) {
+            ensureCapacity(numRows * 8);
+            buffer.asDoubleBuffer().put(column, 0, numRows);
+            buffer.position(buffer.position() + numRows * 8);
+        }
+        numRows = 0;
+        writeBuffer();
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensureCapacity(4);
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer.remaining() < length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            buffer = larger.put(buffer);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.web;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * An item of a surface fire batch request: the fuel model, fuel moisture, weather and terrain at a
+ * point. Scenarios are read from a JSON array of flat objects, or from CSV with a header row,
+ * using the FIELDS names, e.g.:
+ * <pre>
+ * [{"id":"p1", "fuelModel":4, "dead1Hr":6, "dead10Hr":7, "dead100Hr":8, "liveHerb":60,
+ *   "liveWoody":90, "windSpeed":5, "windDir":90, "aspect":235, "slope":20}, ...]
+ * </pre>
+ * The fuel model and fuel moistures are required; wind and terrain default to zero. The id is
+ * optional and defaults to the one-based position of the scenario in the batch.
+ *
+ * @author Bruce Schubert
+ */
+final class FireScenario {
+
+    /** The maximum number of scenarios in a batch. */
+    static final int MAX_SCENARIOS = 100000;
+
+    static final int FUEL_MODEL = 0;
+    static final int DEAD_1HR = 1;
+    static final int DEAD_10HR = 2;
+    static final int DEAD_100HR = 3;
+    static final int LIVE_HERB = 4;
+    static final int LIVE_WOODY = 5;
+    static final int WIND_SPEED = 6;
+    static final int WIND_DIR = 7;
+    static final int ASPECT = 8;
+    static final int SLOPE = 9;
+    static final int ELEVATION = 10;
+    static final int NUM_REQUIRED = 6;
+    /**
+     * The field names, indexed by the constants above. Moistures are in percent, wind speed in
+     * mph, directions and slope in degrees, and elevation in meters.
+     */
+    static final List<String> FIELDS = Arrays.asList(
+            "fuelModel", "dead1Hr", "dead10Hr", "dead100Hr", "liveHerb", "liveWoody",
+            "windSpeed", "windDir", "aspect", "slope", "elevation");
+    static final String ID = "id";
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    final String id;
+    final double[] values;
+
+    FireScenario(String id, double[] values) {
+        this.id = id;
+        this.values = values;
+    }
+
+    int getFuelModelNo() {
+        return (int) values[FUEL_MODEL];
+    }
+
+    /**
+     * Reads the scenarios from a JSON array of objects.
+     *
+     * @param input The JSON content.
+     * @return The scenarios.
+     * @throws IllegalArgumentException if the content is malformed, a required field is missing
+     * or the batch is too large.
+     * @throws IOException if the content cannot be read.
+     */
+    static List<FireScenario> fromJson(InputStream input) throws IOException {
+        ArrayList<FireScenario> scenarios = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createJsonParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected an array of scenarios.");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                checkSize(scenarios);
+                String id = null;
+                double[] values = newValues();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    int field = FIELDS.indexOf(name);
+                    if (field >= 0) {
+                        values[field] = parseValue(name, parser.getText());
+                    }
+                    else if (ID.equals(name)) {
+                        id = parser.getText();
+                    }
+                    else {
+                        parser.skipChildren();
+                    }
+                }
+                scenarios.add(create(id, values, scenarios.size() + 1));
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Expected a scenario object but found " + token);
+            }
+        } catch (JsonParseException ex) {
+            throw new IllegalArgumentException(ex.getMessage(), ex);
+        }
+        return scenarios;
+    }
+
+    /**
+     * Reads the scenarios from CSV content whose first row names the columns. Unknown columns
+     * are ignored; quoted values are not supported.
+     *
+     * @param input The CSV content.
+     * @return The scenarios.
+     * @throws IllegalArgumentException if a row is malformed, a required column is missing or
+     * the batch is too large.
+     * @throws IOException if the content cannot be read.
+     */
+    static List<FireScenario> fromCsv(InputStream input) throws IOException {
+        ArrayList<FireScenario> scenarios = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) {
+            return scenarios;
+        }
+        // Map the columns to the fields
+        String[] header = line.split(",");
+        int[] columnFields = new int[header.length];
+        int idColumn = -1;
+        for (int i = 0; i < header.length; i++) {
+            String name = header[i].trim();
+            columnFields[i] = FIELDS.indexOf(name);
+            if (ID.equals(name)) {
+                idColumn = i;
+            }
+        }
+        for (int field = 0; field < NUM_REQUIRED; field++) {
+            if (!contains(columnFields, field)) {
+                throw new IllegalArgumentException("Missing column: " + FIELDS.get(field));
+            }
+        }
+        int rowNo = 1;
+        while ((line = reader.readLine()) != null) {
+            rowNo++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            checkSize(scenarios);
+            String[] columns = line.split(",", -1);
+            if (columns.length != header.length) {
+                throw new IllegalArgumentException("Row " + rowNo + " has " + columns.length
+                        + " columns; expected " + header.length);
+            }
+            double[] values = newValues();
+            for (int i = 0; i < columns.length; i++) {
+                String text = columns[i].trim();
+                if (columnFields[i] >= 0 && !text.isEmpty()) {
+                    values[columnFields[i]] = parseValue(header[i].trim(), text);
+                }
+            }
+            String id = idColumn >= 0 ? columns[idColumn].trim() : null;
+            scenarios.add(create(id, values, scenarios.size() + 1));
+        }
+        return scenarios;
+    }
+
+    private static double[] newValues() {
+        double[] values = new double[FIELDS.size()];
+        Arrays.fill(values, 0, NUM_REQUIRED, Double.NaN);
+        return values;
+    }
+
+    private static FireScenario create(String id, double[] values, int scenarioNo) {
+        for (int field = 0; field < NUM_REQUIRED; field++) {
+            if (Double.isNaN(values[field])) {
+                throw new IllegalArgumentException("Scenario " + scenarioNo + " is missing " + FIELDS.get(field));
+            }
+        }
+        return new FireScenario(id == null || id.isEmpty() ? Integer.toString(scenarioNo) : id, values);
+    }
+
+    private static double parseValue(String name, String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + text);
+        }
+    }
+
+    private static void checkSize(List<FireScenario> scenarios) {
+        if (scenarios.size() == MAX_SCENARIOS) {
+            throw new IllegalArgumentException("A batch is limited to " + MAX_SCENARIOS + " scenarios.");
+        }
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int element : array) {
+            if (element == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -31,12 +31,24 @@ package com.emxsys.wmt.web;
 
 import com.emxsys.gis.api.BasicTerrain;
 import com.emxsys.weather.api.BasicWeather;
+import com.emxsys.weather.api.WeatherType;
+import com.emxsys.wildfire.api.BasicFuelModel;
+import com.emxsys.wildfire.api.BasicFuelMoisture;
 import com.emxsys.wildfire.behavior.SurfaceFire;
 import com.emxsys.wildfire.behavior.SurfaceFireProvider;
 import com.emxsys.wildfire.behavior.SurfaceFuel;
 import com.sun.jersey.multipart.FormDataParam;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
@@ -44,15 +56,25 @@ import javax.ws.rs.FormParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import static javax.ws.rs.core.MediaType.*;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import visad.Real;
 
 /**
  * Surface Fire REST Web Service.
+ * <p>
+ * The batch resource computes the fire behavior for many scenarios in one request; see
+ * FireScenario for the input format. The results are streamed in input order as they are
+ * computed, and are gzip compressed when the client accepts it.
  *
  * @author Bruce Schubert
  */
@@ -61,6 +83,15 @@ public class SurfaceFireResource {
 
     private static final SurfaceFireProvider provider = new SurfaceFireProvider();
     private static final List<MediaType> permittedTypes = Arrays.asList(APPLICATION_JSON_TYPE, APPLICATION_XML_TYPE, TEXT_PLAIN_TYPE);
+    static final String TEXT_CSV = "text/csv";
+    static final MediaType TEXT_CSV_TYPE = MediaType.valueOf(TEXT_CSV);
+    private static final List<MediaType> batchTypes = Arrays.asList(
+            APPLICATION_JSON_TYPE, TEXT_CSV_TYPE, ColumnarWriter.APPLICATION_COLUMNS_TYPE);
+    /** The names of the batch results, in the order of getBatchResults(). */
+    static final List<String> BATCH_RESULTS = Arrays.asList(
+            "rateOfSpreadMax", "rateOfSpreadBacking", "rateOfSpreadFlanking", "directionMaxSpread",
+            "effectiveWindSpeed", "firelineIntensity", "flameLength");
+    private static final JsonFactory jsonFactory = new JsonFactory();
 
     @Context
     private HttpHeaders headers;
@@ -110,4 +141,281 @@ public class SurfaceFireResource {
                 mediaType).build();
     }
 
+    /**
+     * Computes the fire behavior for a JSON array of scenarios.
+     *
+     * @param mimeType Optional. The specified mime-type overrides the Accepts header.
+     * @param input A JSON array of FireScenario objects.
+     * @return A Response streaming a JSON array, CSV rows or binary columns of fire behavior, one
+     * per scenario in input order. A scenario that cannot be computed has an error instead of
+     * results.
+     * @throws IOException if the input cannot be read.
+     */
+    @POST
+    @Path("batch")
+    @Produces({MediaType.APPLICATION_JSON, TEXT_CSV, ColumnarWriter.APPLICATION_COLUMNS})
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response createSurfaceFiresFromJson(
+            @DefaultValue("") @QueryParam("mime-type") String mimeType,
+            InputStream input) throws IOException {
+        try {
+            return createSurfaceFires(mimeType, FireScenario.fromJson(input));
+        } catch (IllegalArgumentException ex) {
+            throw badRequest(ex);
+        }
+    }
+
+    /**
+     * Computes the fire behavior for CSV scenarios.
+     *
+     * @param mimeType Optional. The specified mime-type overrides the Accepts header.
+     * @param input CSV rows of FireScenario values with a header row.
+     * @return A Response streaming a JSON array, CSV rows or binary columns of fire behavior, one
+     * per scenario in input order. A scenario that cannot be computed has an error instead of
+     * results.
+     * @throws IOException if the input cannot be read.
+     */
+    @POST
+    @Path("batch")
+    @Produces({MediaType.APPLICATION_JSON, TEXT_CSV, ColumnarWriter.APPLICATION_COLUMNS})
+    @Consumes(TEXT_CSV)
+    public Response createSurfaceFiresFromCsv(
+            @DefaultValue("") @QueryParam("mime-type") String mimeType,
+            InputStream input) throws IOException {
+        try {
+            return createSurfaceFires(mimeType, FireScenario.fromCsv(input));
+        } catch (IllegalArgumentException ex) {
+            throw badRequest(ex);
+        }
+    }
+
+    private Response createSurfaceFires(String mimeType, List<FireScenario> scenarios) {
+        MediaType mediaType = WebUtil.getPermittedMediaType(mimeType, batchTypes, headers, APPLICATION_JSON_TYPE);
+        boolean gzip = WebUtil.isGzipAccepted(headers);
+        StreamingOutput output = (OutputStream out) -> {
+            // Sync flushes pass the streamed results through the compressor
+            OutputStream stream = gzip ? new GZIPOutputStream(out, 8192, true) : out;
+            try (FireWriter writer = createFireWriter(mediaType, stream)) {
+                BatchProcessor.process(scenarios, SurfaceFireResource::computeSurfaceFire, writer);
+            }
+            if (gzip) {
+                ((GZIPOutputStream) stream).finish();
+            }
+        };
+        Response.ResponseBuilder builder = Response.ok(output, mediaType).header("Vary", "Accept-Encoding");
+        if (gzip) {
+            builder.header("Content-Encoding", "gzip");
+        }
+        return builder.build();
+    }
+
+    private static FireWriter createFireWriter(MediaType mediaType, OutputStream out) throws IOException {
+        if (mediaType.equals(TEXT_CSV_TYPE)) {
+            return new CsvFireWriter(out);
+        }
+        else if (mediaType.equals(ColumnarWriter.APPLICATION_COLUMNS_TYPE)) {
+            return new ColumnarFireWriter(out);
+        }
+        return new JsonFireWriter(out);
+    }
+
+    private static WebApplicationException badRequest(IllegalArgumentException ex) {
+        return new WebApplicationException(ex, Response.status(Status.BAD_REQUEST)
+                .entity(ex.getMessage()).type(TEXT_PLAIN_TYPE).build());
+    }
+
+    /**
+     * Computes the fire behavior of a batch scenario. The fuel is obtained from the shared
+     * SurfaceFuelProvider so that identical fuel scenarios share a fuel bed and hit the fire
+     * behavior cache. Both providers are thread-safe.
+     *
+     * @param scenario The scenario.
+     * @return The fire behavior.
+     * @throws IllegalArgumentException if the fuel model is not valid.
+     */
+    static SurfaceFire computeSurfaceFire(FireScenario scenario) {
+        double[] values = scenario.values;
+        BasicFuelModel fuelModel = BasicFuelModel.from(scenario.getFuelModelNo());
+        if (fuelModel == null || values[FireScenario.FUEL_MODEL] != scenario.getFuelModelNo()) {
+            throw new IllegalArgumentException("Invalid fuelModel: " + values[FireScenario.FUEL_MODEL]);
+        }
+        BasicFuelMoisture fuelMoisture = BasicFuelMoisture.fromDoubles(
+                values[FireScenario.DEAD_1HR],
+                values[FireScenario.DEAD_10HR],
+                values[FireScenario.DEAD_100HR],
+                values[FireScenario.LIVE_HERB],
+                values[FireScenario.LIVE_WOODY]);
+        SurfaceFuel fuel = SurfaceFuelResource.fuelProvider.getSurfaceFuel(fuelModel, fuelMoisture);
+
+        BasicWeather weather = new BasicWeather();
+        weather.setWindSpeed(new Real(WeatherType.WIND_SPEED_MPH, values[FireScenario.WIND_SPEED]));
+        weather.setWindDirection(new Real(WeatherType.WIND_DIR, values[FireScenario.WIND_DIR]));
+        BasicTerrain terrain = new BasicTerrain(
+                values[FireScenario.ASPECT],
+                values[FireScenario.SLOPE],
+                values[FireScenario.ELEVATION]);
+        return provider.getFireBehavior(fuel, weather, terrain);
+    }
+
+    /**
+     * Gets the batch results of a fire: rates of spread [ft/min], direction of max spread [deg],
+     * effective wind speed [mph], fireline intensity [Btu/ft/s] and flame length [ft].
+     *
+     * @param fire The fire behavior.
+     * @return The values named by BATCH_RESULTS.
+     */
+    static double[] getBatchResults(SurfaceFire fire) {
+        return new double[]{
+            fire.getRateOfSpreadMax().getValue(),
+            fire.getRateOfSpreadBacking().getValue(),
+            fire.getRateOfSpreadFlanking().getValue(),
+            fire.getDirectionMaxSpread().getValue(),
+            fire.getEffectiveWindSpeed().getValue(),
+            fire.getFirelineIntensity().getValue(),
+            fire.getFlameLength().getValue()};
+    }
+
+    private interface FireWriter extends BatchProcessor.ResultWriter<FireScenario, SurfaceFire>, Closeable {
+    }
+
+    /**
+     * Writes the batch results as a JSON array of objects with an id and either the results or
+     * an error.
+     */
+    private static class JsonFireWriter implements FireWriter {
+
+        private final JsonGenerator generator;
+
+        JsonFireWriter(OutputStream out) throws IOException {
+            this.generator = jsonFactory.createJsonGenerator(out, JsonEncoding.UTF8);
+            this.generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            this.generator.writeStartArray();
+        }
+
+        @Override
+        public void write(FireScenario scenario, SurfaceFire fire) throws IOException {
+            double[] results = getBatchResults(fire);
+            generator.writeStartObject();
+            generator.writeStringField(FireScenario.ID, scenario.id);
+            for (int i = 0; i < results.length; i++) {
+                if (Double.isNaN(results[i])) {
+                    generator.writeNullField(BATCH_RESULTS.get(i));
+                }
+                else {
+                    generator.writeNumberField(BATCH_RESULTS.get(i), results[i]);
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void writeError(FireScenario scenario, Throwable error) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField(FireScenario.ID, scenario.id);
+            generator.writeStringField("error", String.valueOf(error.getMessage()));
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+
+    /**
+     * Writes the batch results as binary columns: the id and error strings followed by the
+     * BATCH_RESULTS doubles. The results of a failed scenario are NaN.
+     */
+    private static class ColumnarFireWriter implements FireWriter {
+
+        private static final List<String> stringColumns = Arrays.asList(FireScenario.ID, "error");
+        private static final double[] noResults = new double[BATCH_RESULTS.size()];
+
+        static {
+            Arrays.fill(noResults, Double.NaN);
+        }
+
+        private final ColumnarWriter writer;
+
+        ColumnarFireWriter(OutputStream out) throws IOException {
+            this.writer = new ColumnarWriter(out, stringColumns, BATCH_RESULTS);
+        }
+
+        @Override
+        public void write(FireScenario scenario, SurfaceFire fire) throws IOException {
+            writer.addRow(new String[]{scenario.id, null}, getBatchResults(fire));
+        }
+
+        @Override
+        public void writeError(FireScenario scenario, Throwable error) throws IOException {
+            writer.addRow(new String[]{scenario.id, String.valueOf(error.getMessage())}, noResults);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the batch results as CSV with a header row. The error column is empty unless the
+     * scenario failed.
+     */
+    private static class CsvFireWriter implements FireWriter {
+
+        private final Writer writer;
+
+        CsvFireWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.writer.write(FireScenario.ID + "," + String.join(",", BATCH_RESULTS) + ",error\n");
+        }
+
+        @Override
+        public void write(FireScenario scenario, SurfaceFire fire) throws IOException {
+            StringBuilder sb = new StringBuilder(128).append(escape(scenario.id));
+            for (double result : getBatchResults(fire)) {
+                sb.append(',');
+                if (!Double.isNaN(result)) {
+                    sb.append(result);
+                }
+            }
+            writer.write(sb.append(",\n").toString());
+        }
+
+        @Override
+        public void writeError(FireScenario scenario, Throwable error) throws IOException {
+            StringBuilder sb = new StringBuilder(128).append(escape(scenario.id));
+            for (int i = 0; i < BATCH_RESULTS.size(); i++) {
+                sb.append(',');
+            }
+            writer.write(sb.append(',').append(escape(String.valueOf(error.getMessage()))).append('\n').toString());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+
+        /** Quoting is not supported, so the separators are replaced. */
+        private static String escape(String text) {
+            return text.replace(',', ';').replace('\n', ' ').replace('\r', ' ');
+        }
+    }
+
 }
@@ -74,6 +74,35 @@ public class WebUtil {
         return defaultType;
     }
 
+    /**
+     * Determines if the client accepts gzip compressed content.
+     *
+     * @param headers The request headers.
+     * @return True if the Accept-Encoding header includes gzip with a non-zero quality.
+     */
+    public static boolean isGzipAccepted(HttpHeaders headers) {
+        List<String> encodings = headers.getRequestHeader("Accept-Encoding");
+        if (encodings == null) {
+            return false;
+        }
+        for (String header : encodings) {
+            for (String encoding : header.split(",")) {
+                String[] params = encoding.split(";");
+                String coding = params[0].trim();
+                if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                    for (int i = 1; i < params.length; i++) {
+                        String param = params[i].replace(" ", "");
+                        if (param.matches("q=0(\\.0*)?")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private WebUtil() {
     }
 
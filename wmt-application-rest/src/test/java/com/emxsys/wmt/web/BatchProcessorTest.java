@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.web;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class BatchProcessorTest {
+
+    public BatchProcessorTest() {
+    }
+
+    @Test
+    public void testProcess() throws Exception {
+        System.out.println("TESTING: process");
+        List<Integer> items = IntStream.range(0, BatchProcessor.MAX_PENDING * 10).boxed().collect(Collectors.toList());
+        ListWriter writer = new ListWriter();
+        BatchProcessor.process(items, (item) -> {
+            if (item % 7 == 0) {
+                throw new IllegalArgumentException("Item " + item);
+            }
+            // Complete out of order
+            try {
+                Thread.sleep(item % 3);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return item * 2;
+        }, writer);
+        assertEquals(items.size(), writer.results.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i % 7 == 0 ? "Item " + i : Integer.toString(i * 2), writer.results.get(i));
+        }
+        assertTrue(writer.numFlushes > 0);
+    }
+
+    @Test
+    public void testProcessEmpty() throws Exception {
+        System.out.println("TESTING: process empty");
+        ListWriter writer = new ListWriter();
+        BatchProcessor.process(new ArrayList<Integer>(), (item) -> item, writer);
+        assertTrue(writer.results.isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testProcessWriterFailure() throws Exception {
+        System.out.println("TESTING: process writer failure");
+        List<Integer> items = IntStream.range(0, BatchProcessor.MAX_PENDING * 2).boxed().collect(Collectors.toList());
+        BatchProcessor.process(items, (item) -> item, new ListWriter() {
+            @Override
+            public void write(Integer item, Integer result) throws IOException {
+                throw new IOException("Disconnected");
+            }
+        });
+    }
+
+    private static class ListWriter implements BatchProcessor.ResultWriter<Integer, Integer> {
+
+        final List<String> results = new ArrayList<>();
+        int numFlushes;
+
+        @Override
+        public void write(Integer item, Integer result) throws IOException {
+            results.add(result.toString());
+        }
+
+        @Override
+        public void writeError(Integer item, Throwable error) throws IOException {
+            results.add(error.getMessage());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            numFlushes++;
+        }
+    }
+}
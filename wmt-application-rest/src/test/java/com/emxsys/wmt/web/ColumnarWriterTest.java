@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.web;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class ColumnarWriterTest {
+
+    public ColumnarWriterTest() {
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        System.out.println("TESTING: write");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int numRows = ColumnarWriter.BLOCK_SIZE + 10;
+        try (ColumnarWriter writer = new ColumnarWriter(out, Arrays.asList("id", "error"), Arrays.asList("x", "y"))) {
+            for (int i = 0; i < numRows; i++) {
+                writer.addRow(new String[]{"p" + i, i % 2 == 0 ? null : "odd"}, new double[]{i, -i * 0.5});
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        List<String> strings = new ArrayList<>();
+        List<Double> doubles = new ArrayList<>();
+        assertEquals(Arrays.asList("id", "error", "x", "y"), readColumns(buffer, strings, doubles));
+        assertEquals(numRows * 2, strings.size());
+        assertEquals(numRows * 2, doubles.size());
+
+        // The first block holds BLOCK_SIZE ids, BLOCK_SIZE errors, then the x and y columns
+        int blockSize = ColumnarWriter.BLOCK_SIZE;
+        assertEquals("p0", strings.get(0));
+        assertEquals("p1", strings.get(1));
+        assertNull(strings.get(blockSize));
+        assertEquals("odd", strings.get(blockSize + 1));
+        assertEquals(1.0, doubles.get(1), 0);
+        assertEquals(-0.5, doubles.get(blockSize + 1), 0);
+        // The second, partial block
+        assertEquals("p" + blockSize, strings.get(blockSize * 2));
+        assertEquals(blockSize, doubles.get(blockSize * 2), 0);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    /**
+     * Reads the columnar format, appending the values of the string and double columns in file
+     * order.
+     *
+     * @return The column names.
+     */
+    static List<String> readColumns(ByteBuffer buffer, List<String> strings, List<Double> doubles) {
+        byte[] magic = new byte[4];
+        buffer.get(magic);
+        assertArrayEquals(ColumnarWriter.MAGIC, magic);
+        assertEquals(ColumnarWriter.VERSION, buffer.getInt());
+        int numStrings = buffer.getInt();
+        int numDoubles = buffer.getInt();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < numStrings + numDoubles; i++) {
+            names.add(readString(buffer));
+        }
+        int numRows;
+        while ((numRows = buffer.getInt()) > 0) {
+            for (int i = 0; i < numStrings * numRows; i++) {
+                strings.add(readString(buffer));
+            }
+            for (int i = 0; i < numDoubles * numRows; i++) {
+                doubles.add(buffer.getDouble());
+            }
+        }
+        return names;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
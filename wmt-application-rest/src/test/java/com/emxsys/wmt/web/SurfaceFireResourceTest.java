@@ -47,8 +47,17 @@ import com.emxsys.wildfire.behavior.SurfaceFuelProvider;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.multipart.FormDataMultiPart;
 import com.sun.jersey.test.framework.JerseyTest;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 import javax.ws.rs.core.MediaType;
 import static javax.ws.rs.core.MediaType.*;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import visad.Real;
@@ -180,4 +189,109 @@ public class SurfaceFireResourceTest extends JerseyTest {
         
     }
 
+    @Test
+    public void testCreateSurfaceFiresFromJson() throws Exception {
+        System.out.println("TESTING: createSurfaceFiresFromJson");
+        String scenarios = "["
+                + "{\"id\":\"a\", \"fuelModel\":4, \"dead1Hr\":6, \"dead10Hr\":7, \"dead100Hr\":8, "
+                + "\"liveHerb\":60, \"liveWoody\":90, \"windSpeed\":5, \"windDir\":90, \"aspect\":235, \"slope\":20},"
+                + "{\"fuelModel\":999, \"dead1Hr\":6, \"dead10Hr\":7, \"dead100Hr\":8, \"liveHerb\":60, \"liveWoody\":90},"
+                + "{\"id\":\"c\", \"fuelModel\":\"4\", \"dead1Hr\":6, \"dead10Hr\":7, \"dead100Hr\":8, "
+                + "\"liveHerb\":60, \"liveWoody\":90, \"windSpeed\":5, \"windDir\":90, \"aspect\":235, \"slope\":20}"
+                + "]";
+        ClientResponse response = super.webResource.path("surfacefire/batch")
+                .type(APPLICATION_JSON_TYPE)
+                .accept(APPLICATION_JSON)
+                .post(ClientResponse.class, scenarios);
+        assertTrue("Status: expected 200 but got " + response.getStatus(), response.getStatus() == 200);
+        JsonNode results = new ObjectMapper().readTree(response.getEntity(String.class));
+        assertEquals(3, results.size());
+
+        SurfaceFire expResult = getExpectedBatchResult();
+        assertEquals("a", results.get(0).get("id").getTextValue());
+        assertEquals(expResult.getRateOfSpreadMax().getValue(), results.get(0).get("rateOfSpreadMax").getDoubleValue(), 1e-9);
+        assertEquals(expResult.getFlameLength().getValue(), results.get(0).get("flameLength").getDoubleValue(), 1e-9);
+        assertEquals("2", results.get(1).get("id").getTextValue());
+        assertNotNull(results.get(1).get("error"));
+        assertEquals("c", results.get(2).get("id").getTextValue());
+        assertEquals(expResult.getRateOfSpreadMax().getValue(), results.get(2).get("rateOfSpreadMax").getDoubleValue(), 1e-9);
+    }
+
+    @Test
+    public void testCreateSurfaceFiresFromCsv() {
+        System.out.println("TESTING: createSurfaceFiresFromCsv");
+        String scenarios = "id,fuelModel,dead1Hr,dead10Hr,dead100Hr,liveHerb,liveWoody,windSpeed,windDir,aspect,slope\n"
+                + "a,4,6,7,8,60,90,5,90,235,20\n"
+                + "b,4,6,7,8,60,90,5,90,235,20\n";
+        ClientResponse response = super.webResource.path("surfacefire/batch")
+                .type(SurfaceFireResource.TEXT_CSV_TYPE)
+                .accept(SurfaceFireResource.TEXT_CSV)
+                .post(ClientResponse.class, scenarios);
+        assertTrue("Status: expected 200 but got " + response.getStatus(), response.getStatus() == 200);
+        String[] rows = response.getEntity(String.class).split("\n");
+        assertEquals(3, rows.length);
+        assertTrue(rows[0].startsWith("id,rateOfSpreadMax,"));
+        String[] columns = rows[1].split(",", -1);
+        assertEquals("a", columns[0]);
+        assertEquals(getExpectedBatchResult().getRateOfSpreadMax().getValue(), Double.parseDouble(columns[1]), 1e-9);
+        assertEquals("", columns[columns.length - 1]);
+        assertTrue(rows[2].startsWith("b," + columns[1] + ","));
+    }
+
+    @Test
+    public void testCreateSurfaceFiresBadRequest() {
+        System.out.println("TESTING: createSurfaceFires bad request");
+        ClientResponse response = super.webResource.path("surfacefire/batch")
+                .type(SurfaceFireResource.TEXT_CSV_TYPE)
+                .accept(APPLICATION_JSON)
+                .post(ClientResponse.class, "id,fuelModel\na,4\n");
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testCreateSurfaceFiresColumnsGzip() throws Exception {
+        System.out.println("TESTING: createSurfaceFires columns with gzip");
+        String scenarios = "id,fuelModel,dead1Hr,dead10Hr,dead100Hr,liveHerb,liveWoody,windSpeed,windDir,aspect,slope\n"
+                + "a,4,6,7,8,60,90,5,90,235,20\n"
+                + "b,999,6,7,8,60,90,5,90,235,20\n";
+        ClientResponse response = super.webResource.path("surfacefire/batch")
+                .type(SurfaceFireResource.TEXT_CSV_TYPE)
+                .accept(ColumnarWriter.APPLICATION_COLUMNS)
+                .header("Accept-Encoding", "gzip")
+                .post(ClientResponse.class, scenarios);
+        assertTrue("Status: expected 200 but got " + response.getStatus(), response.getStatus() == 200);
+        assertEquals(ColumnarWriter.APPLICATION_COLUMNS_TYPE, response.getType());
+        assertEquals("gzip", response.getHeaders().getFirst("Content-Encoding"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(response.getEntityInputStream())) {
+            byte[] chunk = new byte[4096];
+            int length;
+            while ((length = in.read(chunk)) > 0) {
+                bytes.write(chunk, 0, length);
+            }
+        }
+        List<String> strings = new ArrayList<>();
+        List<Double> doubles = new ArrayList<>();
+        List<String> names = ColumnarWriterTest.readColumns(
+                ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN), strings, doubles);
+        assertEquals("rateOfSpreadMax", names.get(2));
+        // ids, errors, then the result columns
+        assertEquals("a", strings.get(0));
+        assertEquals("b", strings.get(1));
+        assertNull(strings.get(2));
+        assertNotNull(strings.get(3));
+        assertEquals(getExpectedBatchResult().getRateOfSpreadMax().getValue(), doubles.get(0), 1e-9);
+        assertTrue(Double.isNaN(doubles.get(1)));
+    }
+
+    private static SurfaceFire getExpectedBatchResult() {
+        SurfaceFuel fuel = SurfaceFuel.from(BasicFuelModel.from(4), BasicFuelMoisture.fromDoubles(6, 7, 8, 60, 90));
+        BasicWeather weather = new BasicWeather();
+        weather.setWindSpeed(new Real(WeatherType.WIND_SPEED_MPH, 5));
+        weather.setWindDirection(new Real(WeatherType.WIND_DIR, 90));
+        BasicTerrain terrain = new BasicTerrain(235, 20, 0);
+        return new SurfaceFireProvider().getFireBehavior(fuel, weather, terrain);
+    }
+
 }
@@ -30,24 +30,25 @@
 package com.emxsys.wmt.cps.fireground;
 
 import com.emxsys.gis.api.Coord2D;
-import com.emxsys.gis.api.BasicTerrain;
 import com.emxsys.weather.api.Weather;
 import com.emxsys.wildfire.api.FireBehaviorProvider;
 import com.emxsys.wildfire.api.BasicFireBehavior;
-import com.emxsys.wildfire.api.FireEnvironment;
-import com.emxsys.wildfire.api.FuelCondition;
-import com.emxsys.wildfire.api.BasicFuelCondition;
+import com.emxsys.wildfire.api.BasicFuelModel;
 import com.emxsys.wildfire.api.FuelModel;
-import com.emxsys.wildfire.api.FuelMoisture;
 import static com.emxsys.wildfire.api.WildfireType.*;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.util.Lookup;
 import visad.Data;
 import visad.DateTime;
 import visad.FieldImpl;
 import visad.FlatField;
-import visad.Real;
 import visad.RealTuple;
 import visad.RealTupleType;
 import visad.RealType;
@@ -97,7 +98,12 @@ public class FireBehaviorModel {
      */
     private static final RealType timeType = RealType.getRealTypeByName("Time");
     /**
-     * The fire weather data
+     * The hourly fire behavior values; the primary store for computed models
+     */
+    private SpatioTemporalGrid maxBehaviorGrid;
+    private SpatioTemporalGrid minBehaviorGrid;
+    /**
+     * The hourly fire behavior data; views of the grids for computed models
      */
     private FieldImpl hourlyMaxBehavior;
     private FieldImpl hourlyMinBehavior;
@@ -139,7 +145,7 @@ public class FireBehaviorModel {
         this.fireBehaviorService = Lookup.getDefault().lookup(FireBehaviorProvider.class);
 
         if (immediate) {
-            getMaxFireBehavorData();
+            getMaxFireBehaviorGrid();
         }
 
     }
@@ -170,20 +176,61 @@ public class FireBehaviorModel {
         return terrain;
     }
 
+    /**
+     * Gets the hourly fire behavior values with wind for a computed model.
+     *
+     * @return the grid of FIRE_BEHAVIOR values; null if the model was created from existing data
+     */
+    public final SpatioTemporalGrid getMaxFireBehaviorGrid() {
+        if (this.maxBehaviorGrid == null && this.domain != null) {
+            createFireBehavior();
+        }
+        return this.maxBehaviorGrid;
+    }
+
+    /**
+     * Gets the hourly fire behavior values without wind for a computed model.
+     *
+     * @return the grid of FIRE_BEHAVIOR values; null if the model was created from existing data
+     */
+    public final SpatioTemporalGrid getMinFireBehaviorGrid() {
+        if (this.minBehaviorGrid == null && this.domain != null) {
+            createFireBehavior();
+        }
+        return this.minBehaviorGrid;
+    }
+
     public BasicFireBehavior getMaxFireBehavior(DateTime temporal, Coord2D spatial) {
-        if (this.hourlyMaxBehavior == null) {
-            this.hourlyMaxBehavior = createFireBehavior();
+        SpatioTemporalGrid grid = getMaxFireBehaviorGrid();
+        if (grid != null) {
+            return getFireBehavior(grid, temporal, spatial);
         }
         return getFireBehavior(this.hourlyMaxBehavior, temporal, spatial);
     }
 
     public BasicFireBehavior getMinFireBehavior(DateTime temporal, Coord2D spatial) {
-        if (this.hourlyMinBehavior == null) {
-            this.hourlyMinBehavior = createFireBehavior();
+        SpatioTemporalGrid grid = getMinFireBehaviorGrid();
+        if (grid != null) {
+            return getFireBehavior(grid, temporal, spatial);
         }
         return getFireBehavior(this.hourlyMinBehavior, temporal, spatial);
     }
 
+    private static BasicFireBehavior getFireBehavior(SpatioTemporalGrid grid, DateTime temporal,
+                                                     Coord2D spatial) {
+        try {
+            int temporalIndex = grid.getTemporalIndex(temporal);
+            int spatialIndex = grid.getSpatialIndex(spatial);
+            if (temporalIndex < 0 || spatialIndex < 0) {
+                return BasicFireBehavior.INVALID_TUPLE;
+            }
+            return getFireBehaviorAt(grid, temporalIndex, spatialIndex);
+        } catch (VisADException ex) {
+            LOG.severe(ex.toString());
+            throw new RuntimeException(ex);
+        }
+    }
+
     private static BasicFireBehavior getFireBehavior(FieldImpl hourlyBehavior, DateTime temporal,
                                                      Coord2D spatial) {
         try {
@@ -200,19 +247,67 @@ public class FireBehaviorModel {
     }
 
     public BasicFireBehavior getMaxFireBehaviorAt(int temporalIndex, int spatialIndex) {
-        if (this.hourlyMaxBehavior == null) {
-            this.hourlyMaxBehavior = createFireBehavior();
+        SpatioTemporalGrid grid = getMaxFireBehaviorGrid();
+        if (grid != null) {
+            return getFireBehaviorAt(grid, temporalIndex, spatialIndex);
         }
         return getFireBehaviorAt(this.hourlyMaxBehavior, temporalIndex, spatialIndex);
     }
 
     public BasicFireBehavior getMinFireBehaviorAt(int temporalIndex, int spatialIndex) {
-        if (this.hourlyMinBehavior == null) {
-            this.hourlyMinBehavior = createFireBehavior();
+        SpatioTemporalGrid grid = getMinFireBehaviorGrid();
+        if (grid != null) {
+            return getFireBehaviorAt(grid, temporalIndex, spatialIndex);
         }
         return getFireBehaviorAt(this.hourlyMinBehavior, temporalIndex, spatialIndex);
     }
 
+    /**
+     * Gets a fire behavior value with wind without creating any VisAD objects.
+     *
+     * @param temporalIndex the temporal domain index
+     * @param spatialIndex the spatial domain index
+     * @param component the FIRE_BEHAVIOR component index
+     * @return the value in SI units
+     */
+    public double getMaxFireBehaviorValue(int temporalIndex, int spatialIndex, int component) {
+        SpatioTemporalGrid grid = getMaxFireBehaviorGrid();
+        if (grid != null) {
+            return grid.get(component, temporalIndex, spatialIndex);
+        }
+        return getMaxFireBehaviorAt(temporalIndex, spatialIndex).getValues()[component];
+    }
+
+    /**
+     * Gets a fire behavior value without wind without creating any VisAD objects.
+     *
+     * @param temporalIndex the temporal domain index
+     * @param spatialIndex the spatial domain index
+     * @param component the FIRE_BEHAVIOR component index
+     * @return the value in SI units
+     */
+    public double getMinFireBehaviorValue(int temporalIndex, int spatialIndex, int component) {
+        SpatioTemporalGrid grid = getMinFireBehaviorGrid();
+        if (grid != null) {
+            return grid.get(component, temporalIndex, spatialIndex);
+        }
+        return getMinFireBehaviorAt(temporalIndex, spatialIndex).getValues()[component];
+    }
+
+    private static BasicFireBehavior getFireBehaviorAt(SpatioTemporalGrid grid, int temporalIndex,
+                                                       int spatialIndex) {
+        try {
+            return new BasicFireBehavior(
+                    grid.get(0, temporalIndex, spatialIndex),
+                    grid.get(1, temporalIndex, spatialIndex),
+                    grid.get(2, temporalIndex, spatialIndex),
+                    grid.get(3, temporalIndex, spatialIndex));
+        } catch (VisADException ex) {
+            LOG.severe(ex.toString());
+            throw new RuntimeException(ex);
+        }
+    }
+
     private static BasicFireBehavior getFireBehaviorAt(FieldImpl hourlyBehavior, int temporalIndex,
                                                        int spatialIndex) {
         try {
@@ -232,8 +327,8 @@ public class FireBehaviorModel {
      * @return hourly weather
      */
     public final FieldImpl getMaxFireBehavorData() {
-        if (this.hourlyMaxBehavior == null) {
-            this.hourlyMaxBehavior = createFireBehavior();
+        if (this.hourlyMaxBehavior == null && getMaxFireBehaviorGrid() != null) {
+            this.hourlyMaxBehavior = createFieldView(this.maxBehaviorGrid);
         }
         return this.hourlyMaxBehavior;
     }
@@ -245,78 +340,110 @@ public class FireBehaviorModel {
      * @return hourly weather
      */
     public final FieldImpl getMinFireBehavorData() {
-        if (this.hourlyMaxBehavior == null) {
-            this.hourlyMaxBehavior = createFireBehavior();
+        if (this.hourlyMinBehavior == null && getMinFireBehaviorGrid() != null) {
+            this.hourlyMinBehavior = createFieldView(this.minBehaviorGrid);
         }
         return this.hourlyMinBehavior;
     }
 
-    private FieldImpl createFireBehavior() {
+    private static FieldImpl createFieldView(SpatioTemporalGrid grid) {
+        try {
+            return grid.toFieldImpl();
+        } catch (VisADException | RemoteException ex) {
+            LOG.severe(ex.toString());
+        }
+        return null;
+    }
+
+    private void createFireBehavior() {
         try {
             if (this.fireBehaviorService == null) {
                 throw new IllegalStateException("A FireBehaviorService wasn't found.  "
                         + "Ensure the module providing the surface fire behavior is installed.");
             }
-            FlatField maxBehaviorFlatField = this.domain.newSpatialField(behaviorType);
-            FlatField minBehaviorFlatField = this.domain.newSpatialField(behaviorType);
-            FieldImpl hourlyMaxBehaviorField = this.domain.newTemporalField(maxBehaviorFlatField.getType());
-            FieldImpl hourlyMinBehaviorField = this.domain.newTemporalField(minBehaviorFlatField.getType());
-
-            final int numLatLons = this.domain.getSpatialDomainSet().getLength();
-            final int numTimes = this.domain.getTemporalDomainSet().getLength();
+            final SpatioTemporalGrid maxGrid = new SpatioTemporalGrid(this.domain, behaviorType);
+            final SpatioTemporalGrid minGrid = new SpatioTemporalGrid(this.domain, behaviorType);
+            final int numLatLons = maxGrid.getNumCells();
+            final int numTimes = maxGrid.getNumTimes();
+
+            // Create the fire behavior ouput range(s) for a single hour; reused for each hour
+            final int numDims = behaviorType.getDimension();
+            final double[][] behaviorMaxSamples = new double[numDims][numLatLons];
+            final double[][] behaviorMinSamples = new double[numDims][numLatLons];
+
+            // We know that all the spatial data sets are coincident with the spatial domain, 
+            // so we can use the samples directly as column arrays indexed by xy.
+            final double[][] terrainSamples = this.terrain.getTerrainData().getValues(false);
+            final double[] aspects = terrainSamples[0];
+            final double[] slopes = terrainSamples[1];
+
+            // Map the fuel model numbers to a table of the distinct fuel models
+            final double[] fuelModelNos = this.fuelTypes.getFuelData().getValues(false)[0];
+            final int[] fuelIndex = new int[numLatLons];
+            final List<FuelModel> fuelModelList = new ArrayList<>();
+            final Map<Integer, Integer> fuelModelIndices = new HashMap<>();
+            for (int xy = 0; xy < numLatLons; xy++) {
+                if (Double.isNaN(fuelModelNos[xy])) {
+                    fuelIndex[xy] = -1;
+                    continue;
+                }
+                int fuelModelNo = (int) Math.round(fuelModelNos[xy]);
+                Integer index = fuelModelIndices.get(fuelModelNo);
+                if (index == null) {
+                    index = fuelModelList.size();
+                    fuelModelList.add(BasicFuelModel.from(fuelModelNo));
+                    fuelModelIndices.put(fuelModelNo, index);
+                }
+                fuelIndex[xy] = index;
+            }
+            final FuelModel[] fuelModels = fuelModelList.toArray(new FuelModel[fuelModelList.size()]);
 
-            // Create the fire behavior ouput range(s) based on the spatial domain samples
-            double[][] behaviorMaxSamples = new double[behaviorType.getDimension()][numLatLons];
-            double[][] behaviorMinSamples = new double[behaviorType.getDimension()][numLatLons];
+            // The fuel moistures for a single hour; reused for each hour
+            final double[][] moistureSamples = new double[5][numLatLons];
 
-            // Loop through the time domain
+            // Compute each hour, batching the tiles of the lat/lon domain
             for (int t = 0; t < numTimes; t++) {
-                // Get the general wx at this time
-                Weather genWx = this.weather.getWeatherAt(t);
-                System.out.println("General Wx: " + genWx.toString());
-
-                // ... and the lat/lon domain
-                for (int xy = 0; xy < numLatLons; xy++) {
-                    // We know that all the spatial data sets ar coincident 
-                    // with the spatial domain, so we can use the same index 
-                    // to retrieve the value (versus calling "evaluate" with a lat/lon)
-
-                    FuelModel fuelModel = this.fuelTypes.getFuelModelAt(xy);
-                    RealTuple fuelTemp = this.fuelTemps.getFuelTemperatureAt(t, xy);
-                    FuelMoisture fuelMoisture = this.moistures.getFuelMoistureAt(t, xy);
-                    BasicTerrain terrainTuple = this.terrain.getTerrainSample(xy);
-
-                    // Create the fire behavior input parameters
-                    FuelCondition fuelCondition = BasicFuelCondition.fromReals(
-                            fuelMoisture, fuelTemp.getRealComponents()[0]);
-
-                    FireEnvironment fire = fireBehaviorService.computeFireBehavior(
-                            fuelModel, fuelCondition,
-                            genWx, terrainTuple);
-
-                    RealTuple maxFireBehaviorTuple = (RealTuple) fire.fireBehavior;
-                    RealTuple minFireBehaviorTuple = (RealTuple) fire.fireBehaviorNoWnd;
-                    for (int dim = 0; dim < behaviorType.getDimension(); dim++) {
-                        Real maxComponent = (Real) maxFireBehaviorTuple.getComponent(dim);
-                        Real minComponent = (Real) minFireBehaviorTuple.getComponent(dim);
-                        behaviorMaxSamples[dim][xy] = maxComponent.getValue();
-                        behaviorMinSamples[dim][xy] = minComponent.getValue();
+                final int hour = t;
+                final Weather genWx = this.weather.getWeatherAt(t);
+                LOG.log(Level.FINE, "General Wx: {0}", genWx);
+                final double[] fuelTempSamples = getSpatialSamples(this.fuelTemps.getFuelTemperatureData(), t, numLatLons);
+                this.moistures.getFuelMoistureSamples(t, moistureSamples);
+
+                TileExecutor.forEachTile(numLatLons, (from, to) -> {
+                    fireBehaviorService.computeFireBehavior(fuelModels, fuelIndex, fuelTempSamples,
+                            moistureSamples[0], moistureSamples[1], moistureSamples[2],
+                            moistureSamples[3], moistureSamples[4],
+                            slopes, aspects, genWx,
+                            behaviorMaxSamples, behaviorMinSamples,
+                            from, to);
+                    for (int i = 0; i < numDims; i++) {
+                        maxGrid.setValues(i, hour, behaviorMaxSamples[i], from, to);
+                        minGrid.setValues(i, hour, behaviorMinSamples[i], from, to);
                     }
-
-                }
-                maxBehaviorFlatField.setSamples(behaviorMaxSamples);
-                minBehaviorFlatField.setSamples(behaviorMinSamples);
-                hourlyMaxBehaviorField.setSample(t, maxBehaviorFlatField);
-                hourlyMinBehaviorField.setSample(t, minBehaviorFlatField);
+                });
             }
-            this.hourlyMaxBehavior = hourlyMaxBehaviorField;
-            this.hourlyMinBehavior = hourlyMinBehaviorField;
+            this.maxBehaviorGrid = maxGrid;
+            this.minBehaviorGrid = minGrid;
 
-            return hourlyMaxBehaviorField;
-
-        } catch (IllegalStateException | VisADException | RemoteException ex) {
+        } catch (IllegalStateException | IllegalArgumentException | VisADException | RemoteException ex) {
             LOG.severe(ex.toString());
         }
-        return null;
+    }
+
+    /**
+     * Gets the first range component of the spatial field at the given time as a column array
+     * indexed by the spatial domain. A field with a single sample, e.g., a fixed fuel moisture, is
+     * expanded to fill the column.
+     */
+    private static double[] getSpatialSamples(FieldImpl hourlyField, int temporalIndex, int numLatLons)
+            throws VisADException, RemoteException {
+        FlatField field = (FlatField) hourlyField.getSample(temporalIndex);
+        double[] values = field.getValues(false)[0];
+        if (values.length == numLatLons) {
+            return values;
+        }
+        double[] column = new double[numLatLons];
+        Arrays.fill(column, values[0]);
+        return column;
     }
 }
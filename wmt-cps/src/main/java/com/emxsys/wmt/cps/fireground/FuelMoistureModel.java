@@ -39,6 +39,8 @@ import com.emxsys.wildfire.api.FuelMoisture;
 import static com.emxsys.wildfire.api.WildfireType.*;
 import static com.emxsys.wmt.cps.fireground.FuelMoistureUtil.*;
 import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.util.Exceptions;
 import visad.Data;
@@ -68,7 +70,9 @@ public class FuelMoistureModel {
     private final FuelTemperatureModel fuelTemps;
     /** A fuel moisture scenario for deriving fuel moistures */
     private final FuelMoisture scenario;
-    /** The hourly 1 hour fuel moisture data */
+    /** The hourly 1 hour fuel moisture values; the primary store for computed models */
+    private SpatioTemporalGrid fineFuelMoistures;
+    /** The hourly 1 hour fuel moisture data; a view of the grid for computed models */
     private FieldImpl moisture1h;
     /** The hourly 10 hour fuel moisture data */
     private FieldImpl moisture10h;
@@ -109,7 +113,7 @@ public class FuelMoistureModel {
         this.fuelTemps = temps;
         this.scenario = scenario;
         if (immediate) {
-            getDead1HrFuelMoistureData();
+            getFineFuelMoistureGrid();
             getDead10HrFuelMoistureData();
             getDead100HrFuelMoistureData();
             getLiveHerbFuelMoistureData();
@@ -166,6 +170,14 @@ public class FuelMoistureModel {
 
     public BasicFuelMoisture getFuelMoistureAt(int timeIndex, int spatialIndex) {
         try {
+            if (getFineFuelMoistureGrid() != null) {
+                return BasicFuelMoisture.fromReals(
+                        new Real(FUEL_MOISTURE_1H, getDead1HrFuelMoistureValue(timeIndex, spatialIndex)),
+                        this.scenario.getDead10HrFuelMoisture(),
+                        this.scenario.getDead100HrFuelMoisture(),
+                        this.scenario.getLiveHerbFuelMoisture(),
+                        this.scenario.getLiveWoodyFuelMoisture());
+            }
             Real dead1Hr = (Real) ((FieldImpl) getDead1HrFuelMoistureData().getSample(timeIndex)).getSample(spatialIndex);
             Real dead10Hr = (Real) ((FieldImpl) getDead10HrFuelMoistureData().getSample(timeIndex)).getSample(0);
             Real dead100Hr = (Real) ((FieldImpl) getDead100HrFuelMoistureData().getSample(timeIndex)).getSample(0);
@@ -181,9 +193,81 @@ public class FuelMoistureModel {
         }
     }
 
+    /**
+     * Gets the hourly 1 hour fuel moisture values for a computed model.
+     *
+     * @return the grid of fine fuel moistures; null if the model was created from existing data
+     */
+    public final SpatioTemporalGrid getFineFuelMoistureGrid() {
+        if (this.fineFuelMoistures == null && this.domain != null) {
+            this.fineFuelMoistures = createFineFuelMoisture(this.scenario.getDead1HrFuelMoisture());
+        }
+        return this.fineFuelMoistures;
+    }
+
+    /**
+     * Gets the 1 hour fuel moisture value without creating any VisAD objects.
+     *
+     * @param timeIndex the temporal domain index
+     * @param spatialIndex the spatial domain index
+     * @return the fuel moisture [percent]
+     */
+    public double getDead1HrFuelMoistureValue(int timeIndex, int spatialIndex) {
+        SpatioTemporalGrid grid = getFineFuelMoistureGrid();
+        if (grid != null) {
+            return grid.get(0, timeIndex, spatialIndex);
+        }
+        return getFuelMoistureAt(timeIndex, spatialIndex).getDead1HrFuelMoisture().getValue();
+    }
+
+    /**
+     * Gets the fuel moistures for one hour as column arrays indexed by the spatial domain:<br/>
+     * {dead1Hr, dead10Hr, dead100Hr, liveHerb, liveWoody}. Fuel moistures that don't vary by
+     * location are replicated to fill the columns.
+     *
+     * @param timeIndex the temporal domain index
+     * @param samples receives the five columns; each must hold numLatLons values
+     */
+    public void getFuelMoistureSamples(int timeIndex, double[][] samples) {
+        SpatioTemporalGrid grid = getFineFuelMoistureGrid();
+        if (grid != null) {
+            grid.getValues(0, timeIndex, samples[0]);
+            Arrays.fill(samples[1], this.scenario.getDead10HrFuelMoisture().getValue());
+            Arrays.fill(samples[2], this.scenario.getDead100HrFuelMoisture().getValue());
+            Arrays.fill(samples[3], this.scenario.getLiveHerbFuelMoisture().getValue());
+            Arrays.fill(samples[4], this.scenario.getLiveWoodyFuelMoisture().getValue());
+            return;
+        }
+        try {
+            getColumnSamples(getDead1HrFuelMoistureData(), timeIndex, samples[0]);
+            getColumnSamples(getDead10HrFuelMoistureData(), timeIndex, samples[1]);
+            getColumnSamples(getDead100HrFuelMoistureData(), timeIndex, samples[2]);
+            getColumnSamples(getLiveHerbFuelMoistureData(), timeIndex, samples[3]);
+            getColumnSamples(getLiveWoodyFuelMoistureData(), timeIndex, samples[4]);
+        } catch (VisADException | RemoteException ex) {
+            LOG.severe(ex.toString());
+            Exceptions.printStackTrace(ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static void getColumnSamples(FieldImpl hourlyField, int timeIndex, double[] column)
+            throws VisADException, RemoteException {
+        double[] values = ((FlatField) hourlyField.getSample(timeIndex)).getValues(false)[0];
+        if (values.length == column.length) {
+            System.arraycopy(values, 0, column, 0, values.length);
+        } else {
+            Arrays.fill(column, values[0]);
+        }
+    }
+
     public final FieldImpl getDead1HrFuelMoistureData() {
-        if (this.moisture1h == null) {
-            this.moisture1h = createFineFuelMoisture(this.scenario.getDead1HrFuelMoisture());
+        if (this.moisture1h == null && getFineFuelMoistureGrid() != null) {
+            try {
+                this.moisture1h = this.fineFuelMoistures.toFieldImpl();
+            } catch (VisADException | RemoteException ex) {
+                LOG.severe(ex.toString());
+            }
         }
         return this.moisture1h;
     }
@@ -238,75 +322,73 @@ public class FuelMoistureModel {
      *
      * @param initialFuelMoisture
      * @return hourly fuel moistures
-     *
-     * @param initialFuelMoisture
-     * @return
      */
-    private FieldImpl createFineFuelMoisture(Real initialFuelMoisture) {
+    private SpatioTemporalGrid createFineFuelMoisture(Real initialFuelMoisture) {
         try {
-            FlatField moistureFlatField = this.domain.newSpatialField(FUEL_MOISTURE_1H);
-            FieldImpl hourlyMoistureField = this.domain.newTemporalField(moistureFlatField.getType());
-
-            final int numLatLons = this.domain.getSpatialDomainSetLength();
-            final int numTimes = this.domain.getTemporalDomainSet().getLength();
-            float[][] values = new float[1][numLatLons];
-            float[] m_1400 = new float[numLatLons];
-            float[] m_1200 = new float[numLatLons];
-            float[] prev_m = new float[numLatLons];
-
-            // Update the the field samples: loop through the time domain
+            final SpatioTemporalGrid values = new SpatioTemporalGrid(this.domain, FUEL_MOISTURE_1H);
+            final int numLatLons = values.getNumCells();
+            final int numTimes = values.getNumTimes();
+            final float[] m_1400 = new float[numLatLons];
+
+            // Get the local time and general weather for each hour in the time domain
+            final double[] local24HourTimes = new double[numTimes];
+            final BasicWeather[] genWxs = new BasicWeather[numTimes];
             for (int t = 0; t < numTimes; t++) {
                 DateTime dateTime = this.domain.getDateTimeAt(t);
-                double local24HourTime = Times.toClockTime(dateTime);
-
-                // Set the fuel moisture sample(s) in the terrain's lat/lon domain
-                for (int xy = 0; xy < numLatLons; xy++) {
-                    BasicWeather genWx = weather.getWeatherAt(t);
-                    RealTuple fuelCond = fuelTemps.getFuelTemperatureAt(t, xy);
+                local24HourTimes[t] = Times.toClockTime(dateTime);
+                genWxs[t] = weather.getWeatherAt(t);
+            }
 
-                    Real T_f = fuelCond.getRealComponents()[0]; // Temp adjacent fuel
-                    Real H_f = fuelCond.getRealComponents()[1]; // Humidity adjacent fuel
-                    Real W = genWx.getWindSpeed();              // 20 ft wind speed
+            // Each hour's fine fuel moisture depends only upon the previous hour at the same 
+            // location, so each tile marches through the time domain independently of the others.
+            TileExecutor.forEachTile(numLatLons, (from, to) -> {
+                for (int t = 0; t < numTimes; t++) {
+                    double local24HourTime = local24HourTimes[t];
+                    Real W = genWxs[t].getWindSpeed();              // 20 ft wind speed
                     Real R = new Real(WeatherType.RAINFALL_INCH, 0.0);// Rainfall [inches]
 
-                    // Get the previous hour's value fuel moisture
-                    Real m_0 = (t > 0) ? new Real(FUEL_MOISTURE_1H, prev_m[xy]) : initialFuelMoisture;
-                    Real m_14 = (m_1400[xy] > 0f) ? new Real(FUEL_MOISTURE_1H, m_1400[xy]) : initialFuelMoisture;
-
-                    // Noontime weather is used to compute 1400 fuel moisture; 
-                    // it will be used in a subsequent iteration in the loop.
-                    if (local24HourTime >= 11.5 && local24HourTime < 12.5) {
-                        Real m = calcCanadianStandardDailyFineFuelMoisture(m_0, T_f, H_f, W, R);
-                        m_1400[xy] = (float) m.getValue();
-                    }
+                    // Set the fuel moisture sample(s) in the tile's portion of the lat/lon domain
+                    for (int xy = from; xy < to; xy++) {
+                        RealTuple fuelCond = fuelTemps.getFuelTemperatureAt(t, xy);
 
-                    // Compute the hourly fine fuel moisture...
-                    float m;
-
-                    // At 1300 intepolate between noon and 1400
-                    if (local24HourTime >= 12.5 && local24HourTime < 13.5) {
-                        m = (float) (m_0.getValue() + m_14.getValue()) / 2.0f;
-                    } // At 1400 use the fuel moisture that was computed at 1200 (see above)
-                    else if (local24HourTime >= 13.5 && local24HourTime < 14.5) {
-                        m = (float) m_14.getValue();
-                    } // Otherwise, compute fine fuel moisture for this hour
-                    else {
-                        m = (float) calcCanadianHourlyFineFuelMoisture(m_0, T_f, H_f, W).getValue();
-                    }
-                    values[0][xy] = m;
-                    prev_m[xy] = m;
+                        Real T_f = fuelCond.getRealComponents()[0]; // Temp adjacent fuel
+                        Real H_f = fuelCond.getRealComponents()[1]; // Humidity adjacent fuel
 
-                }
+                        // Get the previous hour's value fuel moisture
+                        Real m_0 = (t > 0) ? new Real(FUEL_MOISTURE_1H, values.get(0, t - 1, xy)) : initialFuelMoisture;
+                        Real m_14 = (m_1400[xy] > 0f) ? new Real(FUEL_MOISTURE_1H, m_1400[xy]) : initialFuelMoisture;
 
-                // Add our samples to the fuel moisture FlatField
-                moistureFlatField.setSamples(values);
+                        // Noontime weather is used to compute 1400 fuel moisture; 
+                        // it will be used in a subsequent iteration in the loop.
+                        if (local24HourTime >= 11.5 && local24HourTime < 12.5) {
+                            Real m = calcCanadianStandardDailyFineFuelMoisture(m_0, T_f, H_f, W, R);
+                            m_1400[xy] = (float) m.getValue();
+                        }
 
-                System.out.println("Hour = " + t + ", Tuple[0] = " + moistureFlatField.getSample(0).toString());
+                        // Compute the hourly fine fuel moisture...
+                        float m;
+
+                        // At 1300 intepolate between noon and 1400
+                        if (local24HourTime >= 12.5 && local24HourTime < 13.5) {
+                            m = (float) (m_0.getValue() + m_14.getValue()) / 2.0f;
+                        } // At 1400 use the fuel moisture that was computed at 1200 (see above)
+                        else if (local24HourTime >= 13.5 && local24HourTime < 14.5) {
+                            m = (float) m_14.getValue();
+                        } // Otherwise, compute fine fuel moisture for this hour
+                        else {
+                            m = (float) calcCanadianHourlyFineFuelMoisture(m_0, T_f, H_f, W).getValue();
+                        }
+                        values.set(0, t, xy, m);
+                    }
+                }
+            });
 
-                // ... and then set the sample in the hourly field
-                hourlyMoistureField.setSample(t, moistureFlatField);
+            if (LOG.isLoggable(Level.FINE)) {
+                for (int t = 0; t < numTimes; t++) {
+                    LOG.log(Level.FINE, "Hour = {0}, Sample[0] = {1}", new Object[]{t, values.get(0, t, 0)});
+                }
             }
-            return hourlyMoistureField;
+            return values;
         } catch (VisADException | RemoteException ex) {
             LOG.severe(ex.toString());
         }
@@ -30,7 +30,6 @@
 package com.emxsys.wmt.cps.fireground;
 
 import com.emxsys.gis.api.Coord2D;
-import com.emxsys.gis.api.GeoCoord2D;
 import com.emxsys.gis.api.layer.GisLayer;
 import com.emxsys.wildfire.api.FuelModel;
 import com.emxsys.wildfire.api.BasicFuelModel;
@@ -188,34 +187,29 @@ public class FuelTypeModel
             FunctionType functionType = new FunctionType(this.domain.getSpatialDomainType(), rangeType);
             FlatField flatField = new FlatField(functionType, this.domain.getSpatialDomainSet());
 
-            // Get a copy of the domain samples (an array of lat/lon points) 
-            float[][] spatialValues = this.domain.getSpatialDomainSet().getSamples(true); // true = copy
-            int nrows = this.domain.getNumRows();
-            int ncols = this.domain.getNumColumns();
+            // Get the domain samples (an array of lat/lon points) as column arrays
+            double[][] spatialValues = this.domain.getSpatialDomainSet().getDoubles(false); // false = don't copy
+            int numSamples = this.domain.getSpatialDomainSetLength();
+
+            // Get all the fuel models in a single batch request
+            FuelModel[] fuelModels = this.fuelModelProvider.getFuelModels(spatialValues[0], spatialValues[1]);
 
             // Create the output range: a fuel model number for each domain sample
-            double[][] rangeSamples = new double[1][ncols * nrows];
-            for (int col = 0; col < ncols; col++)
+            double[][] rangeSamples = new double[1][numSamples];
+            for (int i = 0; i < numSamples; i++)
             {
-                for (int row = 0; row < nrows; row++)
+                FuelModel fuelModel = fuelModels[i];
+                if (fuelModel == null)
                 {
-                    final int i = (col * nrows) + row;
-
-                    // Get a lat/lon from the domain ...                    
-                    GeoCoord2D latLon = GeoCoord2D.fromDegrees(spatialValues[0][i], spatialValues[1][i]);
-                    FuelModel fuelModel = this.fuelModelProvider.getFuelModel(latLon);
-                    if (fuelModel==null)
-                    {
-                        fuelModel = BasicFuelModel.INVALID_FUEL_MODEL;
-                        logger.log(Level.WARNING, "createFuels : No FuelModel for {0}, using INVALID.", latLon.toString());                        
-                    }
-                    // Assign a fuel model number
-                    rangeSamples[0][i] = fuelModel.getModelNo();
-
+                    fuelModel = BasicFuelModel.INVALID_FUEL_MODEL;
+                    logger.log(Level.WARNING, "createFuels : No FuelModel for {0}, {1}, using INVALID.",
+                        new Object[]{spatialValues[0][i], spatialValues[1][i]});
                 }
+                // Assign a fuel model number
+                rangeSamples[0][i] = fuelModel.getModelNo();
             }
             // Add our samples to the terrain FlatField
-            flatField.setSamples(rangeSamples);
+            flatField.setSamples(rangeSamples, false);   // false = don't copy
 
             return flatField;
 
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.cps.fireground;
+
+import com.emxsys.gis.api.Coord2D;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.rmi.RemoteException;
+import visad.DateTime;
+import visad.FieldImpl;
+import visad.FlatField;
+import visad.MathType;
+import visad.RealTupleType;
+import visad.RealType;
+import visad.VisADException;
+
+/**
+ * The SpatioTemporalGrid is a compact store for gridded model results: one contiguous, off-heap
+ * float buffer per range variable, indexed by [time][cell] where the cell index matches the
+ * spatial domain set of the SpatioTemporalDomain. The accessors do not allocate, so downstream
+ * stages can re-read cells cheaply. VisAD views are created only when needed, e.g., for display or
+ * NetCDF export.
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class SpatioTemporalGrid {
+
+    private final SpatioTemporalDomain domain;
+    /** The range type, e.g., a RealType or a RealTupleType */
+    private final MathType rangeType;
+    private final int numTimes;
+    private final int numCells;
+    private final FloatBuffer[] variables;
+
+    /**
+     * Constructs a grid with zeroed values.
+     *
+     * @param domain the temporal and spatial domain
+     * @param rangeType the range of each sample: a RealType or a RealTupleType
+     */
+    public SpatioTemporalGrid(SpatioTemporalDomain domain, MathType rangeType) {
+        if (domain == null) {
+            throw new IllegalArgumentException("A null domain argument was passed.");
+        }
+        final int numVariables;
+        if (rangeType instanceof RealType) {
+            numVariables = 1;
+        } else if (rangeType instanceof RealTupleType) {
+            numVariables = ((RealTupleType) rangeType).getDimension();
+        } else {
+            throw new IllegalArgumentException("The rangeType must be a RealType or RealTupleType.");
+        }
+        this.domain = domain;
+        this.rangeType = rangeType;
+        try {
+            this.numTimes = domain.getTemporalDomainSet().getLength();
+        } catch (VisADException ex) {
+            throw new IllegalArgumentException("Invalid temporal domain: " + ex.getMessage(), ex);
+        }
+        this.numCells = domain.getSpatialDomainSetLength();
+
+        long numBytes = (long) numTimes * numCells * Float.BYTES;
+        if (numBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The domain is too large: " + numBytes + " bytes per variable.");
+        }
+        this.variables = new FloatBuffer[numVariables];
+        for (int i = 0; i < numVariables; i++) {
+            this.variables[i] = ByteBuffer.allocateDirect((int) numBytes)
+                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+    }
+
+    public SpatioTemporalDomain getDomain() {
+        return domain;
+    }
+
+    public MathType getRangeType() {
+        return rangeType;
+    }
+
+    public int getNumTimes() {
+        return numTimes;
+    }
+
+    public int getNumCells() {
+        return numCells;
+    }
+
+    public int getNumVariables() {
+        return variables.length;
+    }
+
+    /**
+     * Gets the index of the time step nearest the given time.
+     *
+     * @param temporal the time
+     * @return the temporal index, or -1 if the time is outside the temporal domain
+     */
+    public int getTemporalIndex(DateTime temporal) throws VisADException {
+        double seconds = temporal.getValue(domain.getTemporalDomainSet().getSetUnits()[0]);
+        return domain.getTemporalDomainSet().doubleToIndex(new double[][]{{seconds}})[0];
+    }
+
+    /**
+     * Gets the index of the cell nearest the given location.
+     *
+     * @param spatial the location
+     * @return the spatial index, or -1 if the location is outside the spatial domain
+     */
+    public int getSpatialIndex(Coord2D spatial) throws VisADException {
+        return domain.getSpatialDomainSet().valueToIndex(new float[][]{
+            {(float) spatial.getLatitudeDegrees()},
+            {(float) spatial.getLongitudeDegrees()}})[0];
+    }
+
+    /**
+     * Gets a sample value.
+     *
+     * @param variable the range component index
+     * @param temporalIndex the time index
+     * @param spatialIndex the cell index
+     * @return the value
+     */
+    public float get(int variable, int temporalIndex, int spatialIndex) {
+        return variables[variable].get(temporalIndex * numCells + spatialIndex);
+    }
+
+    /**
+     * Sets a sample value. Concurrent writers must write to distinct cells.
+     *
+     * @param variable the range component index
+     * @param temporalIndex the time index
+     * @param spatialIndex the cell index
+     * @param value the value
+     */
+    public void set(int variable, int temporalIndex, int spatialIndex, float value) {
+        variables[variable].put(temporalIndex * numCells + spatialIndex, value);
+    }
+
+    /**
+     * Copies the range [from, to) of the values for one time step into the grid.
+     *
+     * @param variable the range component index
+     * @param temporalIndex the time index
+     * @param values the values indexed by cell
+     * @param from the first cell index, inclusive
+     * @param to the last cell index, exclusive
+     */
+    public void setValues(int variable, int temporalIndex, double[] values, int from, int to) {
+        FloatBuffer buffer = variables[variable];
+        int offset = temporalIndex * numCells;
+        for (int i = from; i < to; i++) {
+            buffer.put(offset + i, (float) values[i]);
+        }
+    }
+
+    /**
+     * Copies the values for one time step out of the grid.
+     *
+     * @param variable the range component index
+     * @param temporalIndex the time index
+     * @param values receives the values indexed by cell; must hold numCells values
+     */
+    public void getValues(int variable, int temporalIndex, double[] values) {
+        FloatBuffer buffer = variables[variable];
+        int offset = temporalIndex * numCells;
+        for (int i = 0; i < numCells; i++) {
+            values[i] = buffer.get(offset + i);
+        }
+    }
+
+    /**
+     * Creates a VisAD view of one time step: ((latitude, longitude) -> (range)).
+     *
+     * @param temporalIndex the time index
+     * @return a new FlatField containing a copy of the values
+     */
+    public FlatField toFlatField(int temporalIndex) throws VisADException, RemoteException {
+        FlatField field = domain.newSpatialField(rangeType);
+        float[][] samples = new float[variables.length][numCells];
+        int offset = temporalIndex * numCells;
+        for (int v = 0; v < variables.length; v++) {
+            FloatBuffer buffer = variables[v].duplicate();
+            buffer.position(offset);
+            buffer.get(samples[v]);
+        }
+        field.setSamples(samples, false);   // false = don't copy
+        return field;
+    }
+
+    /**
+     * Creates a VisAD view of the grid: (time -> ((latitude, longitude) -> (range))).
+     *
+     * @return a new FieldImpl containing a copy of the values
+     */
+    public FieldImpl toFieldImpl() throws VisADException, RemoteException {
+        FieldImpl field = null;
+        for (int t = 0; t < numTimes; t++) {
+            FlatField spatialField = toFlatField(t);
+            if (field == null) {
+                field = domain.newTemporalField(spatialField.getType());
+            }
+            field.setSample(t, spatialField, false);
+        }
+        return field;
+    }
+}
@@ -29,6 +29,7 @@
  */
 package com.emxsys.wmt.cps.fireground;
 
+import com.emxsys.gis.api.Box;
 import com.emxsys.gis.api.Coord2D;
 import com.emxsys.gis.api.GeoCoord2D;
 import com.emxsys.gis.api.ShadedTerrainProvider;
@@ -39,6 +40,10 @@ import com.emxsys.gis.spi.ShadedTerrainProviderFactory;
 import com.emxsys.wildfire.api.WildfireType;
 import java.rmi.RemoteException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.util.Exceptions;
@@ -92,6 +97,32 @@ public class TerrainModel
      * Error logging
      */
     private static final Logger LOG = Logger.getLogger(TerrainModel.class.getName());
+    /**
+     * If true, the terrain is sampled point by point from the terrain provider instead of being
+     * derived from an elevation raster.
+     */
+    private static final boolean POINT_SAMPLED_TERRAIN = Boolean.getBoolean("com.emxsys.wmt.cps.pointSampledTerrain");
+    /**
+     * Mean earth radius used to convert the domain's grid spacing to meters
+     */
+    private static final double EARTH_RADIUS_METERS = 6371009;
+    /**
+     * The maximum number of terrain grids retained in the cache
+     */
+    private static final int MAX_CACHED_TERRAINS = 8;
+    /**
+     * Terrain grids derived from elevation rasters, keyed by sector and resolution; the most
+     * recently used grids are retained.
+     */
+    private static final Map<TerrainKey, FlatField> TERRAIN_CACHE = Collections.synchronizedMap(
+        new LinkedHashMap<TerrainKey, FlatField>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TerrainKey, FlatField> eldest)
+        {
+            return size() > MAX_CACHED_TERRAINS;
+        }
+    });
 
 
     /**
@@ -246,6 +277,162 @@ public class TerrainModel
 
 
     private FlatField createTerrain()
+    {
+        if (POINT_SAMPLED_TERRAIN || this.terrainProvider == null)
+        {
+            return createPointSampledTerrain();
+        }
+        TerrainKey key = new TerrainKey(this.domain.getSector(), this.domain.getNumRows(), this.domain.getNumColumns());
+        FlatField flatField = TERRAIN_CACHE.get(key);
+        if (flatField == null)
+        {
+            flatField = createGriddedTerrain(key);
+        }
+        return flatField;
+    }
+
+
+    /**
+     * Creates the terrain from a single elevation raster covering the spatial domain. The slope
+     * and aspect of each cell are derived from the elevations of its eight neighbors. The terrain
+     * is cached only if every elevation was available; a grid with missing elevations, e.g., when
+     * the globe or its tiles are not yet available, is recomputed on the next request.
+     *
+     * @param key the cache key for the terrain
+     */
+    private FlatField createGriddedTerrain(TerrainKey key)
+    {
+        try
+        {
+            final Linear2DSet domainSet = this.domain.getSpatialDomainSet();
+            final int nrows = domainSet.getX().getLength();   // latitudes
+            final int ncols = domainSet.getY().getLength();   // longitudes
+            final double south = domainSet.getX().getFirst();
+            final double dLat = domainSet.getX().getStep();
+            final double dLon = domainSet.getY().getStep();
+
+            // One pass over the elevation model for the entire sector
+            final double[] elevations = this.terrainProvider.getElevations(this.domain.getSector(), nrows, ncols);
+
+            final int numSamples = nrows * ncols;
+            final double[][] rangeSamples = new double[rangeType.getDimension()][numSamples];
+            final double[] aspects = rangeSamples[0];
+            final double[] slopes = rangeSamples[1];
+            System.arraycopy(elevations, 0, rangeSamples[2], 0, numSamples);
+            TileExecutor.forEachTile(numSamples, (from, to) ->
+            {
+                computeSlopeAndAspect(elevations, nrows, ncols, south, dLat, dLon, aspects, slopes, from, to);
+            });
+
+            FunctionType functionType = new FunctionType(this.domain.getSpatialDomainType(), rangeType);
+            FlatField flatField = new FlatField(functionType, domainSet);
+            flatField.setSamples(rangeSamples, false);   // false = don't copy
+            if (isComplete(elevations))
+            {
+                TERRAIN_CACHE.put(key, flatField);
+            }
+            else
+            {
+                LOG.log(Level.FINE, "Terrain for {0} has missing elevations; not cached.", this.domain.getSector());
+            }
+            return flatField;
+        }
+        catch (VisADException | RemoteException ex)
+        {
+            LOG.severe(ex.toString());
+        }
+        return null;
+    }
+
+
+    /**
+     * Tests whether an elevation raster has a value for every cell.
+     *
+     * @param elevations the elevations [meters]; NaN where missing
+     * @return true if none of the elevations are missing
+     */
+    static boolean isComplete(double[] elevations)
+    {
+        for (double elevation : elevations)
+        {
+            if (Double.isNaN(elevation))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Computes the slope and aspect of grid cells from an elevation raster using Horn's method:
+     * a 3x3 finite-difference kernel that weights the nearest neighbors twice as heavily as the
+     * diagonal neighbors. Cells on the edge of the raster use the edge elevations in place of the
+     * missing neighbors.
+     *
+     * @param elevations the elevations [meters], indexed by [row + col * nrows]
+     * @param nrows the number of latitudes; row 0 is the southern edge
+     * @param ncols the number of longitudes; col 0 is the western edge
+     * @param south the latitude of row 0 [degrees]
+     * @param dLat the latitude spacing [degrees]
+     * @param dLon the longitude spacing [degrees]
+     * @param aspects receives the aspects [degrees]; the downslope direction, clockwise from north
+     * @param slopes receives the slopes [degrees]
+     * @param from the first cell index, inclusive
+     * @param to the last cell index, exclusive
+     */
+    static void computeSlopeAndAspect(double[] elevations, int nrows, int ncols,
+                                      double south, double dLat, double dLon,
+                                      double[] aspects, double[] slopes, int from, int to)
+    {
+        final double metersPerDegree = Math.toRadians(1) * EARTH_RADIUS_METERS;
+        final double dy = dLat * metersPerDegree;
+        for (int i = from; i < to; i++)
+        {
+            int row = i % nrows;
+            int col = i / nrows;
+            int rowN = Math.min(row + 1, nrows - 1);
+            int rowS = Math.max(row - 1, 0);
+            int colE = Math.min(col + 1, ncols - 1);
+            int colW = Math.max(col - 1, 0);
+
+            // The 3x3 neighborhood: a b c / d e f / g h i, with north at the top
+            double a = elevations[rowN + colW * nrows];
+            double b = elevations[rowN + col * nrows];
+            double c = elevations[rowN + colE * nrows];
+            double d = elevations[row + colW * nrows];
+            double f = elevations[row + colE * nrows];
+            double g = elevations[rowS + colW * nrows];
+            double h = elevations[rowS + col * nrows];
+            double k = elevations[rowS + colE * nrows];
+
+            double dx = dLon * metersPerDegree * Math.cos(Math.toRadians(south + row * dLat));
+            double dzdx = (colE == colW) ? 0
+                : ((c + 2 * f + k) - (a + 2 * d + g)) / (4 * (colE - colW) * dx);
+            double dzdy = (rowN == rowS) ? 0
+                : ((a + 2 * b + c) - (g + 2 * h + k)) / (4 * (rowN - rowS) * dy);
+
+            double rise = Math.sqrt(dzdx * dzdx + dzdy * dzdy);
+            slopes[i] = Math.toDegrees(Math.atan(rise));
+            if (rise > 0)
+            {
+                // The aspect faces downhill: opposite of the gradient
+                double aspect = Math.toDegrees(Math.atan2(-dzdx, -dzdy));
+                aspects[i] = aspect < 0 ? aspect + 360 : aspect;
+            }
+            else
+            {
+                aspects[i] = Double.isNaN(rise) ? Double.NaN : 0;
+            }
+        }
+    }
+
+
+    /**
+     * Creates the terrain by requesting the aspect, slope and elevation for each grid cell from
+     * the terrain provider.
+     */
+    private FlatField createPointSampledTerrain()
     {
         try
         {
@@ -259,54 +446,30 @@ public class TerrainModel
             FlatField flatField = new FlatField(functionType, this.domain.getSpatialDomainSet());
 
             // Get a copy of the domain samples (an array of lat/lon points) 
-            float[][] domainSamples = this.domain.getSpatialDomainSet().getSamples(false); // true = copy
+            final float[][] domainSamples = this.domain.getSpatialDomainSet().getSamples(false); // true = copy
             int numSamples = this.domain.getSpatialDomainSet().getLength();
 
             // Create the output range: 1 row for each dim in the terrain tuple (e.g., slope, aspect, elevation = 3)
-            double[][] rangeSamples = new double[rangeType.getDimension()][numSamples];
-            for (int i = 0; i < numSamples; i++)
+            // Each tile of the domain writes to a disjoint range of the samples.
+            final double[][] rangeSamples = new double[rangeType.getDimension()][numSamples];
+            TileExecutor.forEachTile(numSamples, (from, to) ->
             {
-                // Get a lat/lon from the domain ...                   
-                double lat = domainSamples[0][i];
-                double lon = domainSamples[1][i];
-                GeoCoord2D latLon = GeoCoord2D.fromDegrees(lat, lon);
-
-
-                // ... and then get the terrain at that lat/lon
-                BasicTerrain terrain = (BasicTerrain) this.terrainProvider.getTerrain(latLon);
-                RealTuple tuple = terrain.getTuple();
-                // TEST
-// The LANDFIRE Dem layer is useless: the resolution is extremely low!                
-//                Real testElv;
-//                if (this.demLayer != null)
-//                {
-//                    // Get the query capability object
-//                    QueryableByPoint query = this.demLayer.getLookup().lookup(QueryableByPoint.class);
-//                    if (query == null)
-//                    {
-//                        throw new IllegalStateException("DEM Layer does not support QueryableByPoint");
-//                    }
-//                    Iterator<?> results = query.getObjectsAtLatLon(latLon).getResults().iterator();
-//                    if (results.hasNext())
-//                    {
-//                        Object objectAtLatLon = results.next();
-//                        if (objectAtLatLon instanceof Real)
-//                        {
-//                            testElv = ((Real) objectAtLatLon);
-//                            System.out.println(tuple.getElevation().toValueString() + " test: " + testElv.toValueString());
-//                        }
-//
-//                    }
-//
-//                }
-
-
-                // And finally, update the range samples from the terrain
-                for (int dim = 0; dim < tuple.getDimension(); dim++)
+                for (int i = from; i < to; i++)
                 {
-                    rangeSamples[dim][i] = ((Real) tuple.getComponent(dim)).getValue();
+                    // Get a lat/lon from the domain ...                   
+                    GeoCoord2D latLon = GeoCoord2D.fromDegrees(domainSamples[0][i], domainSamples[1][i]);
+
+                    // ... and then get the terrain at that lat/lon
+                    BasicTerrain terrain = (BasicTerrain) this.terrainProvider.getTerrain(latLon);
+                    RealTuple tuple = terrain.getTuple();
+
+                    // And finally, update the range samples from the terrain
+                    for (int dim = 0; dim < tuple.getDimension(); dim++)
+                    {
+                        rangeSamples[dim][i] = ((Real) tuple.getComponent(dim)).getValue();
+                    }
                 }
-            }
+            });
             // Add our samples to the terrain FlatField
             flatField.setSamples(rangeSamples);
 
@@ -319,4 +482,47 @@ public class TerrainModel
         }
         return null;
     }
+
+    /**
+     * The terrain cache key: a sector and its grid resolution.
+     */
+    private static final class TerrainKey
+    {
+        private final Box sector;
+        private final int nrows;
+        private final int ncols;
+
+
+        TerrainKey(Box sector, int nrows, int ncols)
+        {
+            this.sector = sector;
+            this.nrows = nrows;
+            this.ncols = ncols;
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(sector, nrows, ncols);
+        }
+
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof TerrainKey))
+            {
+                return false;
+            }
+            final TerrainKey other = (TerrainKey) obj;
+            return this.nrows == other.nrows
+                && this.ncols == other.ncols
+                && Objects.equals(this.sector, other.sector);
+        }
+    }
 }
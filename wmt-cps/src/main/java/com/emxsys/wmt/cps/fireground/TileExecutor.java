@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.cps.fireground;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import visad.VisADException;
+
+/**
+ * The TileExecutor splits a spatial domain into contiguous tiles of sample indices and computes
+ * the tiles concurrently on a shared ForkJoinPool. The fireground models use it to parallelize
+ * their per-cell loops.
+ * <p>
+ * Cancellation follows the calling thread: if the thread that invoked {@link #forEachTile} is
+ * interrupted, the remaining tiles are skipped and a CancellationException is thrown.
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+final class TileExecutor {
+
+    /** The maximum number of samples computed by a single task. */
+    static final int TILE_SIZE = 1024;
+    /** The pool shared by all the fireground models. */
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The computation applied to a tile of the spatial domain.
+     */
+    @FunctionalInterface
+    interface TileTask {
+
+        /**
+         * Computes the samples in the range [from, to).
+         *
+         * @param from the first sample index, inclusive
+         * @param to the last sample index, exclusive
+         */
+        void compute(int from, int to) throws VisADException, RemoteException;
+    }
+
+    private TileExecutor() {
+    }
+
+    /**
+     * Computes the given task over the sample indices [0, numSamples) and waits for all the tiles
+     * to complete.
+     *
+     * @param numSamples the number of samples in the spatial domain
+     * @param task the computation applied to each tile
+     * @throws CancellationException if the calling thread was interrupted
+     */
+    static void forEachTile(int numSamples, TileTask task) throws VisADException, RemoteException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Tile computation was cancelled.");
+        }
+        if (numSamples <= TILE_SIZE) {
+            task.compute(0, numSamples);    // Not worth the overhead of a fork
+            return;
+        }
+        try {
+            POOL.invoke(new TileAction(task, Thread.currentThread(), 0, numSamples));
+        } catch (TileException ex) {
+            if (ex.getCause() instanceof VisADException) {
+                throw (VisADException) ex.getCause();
+            }
+            throw (RemoteException) ex.getCause();
+        }
+    }
+
+    /**
+     * Recursively bisects the sample range until it fits within a tile.
+     */
+    private static class TileAction extends RecursiveAction {
+
+        private final TileTask task;
+        private final Thread caller;
+        private final int from;
+        private final int to;
+
+        TileAction(TileTask task, Thread caller, int from, int to) {
+            this.task = task;
+            this.caller = caller;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (caller.isInterrupted()) {
+                throw new CancellationException("Tile computation was cancelled.");
+            }
+            if (to - from <= TILE_SIZE) {
+                try {
+                    task.compute(from, to);
+                } catch (VisADException | RemoteException ex) {
+                    throw new TileException(ex);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileAction(task, caller, from, mid),
+                        new TileAction(task, caller, mid, to));
+            }
+        }
+    }
+
+    /**
+     * Carries a checked exception out of the pool.
+     */
+    private static class TileException extends RuntimeException {
+
+        TileException(Exception cause) {
+            super(cause);
+        }
+    }
+}
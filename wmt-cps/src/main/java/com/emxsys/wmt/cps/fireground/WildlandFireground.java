@@ -49,19 +49,23 @@ import java.beans.PropertyChangeSupport;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.progress.ProgressHandleFactory;
 import org.openide.util.Cancellable;
 import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
 import visad.DateTime;
 import visad.FieldImpl;
 import visad.FlatField;
@@ -87,6 +91,9 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
     public static final String FIRE_WEATHER_ADDED_EVENT = "fire_weather_added";
     
     private static final Logger logger = Logger.getLogger(WildlandFireground.class.getName());
+    /** Runs the sector analyses concurrently; running tasks are interrupted when cancelled. */
+    private static final RequestProcessor SECTOR_PROCESSOR = new RequestProcessor(
+            "Fireground sector analysis", Runtime.getRuntime().availableProcessors(), true);
 
     private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
@@ -112,8 +119,13 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
     private final Map<Box, FuelMoistureModel> fuelMoistureModels = new HashMap<>();
     private final Map<Box, FireBehaviorModel> fireBehaviorModels = new HashMap<>();
 
-    private boolean cancelAnalysis = false;
+    private volatile boolean cancelAnalysis = false;
     private boolean analysisRunning = false;
+    /** The sector tasks for the current analysis step; cancelled along with the analysis. */
+    private volatile List<Future<?>> sectorTasks = Collections.emptyList();
+    /** The progress handle and work units completed while an analysis is running. */
+    private ProgressHandle progressHandle;
+    private int progressUnits;
 
     /**
      *
@@ -196,11 +208,15 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
         analysisRunning = true;
         String taskname = "Analyzing fireground";
         final int NUM_STEPS = 7;
-        handle.start(NUM_STEPS);    // Start with 7 steps
+        // Each step reports a unit of work for each sector as the sector completes
+        final int numSectors = Math.max(1, this.sectors.size());
+        handle.start(NUM_STEPS * numSectors);
+        progressHandle = handle;
         try {
             int step = 0;
             cancelAnalysis = false;
             while (!cancelAnalysis && step < NUM_STEPS) {
+                progressUnits = step * numSectors;
                 switch (step) {
                     case 0:
                         handle.setDisplayName(taskname + " - Initializing spatial/temporal domains...");
@@ -233,12 +249,16 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
                     default:
                         throw new IllegalStateException("incorrect number of steps");
                 }
-                handle.progress(step++);
+                handle.progress(++step * numSectors);
+            }
+            if (cancelAnalysis) {
+                logger.info("analyze() was cancelled.");
             }
         } catch (Exception ex) {
             logger.log(Level.SEVERE, "analyze() failed: {0}", ex.toString());
             Exceptions.printStackTrace(ex);
         } finally {
+            progressHandle = null;
             handle.finish();
         }
         analysisRunning = false;
@@ -519,12 +539,9 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
 
         // Loop thru all the sector domains
         this.terrainModels.clear();
-        Iterator<Entry<Box, SpatioTemporalDomain>> iterator = domains.entrySet().iterator();
-        while (iterator.hasNext()) {
-            SpatioTemporalDomain domain = iterator.next().getValue();
-            TerrainModel terrain = new TerrainModel(domain, true); // true = immediate initialization
-            // Add the terrain to the sector/terrain map.
-            this.terrainModels.put(domain.getSector(), terrain);
+        if (!initSectorModels(this.terrainModels,
+                (sector, domain) -> new TerrainModel(domain, true))) { // true = immediate initialization
+            return;
         }
 
         logger.log(Level.INFO, "initTerrain elapsed time: {0} secs", ((System.currentTimeMillis() - startTimeMillis) / 1000));
@@ -545,14 +562,13 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
         long startTimeMillis = System.currentTimeMillis();
 
         this.wxModels.clear();
-        Iterator<Entry<Box, SpatioTemporalDomain>> iterator = domains.entrySet().iterator();
-        while (iterator.hasNext()) {
-            SpatioTemporalDomain domain = iterator.next().getValue();
-            WeatherModel wxModel = new WeatherModel(domain, temperatures, humidities, winds);
-            this.wxModels.put(domain.getSector(), wxModel);
-
-            pcs.firePropertyChange(FIRE_WEATHER_ADDED_EVENT, null, wxModel.getWeatherData());
+        if (!initSectorModels(this.wxModels,
+                (sector, domain) -> new WeatherModel(domain, temperatures, humidities, winds))) {
+            return;
         }
+        this.wxModels.values().stream().forEach((wxModel) -> {
+            pcs.firePropertyChange(FIRE_WEATHER_ADDED_EVENT, null, wxModel.getWeatherData());
+        });
 
         logger.log(Level.INFO, "initWeather elapsed time: {0} secs", ((System.currentTimeMillis() - startTimeMillis) / 1000));
 
@@ -567,17 +583,18 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
         long startTimeMillis = System.currentTimeMillis();
         this.fuelTypeModels.clear();
 
-        Iterator<Entry<Box, SpatioTemporalDomain>> iterator = this.domains.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<Box, SpatioTemporalDomain> entry = iterator.next();
-            Box sector = entry.getKey();
-            SpatioTemporalDomain domain = entry.getValue();
+        // Select the providers up front; the selection may prompt the user.
+        Map<Box, FuelModelProvider> providers = new HashMap<>();
+        for (Box sector : this.domains.keySet()) {
             FuelModelProvider provider = this.fuelModelProviders.get(sector);
             if (provider == null) {
                 provider = selectFuelModelProviderForSector(sector);
             }
-            FuelTypeModel fuel = new FuelTypeModel(domain, provider, true);
-            this.fuelTypeModels.put(sector, fuel);
+            providers.put(sector, provider);
+        }
+        if (!initSectorModels(this.fuelTypeModels,
+                (sector, domain) -> new FuelTypeModel(domain, providers.get(sector), true))) {
+            return;
         }
         logger.log(Level.INFO, "initFuelModels elapsed time: {0} secs", ((System.currentTimeMillis() - startTimeMillis) / 1000));
 
@@ -593,21 +610,79 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
         long startTimeMillis = System.currentTimeMillis();
         this.fuelTempModels.clear();
 
-        Iterator<Entry<Box, SpatioTemporalDomain>> iterator = domains.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<Box, SpatioTemporalDomain> entry = iterator.next();
-            Box sector = entry.getKey();
-            SpatioTemporalDomain domain = entry.getValue();
+        boolean completed = initSectorModels(this.fuelTempModels, (sector, domain) -> {
             TerrainModel terrain = terrainModels.get(sector);
             FuelTypeModel fuel = fuelTypeModels.get(sector);
             WeatherModel wx = wxModels.get(sector);
-            FuelTemperatureModel temps = new FuelTemperatureModel(domain, terrain, fuel, wx, true); // true = immediate initialization
+            return new FuelTemperatureModel(domain, terrain, fuel, wx, true); // true = immediate initialization
+        });
+        if (!completed) {
+            return;
+        }
+        logger.log(Level.INFO, "initFuelTemps elapsed time: {0} secs", ((System.currentTimeMillis() - startTimeMillis) / 1000));
 
-            this.fuelTempModels.put(sector, temps);
+    }
 
+    /**
+     * Creates a model for each of the sector domains concurrently. Each sector runs as a task on
+     * the SECTOR_PROCESSOR and the models tile their own spatial domains via the TileExecutor. A
+     * unit of progress is reported as each sector completes.
+     *
+     * @param <T> the model type
+     * @param models the sector/model map that receives the new models
+     * @param factory creates the model for a sector and its domain
+     * @return true if all the sectors completed; false if the analysis was cancelled
+     */
+    private <T> boolean initSectorModels(Map<Box, T> models,
+                                         BiFunction<Box, SpatioTemporalDomain, T> factory) {
+        List<Box> keys = new ArrayList<>(this.domains.keySet());
+        List<Future<T>> futures = new ArrayList<>(keys.size());
+        for (Box sector : keys) {
+            SpatioTemporalDomain domain = this.domains.get(sector);
+            futures.add(SECTOR_PROCESSOR.submit(() -> factory.apply(sector, domain)));
         }
-        logger.log(Level.INFO, "initFuelTemps elapsed time: {0} secs", ((System.currentTimeMillis() - startTimeMillis) / 1000));
+        this.sectorTasks = new ArrayList<>(futures);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                T model = futures.get(i).get();
+                if (model != null) {
+                    models.put(keys.get(i), model);
+                }
+                if (this.progressHandle != null) {
+                    this.progressHandle.progress(++this.progressUnits);
+                }
+            }
+            return true;
+        } catch (CancellationException ex) {
+            logger.log(Level.FINE, "initSectorModels cancelled: {0}", ex.toString());
+            cancelAnalysis = true;
+            cancelSectorTasks();
+            return false;
+        } catch (InterruptedException ex) {
+            logger.log(Level.FINE, "initSectorModels interrupted: {0}", ex.toString());
+            Thread.currentThread().interrupt();
+            cancelAnalysis = true;
+            cancelSectorTasks();
+            return false;
+        } catch (ExecutionException ex) {
+            cancelSectorTasks();
+            if (ex.getCause() instanceof CancellationException) {
+                cancelAnalysis = true;
+                return false;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            this.sectorTasks = Collections.emptyList();
+        }
+    }
 
+    /**
+     * Cancels the running sector tasks, interrupting their threads.
+     */
+    private void cancelSectorTasks() {
+        this.sectorTasks.stream().forEach((task) -> {
+            task.cancel(true);
+        });
     }
 
     private FuelModelProvider selectFuelModelProviderForSector(Box sector) {
@@ -647,19 +722,16 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
         long startTimeMillis = System.currentTimeMillis();
         this.fuelMoistureModels.clear();
 
-        Iterator<Entry<Box, SpatioTemporalDomain>> iterator = domains.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<Box, SpatioTemporalDomain> entry = iterator.next();
-            Box sector = entry.getKey();
-            SpatioTemporalDomain domain = entry.getValue();
+        boolean completed = initSectorModels(this.fuelMoistureModels, (sector, domain) -> {
             TerrainModel terrain = terrainModels.get(sector);
             FuelTypeModel fuelTypes = fuelTypeModels.get(sector);
             WeatherModel wx = wxModels.get(sector);
             FuelTemperatureModel fuelTemps = fuelTempModels.get(sector);
             FuelMoisture scenario = StdFuelMoistureScenario.VeryLowDead_FullyCuredHerb.getFuelMoisture();
-            FuelMoistureModel moistures = new FuelMoistureModel(domain, terrain, fuelTypes, fuelTemps, wx, scenario, true); // true = immediate initialization
-
-            this.fuelMoistureModels.put(sector, moistures);
+            return new FuelMoistureModel(domain, terrain, fuelTypes, fuelTemps, wx, scenario, true); // true = immediate initialization
+        });
+        if (!completed) {
+            return;
         }
         logger.log(Level.INFO, "initFuelMoistures elapsed time: {0} secs", ((System.currentTimeMillis() - startTimeMillis) / 1000));
 
@@ -677,24 +749,23 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
             long startTimeMillis = System.currentTimeMillis();
             this.fireBehaviorModels.clear();
 
-            Iterator<Entry<Box, SpatioTemporalDomain>> iterator = domains.entrySet().iterator();
-            while (iterator.hasNext()) {
-                Entry<Box, SpatioTemporalDomain> entry = iterator.next();
-                Box sector = entry.getKey();
-                SpatioTemporalDomain domain = entry.getValue();
-
+            boolean completed = initSectorModels(this.fireBehaviorModels, (sector, domain) -> {
                 TerrainModel terrain = terrainModels.get(sector);
                 WeatherModel wx = wxModels.get(sector);
                 FuelTypeModel fuelTypes = fuelTypeModels.get(sector);
                 FuelTemperatureModel fuelTemps = fuelTempModels.get(sector);
                 FuelMoistureModel moistures = fuelMoistureModels.get(sector);
 
-                FireBehaviorModel behaviors = new FireBehaviorModel(domain, terrain, fuelTypes, fuelTemps, moistures, wx, true);
-                this.fireBehaviorModels.put(sector, behaviors);
+                return new FireBehaviorModel(domain, terrain, fuelTypes, fuelTemps, moistures, wx, true);
+            });
+            if (!completed) {
+                return;
+            }
 
-                // Notify the fire behavior data object of the change
+            // Notify the fire behavior data object of the change
+            this.fireBehaviorModels.values().stream().forEach((behaviors) -> {
                 pcs.firePropertyChange(FIRE_BEHAVIOR_ADDED_EVENT, null, behaviors);
-            }
+            });
             logger.log(Level.INFO, "initFireBehaviors elapsed time: {0} secs", ((System.currentTimeMillis() - startTimeMillis) / 1000));
         } catch (Exception ex) {
             Exceptions.printStackTrace(ex);
@@ -853,8 +924,9 @@ public class WildlandFireground implements Fireground, PropertyChangeListener, D
         @Override
         public boolean cancel() {
             if (isAlive()) {
-                // Cancel thread
+                // Cancel thread and the sector tasks it's waiting on
                 cancelAnalysis = true;
+                cancelSectorTasks();
             }
             // Return true on success; false if unable.
             return true;
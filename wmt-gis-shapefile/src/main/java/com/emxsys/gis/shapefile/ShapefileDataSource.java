@@ -34,6 +34,7 @@ import com.emxsys.gis.api.data.GisDataSource;
 import com.emxsys.gis.api.data.GisResultSet;
 import com.emxsys.gis.shapefile.format.RandomAccessShapefile;
 import gov.nasa.worldwind.formats.shapefile.Shapefile;
+import java.io.IOException;
 import java.util.logging.Logger;
 import org.openide.filesystems.FileObject;
 import org.openide.util.Lookup;
@@ -96,6 +97,17 @@ public class ShapefileDataSource implements GisDataSource {
         return new ShapefileResultSet(getShapefile(), columnLabel, queryValue, ignoreCase);
     }
 
+    /**
+     * Creates a hash index on an attribute column to speed up getResultSet(columnLabel,
+     * queryValue, ignoreCase) queries with the same column and case sensitivity.
+     * @param columnLabel the column to index
+     * @param ignoreCase if true, the index supports case insensitive queries
+     * @throws IOException if the attributes cannot be read
+     */
+    public void createAttributeIndex(String columnLabel, boolean ignoreCase) throws IOException {
+        getShapefile().createAttributeIndex(columnLabel, ignoreCase);
+    }
+
     /**
      * Get the Shapefile implementation object.
      * @return the Shapefile that is backing the result set.
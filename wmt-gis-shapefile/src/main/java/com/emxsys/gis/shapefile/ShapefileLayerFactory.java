@@ -29,6 +29,7 @@
  */
 package com.emxsys.gis.shapefile;
 
+import com.emxsys.gis.api.MultiResolutionPart;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.formats.shapefile.*;
 import gov.nasa.worldwind.geom.*;
@@ -38,6 +39,9 @@ import gov.nasa.worldwind.util.*;
 import gov.nasa.worldwindx.examples.util.RandomShapeAttributes;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.openide.util.RequestProcessor;
 
 /**
  * This class is a modified copy of the the {@link gov.nasa.worldwindx.util.ShapefileLoader} class.
@@ -58,6 +62,12 @@ import java.util.*;
  * <li>{@link #createPointIconSource(gov.nasa.worldwind.formats.shapefile.ShapefileRecord)}</li>
  * <li>{@link #createPolylineAttributes(gov.nasa.worldwind.formats.shapefile.ShapefileRecord)}</li> <li>{@link
  * #createPolygonAttributes(gov.nasa.worldwind.formats.shapefile.ShapefileRecord)}</li></ul>.
+ * <p/>
+ * Polygon shapefiles are loaded in a pipeline: the calling thread reads the records in order while
+ * worker threads build the polygon renderables in batches. Completed batches are added to the
+ * layers in record order as soon as they are ready, so a caller that supplies a {@link LoadMonitor}
+ * can display the layers while the remaining records are loading, and can cancel the load. The
+ * workers also precompute each polygon's levels of detail; see {@link ShapefilePolygons}.
  *
  * @author dcollins
  * @version $Id: ShapefileLayerFactory.java 209 2012-09-05 23:09:19Z bdschubert $
@@ -65,6 +75,10 @@ import java.util.*;
 public class ShapefileLayerFactory {
 
     protected static final RandomShapeAttributes randomAttrs = new RandomShapeAttributes();
+    /** The number of records in each unit of work given to a worker thread. */
+    private static final int RECORDS_PER_BATCH = 256;
+    private static final int NUM_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final RequestProcessor WORKERS = new RequestProcessor(ShapefileLayerFactory.class.getName(), NUM_WORKERS, true);
 
     /** Indicates the maximum number of polygons to place in a layer before creating an additional
      * layer. */
@@ -209,6 +223,25 @@ public class ShapefileLayerFactory {
      * Shapefile's primitive type is unrecognized.
      */
     public List<Layer> createLayersFromShapefile(Shapefile shp) {
+        return this.createLayersFromShapefile(shp, null);
+    }
+
+    /**
+     * Creates a list of {@link gov.nasa.worldwind.layers.Layer}s containing shapes from a
+     * Shapefile, reporting the layers and the progress to a monitor as the records are loaded. Each
+     * layer is passed to the monitor as soon as it is created; polygons are added to it afterwards,
+     * as they are built. See {@link #createLayersFromShapefile(Shapefile)}.
+     *
+     * @param shp the source of the Shapefile.
+     * @param monitor receives the layers and the progress, and may cancel the load. May be null.
+     *
+     * @return the layers that render the Shapefile's contents; if the load was cancelled, the
+     * layers created so far.
+     *
+     * @throws IllegalArgumentException if the shapefile is null, or if the Shapefile's primitive
+     * type is unrecognized.
+     */
+    public List<Layer> createLayersFromShapefile(Shapefile shp, LoadMonitor monitor) {
         if (shp == null) {
             String message = Logging.getMessage("nullValue.ShapefileIsNull");
             Logging.logger().severe(message);
@@ -233,12 +266,20 @@ public class ShapefileLayerFactory {
             layers.add(layer);
         }
         else if (Shapefile.isPolygonType(shp.getShapeType())) {
-            this.addRenderablesForPolygons(shp, layers);
+            this.addRenderablesForPolygons(shp, layers, monitor);
+            return layers;
         }
         else {
             Logging.logger().warning(Logging.getMessage("generic.UnrecognizedShapeType", shp.getShapeType()));
         }
 
+        // The other shape types are built in one piece on the calling thread
+        if (monitor != null) {
+            for (Layer layer : layers) {
+                monitor.layerCreated(layer);
+            }
+            monitor.progress(shp.getNumberOfRecords(), shp.getNumberOfRecords());
+        }
         return layers;
     }
 
@@ -324,11 +365,86 @@ public class ShapefileLayerFactory {
      * @param layers a list in which to place the layers created. May not be null.
      */
     protected void addRenderablesForPolygons(Shapefile shp, List<Layer> layers) {
-        RenderableLayer layer = new RenderableLayer();
-        layers.add(layer);
+        this.addRenderablesForPolygons(shp, layers, null);
+    }
 
+    /**
+     * Creates renderables for all the polygons in the shapefile. This thread reads the records and
+     * copies their geometry; the renderables are built by the worker threads and added to the
+     * layers in record order. The number of batches in progress is bounded so that a slow consumer
+     * doesn't accumulate the whole shapefile in memory.
+     * <p/>
+     * A subclass that overrides {@link #createPolygon(ShapefileRecord, ShapeAttributes, RenderableLayer)}
+     * has its polygons created on this thread, one record at a time.
+     *
+     * @param shp the shapefile to read
+     * @param layers a list in which to place the layers created. May not be null.
+     * @param monitor receives the layers and the progress, and may cancel the load. May be null.
+     */
+    protected void addRenderablesForPolygons(Shapefile shp, List<Layer> layers, LoadMonitor monitor) {
+        if (this.overridesCreatePolygon()) {
+            this.addRenderablesForPolygonsSequentially(shp, layers, monitor);
+            return;
+        }
+        PolygonPublisher publisher = new PolygonPublisher(layers, monitor);
+        ArrayDeque<Future<List<Renderable>>> pending = new ArrayDeque<>();
+        List<PolygonRecord> batch = new ArrayList<>(RECORDS_PER_BATCH);
+        int numRecords = shp.getNumberOfRecords();
+        int numRecordsRead = 0;
         int recordNumber = 0;
-        while (shp.hasNext()) {
+        try {
+            while (shp.hasNext()) {
+                if (isCancelled(monitor)) {
+                    break;
+                }
+                try {
+                    ShapefileRecord record = shp.nextRecord();
+                    recordNumber = record.getRecordNumber();
+                    batch.add(new PolygonRecord(record, this.createPolygonAttributes(record), this.getHeight(record)));
+                }
+                catch (Exception e) {
+                    Logging.logger().warning(Logging.getMessage("SHP.ExceptionAttemptingToConvertShapefileRecord",
+                            recordNumber, e));
+                    // continue with the remaining records
+                }
+                numRecordsRead++;
+                if (batch.size() == RECORDS_PER_BATCH || !shp.hasNext()) {
+                    final List<PolygonRecord> records = batch;
+                    pending.add(WORKERS.submit(() -> createPolygons(records)));
+                    batch = new ArrayList<>(RECORDS_PER_BATCH);
+
+                    // Publish the completed batches, waiting for the oldest if too many are pending
+                    while (!pending.isEmpty() && (pending.size() > 2 * NUM_WORKERS || pending.peek().isDone())) {
+                        publisher.publish(pending.poll());
+                    }
+                    if (monitor != null) {
+                        monitor.progress(numRecordsRead, numRecords);
+                    }
+                }
+            }
+            while (!pending.isEmpty() && !isCancelled(monitor)) {
+                publisher.publish(pending.poll());
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            for (Future<List<Renderable>> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Creates the polygons with the createPolygon hook on this thread.
+     */
+    private void addRenderablesForPolygonsSequentially(Shapefile shp, List<Layer> layers, LoadMonitor monitor) {
+        RenderableLayer layer = addLayer(layers, monitor);
+        int numRecords = shp.getNumberOfRecords();
+        int numRecordsRead = 0;
+        int recordNumber = 0;
+        while (shp.hasNext() && !isCancelled(monitor)) {
             try {
                 ShapefileRecord record = shp.nextRecord();
                 recordNumber = record.getRecordNumber();
@@ -336,9 +452,8 @@ public class ShapefileLayerFactory {
                 this.createPolygon(record, attrs, layer);
 
                 if (layer.getNumRenderables() > this.numPolygonsPerLayer) {
-                    layer = new RenderableLayer();
+                    layer = addLayer(layers, monitor);
                     layer.setEnabled(false);
-                    layers.add(layer);
                 }
             }
             catch (Exception e) {
@@ -346,96 +461,248 @@ public class ShapefileLayerFactory {
                         recordNumber, e));
                 // continue with the remaining records
             }
+            if (monitor != null && (++numRecordsRead % RECORDS_PER_BATCH == 0 || !shp.hasNext())) {
+                monitor.progress(numRecordsRead, numRecords);
+            }
         }
     }
 
-    //**************************************************************//
-    //********************  Primitive Geometry Construction  *******//
-    //**************************************************************//
-    @SuppressWarnings({"UnusedDeclaration"})
-    protected WWIcon createPoint(ShapefileRecord record, Position pos, String iconSource) {
-        return new UserFacingIcon(iconSource, pos);
+    private static RenderableLayer addLayer(List<Layer> layers, LoadMonitor monitor) {
+        RenderableLayer layer = new RenderableLayer();
+        layers.add(layer);
+        if (monitor != null) {
+            monitor.layerCreated(layer);
+        }
+        return layer;
     }
 
-    protected Renderable createPolyline(ShapefileRecord record, ShapeAttributes attrs) {
-        SurfacePolylines shape = new SurfacePolylines(
-                Sector.fromDegrees(((ShapefileRecordPolyline) record).getBoundingRectangle()),
-                record.getCompoundPointBuffer());
-        shape.setAttributes(attrs);
+    /**
+     * Determines if a subclass has replaced the createPolygon hook.
+     */
+    private boolean overridesCreatePolygon() {
+        for (Class<?> c = this.getClass(); c != ShapefileLayerFactory.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("createPolygon", ShapefileRecord.class, ShapeAttributes.class, RenderableLayer.class);
+                return true;
+            }
+            catch (NoSuchMethodException ex) {
+                // Check the superclass
+            }
+        }
+        return false;
+    }
 
-        return shape;
+    private static boolean isCancelled(LoadMonitor monitor) {
+        return Thread.currentThread().isInterrupted() || (monitor != null && monitor.isCancelled());
     }
 
-    protected Renderable createPolyline(Shapefile shp, ShapeAttributes attrs) {
-        SurfacePolylines shape = new SurfacePolylines(Sector.fromDegrees(shp.getBoundingRectangle()),
-                shp.getPointBuffer());
-        shape.setAttributes(attrs);
-        return shape;
+    /**
+     * Builds the renderables for a batch of polygon records. Called on a worker thread.
+     */
+    private static List<Renderable> createPolygons(List<PolygonRecord> records) {
+        List<Renderable> renderables = new ArrayList<>(records.size());
+        for (PolygonRecord record : records) {
+            try {
+                record.createRenderables(renderables);
+            }
+            catch (Exception e) {
+                Logging.logger().warning(Logging.getMessage("SHP.ExceptionAttemptingToConvertShapefileRecord",
+                        record.recordNumber, e));
+            }
+        }
+        return renderables;
     }
 
-    protected void createPolygon(ShapefileRecord record, ShapeAttributes attrs, RenderableLayer layer) {
-        Double height = this.getHeight(record);
-        if (height != null) // create extruded polygons
-        {
-            ExtrudedPolygon ep = new ExtrudedPolygon(height);
-            ep.setAttributes(attrs);
-            layer.addRenderable(ep);
-
-            for (int i = 0; i < record.getNumberOfParts(); i++) {
+    /**
+     * Adds the completed batches of polygons to the layers, creating an additional layer when the
+     * polygons per layer limit is exceeded. All but the first layer are disabled.
+     */
+    private class PolygonPublisher {
+
+        private final List<Layer> layers;
+        private final LoadMonitor monitor;
+        private RenderableLayer layer;
+        private int numRenderables;
+
+        PolygonPublisher(List<Layer> layers, LoadMonitor monitor) {
+            this.layers = layers;
+            this.monitor = monitor;
+            this.layer = this.addLayer();
+        }
+
+        void publish(Future<List<Renderable>> batch) throws InterruptedException {
+            List<Renderable> renderables;
+            try {
+                renderables = batch.get();
+            }
+            catch (ExecutionException ex) {
+                Logging.logger().warning(ex.getCause().toString());
+                return;
+            }
+            for (Renderable renderable : renderables) {
+                if (this.numRenderables > numPolygonsPerLayer) {
+                    this.layer = this.addLayer();
+                    this.layer.setEnabled(false);
+                }
+                this.layer.addRenderable(renderable);
+                this.numRenderables++;
+            }
+            // Request a redraw of the new polygons
+            this.layer.firePropertyChange(AVKey.LAYER, null, this.layer);
+        }
+
+        private RenderableLayer addLayer() {
+            this.numRenderables = 0;
+            return ShapefileLayerFactory.addLayer(this.layers, this.monitor);
+        }
+    }
+
+    /**
+     * A copy of a polygon record's geometry that can be converted to renderables on any thread.
+     * The shapefile's point buffer grows as records are read, so it can't be shared with the
+     * workers.
+     */
+    private static class PolygonRecord {
+
+        private final int recordNumber;
+        private final double[] boundingRectangle;
+        /** The interleaved x,y coordinates of each ring, without repeated vertices. */
+        private final double[][] rings;
+        private final ShapeAttributes attrs;
+        private final Double height;
+
+        PolygonRecord(ShapefileRecord record, ShapeAttributes attrs, Double height) {
+            this.recordNumber = record.getRecordNumber();
+            this.boundingRectangle = ((ShapefileRecordPolygon) record).getBoundingRectangle();
+            this.attrs = attrs;
+            this.height = height;
+
+            CompoundVecBuffer buffer = record.getCompoundPointBuffer();
+            this.rings = new double[buffer.size()][];
+            double[] point = new double[buffer.getCoordsPerVec()];
+            for (int i = 0; i < this.rings.length; i++) {
+                VecBuffer part = buffer.subBuffer(i);
+                double[] coords = new double[part.getSize() * 2];
+                int numCoords = 0;
+                for (int j = 0; j < part.getSize(); j++) {
+                    part.get(j, point);
+                    if (numCoords == 0 || point[0] != coords[numCoords - 2] || point[1] != coords[numCoords - 1]) {
+                        coords[numCoords++] = point[0];
+                        coords[numCoords++] = point[1];
+                    }
+                }
+                this.rings[i] = numCoords < coords.length ? Arrays.copyOf(coords, numCoords) : coords;
+            }
+        }
+
+        void createRenderables(List<Renderable> renderables) {
+            if (this.height != null) {
+                this.createExtrudedPolygons(renderables);
+            }
+            else {
+                this.createSurfacePolygons(renderables);
+            }
+        }
+
+        private void createExtrudedPolygons(List<Renderable> renderables) {
+            ExtrudedPolygon ep = new ExtrudedPolygon(this.height);
+            ep.setAttributes(this.attrs);
+            renderables.add(ep);
+
+            for (double[] ring : this.rings) {
                 // Although the shapefile spec says that inner and outer boundaries can be listed in any order, it's
                 // assumed here that inner boundaries are at least listed adjacent to their outer boundary, either
                 // before or after it. The below code accumulates inner boundaries into the extruded polygon until an
                 // outer boundary comes along. If the outer boundary comes before the inner boundaries, the inner
                 // boundaries are added to the polygon until another outer boundary comes along, at which point a new
                 // extruded polygon is started.
-
-                VecBuffer buffer = record.getCompoundPointBuffer().subBuffer(i);
-                if (WWMath.computeWindingOrderOfLocations(buffer.getLocations()).equals(AVKey.CLOCKWISE)) {
+                List<LatLon> locations = new ArrayList<>(ring.length / 2);
+                for (int j = 0; j < ring.length; j += 2) {
+                    locations.add(LatLon.fromDegrees(ring[j + 1], ring[j]));
+                }
+                if (WWMath.computeWindingOrderOfLocations(locations).equals(AVKey.CLOCKWISE)) {
                     if (!ep.getOuterBoundary().iterator().hasNext()) // has no outer boundary yet
                     {
-                        ep.setOuterBoundary(buffer.getLocations());
+                        ep.setOuterBoundary(locations);
                     }
                     else {
-                        ep = new ExtrudedPolygon();
-                        ep.setAttributes(attrs);
-                        ep.setOuterBoundary(record.getCompoundPointBuffer().getLocations());
-                        layer.addRenderable(ep);
+                        ep = new ExtrudedPolygon(this.height);
+                        ep.setAttributes(this.attrs);
+                        ep.setOuterBoundary(locations);
+                        renderables.add(ep);
                     }
                 }
                 else {
-                    ep.addInnerBoundary(buffer.getLocations());
+                    ep.addInnerBoundary(locations);
                 }
             }
         }
-        else // create surface polygons
-        {
+
+        private void createSurfacePolygons(List<Renderable> renderables) {
+            // Precompute the levels of detail for rendering at the view's resolution
+            MultiResolutionPart[] parts = new MultiResolutionPart[this.rings.length];
+            for (int i = 0; i < this.rings.length; i++) {
+                parts[i] = new MultiResolutionPart(this.rings[i], true);
+            }
             ShapefilePolygons shape = new ShapefilePolygons( // BDS modification: was SurfacePolygons(
-                    Sector.fromDegrees(((ShapefileRecordPolygon) record).getBoundingRectangle()),
-                    record.getCompoundPointBuffer());
-            shape.setFeatureId(record.getRecordNumber());
-            shape.setAttributes(attrs);
-            // Configure the SurfacePolygons as a single large polygon.
+                    Sector.fromDegrees(this.boundingRectangle), parts);
+            shape.setFeatureId(this.recordNumber);
+            shape.setAttributes(this.attrs);
             // Configure the SurfacePolygons to correctly interpret the Shapefile polygon record. Shapefile polygons may
             // have rings defining multiple inner and outer boundaries. Each ring's winding order defines whether it's an
             // outer boundary or an inner boundary: outer boundaries have a clockwise winding order. However, the
             // arrangement of each ring within the record is not significant; inner rings can precede outer rings and vice
             // versa.
             //
-            // By default, SurfacePolygons assumes that the sub-buffers are arranged such that each outer boundary precedes
-            // a set of corresponding inner boundaries. SurfacePolygons traverses the sub-buffers and tessellates a new
-            // polygon each  time it encounters an outer boundary. Outer boundaries are sub-buffers whose winding order
-            // matches the SurfacePolygons' windingRule property.
-            //
-            // This default behavior does not work with Shapefile polygon records, because the sub-buffers of a Shapefile
-            // polygon record can be arranged arbitrarily. By calling setPolygonRingGroups(new int[]{0}), the
-            // SurfacePolygons interprets all sub-buffers as boundaries of a single tessellated shape, and configures the
-            // GLU tessellator's winding rule to correctly interpret outer and inner boundaries (in any arrangement)
-            // according to their winding order. We set the SurfacePolygons' winding rule to clockwise so that sub-buffers
-            // with a clockwise winding ordering are interpreted as outer boundaries.
+            // By calling setPolygonRingGroups(new int[]{0}), the SurfacePolygons interprets all sub-buffers as
+            // boundaries of a single tessellated shape, and configures the GLU tessellator's winding rule to correctly
+            // interpret outer and inner boundaries (in any arrangement) according to their winding order. We set the
+            // SurfacePolygons' winding rule to clockwise so that sub-buffers with a clockwise winding ordering are
+            // interpreted as outer boundaries.
             shape.setWindingRule(AVKey.CLOCKWISE);
             shape.setPolygonRingGroups(new int[]{0});
-            shape.setPolygonRingGroups(new int[]{0});
-            layer.addRenderable(shape);
+            renderables.add(shape);
+        }
+    }
+
+    //**************************************************************//
+    //********************  Primitive Geometry Construction  *******//
+    //**************************************************************//
+    @SuppressWarnings({"UnusedDeclaration"})
+    protected WWIcon createPoint(ShapefileRecord record, Position pos, String iconSource) {
+        return new UserFacingIcon(iconSource, pos);
+    }
+
+    protected Renderable createPolyline(ShapefileRecord record, ShapeAttributes attrs) {
+        SurfacePolylines shape = new SurfacePolylines(
+                Sector.fromDegrees(((ShapefileRecordPolyline) record).getBoundingRectangle()),
+                record.getCompoundPointBuffer());
+        shape.setAttributes(attrs);
+
+        return shape;
+    }
+
+    protected Renderable createPolyline(Shapefile shp, ShapeAttributes attrs) {
+        SurfacePolylines shape = new SurfacePolylines(Sector.fromDegrees(shp.getBoundingRectangle()),
+                shp.getPointBuffer());
+        shape.setAttributes(attrs);
+        return shape;
+    }
+
+    /**
+     * Creates the renderables for a polygon record and adds them to a layer: extruded polygons if
+     * the record has a height, otherwise a surface polygon with precomputed levels of detail.
+     * Overriding this method causes the polygons to be loaded on the calling thread.
+     *
+     * @param record the polygon record
+     * @param attrs the attributes of the renderables
+     * @param layer the layer to receive the renderables
+     */
+    protected void createPolygon(ShapefileRecord record, ShapeAttributes attrs, RenderableLayer layer) {
+        List<Renderable> renderables = new ArrayList<>();
+        new PolygonRecord(record, attrs, this.getHeight(record)).createRenderables(renderables);
+        for (Renderable renderable : renderables) {
+            layer.addRenderable(renderable);
         }
     }
 
@@ -467,4 +734,35 @@ public class ShapefileLayerFactory {
     protected ShapeAttributes createPolygonAttributes(ShapefileRecord record) {
         return randomAttrs.nextAttributes().asShapeAttributes();
     }
+
+    /**
+     * Receives the layers and the progress of a shapefile being loaded by
+     * {@link ShapefileLayerFactory#createLayersFromShapefile(Shapefile, LoadMonitor)}. The methods
+     * are called on the loading thread.
+     */
+    public interface LoadMonitor {
+
+        /**
+         * Called when a layer is created. Polygon layers are passed here while they are still
+         * empty, and are populated as the records are loaded.
+         *
+         * @param layer the new layer.
+         */
+        void layerCreated(Layer layer);
+
+        /**
+         * Called periodically as the records are read.
+         *
+         * @param numRecordsRead the number of records read so far.
+         * @param numRecords the number of records in the shapefile.
+         */
+        void progress(int numRecordsRead, int numRecords);
+
+        /**
+         * Polled by the loading thread to stop the load.
+         *
+         * @return true if the load should stop.
+         */
+        boolean isCancelled();
+    }
 }
@@ -29,28 +29,55 @@
  */
 package com.emxsys.gis.shapefile;
 
+import com.emxsys.gis.api.MultiResolutionPart;
+import gov.nasa.worldwind.geom.LatLon;
 import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.geom.Vec4;
 import gov.nasa.worldwind.render.AbstractSurfaceShape;
+import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.render.ShapeAttributes;
 import gov.nasa.worldwind.render.SurfacePolygons;
+import gov.nasa.worldwind.util.BufferWrapper;
 import gov.nasa.worldwind.util.CompoundVecBuffer;
+import gov.nasa.worldwind.util.VecBuffer;
+import gov.nasa.worldwind.util.VecBufferSequence;
+import gov.nasa.worldwind.util.WWBufferUtil;
+import java.nio.DoubleBuffer;
 
 /**
  * This class represents a polygon feature read from a {@link ShapefileDataObject}. It suppresses
  * the ability to move the polygon feature, which is a behavior provided by the
  * {@link AbstractSurfaceShape} ancestor class.
+ * <p>
+ * Polygons constructed from {@link MultiResolutionPart} rings are drawn at the level of detail
+ * that matches the view, omitting the vertices that deviate less than a pixel from the outline.
  *
  * @author Bruce Schubert <bruce@emxsys.com>
  */
 public class ShapefilePolygons extends SurfacePolygons {
 
     private long featureId = 0;
+    private MultiResolutionPart[] rings;
+    private Sector extent;
+    private int level;
 
     public ShapefilePolygons(Sector sector, CompoundVecBuffer buffer) {
         super(sector, buffer);
     }
 
+    /**
+     * Constructs polygons from rings with precomputed levels of detail.
+     *
+     * @param sector the extents of the rings
+     * @param rings the rings, initially drawn in full detail
+     */
+    public ShapefilePolygons(Sector sector, MultiResolutionPart[] rings) {
+        super(sector, createBuffer(rings, 0));
+        this.rings = rings;
+        this.extent = sector;
+    }
+
     public ShapefilePolygons(CompoundVecBuffer buffer) {
         super(buffer);
     }
@@ -70,6 +97,55 @@ public class ShapefilePolygons extends SurfacePolygons {
         System.out.println("Highlighted Feature ID: " + getFeatureId());
     }
 
+    @Override
+    public void preRender(DrawContext dc) {
+        if (this.rings != null) {
+            int newLevel = computeLevel(dc, this.extent);
+            if (newLevel != this.level) {
+                this.level = newLevel;
+                this.buffer = createBuffer(this.rings, newLevel);
+                this.needsOutlineTessellation = true;
+                this.needsInteriorTessellation = true;
+                this.onShapeChanged();
+            }
+        }
+        super.preRender(dc);
+    }
+
+    /**
+     * Computes the level of detail for the view of a sector.
+     */
+    private static int computeLevel(DrawContext dc, Sector sector) {
+        Vec4 center = dc.getGlobe().computePointFromLocation(sector.getCentroid());
+        Vec4 corner = dc.getGlobe().computePointFromLocation(new LatLon(sector.getMinLatitude(), sector.getMinLongitude()));
+        return MultiResolutionPart.getLevelForView(dc.getView().getEyePoint().distanceTo3(center),
+                center.distanceTo3(corner), dc.getView().getEyePosition().getElevation(),
+                dc.getView()::computePixelSizeAtDistance);
+    }
+
+    /**
+     * Creates a buffer with a sub-buffer for each ring at a level of detail.
+     *
+     * @param rings the rings
+     * @param level the level of detail
+     * @return a new buffer of longitude, latitude values
+     */
+    static CompoundVecBuffer createBuffer(MultiResolutionPart[] rings, int level) {
+        double[][] coords = new double[rings.length][];
+        int numPoints = 0;
+        for (int i = 0; i < rings.length; i++) {
+            coords[i] = rings[i].getCoords(level);
+            numPoints += coords[i].length / 2;
+        }
+        VecBufferSequence buffer = new VecBufferSequence(
+                new VecBuffer(2, new BufferWrapper.DoubleBufferWrapper(WWBufferUtil.newDoubleBuffer(numPoints * 2, true))),
+                rings.length);
+        for (double[] ring : coords) {
+            buffer.append(new VecBuffer(2, new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(ring))));
+        }
+        return buffer;
+    }
+
     /**
      * ShapefilePolygons cannot be moved.
      * @param position ignored.
@@ -33,7 +33,9 @@ import com.emxsys.gis.api.Box;
 import com.emxsys.gis.api.GeoSector;
 import com.emxsys.gis.api.Geometry;
 import com.emxsys.gis.api.data.GisResultSet;
+import com.emxsys.gis.shapefile.format.DBaseAttributeIndex;
 import com.emxsys.gis.shapefile.format.RandomAccessShapefile;
+import com.emxsys.gis.shapefile.format.ShapefileSpatialIndex;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.formats.shapefile.Shapefile;
 import gov.nasa.worldwind.formats.shapefile.ShapefileRecord;
@@ -128,6 +130,13 @@ public class ShapefileResultSet extends GisResultSet {
         if (this.queryBounds == null || this.queryBounds.contains(getShapefileBounds(this.shapefile))) {
             return null;
         }
+        // Use the spatial index to read only the record headers of the candidates
+        ShapefileSpatialIndex index = this.shapefile.getSpatialIndex();
+        if (index != null) {
+            return toList(index.query(
+                    queryBounds.getSouthwest().getLatitudeDegrees(), queryBounds.getSouthwest().getLongitudeDegrees(),
+                    queryBounds.getNortheast().getLatitudeDegrees(), queryBounds.getNortheast().getLongitudeDegrees()));
+        }
         // Filter the result set rows based on the bounding box
         List<Integer> results = new ArrayList<>();
         try {
@@ -153,6 +162,11 @@ public class ShapefileResultSet extends GisResultSet {
      */
     private List<Integer> queryForMatchingValues(String columnLabel, String queryValue,
                                                  boolean ignoreCase) {
+        // Use an attribute index if one was created for the column
+        DBaseAttributeIndex index = this.shapefile.getAttributeIndex(columnLabel, ignoreCase);
+        if (index != null) {
+            return toList(index.find(queryValue));
+        }
         // Filter the result set rows based on simple text equality
         List<Integer> results = new ArrayList<>();
         try {
@@ -171,6 +185,14 @@ public class ShapefileResultSet extends GisResultSet {
         return results;
     }
 
+    private static List<Integer> toList(int[] recordNumbers) {
+        List<Integer> results = new ArrayList<>(recordNumbers.length);
+        for (int recordNumber : recordNumbers) {
+            results.add(recordNumber);
+        }
+        return results;
+    }
+
     private int getRecordNumberForRow(int row) {
         int recordNumber = row;
         if (this.queryResults != null) {
@@ -41,13 +41,15 @@ import gov.nasa.worldwind.formats.shapefile.Shapefile;
 import gov.nasa.worldwind.layers.Layer;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
 import org.openide.filesystems.FileObject;
 import org.openide.loaders.*;
 import org.openide.nodes.Node;
 import org.openide.nodes.Node.Cookie;
+import org.openide.util.Cancellable;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.*;
 
@@ -138,28 +140,21 @@ public class ShapefileDataObject extends MultiDataObject {
             }
             content.remove(this);
 
-            // Now, open the shapefile and create the map layer in a background thread
+            // Now, open the shapefile and create the map layer in a background thread. The layers are
+            // added to the viewer as soon as they're created and are populated while loading.
             Thread t = new Thread(() -> {
                 LOG.log(Level.INFO, "Loading shapefile {0} ...", dataSource.getName());
                 long startTimeMillis = System.currentTimeMillis();
                 Shapefile shapefile = dataSource.getLookup().lookup(Shapefile.class);
                 LOG.log(Level.INFO, "  Type: {0}", shapefile.getShapeType());
                 LOG.log(Level.INFO, "  Num records: {0}", shapefile.getNumberOfRecords());
-                ShapefileLayerFactory shapefileLoader = new ShapefileLayerFactory();
-                List<Layer> layers1 = shapefileLoader.createLayersFromShapefile(shapefile);
-                for (int i = 0; i < layers1.size(); i++) {
-                    Layer layer = layers1.get(i);
-                    if (layers1.size() > 1) {
-                        String suffix = "(" + (i + 1) + ")";
-                        layer.setName(LAYER_NAME + suffix);
-                    }
-                    else {
-                        layer.setName(LAYER_NAME);
-                    }
-                    ShapefileGisLayer gisLayer = new ShapefileGisLayer(layer);
-                    GisViewer viewer1 = Lookup.getDefault().lookup(GisViewer.class);
-                    viewer1.addGisLayer(gisLayer);
-                    content.add(new RemoveGisLayerCapability(gisLayer));
+                ShapefileLoadMonitor monitor = new ShapefileLoadMonitor(LAYER_NAME, shapefile.getNumberOfRecords());
+                try {
+                    ShapefileLayerFactory shapefileLoader = new ShapefileLayerFactory();
+                    shapefileLoader.createLayersFromShapefile(shapefile, monitor);
+                }
+                finally {
+                    monitor.finish();
                 }
                 LOG.log(Level.INFO, "  Load time: {0}", TimeUtil.msToSecs(System.currentTimeMillis() - startTimeMillis));
             }, "Shapefile GisLayer Loader");
@@ -167,6 +162,67 @@ public class ShapefileDataObject extends MultiDataObject {
         }
     }
 
+    /**
+     * Adds the layers to the GIS viewer as they're created, and shows the progress of the load in
+     * a cancellable progress bar.
+     */
+    private class ShapefileLoadMonitor implements ShapefileLayerFactory.LoadMonitor, Cancellable {
+
+        private final String layerName;
+        private final ProgressHandle handle;
+        private volatile boolean cancelled;
+        private final int numWorkUnits;
+        private int numLayers;
+        private ShapefileGisLayer firstLayer;
+
+        ShapefileLoadMonitor(String layerName, int numRecords) {
+            this.layerName = layerName;
+            this.numWorkUnits = Math.max(numRecords, 1);
+            this.handle = ProgressHandleFactory.createHandle("Loading " + layerName, this);
+            this.handle.start(numWorkUnits);
+        }
+
+        @Override
+        public void layerCreated(Layer layer) {
+            // A single layer keeps the plain name; multiple layers are numbered from one
+            numLayers++;
+            if (numLayers == 2) {
+                String name = layerName + "(1)";
+                firstLayer.getLookup().lookup(Layer.class).setName(name);
+                firstLayer.setName(name);
+            }
+            layer.setName(numLayers > 1 ? layerName + "(" + numLayers + ")" : layerName);
+            ShapefileGisLayer gisLayer = new ShapefileGisLayer(layer);
+            if (numLayers == 1) {
+                firstLayer = gisLayer;
+            }
+            GisViewer viewer = Lookup.getDefault().lookup(GisViewer.class);
+            viewer.addGisLayer(gisLayer);
+            content.add(new RemoveGisLayerCapability(gisLayer));
+        }
+
+        @Override
+        public void progress(int numRecordsRead, int numRecords) {
+            handle.progress(Math.min(numRecordsRead, numWorkUnits));
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean cancel() {
+            LOG.log(Level.INFO, "Cancelled loading shapefile {0}", layerName);
+            cancelled = true;
+            return true;
+        }
+
+        void finish() {
+            handle.finish();
+        }
+    }
+
     /**
      * This capability class, if added to the DataObject's lookup, provides the ability to remove
      * the layer representing this shapefile from the GIS viewer.
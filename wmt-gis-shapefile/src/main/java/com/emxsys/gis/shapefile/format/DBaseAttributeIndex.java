@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2011-2014, Bruce Schubert. <bruce@emxsys.com> 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *   contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.shapefile.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * An in-memory hash index of a dBase (.dbf) column for equality queries. The column is read in
+ * place from a MappedDBaseFile without materializing the other fields. The values are keyed by
+ * their string form as returned by ShapefileResultSet.getString, so character and numeric columns
+ * can be indexed.
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class DBaseAttributeIndex {
+
+    private static final int[] NO_RECORDS = new int[0];
+
+    private final String fieldName;
+    private final boolean ignoreCase;
+    /** The ascending one-based record numbers for each value. */
+    private final HashMap<String, int[]> records;
+
+    private DBaseAttributeIndex(String fieldName, boolean ignoreCase, HashMap<String, int[]> records) {
+        this.fieldName = fieldName;
+        this.ignoreCase = ignoreCase;
+        this.records = records;
+    }
+
+    /**
+     * Builds an index of a column.
+     *
+     * @param dbfFile The .dbf file.
+     * @param fieldName The name of the column.
+     * @param ignoreCase If true, the index matches values without regard to case.
+     * @return A new index.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the column doesn't exist or its type can't be indexed.
+     */
+    public static DBaseAttributeIndex build(File dbfFile, String fieldName, boolean ignoreCase) throws IOException {
+        return build(MappedDBaseFile.open(dbfFile), fieldName, ignoreCase);
+    }
+
+    /**
+     * Builds an index of a column of a mapped dBase file.
+     *
+     * @param dbf The mapped .dbf file.
+     * @param fieldName The name of the column.
+     * @param ignoreCase If true, the index matches values without regard to case.
+     * @return A new index.
+     * @throws IllegalArgumentException if the column doesn't exist or its type can't be indexed.
+     */
+    public static DBaseAttributeIndex build(MappedDBaseFile dbf, String fieldName, boolean ignoreCase) {
+        int field = dbf.getFieldIndex(fieldName);
+        if (field < 0) {
+            throw new IllegalArgumentException("A column named '" + fieldName + "' was not found in " + dbf.getFile().getName());
+        }
+        char fieldType = dbf.getFieldType(field);
+        int decimals = dbf.getFieldDecimals(field);
+        if ("CNFL".indexOf(Character.toUpperCase(fieldType)) < 0) {
+            throw new IllegalArgumentException("Column '" + fieldName + "' of type '" + fieldType + "' cannot be indexed.");
+        }
+
+        // Read the column in place and collect the record numbers for each value
+        HashMap<String, int[]> postings = new HashMap<>();
+        MappedDBaseFile.Record record = dbf.newRecord();
+        int numRecords = dbf.getNumberOfRecords();
+        for (int recordNo = 1; recordNo <= numRecords; recordNo++) {
+            String text = record.moveTo(recordNo).getString(field);
+            String key = toKey(normalize(text, fieldType, decimals), ignoreCase);
+            // The first element is the number of records
+            int[] list = postings.get(key);
+            if (list == null) {
+                list = new int[2];
+                postings.put(key, list);
+            }
+            else if (list[0] + 1 == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                postings.put(key, list);
+            }
+            list[++list[0]] = recordNo;
+        }
+        HashMap<String, int[]> records = new HashMap<>(postings.size() * 4 / 3 + 1);
+        postings.forEach((key, list) -> records.put(key, Arrays.copyOfRange(list, 1, list[0] + 1)));
+        return new DBaseAttributeIndex(fieldName, ignoreCase, records);
+    }
+
+    /**
+     * Finds the records containing a value.
+     *
+     * @param value The value to match.
+     * @return The ascending one-based record numbers; the caller must not modify the array.
+     */
+    public int[] find(String value) {
+        int[] result = records.get(toKey(value, ignoreCase));
+        return result != null ? result : NO_RECORDS;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * Gets the number of distinct values in the column.
+     * @return The number of keys.
+     */
+    public int size() {
+        return records.size();
+    }
+
+    private static String toKey(String value, boolean ignoreCase) {
+        return ignoreCase ? value.toLowerCase(Locale.ROOT) : value;
+    }
+
+    /**
+     * Converts a field's text to the string form of the value read by the DBaseFile.
+     */
+    static String normalize(String text, char fieldType, int decimals) {
+        String value = text.trim();
+        if (value.isEmpty()) {
+            return value;
+        }
+        try {
+            switch (Character.toUpperCase(fieldType)) {
+                case 'N':
+                case 'F':
+                    return decimals == 0 && value.indexOf('.') < 0
+                            ? Long.toString(Long.parseLong(value))
+                            : Double.toString(Double.parseDouble(value));
+                case 'L':
+                    switch (Character.toUpperCase(value.charAt(0))) {
+                        case 'T':
+                        case 'Y':
+                            return Boolean.TRUE.toString();
+                        case 'F':
+                        case 'N':
+                            return Boolean.FALSE.toString();
+                        default:
+                            return "";
+                    }
+                default:
+                    return value;
+            }
+        }
+        catch (NumberFormatException ex) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2011-2014, Bruce Schubert. <bruce@emxsys.com> 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *   contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.shapefile.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read-only, memory-mapped dBase (.dbf) file. The fixed-length records are located in O(1) time
+ * and their fields are read in place through flyweight Record views; numeric fields are parsed
+ * without creating strings.
+ * <p>
+ * A MappedDBaseFile is safe to share between threads; each thread reads through its own Record
+ * from newRecord().
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class MappedDBaseFile {
+
+    private static final int HEADER_LENGTH = 32;
+    private static final int FIELD_DESCRIPTOR_LENGTH = 32;
+    private static final byte FIELD_TERMINATOR = 0x0D;
+    private static final byte DELETED_FLAG = '*';
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18};
+
+    private final File dbfFile;
+    private final MappedByteBuffer[] segments;
+    private final int numRecords;
+    private final int headerLength;
+    private final int recordLength;
+    private final List<String> fieldNames;
+    private final char[] fieldTypes;
+    private final int[] fieldOffsets;
+    private final int[] fieldLengths;
+    private final int[] fieldDecimals;
+
+    private MappedDBaseFile(File dbfFile, MappedByteBuffer[] segments) {
+        this.dbfFile = dbfFile;
+        this.segments = segments;
+        ByteBuffer header = segments[0];
+        this.numRecords = header.getInt(4);
+        this.headerLength = header.getShort(8) & 0xFFFF;
+        this.recordLength = header.getShort(10) & 0xFFFF;
+
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<int[]> descriptors = new ArrayList<>();
+        int fieldOffset = 1;    // After the deletion flag
+        for (int pos = HEADER_LENGTH; pos + FIELD_DESCRIPTOR_LENGTH <= headerLength
+                && header.get(pos) != FIELD_TERMINATOR; pos += FIELD_DESCRIPTOR_LENGTH) {
+            byte[] name = new byte[11];
+            int nameLength = 0;
+            while (nameLength < name.length && header.get(pos + nameLength) != 0) {
+                name[nameLength] = header.get(pos + nameLength);
+                nameLength++;
+            }
+            names.add(new String(name, 0, nameLength, StandardCharsets.ISO_8859_1).trim());
+            int length = header.get(pos + 16) & 0xFF;
+            descriptors.add(new int[]{header.get(pos + 11), fieldOffset, length, header.get(pos + 17) & 0xFF});
+            fieldOffset += length;
+        }
+        this.fieldNames = Collections.unmodifiableList(names);
+        int numFields = names.size();
+        this.fieldTypes = new char[numFields];
+        this.fieldOffsets = new int[numFields];
+        this.fieldLengths = new int[numFields];
+        this.fieldDecimals = new int[numFields];
+        for (int i = 0; i < numFields; i++) {
+            int[] descriptor = descriptors.get(i);
+            fieldTypes[i] = (char) descriptor[0];
+            fieldOffsets[i] = descriptor[1];
+            fieldLengths[i] = descriptor[2];
+            fieldDecimals[i] = descriptor[3];
+        }
+    }
+
+    /**
+     * Maps a dBase file into memory.
+     *
+     * @param dbfFile The .dbf file.
+     * @return A new MappedDBaseFile.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static MappedDBaseFile open(File dbfFile) throws IOException {
+        return new MappedDBaseFile(dbfFile, MappedShapefile.map(dbfFile, ByteOrder.LITTLE_ENDIAN));
+    }
+
+    public File getFile() {
+        return dbfFile;
+    }
+
+    public int getNumberOfRecords() {
+        return numRecords;
+    }
+
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * Gets the index of a field.
+     * @param fieldName The field name.
+     * @return The zero-based field index, or -1 if not found.
+     */
+    public int getFieldIndex(String fieldName) {
+        return fieldNames.indexOf(fieldName);
+    }
+
+    /**
+     * Gets the dBase type of a field.
+     * @param field The zero-based field index.
+     * @return The type code, e.g., 'C', 'N', 'F', 'L' or 'D'.
+     */
+    public char getFieldType(int field) {
+        return fieldTypes[field];
+    }
+
+    public int getFieldDecimals(int field) {
+        return fieldDecimals[field];
+    }
+
+    /**
+     * Creates a view for reading records. Views are not thread-safe; create one per thread.
+     * @return A new Record positioned before the first record.
+     */
+    public Record newRecord() {
+        return new Record();
+    }
+
+    /**
+     * A flyweight view of a record that reads the fields in place.
+     */
+    public final class Record {
+
+        private ByteBuffer buffer;
+        /** The position of the record in the buffer. */
+        private int base;
+        private int recordNo;
+
+        private Record() {
+        }
+
+        /**
+         * Positions the view on a record.
+         *
+         * @param recordNo The one-based record number.
+         * @return This view.
+         */
+        public Record moveTo(int recordNo) {
+            if (recordNo < 1 || recordNo > numRecords) {
+                throw new IndexOutOfBoundsException("Record " + recordNo + " of " + numRecords);
+            }
+            long offset = headerLength + (long) (recordNo - 1) * recordLength;
+            this.buffer = segments[(int) (offset >>> MappedShapefile.SEGMENT_SHIFT)];
+            this.base = (int) (offset & ((1L << MappedShapefile.SEGMENT_SHIFT) - 1));
+            this.recordNo = recordNo;
+            return this;
+        }
+
+        public int getRecordNumber() {
+            return recordNo;
+        }
+
+        public boolean isDeleted() {
+            return buffer.get(base) == DELETED_FLAG;
+        }
+
+        /**
+         * Determines if a field is blank.
+         * @param field The zero-based field index.
+         * @return True if the field contains only spaces.
+         */
+        public boolean isNull(int field) {
+            int start = base + fieldOffsets[field];
+            for (int i = 0; i < fieldLengths[field]; i++) {
+                byte b = buffer.get(start + i);
+                if (b != ' ' && b != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the trimmed text of a field.
+         * @param field The zero-based field index.
+         * @return The text; empty if the field is blank.
+         */
+        public String getString(int field) {
+            int start = base + fieldOffsets[field];
+            int end = start + fieldLengths[field];
+            while (start < end && isBlank(buffer.get(start))) {
+                start++;
+            }
+            while (end > start && isBlank(buffer.get(end - 1))) {
+                end--;
+            }
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * Gets a numeric field as a long.
+         * @param field The zero-based field index.
+         * @return The value, rounded; zero if the field is blank.
+         */
+        public long getLong(int field) {
+            return Math.round(getDouble(field));
+        }
+
+        /**
+         * Gets a numeric field as a double. The digits are parsed in place.
+         * @param field The zero-based field index.
+         * @return The value; zero if the field is blank.
+         * @throws NumberFormatException if the field is not numeric.
+         */
+        public double getDouble(int field) {
+            int start = base + fieldOffsets[field];
+            int end = start + fieldLengths[field];
+            while (start < end && isBlank(buffer.get(start))) {
+                start++;
+            }
+            while (end > start && isBlank(buffer.get(end - 1))) {
+                end--;
+            }
+            if (start == end) {
+                return 0;
+            }
+            boolean negative = false;
+            int i = start;
+            byte b = buffer.get(i);
+            if (b == '-' || b == '+') {
+                negative = b == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int numDigits = 0;
+            int numDecimals = -1;
+            for (; i < end; i++) {
+                b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    numDigits++;
+                    if (numDecimals >= 0) {
+                        numDecimals++;
+                    }
+                }
+                else if (b == '.' && numDecimals < 0) {
+                    numDecimals = 0;
+                }
+                else {
+                    break;
+                }
+            }
+            if (i < end || numDigits == 0 || numDigits > 15 || numDecimals >= POWERS_OF_TEN.length) {
+                // Exponents, long mantissas and malformed values
+                return Double.parseDouble(getString(field));
+            }
+            // Exact when the mantissa and the power of ten are exact doubles
+            double value = numDecimals > 0 ? mantissa / POWERS_OF_TEN[numDecimals] : mantissa;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Gets a logical field.
+         * @param field The zero-based field index.
+         * @return True if the field is 'T', 't', 'Y' or 'y'.
+         */
+        public boolean getBoolean(int field) {
+            byte b = buffer.get(base + fieldOffsets[field]);
+            return b == 'T' || b == 't' || b == 'Y' || b == 'y';
+        }
+
+        private boolean isBlank(byte b) {
+            return b == ' ' || b == 0;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2011-2014, Bruce Schubert. <bruce@emxsys.com> 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *   contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.shapefile.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only, memory-mapped shapefile (.shp and .shx). Records are located in O(1) time with the
+ * .shx offsets and read in place through flyweight Record views, so random access costs neither
+ * system calls nor record objects.
+ * <p>
+ * A MappedShapefile is safe to share between threads; each thread reads through its own Record
+ * from newRecord(). Files larger than 2 GB are mapped in overlapping segments. The mappings are
+ * released when the MappedShapefile is garbage collected.
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class MappedShapefile {
+
+    public static final int SHAPE_NULL = 0;
+    public static final int SHAPE_POINT = 1;
+    public static final int SHAPE_POLYLINE = 3;
+    public static final int SHAPE_POLYGON = 5;
+    public static final int SHAPE_MULTIPOINT = 8;
+    public static final int SHAPE_MULTIPATCH = 31;
+    static final int HEADER_LENGTH = 100;
+    static final int RECORD_HEADER_LENGTH = 8;
+    private static final int SHX_RECORD_LENGTH = 8;
+    /** Segments start every 1 GB and extend up to 2 GB, so a record up to 1 GB is in one segment. */
+    static final int SEGMENT_SHIFT = 30;
+
+    private final File shpFile;
+    private final MappedByteBuffer[] shp;
+    private final MappedByteBuffer shx;
+    private final int numRecords;
+
+    private MappedShapefile(File shpFile, MappedByteBuffer[] shp, MappedByteBuffer shx) {
+        this.shpFile = shpFile;
+        this.shp = shp;
+        this.shx = shx;
+        this.numRecords = (shx.capacity() - HEADER_LENGTH) / SHX_RECORD_LENGTH;
+    }
+
+    /**
+     * Maps a shapefile and its index into memory.
+     *
+     * @param shpFile The .shp file; the .shx must be in the same folder.
+     * @return A new MappedShapefile.
+     * @throws IOException if the files cannot be mapped.
+     */
+    public static MappedShapefile open(File shpFile) throws IOException {
+        MappedByteBuffer[] shp = map(shpFile, ByteOrder.LITTLE_ENDIAN);
+        MappedByteBuffer[] shx = map(ShapefileSpatialIndex.findSibling(shpFile, "shx"), ByteOrder.BIG_ENDIAN);
+        if (shx.length > 1) {
+            throw new IOException("The .shx for " + shpFile.getName() + " is too large.");
+        }
+        return new MappedShapefile(shpFile, shp, shx[0]);
+    }
+
+    /**
+     * Maps a file in segments that start every 2^SEGMENT_SHIFT bytes.
+     */
+    static MappedByteBuffer[] map(File file, ByteOrder order) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int numSegments = (int) Math.max(1, (size + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+            for (int i = 0; i < numSegments; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                long length = Math.min(size - start, Integer.MAX_VALUE);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                segments[i].order(order);
+            }
+            return segments;
+        }
+    }
+
+    public File getFile() {
+        return shpFile;
+    }
+
+    public int getNumberOfRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Gets the shape type of the file.
+     * @return The shape type from the file header, e.g., SHAPE_POLYGON.
+     */
+    public int getShapeType() {
+        return shp[0].getInt(32);
+    }
+
+    /**
+     * Gets the extents of the file.
+     * @return A new array containing [Xmin, Ymin, Xmax, Ymax] from the file header.
+     */
+    public double[] getBoundingRectangle() {
+        return new double[]{shp[0].getDouble(36), shp[0].getDouble(44), shp[0].getDouble(52), shp[0].getDouble(60)};
+    }
+
+    /**
+     * Gets the byte offset of a record from the .shx.
+     * @param recordNo The one-based record number.
+     * @return The offset of the record header in the .shp.
+     */
+    public long getRecordOffset(int recordNo) {
+        if (recordNo < 1 || recordNo > numRecords) {
+            throw new IndexOutOfBoundsException("Record " + recordNo + " of " + numRecords);
+        }
+        // Convert from 16-bit words to bytes
+        return (shx.getInt(HEADER_LENGTH + (recordNo - 1) * SHX_RECORD_LENGTH) & 0xFFFFFFFFL) * 2;
+    }
+
+    /**
+     * Creates a view for reading records. Views are not thread-safe; create one per thread.
+     * @return A new Record positioned before the first record.
+     */
+    public Record newRecord() {
+        return new Record();
+    }
+
+    /**
+     * A flyweight view of a record that reads the record's contents in place.
+     */
+    public final class Record {
+
+        private ByteBuffer buffer;
+        /** The position of the record contents in the buffer. */
+        private int base;
+        private int recordNo;
+        private int shapeType;
+        /** The position of the first part index; -1 if the shape doesn't have parts. */
+        private int partsPosition;
+        /** The position of the first point. */
+        private int pointsPosition;
+        private int numParts;
+        private int numPoints;
+
+        private Record() {
+        }
+
+        /**
+         * Positions the view on a record.
+         *
+         * @param recordNo The one-based record number.
+         * @return This view.
+         */
+        public Record moveTo(int recordNo) {
+            long offset = getRecordOffset(recordNo) + RECORD_HEADER_LENGTH;
+            this.buffer = shp[(int) (offset >>> SEGMENT_SHIFT)];
+            this.base = (int) (offset & ((1L << SEGMENT_SHIFT) - 1));
+            this.recordNo = recordNo;
+            this.shapeType = buffer.getInt(base);
+            this.partsPosition = -1;
+            // The Z and M variants of a shape type share its layout
+            switch (shapeType == SHAPE_MULTIPATCH ? shapeType : shapeType % 10) {
+                case SHAPE_NULL:
+                    numParts = 0;
+                    numPoints = 0;
+                    pointsPosition = base + 4;
+                    break;
+                case SHAPE_POINT:
+                    numParts = 1;
+                    numPoints = 1;
+                    pointsPosition = base + 4;
+                    break;
+                case SHAPE_MULTIPOINT:
+                    numParts = 1;
+                    numPoints = buffer.getInt(base + 36);
+                    pointsPosition = base + 40;
+                    break;
+                default:
+                    // PolyLine, Polygon and MultiPatch: the parts, [part types,] then the points
+                    numParts = buffer.getInt(base + 36);
+                    numPoints = buffer.getInt(base + 40);
+                    partsPosition = base + 44;
+                    pointsPosition = partsPosition + numParts * (shapeType == SHAPE_MULTIPATCH ? 8 : 4);
+            }
+            return this;
+        }
+
+        public int getRecordNumber() {
+            return recordNo;
+        }
+
+        public int getShapeType() {
+            return shapeType;
+        }
+
+        public boolean isNull() {
+            return shapeType == SHAPE_NULL;
+        }
+
+        public double getMinX() {
+            return getBound(0);
+        }
+
+        public double getMinY() {
+            return getBound(1);
+        }
+
+        public double getMaxX() {
+            return getBound(2);
+        }
+
+        public double getMaxY() {
+            return getBound(3);
+        }
+
+        /**
+         * Gets a value from the record's bounding box [Xmin, Ymin, Xmax, Ymax]. Points are their
+         * own bounding box, and null shapes have NaN bounds.
+         */
+        private double getBound(int index) {
+            switch (shapeType == SHAPE_MULTIPATCH ? shapeType : shapeType % 10) {
+                case SHAPE_NULL:
+                    return Double.NaN;
+                case SHAPE_POINT:
+                    return (index & 1) == 0 ? getX(0) : getY(0);
+                default:
+                    return buffer.getDouble(base + 4 + index * 8);
+            }
+        }
+
+        public int getNumParts() {
+            return numParts;
+        }
+
+        public int getNumPoints() {
+            return numPoints;
+        }
+
+        /**
+         * Gets the index of a part's first point.
+         * @param part The zero-based part number.
+         * @return The index of the first point.
+         */
+        public int getFirstPoint(int part) {
+            return partsPosition < 0 ? 0 : buffer.getInt(partsPosition + part * 4);
+        }
+
+        /**
+         * Gets the number of points in a part.
+         * @param part The zero-based part number.
+         * @return The number of points.
+         */
+        public int getNumPoints(int part) {
+            int end = part + 1 < numParts ? getFirstPoint(part + 1) : numPoints;
+            return end - getFirstPoint(part);
+        }
+
+        public double getX(int point) {
+            return buffer.getDouble(pointsPosition + point * 16);
+        }
+
+        public double getY(int point) {
+            return buffer.getDouble(pointsPosition + point * 16 + 8);
+        }
+
+        /**
+         * Copies points into an array as interleaved x,y values.
+         *
+         * @param first The index of the first point.
+         * @param count The number of points.
+         * @param xy The destination, with room for 2 * count values.
+         * @param offset The position in the destination.
+         */
+        public void getPoints(int first, int count, double[] xy, int offset) {
+            for (int i = 0; i < count; i++) {
+                xy[offset + i * 2] = getX(first + i);
+                xy[offset + i * 2 + 1] = getY(first + i);
+            }
+        }
+    }
+}
@@ -33,9 +33,14 @@ import gov.nasa.worldwind.formats.shapefile.DBaseField;
 import gov.nasa.worldwind.formats.shapefile.Shapefile;
 import gov.nasa.worldwind.formats.shapefile.ShapefileRecord;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 
@@ -51,6 +56,12 @@ public class RandomAccessShapefile extends Shapefile {
     private List<DBaseField> fields;
     private List<String> fieldNames;
     private ShapefileRecord record;
+    private MappedShapefile mappedShapefile;
+    private MappedDBaseFile mappedAttributes;
+    private ShapefileSpatialIndex spatialIndex;
+    private boolean spatialIndexFailed;
+    private final Map<String, DBaseAttributeIndex> attributeIndexes = new ConcurrentHashMap<>();
+    private static final Logger LOG = Logger.getLogger(RandomAccessShapefile.class.getName());
 
     public RandomAccessShapefile(File shpFile) {
         this(FileUtil.toFileObject(shpFile));
@@ -237,4 +248,80 @@ public class RandomAccessShapefile extends Shapefile {
     public String getName() {
         return this.primaryFile.getName();
     }
+    /**
+     * Gets a memory-mapped view of the .shp and .shx for fast, concurrent random access to the
+     * geometry. The mapping is created on first use and shared with the spatial index.
+     * @return the mapped shapefile
+     * @throws IOException if the files cannot be mapped
+     */
+    public synchronized MappedShapefile getMappedShapefile() throws IOException {
+        if (this.mappedShapefile == null) {
+            this.mappedShapefile = MappedShapefile.open(FileUtil.toFile(this.primaryFile));
+        }
+        return this.mappedShapefile;
+    }
+
+    /**
+     * Gets a memory-mapped view of the .dbf for fast, concurrent random access to the attributes.
+     * @return the mapped attributes, or null if the shapefile has no .dbf
+     * @throws IOException if the file cannot be mapped
+     */
+    public synchronized MappedDBaseFile getMappedAttributes() throws IOException {
+        if (this.mappedAttributes == null) {
+            FileObject dbfFile = FileUtil.findBrother(this.primaryFile, "dbf");
+            if (dbfFile != null) {
+                this.mappedAttributes = MappedDBaseFile.open(FileUtil.toFile(dbfFile));
+            }
+        }
+        return this.mappedAttributes;
+    }
+
+    /**
+     * Gets the spatial index, reading the .qix or building it on first use.
+     * @return the spatial index, or null if it could not be created.
+     */
+    public synchronized ShapefileSpatialIndex getSpatialIndex() {
+        if (this.spatialIndex == null && !this.spatialIndexFailed) {
+            try {
+                this.spatialIndex = ShapefileSpatialIndex.open(getMappedShapefile());
+            }
+            catch (IOException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Cannot index {0}: {1}", new Object[]{getName(), ex.getMessage()});
+                this.spatialIndexFailed = true;
+            }
+        }
+        return this.spatialIndex;
+    }
+
+    /**
+     * Creates a hash index on an attribute column for equality queries. The index is kept until
+     * the shapefile is released.
+     * @param fieldName the column to index
+     * @param ignoreCase if true, the index supports case insensitive queries
+     * @return the new or existing index
+     * @throws IOException if the .dbf cannot be read
+     * @throws IllegalArgumentException if the column doesn't exist or cannot be indexed
+     */
+    public DBaseAttributeIndex createAttributeIndex(String fieldName, boolean ignoreCase) throws IOException {
+        DBaseAttributeIndex index = getAttributeIndex(fieldName, ignoreCase);
+        if (index == null) {
+            MappedDBaseFile attributes = getMappedAttributes();
+            if (attributes == null) {
+                throw new IllegalArgumentException("The shapefile " + getName() + " has no attributes.");
+            }
+            index = DBaseAttributeIndex.build(attributes, fieldName, ignoreCase);
+            this.attributeIndexes.put(fieldName + (ignoreCase ? "/i" : ""), index);
+        }
+        return index;
+    }
+
+    /**
+     * Gets an index created by createAttributeIndex.
+     * @param fieldName the indexed column
+     * @param ignoreCase the case sensitivity of the index
+     * @return the index, or null if the column is not indexed
+     */
+    public DBaseAttributeIndex getAttributeIndex(String fieldName, boolean ignoreCase) {
+        return this.attributeIndexes.get(fieldName + (ignoreCase ? "/i" : ""));
+    }
 }
@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) 2011-2014, Bruce Schubert. <bruce@emxsys.com> 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *   contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.shapefile.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A spatial index of a shapefile's records. The index is a quadtree persisted next to the .shp in
+ * the MapServer/GDAL .qix format, so an index created by shptree or ogr2ogr is used as-is, and an
+ * index created here can be used by those tools.
+ * <p>
+ * The quadtree only narrows the search to the records in the nodes that intersect the query. The
+ * candidates are then prefiltered on the bounding boxes stored in their record headers, which are
+ * read in place from the memory-mapped shapefile, so no record geometry is read.
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class ShapefileSpatialIndex {
+
+    public static final String QIX_EXTENSION = "qix";
+    private static final int QIX_HEADER_LENGTH = 16;
+    private static final int QIX_VERSION = 1;
+    /** The overlap of the quadtree node halves used by MapServer. */
+    private static final double SPLIT_RATIO = 0.55;
+    /** The depth limit used by shapelib for automatically sized trees. */
+    private static final int MAX_DEPTH = 12;
+    private static final Logger LOG = Logger.getLogger(ShapefileSpatialIndex.class.getName());
+
+    private final MappedShapefile shapefile;
+    /** The .qix contents, positioned in the byte order of the file. */
+    private final ByteBuffer tree;
+    /** The record bounds [minX, minY, maxX, maxY]; null when the tree was read from a .qix. */
+    private final double[] recordBounds;
+
+    private ShapefileSpatialIndex(MappedShapefile shapefile, ByteBuffer tree, double[] recordBounds) {
+        this.shapefile = shapefile;
+        this.tree = tree;
+        this.recordBounds = recordBounds;
+    }
+
+    /**
+     * Opens the spatial index for a shapefile. An existing .qix that is current with the .shp is
+     * read; otherwise the index is built from the record headers and saved as a .qix if the
+     * directory is writable.
+     *
+     * @param shpFile The .shp file.
+     * @return The spatial index.
+     * @throws IOException if the .shp or .shx cannot be read.
+     */
+    public static ShapefileSpatialIndex open(File shpFile) throws IOException {
+        return open(MappedShapefile.open(shpFile));
+    }
+
+    /**
+     * Opens the spatial index for a mapped shapefile. See open(File).
+     *
+     * @param shapefile The mapped shapefile, which is shared with the index.
+     * @return The spatial index.
+     * @throws IOException if the shapefile cannot be read.
+     */
+    public static ShapefileSpatialIndex open(MappedShapefile shapefile) throws IOException {
+        File shpFile = shapefile.getFile();
+        File qixFile = findSibling(shpFile, QIX_EXTENSION);
+        if (qixFile.exists() && qixFile.lastModified() >= shpFile.lastModified()) {
+            try {
+                ByteBuffer tree = readTree(qixFile, shapefile.getNumberOfRecords());
+                if (tree != null) {
+                    return new ShapefileSpatialIndex(shapefile, tree, null);
+                }
+            }
+            catch (IOException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Rebuilding the invalid spatial index {0}: {1}", new Object[]{qixFile, ex.getMessage()});
+            }
+        }
+        double[] bounds = readRecordBounds(shapefile);
+        ByteBuffer tree = buildTree(bounds);
+        try (FileChannel channel = FileChannel.open(qixFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer contents = tree.duplicate();
+            contents.rewind();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+        catch (IOException ex) {
+            // The index still works, it just has to be rebuilt next time
+            LOG.log(Level.INFO, "Could not save the spatial index {0}: {1}", new Object[]{qixFile, ex.getMessage()});
+        }
+        return new ShapefileSpatialIndex(shapefile, tree, bounds);
+    }
+
+    /**
+     * Gets the records whose bounding boxes intersect the query box.
+     *
+     * @param minY The southern edge of the query.
+     * @param minX The western edge of the query.
+     * @param maxY The northern edge of the query.
+     * @param maxX The eastern edge of the query.
+     * @return The ascending one-based record numbers.
+     */
+    public int[] query(double minY, double minX, double maxY, double maxX) {
+        int[][] ids = {new int[16]};
+        int[] numIds = {0};
+        search(QIX_HEADER_LENGTH, minX, minY, maxX, maxY, ids, numIds);
+        int[] candidates = Arrays.copyOf(ids[0], numIds[0]);
+        Arrays.sort(candidates);
+
+        // Prefilter on the record bounds
+        int numResults = 0;
+        double[] bounds = new double[4];
+        MappedShapefile.Record record = shapefile.newRecord();
+        for (int i = 0; i < candidates.length; i++) {
+            int id = candidates[i];
+            if (id < 0 || id >= shapefile.getNumberOfRecords() || (i > 0 && id == candidates[i - 1])) {
+                continue;
+            }
+            if (recordBounds == null) {
+                getBounds(record.moveTo(id + 1), bounds, 0);
+            }
+            else {
+                System.arraycopy(recordBounds, id * 4, bounds, 0, 4);
+            }
+            if (bounds[0] <= maxX && bounds[2] >= minX && bounds[1] <= maxY && bounds[3] >= minY) {
+                candidates[numResults++] = id + 1;
+            }
+        }
+        return Arrays.copyOf(candidates, numResults);
+    }
+
+    /**
+     * Gets the number of records in the shapefile.
+     * @return The number of records in the .shx.
+     */
+    public int getNumberOfRecords() {
+        return shapefile.getNumberOfRecords();
+    }
+
+    /**
+     * Collects the shape ids in the nodes that intersect the query.
+     *
+     * @return The position of the node's next sibling.
+     */
+    private int search(int position, double minX, double minY, double maxX, double maxY, int[][] ids, int[] count) {
+        int offset = tree.getInt(position);
+        int numShapes = tree.getInt(position + 36);
+        int next = position + 44 + numShapes * 4 + offset;
+        if (tree.getDouble(position + 4) > maxX || tree.getDouble(position + 20) < minX
+                || tree.getDouble(position + 12) > maxY || tree.getDouble(position + 28) < minY) {
+            return next;
+        }
+        if (count[0] + numShapes > ids[0].length) {
+            ids[0] = Arrays.copyOf(ids[0], Math.max(ids[0].length * 2, count[0] + numShapes));
+        }
+        for (int i = 0; i < numShapes; i++) {
+            ids[0][count[0]++] = tree.getInt(position + 40 + i * 4);
+        }
+        int numChildren = tree.getInt(position + 40 + numShapes * 4);
+        int child = position + 44 + numShapes * 4;
+        for (int i = 0; i < numChildren; i++) {
+            child = search(child, minX, minY, maxX, maxY, ids, count);
+        }
+        return next;
+    }
+
+    /**
+     * Finds a file with the same base name and the given extension, matching the case of the
+     * extension to the primary file's.
+     */
+    static File findSibling(File shpFile, String extension) {
+        String name = shpFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        boolean upperCase = dot >= 0 && name.substring(dot + 1).equals("SHP");
+        File lower = new File(shpFile.getParentFile(), base + '.' + extension);
+        File upper = new File(shpFile.getParentFile(), base + '.' + extension.toUpperCase());
+        if (upperCase) {
+            return upper.exists() || !lower.exists() ? upper : lower;
+        }
+        return lower.exists() || !upper.exists() ? lower : upper;
+    }
+
+    /**
+     * Reads the bounding box of every record from the record headers.
+     *
+     * @return The bounds [minX, minY, maxX, maxY] of each record; NaN for null shapes.
+     */
+    private static double[] readRecordBounds(MappedShapefile shapefile) {
+        int numRecords = shapefile.getNumberOfRecords();
+        double[] bounds = new double[numRecords * 4];
+        MappedShapefile.Record record = shapefile.newRecord();
+        for (int i = 0; i < numRecords; i++) {
+            getBounds(record.moveTo(i + 1), bounds, i * 4);
+        }
+        return bounds;
+    }
+
+    private static void getBounds(MappedShapefile.Record record, double[] bounds, int index) {
+        bounds[index] = record.getMinX();
+        bounds[index + 1] = record.getMinY();
+        bounds[index + 2] = record.getMaxX();
+        bounds[index + 3] = record.getMaxY();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at " + (position + buffer.position()));
+            }
+        }
+    }
+
+    /**
+     * Reads a .qix file.
+     *
+     * @return The tree contents, or null if the file is an unsupported version or is out of date.
+     */
+    private static ByteBuffer readTree(File qixFile, int numRecords) throws IOException {
+        ByteBuffer tree;
+        try (FileChannel channel = FileChannel.open(qixFile.toPath(), StandardOpenOption.READ)) {
+            tree = ByteBuffer.allocate((int) channel.size());
+            readFully(channel, tree, 0);
+        }
+        if (tree.capacity() < QIX_HEADER_LENGTH || tree.get(0) != 'S' || tree.get(1) != 'Q' || tree.get(2) != 'T'
+                || tree.get(4) != QIX_VERSION) {
+            return null;
+        }
+        switch (tree.get(3)) {
+            case 1:
+                tree.order(ByteOrder.LITTLE_ENDIAN);
+                break;
+            case 2:
+                tree.order(ByteOrder.BIG_ENDIAN);
+                break;
+            default:
+                tree.order(ByteOrder.nativeOrder());
+        }
+        return tree.getInt(8) == numRecords ? tree : null;
+    }
+
+    /**
+     * Builds a .qix quadtree with MapServer's algorithm: each shape is placed in the deepest node
+     * whose bounds contain it, and nodes are split into overlapping quarters.
+     */
+    private static ByteBuffer buildTree(double[] bounds) {
+        int numShapes = bounds.length / 4;
+        int maxDepth = 0;
+        for (int numNodes = 1; numNodes * 4 < numShapes; numNodes *= 2) {
+            maxDepth++;
+        }
+        maxDepth = Math.max(Math.min(maxDepth, MAX_DEPTH), 1);
+
+        Node root = new Node(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < numShapes; i++) {
+            if (!Double.isNaN(bounds[i * 4])) {
+                root.minX = Math.min(root.minX, bounds[i * 4]);
+                root.minY = Math.min(root.minY, bounds[i * 4 + 1]);
+                root.maxX = Math.max(root.maxX, bounds[i * 4 + 2]);
+                root.maxY = Math.max(root.maxY, bounds[i * 4 + 3]);
+            }
+        }
+        int numNodes = 1;
+        for (int i = 0; i < numShapes; i++) {
+            if (!Double.isNaN(bounds[i * 4])) {
+                numNodes += root.insert(i, bounds, i * 4, maxDepth);
+            }
+        }
+
+        int size = QIX_HEADER_LENGTH + numNodes * 44 + root.countShapes() * 4;
+        ByteBuffer tree = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        tree.put((byte) 'S').put((byte) 'Q').put((byte) 'T');
+        tree.put((byte) 1);     // LSB byte order
+        tree.put((byte) QIX_VERSION);
+        tree.put(new byte[3]);
+        tree.putInt(numShapes);
+        tree.putInt(maxDepth);
+        root.write(tree);
+        tree.rewind();
+        return tree;
+    }
+
+    private static class Node {
+
+        double minX;
+        double minY;
+        double maxX;
+        double maxY;
+        int[] ids = new int[0];
+        int numIds;
+        Node[] children;
+
+        Node(double minX, double minY, double maxX, double maxY) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        /**
+         * Adds a shape to this node or a descendant.
+         *
+         * @return The number of nodes created.
+         */
+        int insert(int id, double[] bounds, int index, int depth) {
+            if (depth > 1) {
+                Node[] quads = split();
+                for (int q = 0; q < 4; q++) {
+                    Node quad = quads[q];
+                    if (bounds[index] >= quad.minX && bounds[index + 2] <= quad.maxX
+                            && bounds[index + 1] >= quad.minY && bounds[index + 3] <= quad.maxY) {
+                        int numCreated = 0;
+                        if (children == null) {
+                            children = new Node[4];
+                        }
+                        if (children[q] == null) {
+                            children[q] = quad;
+                            numCreated++;
+                        }
+                        return numCreated + children[q].insert(id, bounds, index, depth - 1);
+                    }
+                }
+            }
+            if (numIds == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, numIds * 2));
+            }
+            ids[numIds++] = id;
+            return 0;
+        }
+
+        /**
+         * Splits the node into halves along its longer side, and the halves into quarters.
+         */
+        Node[] split() {
+            Node[] halves = split(this);
+            Node[] first = split(halves[0]);
+            Node[] second = split(halves[1]);
+            return new Node[]{first[0], first[1], second[0], second[1]};
+        }
+
+        static Node[] split(Node node) {
+            Node a = new Node(node.minX, node.minY, node.maxX, node.maxY);
+            Node b = new Node(node.minX, node.minY, node.maxX, node.maxY);
+            if (node.maxX - node.minX > node.maxY - node.minY) {
+                double range = node.maxX - node.minX;
+                a.maxX = node.minX + range * SPLIT_RATIO;
+                b.minX = node.maxX - range * SPLIT_RATIO;
+            }
+            else {
+                double range = node.maxY - node.minY;
+                a.maxY = node.minY + range * SPLIT_RATIO;
+                b.minY = node.maxY - range * SPLIT_RATIO;
+            }
+            return new Node[]{a, b};
+        }
+
+        int countShapes() {
+            int count = numIds;
+            if (children != null) {
+                for (Node child : children) {
+                    if (child != null) {
+                        count += child.countShapes();
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Gets the number of bytes occupied by the descendants of this node.
+         */
+        int getSubtreeLength() {
+            int length = 0;
+            if (children != null) {
+                for (Node child : children) {
+                    if (child != null) {
+                        length += 44 + child.numIds * 4 + child.getSubtreeLength();
+                    }
+                }
+            }
+            return length;
+        }
+
+        void write(ByteBuffer buffer) {
+            buffer.putInt(getSubtreeLength());
+            buffer.putDouble(minX).putDouble(minY).putDouble(maxX).putDouble(maxY);
+            buffer.putInt(numIds);
+            for (int i = 0; i < numIds; i++) {
+                buffer.putInt(ids[i]);
+            }
+            int numChildren = 0;
+            if (children != null) {
+                for (Node child : children) {
+                    numChildren += child != null ? 1 : 0;
+                }
+            }
+            buffer.putInt(numChildren);
+            if (children != null) {
+                for (Node child : children) {
+                    if (child != null) {
+                        child.write(buffer);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2011-2014, Bruce Schubert. <bruce@emxsys.com> 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *   contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.shapefile;
+
+import gov.nasa.worldwind.formats.shapefile.Shapefile;
+import gov.nasa.worldwind.formats.shapefile.ShapefileRecord;
+import gov.nasa.worldwind.layers.Layer;
+import gov.nasa.worldwind.layers.RenderableLayer;
+import gov.nasa.worldwind.render.ExtrudedPolygon;
+import gov.nasa.worldwind.render.Renderable;
+import gov.nasa.worldwind.render.ShapeAttributes;
+import java.io.File;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class ShapefileLayerFactoryTest {
+
+    public ShapefileLayerFactoryTest() {
+    }
+
+    /**
+     * Test of createLayersFromShapefile method with records that have a height.
+     */
+    @Test
+    public void testCreateExtrudedPolygons() {
+        System.out.println("createExtrudedPolygons");
+        ShapefileLayerFactory instance = new ShapefileLayerFactory() {
+            @Override
+            protected Double getHeight(ShapefileRecord record) {
+                return 1000.0;
+            }
+        };
+        List<Layer> layers = instance.createLayersFromShapefile(new Shapefile(new File(TestData.SHAPEFILE)));
+        assertEquals(1, layers.size());
+
+        // Every record creates at least one extruded polygon, each with an outer boundary
+        int numPolygons = 0;
+        for (Renderable renderable : ((RenderableLayer) layers.get(0)).getRenderables()) {
+            assertTrue(renderable instanceof ExtrudedPolygon);
+            ExtrudedPolygon polygon = (ExtrudedPolygon) renderable;
+            assertEquals(1000.0, polygon.getHeight(), 0.0);
+            assertTrue(polygon.getOuterBoundary().iterator().hasNext());
+            numPolygons++;
+        }
+        assertTrue(numPolygons >= TestData.SHAPEFILE_RECS);
+    }
+
+    /**
+     * Test of the createPolygon hook.
+     */
+    @Test
+    public void testCreatePolygonOverride() {
+        System.out.println("createPolygonOverride");
+        int[] numCalls = new int[1];
+        ShapefileLayerFactory instance = new ShapefileLayerFactory() {
+            @Override
+            protected void createPolygon(ShapefileRecord record, ShapeAttributes attrs, RenderableLayer layer) {
+                numCalls[0]++;
+                super.createPolygon(record, attrs, layer);
+            }
+        };
+        List<Layer> layers = instance.createLayersFromShapefile(new Shapefile(new File(TestData.SHAPEFILE)));
+        assertEquals(TestData.SHAPEFILE_RECS, numCalls[0]);
+        assertEquals(TestData.SHAPEFILE_RECS, ((RenderableLayer) layers.get(0)).getNumRenderables());
+    }
+}
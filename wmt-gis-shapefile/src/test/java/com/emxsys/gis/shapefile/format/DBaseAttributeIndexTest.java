@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2011-2014, Bruce Schubert. <bruce@emxsys.com> 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *   contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.shapefile.format;
+
+import com.emxsys.gis.shapefile.TestData;
+import java.io.File;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class DBaseAttributeIndexTest {
+
+    public DBaseAttributeIndexTest() {
+    }
+
+    /**
+     * Test of find method, of class DBaseAttributeIndex.
+     */
+    @Test
+    public void testFind() throws Exception {
+        System.out.println("find");
+        File dbfFile = new File(TestData.DBASEFILE);
+        DBaseAttributeIndex names = DBaseAttributeIndex.build(dbfFile, "NAME", true);
+        assertEquals(TestData.SHAPEFILE_RECS, names.size());
+        int[] result = names.find("california");
+        assertEquals(1, result.length);
+        assertArrayEquals(result, names.find("CALIFORNIA"));
+        assertEquals(0, names.find("Atlantis").length);
+
+        DBaseAttributeIndex stateCodes = DBaseAttributeIndex.build(dbfFile, "STATEFP", false);
+        assertArrayEquals(result, stateCodes.find("06"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildMissingColumn() throws Exception {
+        System.out.println("build missing column");
+        DBaseAttributeIndex.build(new File(TestData.DBASEFILE), "NO_SUCH_COLUMN", false);
+    }
+
+    /**
+     * Test of normalize method, of class DBaseAttributeIndex.
+     */
+    @Test
+    public void testNormalize() {
+        System.out.println("normalize");
+        assertEquals("Texas", DBaseAttributeIndex.normalize("Texas     ", 'C', 0));
+        assertEquals("42", DBaseAttributeIndex.normalize("   42", 'N', 0));
+        assertEquals("6.5", DBaseAttributeIndex.normalize("  6.50", 'N', 2));
+        assertEquals("true", DBaseAttributeIndex.normalize("Y", 'L', 0));
+        assertEquals("", DBaseAttributeIndex.normalize("     ", 'N', 0));
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2011-2014, Bruce Schubert. <bruce@emxsys.com> 
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ *
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *   contributors may be used to endorse or promote products derived
+ *   from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.shapefile.format;
+
+import com.emxsys.gis.shapefile.TestData;
+import java.io.File;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class MappedDBaseFileTest {
+
+    public MappedDBaseFileTest() {
+    }
+
+    /**
+     * Test of open method, of class MappedDBaseFile.
+     */
+    @Test
+    public void testOpen() throws Exception {
+        System.out.println("open");
+        MappedDBaseFile dbf = MappedDBaseFile.open(new File(TestData.DBASEFILE));
+        assertEquals(TestData.SHAPEFILE_RECS, dbf.getNumberOfRecords());
+        assertEquals(14, dbf.getFieldNames().size());
+        assertEquals(6, dbf.getFieldIndex("NAME"));
+        assertEquals(-1, dbf.getFieldIndex("NO_SUCH_COLUMN"));
+        assertEquals('N', dbf.getFieldType(dbf.getFieldIndex("ALAND")));
+    }
+
+    /**
+     * Test of the Record view, of class MappedDBaseFile.
+     */
+    @Test
+    public void testRecord() throws Exception {
+        System.out.println("record");
+        MappedDBaseFile dbf = MappedDBaseFile.open(new File(TestData.DBASEFILE));
+        MappedDBaseFile.Record record = dbf.newRecord().moveTo(1);
+        assertFalse(record.isDeleted());
+        assertEquals("Hawaii", record.getString(dbf.getFieldIndex("NAME")));
+        assertEquals(16634247483L, record.getLong(dbf.getFieldIndex("ALAND")));
+        assertEquals(19.8097670, record.getDouble(dbf.getFieldIndex("INTPTLAT")), 0);
+        assertEquals(-155.5061027, record.getDouble(dbf.getFieldIndex("INTPTLON")), 0);
+
+        // The view agrees with the attribute index
+        int[] expected = DBaseAttributeIndex.build(new File(TestData.DBASEFILE), "NAME", false).find("California");
+        assertEquals(1, expected.length);
+        assertEquals("California", record.moveTo(expected[0]).getString(dbf.getFieldIndex("NAME")));
+        assertEquals(expected[0], record.getRecordNumber());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testMoveToInvalidRecord() throws Exception {
+        System.out.println("moveTo invalid record");
+        MappedDBaseFile.open(new File(TestData.DBASEFILE)).newRecord().moveTo(TestData.SHAPEFILE_RECS + 1);
+    }
+
+}
@@ -51,6 +51,7 @@ public class GeoPolygon extends AbstractGeometry implements Polygon {
     protected GeoPart part;
     private Real length;
     private Real area;
+    private volatile MultiResolutionPart multiResolutionPart;
 
     public GeoPolygon() {
         this.part = new GeoPart();
@@ -113,6 +114,19 @@ public class GeoPolygon extends AbstractGeometry implements Polygon {
         };
     }
 
+    /**
+     * Gets the polygon's ring with precomputed levels of detail for rendering. The levels are
+     * computed on the first call.
+     *
+     * @return the multi-resolution ring
+     */
+    public MultiResolutionPart getMultiResolutionPart() {
+        if (this.multiResolutionPart == null) {
+            this.multiResolutionPart = MultiResolutionPart.fromPart(this.part, true);
+        }
+        return this.multiResolutionPart;
+    }
+
     @Override
     public Real getArea() {
         if (this.area == null) {
@@ -295,8 +295,17 @@ public class GeoSector extends AbstractGeometry implements Box {
 
     @Override
     public boolean contains(Coord2D other) {
-        double lat = other.getLatitudeDegrees();
-        double lon = other.getLongitudeDegrees();
+        return contains(other.getLatitudeDegrees(), other.getLongitudeDegrees());
+    }
+
+    /**
+     * Tests whether the sector contains a lat/lon without creating a coordinate.
+     *
+     * @param lat the latitude [degrees]
+     * @param lon the longitude [degrees]
+     * @return true if the lat/lon is within or on the edge of the sector
+     */
+    public boolean contains(double lat, double lon) {
         return (lat >= this.southwest.getLatitudeDegrees()
                 && lat <= this.northeast.getLatitudeDegrees()
                 && lon >= this.southwest.getLongitudeDegrees()
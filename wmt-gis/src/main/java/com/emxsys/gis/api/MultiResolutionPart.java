@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.api;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A point sequence with precomputed levels of detail for rendering at different view resolutions.
+ * <p>
+ * The Douglas-Peucker simplification is run once, recording for each vertex the largest tolerance
+ * at which the vertex is retained. The levels are stored compactly as this one float per vertex;
+ * the vertex indices of a level are derived on demand and cached. Level 0 contains every vertex,
+ * and each subsequent level doubles the tolerance, starting at FINEST_TOLERANCE. The levels nest:
+ * each level contains the vertices of the coarser levels. The first and last vertices are always
+ * retained, and closed rings retain at least four vertices.
+ * <p>
+ * Distances are measured in degrees of latitude, with longitude scaled by the cosine of the mean
+ * latitude. A MultiResolutionPart is immutable and thread-safe.
+ *
+ * @author Bruce Schubert
+ */
+public final class MultiResolutionPart {
+
+    /** The tolerance of level 1 in degrees: about 1 cm. */
+    public static final double FINEST_TOLERANCE = 1e-7;
+    /** The number of levels; the coarsest tolerance is about 7 degrees. */
+    public static final int NUM_LEVELS = 28;
+    /** The length of a degree of latitude, used to convert view resolutions to tolerances. */
+    public static final double METERS_PER_DEGREE = 111319.49;
+
+    /** The interleaved longitude, latitude values. */
+    private final double[] xy;
+    /** The largest tolerance at which each vertex is retained. */
+    private final float[] tolerances;
+    private final AtomicReferenceArray<int[]> levels = new AtomicReferenceArray<>(NUM_LEVELS);
+
+    /**
+     * Constructs the levels of detail for a point sequence.
+     *
+     * @param xy The interleaved longitude, latitude values in degrees. The array is not copied.
+     * @param closed True if the points form a ring whose last point repeats the first.
+     */
+    public MultiResolutionPart(double[] xy, boolean closed) {
+        if (xy.length % 2 != 0) {
+            throw new IllegalArgumentException("xy must contain longitude, latitude pairs.");
+        }
+        this.xy = xy;
+        this.tolerances = computeTolerances(xy, closed);
+    }
+
+    /**
+     * Constructs the levels of detail for a geometry part.
+     *
+     * @param part The part to simplify.
+     * @param closed True if the part is a polygon ring.
+     * @return A new MultiResolutionPart.
+     */
+    public static MultiResolutionPart fromPart(Part part, boolean closed) {
+        double[] x = part.getX();
+        double[] y = part.getY();
+        double[] xy = new double[x.length * 2];
+        for (int i = 0; i < x.length; i++) {
+            xy[i * 2] = x[i];
+            xy[i * 2 + 1] = y[i];
+        }
+        return new MultiResolutionPart(xy, closed);
+    }
+
+    /**
+     * Gets the level of detail for a simplification tolerance.
+     *
+     * @param tolerance The largest deviation to allow, in degrees.
+     * @return The coarsest level whose tolerance doesn't exceed the given tolerance.
+     */
+    public static int getLevel(double tolerance) {
+        if (!(tolerance >= FINEST_TOLERANCE)) {
+            return 0;
+        }
+        int level = 1 + (int) Math.floor(Math.log(tolerance / FINEST_TOLERANCE) / Math.log(2));
+        return Math.min(level, NUM_LEVELS - 1);
+    }
+
+    /**
+     * Gets the level of detail for a view resolution, so that the vertices removed deviate less
+     * than a pixel from the shape.
+     *
+     * @param metersPerPixel The size of a pixel at the shape.
+     * @return The level of detail.
+     */
+    public static int getLevelForResolution(double metersPerPixel) {
+        return getLevel(metersPerPixel / METERS_PER_DEGREE);
+    }
+
+    /**
+     * Gets the level of detail for a shape in a view, using the size of a pixel at the point of
+     * the shape's extent nearest the eye. The eye is never nearer than its elevation.
+     *
+     * @param eyeToCenter The distance from the eye to the center of the extent [meters].
+     * @param centerToCorner The distance from the center to a corner of the extent [meters].
+     * @param eyeElevation The elevation of the eye [meters].
+     * @param pixelSizeAtDistance Computes the size of a pixel [meters] at a distance [meters],
+     * e.g., the view's computePixelSizeAtDistance.
+     * @return The level of detail.
+     */
+    public static int getLevelForView(double eyeToCenter, double centerToCorner, double eyeElevation,
+                                      DoubleUnaryOperator pixelSizeAtDistance) {
+        double distance = Math.max(eyeToCenter - centerToCorner, eyeElevation);
+        return getLevelForResolution(pixelSizeAtDistance.applyAsDouble(Math.max(distance, 1)));
+    }
+
+    /**
+     * Gets the simplification tolerance of a level.
+     *
+     * @param level The level of detail.
+     * @return The tolerance in degrees; zero for level 0.
+     */
+    public static double getTolerance(int level) {
+        return level == 0 ? 0 : FINEST_TOLERANCE * (1L << (level - 1));
+    }
+
+    public int getNumPoints() {
+        return tolerances.length;
+    }
+
+    public double getX(int index) {
+        return xy[index * 2];
+    }
+
+    public double getY(int index) {
+        return xy[index * 2 + 1];
+    }
+
+    /**
+     * Gets the vertices of a level.
+     *
+     * @param level The level of detail.
+     * @return The ascending indices of the vertices; the caller must not modify the array.
+     */
+    public int[] getIndices(int level) {
+        int[] indices = levels.get(level);
+        if (indices == null) {
+            double tolerance = getTolerance(level);
+            indices = new int[tolerances.length];
+            int count = 0;
+            for (int i = 0; i < tolerances.length; i++) {
+                if (level == 0 || tolerances[i] > tolerance) {
+                    indices[count++] = i;
+                }
+            }
+            indices = count < indices.length ? Arrays.copyOf(indices, count) : indices;
+            levels.compareAndSet(level, null, indices);
+            indices = levels.get(level);
+        }
+        return indices;
+    }
+
+    /**
+     * Gets the coordinates of a level.
+     *
+     * @param level The level of detail.
+     * @return A new array of interleaved longitude, latitude values.
+     */
+    public double[] getCoords(int level) {
+        int[] indices = getIndices(level);
+        double[] coords = new double[indices.length * 2];
+        for (int i = 0; i < indices.length; i++) {
+            coords[i * 2] = xy[indices[i] * 2];
+            coords[i * 2 + 1] = xy[indices[i] * 2 + 1];
+        }
+        return coords;
+    }
+
+    /**
+     * Runs the Douglas-Peucker simplification, recording the tolerance at which each vertex is
+     * retained. A vertex's tolerance is clamped to its parent's so that the levels nest.
+     */
+    static float[] computeTolerances(double[] xy, boolean closed) {
+        int numPoints = xy.length / 2;
+        float[] tolerances = new float[numPoints];
+        if (numPoints == 0) {
+            return tolerances;
+        }
+        double sumLat = 0;
+        for (int i = 0; i < numPoints; i++) {
+            sumLat += xy[i * 2 + 1];
+        }
+        double xScale = Math.cos(Math.toRadians(sumLat / numPoints));
+
+        tolerances[0] = Float.POSITIVE_INFINITY;
+        tolerances[numPoints - 1] = Float.POSITIVE_INFINITY;
+        // Each range is [first, last, parent tolerance]
+        int[] ranges = new int[64];
+        float[] parents = new float[32];
+        int numRanges = 0;
+        if (closed && numPoints > 3) {
+            // The first and last points coincide, so split the ring at the farthest point
+            int farthest = 1;
+            double maxDistance = -1;
+            for (int i = 1; i < numPoints - 1; i++) {
+                double dx = (xy[i * 2] - xy[0]) * xScale;
+                double dy = xy[i * 2 + 1] - xy[1];
+                double distance = dx * dx + dy * dy;
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            tolerances[farthest] = Float.POSITIVE_INFINITY;
+            ranges[0] = 0;
+            ranges[1] = farthest;
+            ranges[2] = farthest;
+            ranges[3] = numPoints - 1;
+            parents[0] = Float.POSITIVE_INFINITY;
+            parents[1] = Float.POSITIVE_INFINITY;
+            numRanges = 2;
+        }
+        else if (numPoints > 2) {
+            ranges[0] = 0;
+            ranges[1] = numPoints - 1;
+            parents[0] = Float.POSITIVE_INFINITY;
+            numRanges = 1;
+        }
+
+        while (numRanges > 0) {
+            numRanges--;
+            int first = ranges[numRanges * 2];
+            int last = ranges[numRanges * 2 + 1];
+            float parent = parents[numRanges];
+            if (last - first < 2) {
+                continue;
+            }
+            int index = -1;
+            double maxDistance = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistance(xy, i, first, last, xScale);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    index = i;
+                }
+            }
+            tolerances[index] = Math.min((float) maxDistance, parent);
+            if (numRanges + 2 > parents.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                parents = Arrays.copyOf(parents, parents.length * 2);
+            }
+            ranges[numRanges * 2] = first;
+            ranges[numRanges * 2 + 1] = index;
+            parents[numRanges++] = tolerances[index];
+            ranges[numRanges * 2] = index;
+            ranges[numRanges * 2 + 1] = last;
+            parents[numRanges++] = tolerances[index];
+        }
+
+        if (closed && numPoints > 4) {
+            // A ring needs three distinct vertices: keep the most significant remaining vertex
+            int index = -1;
+            for (int i = 1; i < numPoints - 1; i++) {
+                if (tolerances[i] != Float.POSITIVE_INFINITY && (index < 0 || tolerances[i] > tolerances[index])) {
+                    index = i;
+                }
+            }
+            if (index > 0) {
+                tolerances[index] = Float.POSITIVE_INFINITY;
+            }
+        }
+        return tolerances;
+    }
+
+    /**
+     * Computes the distance from a point to a segment.
+     */
+    private static double segmentDistance(double[] xy, int point, int first, int last, double xScale) {
+        double px = xy[point * 2] * xScale;
+        double py = xy[point * 2 + 1];
+        double ax = xy[first * 2] * xScale;
+        double ay = xy[first * 2 + 1];
+        double dx = xy[last * 2] * xScale - ax;
+        double dy = xy[last * 2 + 1] - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared > 0 ? ((px - ax) * dx + (py - ay) * dy) / lengthSquared : 0;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}
@@ -53,4 +53,32 @@ public interface TerrainProvider {
      */
     Real getElevation(Coord2D coord);
 
+    /**
+     * Returns the ground elevations for a regular grid of locations spanning the sector, e.g., the
+     * samples of a LatitudeLongitude Linear2DSet. The latitudes vary fastest: the elevation at
+     * (row, col) is at index [row + col * numRows], where row 0 is the southern edge and col 0 is
+     * the western edge. The default implementation gets each elevation individually; providers
+     * backed by an elevation model should override this method to read the model's tiles in a
+     * single pass.
+     *
+     * @param sector the extents of the grid
+     * @param numRows the number of latitudes
+     * @param numCols the number of longitudes
+     * @return the elevations [meters]; NaN where the elevation is missing
+     */
+    default double[] getElevations(Box sector, int numRows, int numCols) {
+        double south = sector.getSouthwest().getLatitudeDegrees();
+        double west = sector.getSouthwest().getLongitudeDegrees();
+        double dLat = numRows > 1 ? (sector.getNortheast().getLatitudeDegrees() - south) / (numRows - 1) : 0;
+        double dLon = numCols > 1 ? (sector.getNortheast().getLongitudeDegrees() - west) / (numCols - 1) : 0;
+        double[] elevations = new double[numRows * numCols];
+        for (int col = 0; col < numCols; col++) {
+            for (int row = 0; row < numRows; row++) {
+                Real elevation = getElevation(GeoCoord2D.fromDegrees(south + row * dLat, west + col * dLon));
+                elevations[row + col * numRows] = elevation.getValue();
+            }
+        }
+        return elevations;
+    }
+
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.api.index;
+
+import com.emxsys.gis.api.Box;
+import com.emxsys.gis.api.Geometry;
+import com.emxsys.gis.api.Part;
+import com.emxsys.gis.api.Polygon;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * An immutable spatial index of items with geometries that supports point-in-polygon and
+ * segment-crossing queries against the actual geometries. The parts of each geometry are copied
+ * into primitive coordinate arrays and indexed by their bounding boxes in an StrTree.
+ * <p>
+ * Polygons and boxes are areas: they contain points and are crossed by segments that cross their
+ * edges or have an endpoint inside them. Line strings are crossed by segments that cross one of
+ * their segments. Points are ignored.
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ * @param <T> The item type.
+ */
+public class GeometryIndex<T> {
+
+    private final List<T> items;
+    private final StrTree tree;
+    /** The item index of each part. */
+    private final int[] partItems;
+    /** The first part of each item; the parts of an item are contiguous. */
+    private final int[] itemParts;
+    /** True if the part is a polygon ring. */
+    private final boolean[] partAreas;
+    /** The part latitudes [degrees]. */
+    private final double[][] partLats;
+    /** The part longitudes [degrees]. */
+    private final double[][] partLons;
+
+    /**
+     * Constructs the index.
+     *
+     * @param items The items to index.
+     * @param geometryOf Gets the geometry of an item.
+     */
+    public GeometryIndex(List<? extends T> items, Function<? super T, Geometry> geometryOf) {
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        ArrayList<double[]> lats = new ArrayList<>();
+        ArrayList<double[]> lons = new ArrayList<>();
+        ArrayList<Integer> owners = new ArrayList<>();
+        ArrayList<Boolean> areas = new ArrayList<>();
+        this.itemParts = new int[this.items.size() + 1];
+        for (int i = 0; i < this.items.size(); i++) {
+            itemParts[i] = owners.size();
+            Geometry geometry = geometryOf.apply(this.items.get(i));
+            if (geometry == null) {
+                continue;
+            }
+            boolean isArea = geometry instanceof Polygon || geometry instanceof Box;
+            for (Part part : geometry.getParts()) {
+                if (part.getNumPoints() < 2) {
+                    continue;   // Points can't be crossed
+                }
+                lats.add(part.getY().clone());
+                lons.add(part.getX().clone());
+                owners.add(i);
+                areas.add(isArea);
+            }
+        }
+        int numParts = owners.size();
+        itemParts[this.items.size()] = numParts;
+        this.partLats = lats.toArray(new double[numParts][]);
+        this.partLons = lons.toArray(new double[numParts][]);
+        this.partItems = new int[numParts];
+        this.partAreas = new boolean[numParts];
+        double[] boxes = new double[numParts * 4];
+        for (int p = 0; p < numParts; p++) {
+            partItems[p] = owners.get(p);
+            partAreas[p] = areas.get(p);
+            double minLat = Double.POSITIVE_INFINITY;
+            double minLon = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double maxLon = Double.NEGATIVE_INFINITY;
+            for (int j = 0; j < partLats[p].length; j++) {
+                minLat = Math.min(minLat, partLats[p][j]);
+                maxLat = Math.max(maxLat, partLats[p][j]);
+                minLon = Math.min(minLon, partLons[p][j]);
+                maxLon = Math.max(maxLon, partLons[p][j]);
+            }
+            boxes[p * 4] = minLat;
+            boxes[p * 4 + 1] = minLon;
+            boxes[p * 4 + 2] = maxLat;
+            boxes[p * 4 + 3] = maxLon;
+        }
+        this.tree = new StrTree(boxes);
+    }
+
+    /**
+     * Finds the first item with an area that contains the point. Rings are evaluated with the
+     * even-odd rule, so an item's inner rings are holes.
+     *
+     * @param lat Latitude [degrees].
+     * @param lon Longitude [degrees].
+     * @return The index of the item in the list supplied to the constructor, or -1 if none.
+     */
+    public int findContaining(double lat, double lon) {
+        int[] found = {-1};
+        tree.query(lat, lon, lat, lon, part -> {
+            if (partAreas[part] && containsPoint(partItems[part], lat, lon)) {
+                found[0] = partItems[part];
+                return false;
+            }
+            return true;
+        });
+        return found[0];
+    }
+
+    /**
+     * Finds the first item crossed by a segment: the segment crosses one of the item's edges or
+     * ends inside one of the item's areas.
+     *
+     * @param lat1 The latitude of the start [degrees].
+     * @param lon1 The longitude of the start [degrees].
+     * @param lat2 The latitude of the end [degrees].
+     * @param lon2 The longitude of the end [degrees].
+     * @return The index of the item in the list supplied to the constructor, or -1 if none.
+     */
+    public int findCrossing(double lat1, double lon1, double lat2, double lon2) {
+        int[] found = {-1};
+        tree.query(Math.min(lat1, lat2), Math.min(lon1, lon2), Math.max(lat1, lat2), Math.max(lon1, lon2), part -> {
+            if (crossesPart(part, lat1, lon1, lat2, lon2)
+                    || (partAreas[part] && containsPoint(partItems[part], lat2, lon2))) {
+                found[0] = partItems[part];
+                return false;
+            }
+            return true;
+        });
+        return found[0];
+    }
+
+    /**
+     * Gets an item.
+     * @param index The index returned by findContaining or findCrossing.
+     * @return The item.
+     */
+    public T get(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * Gets the indexed items in their original order.
+     * @return An unmodifiable list.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Tests the point against all the area rings of an item with the even-odd rule.
+     */
+    private boolean containsPoint(int item, double lat, double lon) {
+        boolean inside = false;
+        for (int p = itemParts[item]; p < itemParts[item + 1]; p++) {
+            if (partAreas[p] && ringContains(partLats[p], partLons[p], lat, lon)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Ray casting point-in-polygon test. The ring may be open or closed.
+     */
+    static boolean ringContains(double[] lats, double[] lons, double lat, double lon) {
+        boolean inside = false;
+        int n = lats.length;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            if ((lats[i] > lat) != (lats[j] > lat)
+                    && lon < (lons[j] - lons[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lons[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private boolean crossesPart(int part, double lat1, double lon1, double lat2, double lon2) {
+        double[] lats = partLats[part];
+        double[] lons = partLons[part];
+        int n = lats.length;
+        // Polygon rings are closed implicitly
+        int numSegments = partAreas[part] ? n : n - 1;
+        for (int i = 0; i < numSegments; i++) {
+            int j = (i + 1) % n;
+            if (segmentsIntersect(lat1, lon1, lat2, lon2, lats[i], lons[i], lats[j], lons[j])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests whether segment a-b intersects segment c-d, including touching and collinear overlap.
+     */
+    static boolean segmentsIntersect(double aLat, double aLon, double bLat, double bLon,
+                                     double cLat, double cLon, double dLat, double dLon) {
+        double d1 = orientation(cLat, cLon, dLat, dLon, aLat, aLon);
+        double d2 = orientation(cLat, cLon, dLat, dLon, bLat, bLon);
+        double d3 = orientation(aLat, aLon, bLat, bLon, cLat, cLon);
+        double d4 = orientation(aLat, aLon, bLat, bLon, dLat, dLon);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return (d1 == 0 && onSegment(cLat, cLon, dLat, dLon, aLat, aLon))
+                || (d2 == 0 && onSegment(cLat, cLon, dLat, dLon, bLat, bLon))
+                || (d3 == 0 && onSegment(aLat, aLon, bLat, bLon, cLat, cLon))
+                || (d4 == 0 && onSegment(aLat, aLon, bLat, bLon, dLat, dLon));
+    }
+
+    private static double orientation(double pLat, double pLon, double qLat, double qLon, double rLat, double rLon) {
+        return (qLon - pLon) * (rLat - pLat) - (qLat - pLat) * (rLon - pLon);
+    }
+
+    private static boolean onSegment(double pLat, double pLon, double qLat, double qLon, double rLat, double rLon) {
+        return rLat >= Math.min(pLat, qLat) && rLat <= Math.max(pLat, qLat)
+                && rLon >= Math.min(pLon, qLon) && rLon <= Math.max(pLon, qLon);
+    }
+
+}
@@ -29,24 +29,52 @@
  */
 package com.emxsys.gis.api.index;
 
-import com.emxsys.gis.api.GeoSector;
 import com.emxsys.gis.api.Coord2D;
-import java.util.*;
-import java.util.Map.Entry;
+import com.emxsys.gis.api.GeoSector;
+import com.emxsys.gis.api.Geometry;
+import com.emxsys.gis.api.Part;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 /**
- * A container of type T, indexed by Morton codes. 
- * 
+ * A container of type T, indexed by Morton codes.
+ * <p>
+ * The items are stored in a sorted primitive array of Morton codes with parallel coordinate and
+ * item arrays. Individual additions are buffered in a small sorted array that is merged into the
+ * index when it grows or when the index is queried; batches are bulk loaded with a parallel sort.
+ * The queries run against an immutable Snapshot, which can be shared with concurrent readers.
+ * <p>
+ * Like a set, the container holds an item at a given location only once.
+ *
  * @author Bruce Schubert <bruce@emxsys.com>
  * @param <T>
  */
 public class LinearQuadtree<T> {
 
-    final long ODD_MASK = 0xAAAAAAAAAAAAAAAAL;
-    final long EVEN_MASK = 0x5555555555555555L;
-    final long ODD_HASH_MASK = 0xAAAAAAAAAAA00000L;
-    final long EVEN_HASH_MASK = 0x5555555555000000L;
-    private final TreeMap<Long, Set<T>> map = new TreeMap<>();
+    static final long ODD_MASK = 0xAAAAAAAAAAAAAAAAL;
+    static final long EVEN_MASK = 0x5555555555555555L;
+    static final long ODD_HASH_MASK = 0xAAAAAAAAAAA00000L;
+    static final long EVEN_HASH_MASK = 0x5555555555000000L;
+    /** The minimum number of buffered additions before they are merged into the snapshot. */
+    private static final int MIN_PENDING = 1024;
+    /** Batches larger than this are coded and searched in parallel. */
+    private static final int PARALLEL_THRESHOLD = 10000;
+
+    /** The current index; replaced, never modified. */
+    private volatile Snapshot<T> snapshot = new Snapshot<>(new long[0], new double[0], new double[0], new Object[0]);
+    /** True if there are buffered additions not yet merged into the snapshot. */
+    private volatile boolean dirty;
+    // The buffered additions sorted by their Morton codes
+    private long[] pendingCodes = new long[16];
+    private double[] pendingLats = new double[16];
+    private double[] pendingLons = new double[16];
+    private Object[] pendingItems = new Object[16];
+    private int numPending;
 
     public LinearQuadtree() {
     }
@@ -58,153 +86,282 @@ public class LinearQuadtree<T> {
      * @return Returns true if the item is not already in the container.
      */
     public boolean add(Coord2D pt, T item) {
-        long mortonCode = MortonCodes.generate(pt);
-        Set<T> values = map.get(mortonCode);
-        if (values == null) {
-            values = new HashSet<>();
-            map.put(mortonCode, values);
+        return add(pt.getLatitudeDegrees(), pt.getLongitudeDegrees(), item);
+    }
+
+    /**
+     * Adds an item to the container.
+     * @param lat The latitude of the item [degrees].
+     * @param lon The longitude of the item [degrees].
+     * @param item The item to be placed in the container.
+     * @return Returns true if the item is not already in the container at this location.
+     */
+    public synchronized boolean add(double lat, double lon, T item) {
+        long code = MortonCodes.fromDegrees(lat, lon);
+        Snapshot<T> current = snapshot;
+        if (containsItem(current.codes, current.items, current.codes.length, code, item)
+                || containsItem(pendingCodes, pendingItems, numPending, code, item)) {
+            return false;
+        }
+        if (numPending == pendingCodes.length) {
+            int capacity = numPending * 2;
+            pendingCodes = Arrays.copyOf(pendingCodes, capacity);
+            pendingLats = Arrays.copyOf(pendingLats, capacity);
+            pendingLons = Arrays.copyOf(pendingLons, capacity);
+            pendingItems = Arrays.copyOf(pendingItems, capacity);
         }
-        return values.add(item);
+        // Insert after any items with the same code
+        int i = lowerBound(pendingCodes, code + 1, 0, numPending);
+        int numMoved = numPending - i;
+        System.arraycopy(pendingCodes, i, pendingCodes, i + 1, numMoved);
+        System.arraycopy(pendingLats, i, pendingLats, i + 1, numMoved);
+        System.arraycopy(pendingLons, i, pendingLons, i + 1, numMoved);
+        System.arraycopy(pendingItems, i, pendingItems, i + 1, numMoved);
+        pendingCodes[i] = code;
+        pendingLats[i] = lat;
+        pendingLons[i] = lon;
+        pendingItems[i] = item;
+        numPending++;
+        dirty = true;
+        // Merge when the buffer is large relative to the index, amortizing the cost of the copy
+        if (numPending >= Math.max(MIN_PENDING, current.size() / 8)) {
+            flush();
+        }
+        return true;
     }
 
-    public Collection<T> findByBruteForce(GeoSector sector) {
-        HashSet<T> result = new HashSet<>();
+    /**
+     * Bulk loads a batch of items. The batch is sorted in parallel and merged with the current
+     * contents in a single pass, which is much faster than adding the items individually.
+     *
+     * @param lats The item latitudes [degrees].
+     * @param lons The item longitudes [degrees].
+     * @param items The items; the same length as lats and lons.
+     * @return The number of items added, excluding items already in the container.
+     */
+    public synchronized int addAll(double[] lats, double[] lons, List<? extends T> items) {
+        int n = items.size();
+        if (lats.length != n || lons.length != n) {
+            throw new IllegalArgumentException("LinearQuadtree: lats, lons and items must be the same length.");
+        }
+        flush();
+        long[] codes = new long[n];
+        IntStream indices = IntStream.range(0, n);
+        (n > PARALLEL_THRESHOLD ? indices.parallel() : indices).forEach(i -> {
+            codes[i] = MortonCodes.fromDegrees(lats[i], lons[i]);
+        });
+        long[] sortedCodes = codes.clone();
+        Arrays.parallelSort(sortedCodes);
 
-        long zMin = MortonCodes.generate(sector.getSouthwest());
-        long zMax = MortonCodes.generate(sector.getNortheast());
-        long yMin = zMin & ODD_MASK;
-        long yMax = zMax & ODD_MASK;
-        long xMin = zMin & EVEN_MASK;
-        long xMax = zMax & EVEN_MASK;
+        // Place the items at their sorted positions; items with equal codes keep their order
+        int[] firsts = new int[n];
+        indices = IntStream.range(0, n);
+        (n > PARALLEL_THRESHOLD ? indices.parallel() : indices).forEach(i -> {
+            firsts[i] = lowerBound(sortedCodes, codes[i], 0, n);
+        });
+        int[] counts = new int[n];
+        double[] sortedLats = new double[n];
+        double[] sortedLons = new double[n];
+        Object[] sortedItems = new Object[n];
+        for (int i = 0; i < n; i++) {
+            int j = firsts[i] + counts[firsts[i]]++;
+            sortedLats[j] = lats[i];
+            sortedLons[j] = lons[i];
+            sortedItems[j] = items.get(i);
+        }
 
-        Set<Long> keySet = map.subMap(zMin, zMax).keySet();
-//        System.out.println("findByBruteForce...");
-//        System.out.println(" - Num keys in sector: " + keySet.size());
-        for (Long key : keySet) {
-            long x = key & EVEN_MASK;
-            long y = key & ODD_MASK;
-            if (x >= xMin && x <= xMax && y >= yMin && y <= yMax) {
-                Set<T> values = map.get(key);
-                result.addAll(values);
+        // Drop the duplicates within the batch and those already in the container
+        Snapshot<T> current = snapshot;
+        int numAdded = 0;
+        for (int i = 0; i < n; i++) {
+            long code = sortedCodes[i];
+            Object item = sortedItems[i];
+            if (containsItem(current.codes, current.items, current.codes.length, code, item)) {
+                continue;
+            }
+            boolean duplicate = false;
+            for (int j = numAdded - 1; j >= 0 && sortedCodes[j] == code; j--) {
+                if (Objects.equals(sortedItems[j], item)) {
+                    duplicate = true;
+                    break;
+                }
             }
+            if (!duplicate) {
+                sortedCodes[numAdded] = code;
+                sortedLats[numAdded] = sortedLats[i];
+                sortedLons[numAdded] = sortedLons[i];
+                sortedItems[numAdded] = item;
+                numAdded++;
+            }
+        }
+        if (numAdded > 0) {
+            snapshot = merge(current, sortedCodes, sortedLats, sortedLons, sortedItems, numAdded);
         }
-//        System.out.println(" - Num results: " + result.size());
-        return result;
+        return numAdded;
     }
 
-    public Collection<T> findByRangeSubDivision(GeoSector sector) {
-        HashSet<T> result = new HashSet<>();
-        long zMin = MortonCodes.generate(sector.getSouthwest());
-        long zMax = MortonCodes.generate(sector.getNortheast());
-        
-        Range inputRange = new Range(zMin, zMax);
-        ArrayList<Range> subRanges = new ArrayList<>();
-        HashSet<Long> keysToIgnore = new HashSet<>();
-//        System.out.println("findByRangeSubDivision...");
-        scanRangeForKeys(inputRange, subRanges, keysToIgnore);
-
-// Old: Faster!
-        for (Range range : subRanges) {
-            Set<Entry<Long, Set<T>>> entrySet = map.subMap(range.min, range.max).entrySet();
-            for (Entry<Long, Set<T>> entry : entrySet) {
-                if (keysToIgnore.contains(entry.getKey())) {
-                    continue;
-                }
-                result.addAll(entry.getValue());
-            }
-        }
-// Java8: Slower  :(
-//        subRanges.stream().map((range) -> map.subMap(range.min, range.max).entrySet()).forEach((entrySet) -> {
-//            entrySet.stream().filter((entry) -> !(keysToIgnore.contains(entry.getKey()))).forEach((entry) -> {
-//                result.addAll(entry.getValue());
-//            });
-//        });
-        
-//        System.out.println(" - Num ranges to test: " + subRanges.size());
-//        System.out.println(" - Num keys in ranges: " + numKeys);
-//        System.out.println(" - Num keys to ignore: " + keysToIgnore.size());
-//        System.out.println(" - Num results: " + result.size());
-        return result;
-    }
-
-    private void scanRangeForKeys(Range inputRange,
-                                  ArrayList<Range> outputRanges,
-                                  Set<Long> keysOutsideRange) {
-        // Start a recursive scan
-        scanRangeForKeys(inputRange, outputRanges, keysOutsideRange, 0);
-    }
-
-    private void scanRangeForKeys(Range inputRange,
-                                  ArrayList<Range> outputRanges,
-                                  Set<Long> keysOutsideRange, long zLast) {
-        long zMin = inputRange.min;
-        long zMax = inputRange.max;
-        // Get the bit patterns representing the corners of the range 
-        // (note, these are not the x and y values)
-        long yMin = zMin & ODD_MASK;
-        long xMin = zMin & EVEN_MASK;
-        long yMax = zMax & ODD_MASK;
-        long xMax = zMax & EVEN_MASK;
-
-        // stats
-        int numKeysOutsideRange = 0;
-        int numSubdivides = 0;
-
-        if (zLast < zMax) {
-            // Get the keys that are within the range
-            Set<Long> keySet = map.subMap(Math.max(zLast, zMin), zMax).keySet();
-
-            // Test each key to see if it is within the region defined by min/max x,y
-            for (Long z : keySet) {
-                // Extract the x and y bit patterns
-                long x = z & EVEN_MASK;
-                long y = z & ODD_MASK;
-
-                // Test if x or y are outside the bounds of the range
-                if (x < xMin || x > xMax || y < yMin || y > yMax) {
-                    keysOutsideRange.add(z);
-                    numKeysOutsideRange++;
-                    if (numKeysOutsideRange > 3) {
-                        Range[] r = subDivideRange(inputRange);
-                        scanRangeForKeys(r[0], outputRanges, keysOutsideRange, z);
-                        scanRangeForKeys(r[1], outputRanges, keysOutsideRange, z);
-                        numSubdivides++;
-                        break;
-                    }
-                }
+    /**
+     * Gets an immutable snapshot of the current contents. Snapshots are safe to query from any
+     * thread and are unaffected by subsequent additions.
+     *
+     * @return The current snapshot.
+     */
+    public Snapshot<T> snapshot() {
+        if (dirty) {
+            synchronized (this) {
+                flush();
             }
         }
-        // Save the inputRange if it wasn't subdivided
-        if (numSubdivides == 0) {
-            outputRanges.add(inputRange);
-        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of items in the container.
+     * @return The number of items.
+     */
+    public int size() {
+        return snapshot().size();
     }
 
-    private Range[] subDivideRange(Range range) {
-        int xMin = MortonCodes.getX(range.min);
-        int yMin = MortonCodes.getY(range.min);
+    public Collection<T> findByBruteForce(GeoSector sector) {
+        return snapshot().findByBruteForce(
+                sector.getSouthwest().getLatitudeDegrees(), sector.getSouthwest().getLongitudeDegrees(),
+                sector.getNortheast().getLatitudeDegrees(), sector.getNortheast().getLongitudeDegrees());
+    }
 
-        int xMax = MortonCodes.getX(range.max);
-        int yMax = MortonCodes.getY(range.max);
+    public Collection<T> findByRangeSubDivision(GeoSector sector) {
+        return snapshot().findInRange(
+                sector.getSouthwest().getLatitudeDegrees(), sector.getSouthwest().getLongitudeDegrees(),
+                sector.getNortheast().getLatitudeDegrees(), sector.getNortheast().getLongitudeDegrees());
+    }
 
-        // Find the first significant bit that differs to determine whether to split on the x or y axis
-        long leadingZeros = Long.numberOfLeadingZeros(range.min ^ range.max);
+    /**
+     * Finds the items within a box. See Snapshot.findInRange.
+     */
+    public List<T> findInRange(double minLat, double minLon, double maxLat, double maxLon) {
+        return snapshot().findInRange(minLat, minLon, maxLat, maxLon);
+    }
 
-        // If an 'even' bit differs, then split on the y axis, otherwise split on x axis
-        if (leadingZeros % 2 == 0) {   // vertical split: inherit x values from range and compute new y values...
-            int[] yMaxMin = computeLitMaxBigMin(yMin, yMax);
-            return new Range[]{
-                new Range(MortonCodes.generate(xMin, yMin), MortonCodes.generate(xMax, yMaxMin[0])),
-                new Range(MortonCodes.generate(xMin, yMaxMin[1]), MortonCodes.generate(xMax, yMax))
-            };
+    /**
+     * Finds the nearest items to a location. See Snapshot.findNearest.
+     */
+    public List<T> findNearest(double lat, double lon, int k) {
+        return snapshot().findNearest(lat, lon, k);
+    }
+
+    /**
+     * Finds the items within an area. See Snapshot.findInPolygon.
+     */
+    public List<T> findInPolygon(Geometry area) {
+        return snapshot().findInPolygon(area);
+    }
+
+    /**
+     * Merges the buffered additions into the snapshot. Must be called while synchronized.
+     */
+    private void flush() {
+        if (numPending > 0) {
+            snapshot = merge(snapshot, pendingCodes, pendingLats, pendingLons, pendingItems, numPending);
+            Arrays.fill(pendingItems, 0, numPending, null);
+            numPending = 0;
         }
-        else {   // horizontal split: inherit y values from range and compute new x values...
-            int[] xMaxMin = computeLitMaxBigMin(xMin, xMax);
-            return new Range[]{
-                new Range(MortonCodes.generate(xMin, yMin), MortonCodes.generate(xMaxMin[0], yMax)),
-                new Range(MortonCodes.generate(xMaxMin[1], yMin), MortonCodes.generate(xMax, yMax))
-            };
+        dirty = false;
+    }
+
+    /**
+     * Merges sorted additions with a snapshot into a new snapshot.
+     */
+    private static <T> Snapshot<T> merge(Snapshot<T> current, long[] codes, double[] lats, double[] lons,
+                                         Object[] items, int count) {
+        int n = current.codes.length + count;
+        long[] mergedCodes = new long[n];
+        double[] mergedLats = new double[n];
+        double[] mergedLons = new double[n];
+        Object[] mergedItems = new Object[n];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < n; k++) {
+            if (j == count || (i < current.codes.length && current.codes[i] <= codes[j])) {
+                mergedCodes[k] = current.codes[i];
+                mergedLats[k] = current.lats[i];
+                mergedLons[k] = current.lons[i];
+                mergedItems[k] = current.items[i];
+                i++;
+            } else {
+                mergedCodes[k] = codes[j];
+                mergedLats[k] = lats[j];
+                mergedLons[k] = lons[j];
+                mergedItems[k] = items[j];
+                j++;
+            }
+        }
+        return new Snapshot<>(mergedCodes, mergedLats, mergedLons, mergedItems);
+    }
+
+    private static boolean containsItem(long[] codes, Object[] items, int count, long code, Object item) {
+        for (int i = lowerBound(codes, code, 0, count); i < count && codes[i] == code; i++) {
+            if (Objects.equals(items[i], item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the index of the first code greater than or equal to the key.
+     */
+    static int lowerBound(long[] codes, long key, int fromIndex, int toIndex) {
+        int low = fromIndex;
+        int high = toIndex;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (codes[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
+        return low;
+    }
+
+    /**
+     * Computes the BIGMIN value: the smallest Morton code greater than zVal that lies within the
+     * box defined by the zMin and zMax corners. Tropf and Herzog, "Multidimensional Range Search
+     * in Dynamically Balanced Trees," Angewandte Informatik, 1981.
+     *
+     * @param zVal A code within [zMin, zMax] that lies outside the box.
+     * @param zMin The code of the southwest corner.
+     * @param zMax The code of the northeast corner.
+     * @return The next code within the box, or Long.MAX_VALUE if there isn't one.
+     */
+    public static long computeBigMin(long zVal, long zMin, long zMax) {
+        long bigMin = Long.MAX_VALUE;
+        for (int bit = 63; bit >= 0; bit--) {
+            long mask = 1L << bit;
+            // The less significant bits of the same dimension
+            long lower = ((bit & 1) == 0 ? EVEN_MASK : ODD_MASK) & (mask - 1);
+            boolean v = (zVal & mask) != 0;
+            boolean lo = (zMin & mask) != 0;
+            boolean hi = (zMax & mask) != 0;
+            if (!v) {
+                if (!lo && hi) {
+                    // The box straddles zVal's half: the upper half starts the candidates
+                    bigMin = (zMin | mask) & ~lower;
+                    zMax = (zMax & ~mask) | lower;
+                } else if (lo && hi) {
+                    // The whole box is above zVal
+                    return zMin;
+                }
+            } else {
+                if (!lo && !hi) {
+                    // The whole box is below zVal
+                    return bigMin;
+                } else if (!lo && hi) {
+                    zMin = (zMin | mask) & ~lower;
+                }
+            }
+        }
+        return bigMin;
     }
 
     /**
@@ -241,14 +398,278 @@ public class LinearQuadtree<T> {
         };
     }
 
-    private static class Range {
+    /**
+     * An immutable view of a LinearQuadtree's contents.
+     *
+     * @param <T>
+     */
+    public static final class Snapshot<T> {
+
+        private final long[] codes;
+        private final double[] lats;
+        private final double[] lons;
+        private final Object[] items;
+
+        private Snapshot(long[] codes, double[] lats, double[] lons, Object[] items) {
+            this.codes = codes;
+            this.lats = lats;
+            this.lons = lons;
+            this.items = items;
+        }
+
+        public int size() {
+            return codes.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) items[index];
+        }
+
+        /**
+         * Finds the items within a box by scanning every code between the box's corners.
+         *
+         * @return The items within the box.
+         */
+        public List<T> findByBruteForce(double minLat, double minLon, double maxLat, double maxLon) {
+            ArrayList<T> result = new ArrayList<>();
+            long zMin = MortonCodes.fromDegrees(minLat, minLon);
+            long zMax = MortonCodes.fromDegrees(maxLat, maxLon);
+            for (int i = lowerBound(codes, zMin, 0, codes.length); i < codes.length && codes[i] <= zMax; i++) {
+                if (isInside(codes[i], zMin, zMax) && isInside(i, minLat, minLon, maxLat, maxLon)) {
+                    result.add(get(i));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Finds the items within a box. Codes outside the box are skipped with BIGMIN jumps.
+         *
+         * @param minLat The southern edge [degrees].
+         * @param minLon The western edge [degrees].
+         * @param maxLat The northern edge [degrees].
+         * @param maxLon The eastern edge [degrees].
+         * @return The items within the box, including its edges.
+         */
+        public List<T> findInRange(double minLat, double minLon, double maxLat, double maxLon) {
+            ArrayList<T> result = new ArrayList<>();
+            visit(minLat, minLon, maxLat, maxLon, i -> result.add(get(i)));
+            return result;
+        }
+
+        /**
+         * Finds the k items nearest to a location by great circle distance. The search box is
+         * grown until it encloses the k nearest candidates.
+         *
+         * @param lat Latitude [degrees].
+         * @param lon Longitude [degrees].
+         * @param k The number of items to find.
+         * @return Up to k items, nearest first.
+         */
+        public List<T> findNearest(double lat, double lon, int k) {
+            int n = codes.length;
+            int count = Math.min(k, n);
+            ArrayList<T> result = new ArrayList<>(Math.max(count, 0));
+            if (count <= 0) {
+                return result;
+            }
+            // Start with the radius expected to hold k uniformly distributed items
+            double radius = Math.max(Math.sqrt(360.0 * 180.0 * count / n), 1e-4);
+            double[] heapDistances = new double[count];
+            int[] heapIndices = new int[count];
+            int[] heapSize = new int[1];
+            while (true) {
+                heapSize[0] = 0;
+                visitCap(lat, lon, radius, i -> {
+                    double distance = angularDistance(lat, lon, lats[i], lons[i]);
+                    offer(heapDistances, heapIndices, heapSize, distance, i);
+                    return true;
+                });
+                if ((heapSize[0] == count && heapDistances[0] <= radius) || radius >= 180) {
+                    break;
+                }
+                radius *= 2;
+            }
+            // Drain the max-heap: farthest first
+            int[] nearest = new int[heapSize[0]];
+            for (int j = nearest.length - 1; j >= 0; j--) {
+                nearest[j] = heapIndices[0];
+                heapSize[0]--;
+                heapDistances[0] = heapDistances[heapSize[0]];
+                heapIndices[0] = heapIndices[heapSize[0]];
+                siftDown(heapDistances, heapIndices, heapSize[0], 0);
+            }
+            for (int i : nearest) {
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        /**
+         * Finds the items within an area. The area's rings are evaluated with the even-odd rule,
+         * so the inner rings of a polygon are holes.
+         *
+         * @param area A polygon or box.
+         * @return The items within the area.
+         */
+        public List<T> findInPolygon(Geometry area) {
+            ArrayList<T> result = new ArrayList<>();
+            ArrayList<double[]> ringLats = new ArrayList<>();
+            ArrayList<double[]> ringLons = new ArrayList<>();
+            double minLat = Double.POSITIVE_INFINITY;
+            double minLon = Double.POSITIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            double maxLon = Double.NEGATIVE_INFINITY;
+            for (Part part : area.getParts()) {
+                if (part.getNumPoints() < 3) {
+                    continue;
+                }
+                double[] y = part.getY();
+                double[] x = part.getX();
+                for (int j = 0; j < y.length; j++) {
+                    minLat = Math.min(minLat, y[j]);
+                    maxLat = Math.max(maxLat, y[j]);
+                    minLon = Math.min(minLon, x[j]);
+                    maxLon = Math.max(maxLon, x[j]);
+                }
+                ringLats.add(y);
+                ringLons.add(x);
+            }
+            if (ringLats.isEmpty()) {
+                return result;
+            }
+            visit(minLat, minLon, maxLat, maxLon, i -> {
+                boolean inside = false;
+                for (int r = 0; r < ringLats.size(); r++) {
+                    if (GeometryIndex.ringContains(ringLats.get(r), ringLons.get(r), lats[i], lons[i])) {
+                        inside = !inside;
+                    }
+                }
+                if (inside) {
+                    result.add(get(i));
+                }
+                return true;
+            });
+            return result;
+        }
+
+        /**
+         * Visits the items within a box, skipping runs of codes outside the box with BIGMIN.
+         *
+         * @return False if the visitor stopped the search.
+         */
+        private boolean visit(double minLat, double minLon, double maxLat, double maxLon, IntPredicate visitor) {
+            long zMin = MortonCodes.fromDegrees(minLat, minLon);
+            long zMax = MortonCodes.fromDegrees(maxLat, maxLon);
+            int n = codes.length;
+            int i = lowerBound(codes, zMin, 0, n);
+            while (i < n && codes[i] <= zMax) {
+                long z = codes[i];
+                if (isInside(z, zMin, zMax)) {
+                    if (isInside(i, minLat, minLon, maxLat, maxLon) && !visitor.test(i)) {
+                        return false;
+                    }
+                    i++;
+                } else {
+                    long next = computeBigMin(z, zMin, zMax);
+                    i = next > z ? lowerBound(codes, next, i + 1, n) : i + 1;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Visits the items within a box enclosing a circle, splitting the box at the antimeridian.
+         */
+        private void visitCap(double lat, double lon, double radius, IntPredicate visitor) {
+            double minLat = Math.max(lat - radius, -90);
+            double maxLat = Math.min(lat + radius, 90);
+            double dLon = 180;
+            if (minLat > -90 && maxLat < 90) {
+                dLon = radius / Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+            }
+            if (dLon >= 180) {
+                visit(minLat, -180, maxLat, 180, visitor);
+            } else if (lon - dLon < -180) {
+                visit(minLat, lon - dLon + 360, maxLat, 180, visitor);
+                visit(minLat, -180, maxLat, lon + dLon, visitor);
+            } else if (lon + dLon > 180) {
+                visit(minLat, lon - dLon, maxLat, 180, visitor);
+                visit(minLat, -180, maxLat, lon + dLon - 360, visitor);
+            } else {
+                visit(minLat, lon - dLon, maxLat, lon + dLon, visitor);
+            }
+        }
+
+        private boolean isInside(int i, double minLat, double minLon, double maxLat, double maxLon) {
+            return lats[i] >= minLat && lats[i] <= maxLat && lons[i] >= minLon && lons[i] <= maxLon;
+        }
 
-        long min;
-        long max;
+        private static boolean isInside(long z, long zMin, long zMax) {
+            long x = z & EVEN_MASK;
+            long y = z & ODD_MASK;
+            return x >= (zMin & EVEN_MASK) && x <= (zMax & EVEN_MASK)
+                    && y >= (zMin & ODD_MASK) && y <= (zMax & ODD_MASK);
+        }
 
-        Range(long min, long max) {
-            this.min = min;
-            this.max = max;
+        /**
+         * Computes the great circle distance between two points with the haversine formula.
+         * @return The central angle [degrees].
+         */
+        private static double angularDistance(double lat1, double lon1, double lat2, double lon2) {
+            double sinDLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+            double sinDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+            double a = sinDLat * sinDLat
+                    + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinDLon * sinDLon;
+            return Math.toDegrees(2 * Math.asin(Math.min(1, Math.sqrt(a))));
+        }
+
+        /**
+         * Offers a candidate to a bounded max-heap of the nearest items.
+         */
+        private static void offer(double[] distances, int[] indices, int[] size, double distance, int index) {
+            if (size[0] < distances.length) {
+                // Sift up
+                int child = size[0]++;
+                while (child > 0) {
+                    int parent = (child - 1) / 2;
+                    if (distances[parent] >= distance) {
+                        break;
+                    }
+                    distances[child] = distances[parent];
+                    indices[child] = indices[parent];
+                    child = parent;
+                }
+                distances[child] = distance;
+                indices[child] = index;
+            } else if (distance < distances[0]) {
+                distances[0] = distance;
+                indices[0] = index;
+                siftDown(distances, indices, size[0], 0);
+            }
+        }
+
+        private static void siftDown(double[] distances, int[] indices, int size, int parent) {
+            double distance = distances[parent];
+            int index = indices[parent];
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                distances[parent] = distances[child];
+                indices[parent] = indices[child];
+                parent = child;
+            }
+            distances[parent] = distance;
+            indices[parent] = index;
         }
     }
 }
@@ -54,6 +54,19 @@ public class MortonCodes {
         return generate(x, y);
     }
 
+    /**
+     * Generates a 64-bit morton code from latitude and longitude values at full double precision.
+     * Unlike generate(Coord2D), the fixed-point conversion is not limited by float precision, so
+     * the codes are monotonic with the degree values at the Q9.22 resolution.
+     *
+     * @param lat Latitude [degrees].
+     * @param lon Longitude [degrees].
+     * @return A 64-bit morton code.
+     */
+    public static long fromDegrees(double lat, double lon) {
+        return interleave64Bits(degreesToFixed(lon), degreesToFixed(lat));
+    }
+
     public static long generate(int x, int y) {
         long z = interleaveBits(x, y);
         return z;
@@ -91,6 +104,16 @@ public class MortonCodes {
         return MathUtil.floatToFixed(9, 22, degrees + 180.0f);
     }
 
+    /**
+     * Converts degrees to a 32-bit fixed-point integer at double precision.
+     * <p/>
+     * @param degrees Angle must be between +/-180 degrees
+     * @return A fixed-point representation of Q9.22.
+     */
+    public static int degreesToFixed(double degrees) {
+        return (int) Math.round((degrees + 180.0) * (1 << 22));
+    }
+
     /**
      * Converts a 32-bit fixed-point integer to degrees.
      * <p/>
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.api.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable R-tree of bounding boxes built with the Sort-Tile-Recursive (STR) bulk loading
+ * algorithm. The boxes are identified by their index in the array supplied to the constructor. The
+ * tree is stored in primitive arrays and can be queried concurrently.
+ *
+ * Leutenegger, Lopez and Edgington, "STR: A Simple and Efficient Algorithm for R-Tree Packing,"
+ * Proceedings of the 13th International Conference on Data Engineering, 1997.
+ *
+ * @author Bruce Schubert <bruce@emxsys.com>
+ */
+public class StrTree {
+
+    /** The maximum number of children per node. */
+    public static final int NODE_CAPACITY = 16;
+
+    private final int numItems;
+    /** The item indices in STR order. */
+    private final int[] order;
+    /** The item boxes [minLat, minLon, maxLat, maxLon] in STR order. */
+    private final double[] itemBoxes;
+    /** The node boxes per level; level 0 nodes group the items. */
+    private final double[][] levels;
+
+    /**
+     * Constructs the tree.
+     *
+     * @param boxes The bounding boxes as [minLat, minLon, maxLat, maxLon] quads [degrees].
+     */
+    public StrTree(double[] boxes) {
+        if (boxes.length % 4 != 0) {
+            throw new IllegalArgumentException("StrTree: boxes must contain [minLat, minLon, maxLat, maxLon] quads.");
+        }
+        this.numItems = boxes.length / 4;
+
+        // Sort by longitude into vertical slices, then by latitude within each slice
+        Integer[] sorted = new Integer[numItems];
+        for (int i = 0; i < numItems; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, Comparator.comparingDouble(i -> boxes[i * 4 + 1] + boxes[i * 4 + 3]));
+        int numLeaves = (numItems + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceSize = (int) Math.ceil(Math.sqrt(numLeaves)) * NODE_CAPACITY;
+        for (int from = 0; from < numItems; from += sliceSize) {
+            Arrays.sort(sorted, from, Math.min(from + sliceSize, numItems),
+                    Comparator.comparingDouble(i -> boxes[i * 4] + boxes[i * 4 + 2]));
+        }
+        this.order = new int[numItems];
+        this.itemBoxes = new double[numItems * 4];
+        for (int i = 0; i < numItems; i++) {
+            order[i] = sorted[i];
+            System.arraycopy(boxes, sorted[i] * 4, itemBoxes, i * 4, 4);
+        }
+
+        // Pack the nodes bottom-up; each node covers NODE_CAPACITY consecutive children
+        int numLevels = 0;
+        for (int n = numItems; n > 1 || numLevels == 0; n = (n + NODE_CAPACITY - 1) / NODE_CAPACITY) {
+            numLevels++;
+        }
+        this.levels = new double[numLevels][];
+        double[] children = itemBoxes;
+        for (int level = 0; level < numLevels; level++) {
+            int numChildren = children.length / 4;
+            int numNodes = (numChildren + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            double[] nodes = new double[numNodes * 4];
+            for (int node = 0; node < numNodes; node++) {
+                double minLat = Double.POSITIVE_INFINITY;
+                double minLon = Double.POSITIVE_INFINITY;
+                double maxLat = Double.NEGATIVE_INFINITY;
+                double maxLon = Double.NEGATIVE_INFINITY;
+                for (int c = node * NODE_CAPACITY; c < Math.min((node + 1) * NODE_CAPACITY, numChildren); c++) {
+                    minLat = Math.min(minLat, children[c * 4]);
+                    minLon = Math.min(minLon, children[c * 4 + 1]);
+                    maxLat = Math.max(maxLat, children[c * 4 + 2]);
+                    maxLon = Math.max(maxLon, children[c * 4 + 3]);
+                }
+                nodes[node * 4] = minLat;
+                nodes[node * 4 + 1] = minLon;
+                nodes[node * 4 + 2] = maxLat;
+                nodes[node * 4 + 3] = maxLon;
+            }
+            levels[level] = nodes;
+            children = nodes;
+        }
+    }
+
+    /**
+     * Visits the items whose boxes intersect the query box.
+     *
+     * @param minLat The southern edge of the query [degrees].
+     * @param minLon The western edge of the query [degrees].
+     * @param maxLat The northern edge of the query [degrees].
+     * @param maxLon The eastern edge of the query [degrees].
+     * @param visitor Receives the item indices; return false to stop the search.
+     * @return False if the visitor stopped the search.
+     */
+    public boolean query(double minLat, double minLon, double maxLat, double maxLon, IntPredicate visitor) {
+        if (numItems == 0) {
+            return true;
+        }
+        int top = levels.length - 1;
+        for (int node = 0; node < levels[top].length / 4; node++) {
+            if (!query(top, node, minLat, minLon, maxLat, maxLon, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean query(int level, int node, double minLat, double minLon, double maxLat, double maxLon,
+                          IntPredicate visitor) {
+        if (!intersects(levels[level], node, minLat, minLon, maxLat, maxLon)) {
+            return true;
+        }
+        int first = node * NODE_CAPACITY;
+        if (level == 0) {
+            int last = Math.min(first + NODE_CAPACITY, numItems);
+            for (int i = first; i < last; i++) {
+                if (intersects(itemBoxes, i, minLat, minLon, maxLat, maxLon) && !visitor.test(order[i])) {
+                    return false;
+                }
+            }
+        } else {
+            int last = Math.min(first + NODE_CAPACITY, levels[level - 1].length / 4);
+            for (int child = first; child < last; child++) {
+                if (!query(level - 1, child, minLat, minLon, maxLat, maxLon, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean intersects(double[] boxes, int i, double minLat, double minLon, double maxLat, double maxLon) {
+        return boxes[i * 4] <= maxLat && boxes[i * 4 + 2] >= minLat
+                && boxes[i * 4 + 1] <= maxLon && boxes[i * 4 + 3] >= minLon;
+    }
+
+    /**
+     * Gets the number of items in the tree.
+     * @return The number of boxes.
+     */
+    public int size() {
+        return numItems;
+    }
+
+}
@@ -35,6 +35,7 @@ import com.emxsys.gis.api.Coord3D;
 import com.emxsys.gis.api.Feature;
 import com.emxsys.gis.api.Geometry;
 import com.emxsys.gis.api.LineString;
+import com.emxsys.gis.api.MultiResolutionPart;
 import com.emxsys.gis.api.Part;
 import com.emxsys.gis.api.Point;
 import com.emxsys.gis.api.Polygon;
@@ -54,6 +55,7 @@ public class GmlBuilder {
 
     private final Document doc;
     private Element element = null;
+    private double simplificationTolerance = 0;
 
     /**
      *
@@ -96,6 +98,31 @@ public class GmlBuilder {
         root.setAttribute("xmlns:gml", GML_NS_URI);
     }
 
+    /**
+     * Gets the tolerance used to simplify LineStrings and LinearRings.
+     *
+     * @return the largest deviation from the original geometry in degrees; zero if the geometry is
+     * not simplified.
+     */
+    public double getSimplificationTolerance() {
+        return simplificationTolerance;
+    }
+
+    /**
+     * Sets the tolerance used to simplify LineStrings and LinearRings with the Douglas-Peucker
+     * algorithm, which reduces the size of the GML for consumers that display it at a coarse
+     * resolution. See {@link MultiResolutionPart}.
+     *
+     * @param degrees the largest deviation from the original geometry; zero (the default) writes
+     * every coordinate.
+     */
+    public void setSimplificationTolerance(double degrees) {
+        if (degrees < 0) {
+            throw new IllegalArgumentException("setSimplificationTolerance: degrees < 0");
+        }
+        this.simplificationTolerance = degrees;
+    }
+
     public void append(Coord2D point) {
         this.element.appendChild(createPoint(point));
     }
@@ -233,6 +260,24 @@ public class GmlBuilder {
         return coordinates;
     }
 
+    /**
+     * Coordinates simplified to the builder's simplification tolerance.
+     *
+     * @param p a line or ring geometry part
+     * @param closed true if the part is a ring
+     * @return {@code <coordinates>} element
+     */
+    Element createSimplifiedCoordinates(Part p, boolean closed) {
+        int level = MultiResolutionPart.getLevel(this.simplificationTolerance);
+        if (level == 0) {
+            return createCoordinates(p);
+        }
+        int[] indices = MultiResolutionPart.fromPart(p, closed).getIndices(level);
+        Element coordinates = createElement(COORDINATES_ELEMENT_NAME);
+        coordinates.appendChild(createTextNode(toCoordinates(p, indices)));
+        return coordinates;
+    }
+
     /**
      * Coord element that encapsulate tuple components.
      *
@@ -358,7 +403,7 @@ public class GmlBuilder {
             throw new IllegalArgumentException("createLineString: num points < 2");
         }
         Element line = createElement(LINESTRING_ELEMENT_NAME, SRS_WGS84);
-        Element coordinates = createCoordinates(p);
+        Element coordinates = createSimplifiedCoordinates(p, false);
         line.appendChild(coordinates);
         return line;
     }
@@ -379,7 +424,7 @@ public class GmlBuilder {
             throw new IllegalArgumentException("createLinearRing: num points < 4");
         }
         Element point = createElement(LINEARRING_ELEMENT_NAME, SRS_WGS84);
-        Element coordinates = createCoordinates(p);
+        Element coordinates = createSimplifiedCoordinates(p, true);
         point.appendChild(coordinates);
         return point;
     }
@@ -453,6 +498,27 @@ public class GmlBuilder {
         return sb.toString();
     }
 
+    String toCoordinates(Part p, int[] indices) {
+        // coordinate tuples string for the selected points: x,y,z x,y,z x,y,z ...
+        double[] x = p.getX();
+        double[] y = p.getY();
+        double[] z = p.getNumDimensions() == 3 ? p.getZ() : null;
+        StringBuilder sb = new StringBuilder(p.getNumDimensions() * indices.length * 20);
+        for (int i = 0; i < indices.length; i++) {
+            if (i > 0) {
+                sb.append(DEFAULT_TUPLE_SEPARATOR);
+            }
+            sb.append(x[indices[i]]);
+            sb.append(DEFAULT_COORDINATE_SEPARATOR);
+            sb.append(y[indices[i]]);
+            if (z != null) {
+                sb.append(DEFAULT_COORDINATE_SEPARATOR);
+                sb.append(z[indices[i]]);
+            }
+        }
+        return sb.toString();
+    }
+
     String toCoordinates(double[] x, double[] y) {
         // coordinate tuples string: x,y x,y x,y ...
         StringBuilder sb = new StringBuilder(50);
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.api;
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class MultiResolutionPartTest {
+
+    public MultiResolutionPartTest() {
+    }
+
+    /**
+     * Test of getIndices method, of class MultiResolutionPart.
+     */
+    @Test
+    public void testGetIndices() {
+        System.out.println("getIndices");
+        // A square ring with collinear points along its edges
+        double[] xy = {
+            -118.0, 34.0, -118.5, 34.0, -119.0, 34.0, -119.0, 34.5, -119.0, 35.0,
+            -118.5, 35.0, -118.0, 35.0, -118.0, 34.5, -118.0, 34.0};
+        MultiResolutionPart instance = new MultiResolutionPart(xy, true);
+        assertEquals(9, instance.getNumPoints());
+        assertEquals(9, instance.getIndices(0).length);
+        assertArrayEquals(new int[]{0, 2, 4, 6, 8}, instance.getIndices(1));
+        // A ring keeps at least four points
+        int[] coarsest = instance.getIndices(MultiResolutionPart.NUM_LEVELS - 1);
+        assertEquals(4, coarsest.length);
+        assertEquals(0, coarsest[0]);
+        assertEquals(8, coarsest[3]);
+    }
+
+    /**
+     * Test the levels nest and deviate less than their tolerance from the original line.
+     */
+    @Test
+    public void testLevels() {
+        System.out.println("levels");
+        Random random = new Random(1);
+        double[] xy = new double[2000];
+        double lon = -120, lat = 40;
+        for (int i = 0; i < xy.length; i += 2) {
+            lon += random.nextDouble() * 0.001;
+            lat += random.nextGaussian() * 0.001;
+            xy[i] = lon;
+            xy[i + 1] = lat;
+        }
+        MultiResolutionPart instance = new MultiResolutionPart(xy, false);
+        double xScale = Math.cos(Math.toRadians(40));
+        int[] previous = instance.getIndices(0);
+        for (int level = 1; level < MultiResolutionPart.NUM_LEVELS; level++) {
+            int[] indices = instance.getIndices(level);
+            assertEquals(0, indices[0]);
+            assertEquals(999, indices[indices.length - 1]);
+            // Nested in the finer level
+            int j = 0;
+            for (int index : indices) {
+                while (previous[j] != index) {
+                    j++;
+                }
+            }
+            // Within tolerance of the simplified line (allowing for the mean latitude scaling)
+            double tolerance = MultiResolutionPart.getTolerance(level) * 1.01;
+            for (int k = 1; k < indices.length; k++) {
+                for (int i = indices[k - 1] + 1; i < indices[k]; i++) {
+                    assertTrue(distance(instance, i, indices[k - 1], indices[k], xScale) <= tolerance);
+                }
+            }
+            previous = indices;
+        }
+        assertEquals(2, previous.length);
+        assertSame(previous, instance.getIndices(MultiResolutionPart.NUM_LEVELS - 1));
+    }
+
+    /**
+     * Test of getLevel method, of class MultiResolutionPart.
+     */
+    @Test
+    public void testGetLevel() {
+        System.out.println("getLevel");
+        assertEquals(0, MultiResolutionPart.getLevel(0));
+        assertEquals(0, MultiResolutionPart.getLevel(Double.NaN));
+        assertEquals(1, MultiResolutionPart.getLevel(MultiResolutionPart.FINEST_TOLERANCE));
+        assertEquals(2, MultiResolutionPart.getLevel(MultiResolutionPart.FINEST_TOLERANCE * 2.5));
+        assertEquals(MultiResolutionPart.NUM_LEVELS - 1, MultiResolutionPart.getLevel(90));
+        for (int level = 1; level < MultiResolutionPart.NUM_LEVELS; level++) {
+            assertEquals(level, MultiResolutionPart.getLevel(MultiResolutionPart.getTolerance(level) * 1.5));
+        }
+        // A kilometer per pixel allows about 0.009 degrees
+        assertEquals(MultiResolutionPart.getLevel(1000 / MultiResolutionPart.METERS_PER_DEGREE),
+                MultiResolutionPart.getLevelForResolution(1000));
+    }
+
+    /**
+     * Test of getLevelForView method, of class MultiResolutionPart.
+     */
+    @Test
+    public void testGetLevelForView() {
+        System.out.println("getLevelForView");
+        // A pixel is a thousandth of the distance
+        DoubleUnaryOperator pixelSize = (distance) -> distance / 1000;
+        // The nearest point of the extent is 1,000 km away
+        assertEquals(MultiResolutionPart.getLevelForResolution(1000),
+                MultiResolutionPart.getLevelForView(1500000, 500000, 10000, pixelSize));
+        // The eye is never nearer than its elevation
+        assertEquals(MultiResolutionPart.getLevelForResolution(10),
+                MultiResolutionPart.getLevelForView(500000, 500000, 10000, pixelSize));
+        // Inside the extent on the ground
+        assertEquals(0, MultiResolutionPart.getLevelForView(0, 500000, 0, pixelSize));
+    }
+
+    private static double distance(MultiResolutionPart part, int point, int first, int last, double xScale) {
+        double px = part.getX(point) * xScale, py = part.getY(point);
+        double ax = part.getX(first) * xScale, ay = part.getY(first);
+        double dx = part.getX(last) * xScale - ax, dy = part.getY(last) - ay;
+        double t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy)));
+        return Math.hypot(px - ax - t * dx, py - ay - t * dy);
+    }
+}
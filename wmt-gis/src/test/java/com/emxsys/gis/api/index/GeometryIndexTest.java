@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.gis.api.index;
+
+import com.emxsys.gis.api.GeoCoord3D;
+import com.emxsys.gis.api.GeoLineString;
+import com.emxsys.gis.api.GeoPolygon;
+import com.emxsys.gis.api.Geometry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class GeometryIndexTest {
+
+    private final GeometryIndex<Geometry> instance;
+
+    public GeometryIndexTest() {
+        List<Geometry> geometries = new ArrayList<>();
+        // A triangle whose bounding box covers (0,0)-(10,10)
+        geometries.add(new GeoPolygon(Arrays.asList(
+                GeoCoord3D.fromDegrees(0, 0),
+                GeoCoord3D.fromDegrees(0, 10),
+                GeoCoord3D.fromDegrees(10, 0),
+                GeoCoord3D.fromDegrees(0, 0))));
+        // A north-south line at longitude 20
+        geometries.add(new GeoLineString(Arrays.asList(
+                GeoCoord3D.fromDegrees(-5, 20),
+                GeoCoord3D.fromDegrees(5, 20))));
+        instance = new GeometryIndex<>(geometries, Function.identity());
+    }
+
+    @Test
+    public void testFindContaining() {
+        System.out.println("findContaining");
+        assertEquals(0, instance.findContaining(2, 2));
+        // Inside the bounding box but outside the triangle
+        assertEquals(-1, instance.findContaining(8, 8));
+        // Lines don't contain points
+        assertEquals(-1, instance.findContaining(0, 20));
+        assertEquals(2, instance.size());
+    }
+
+    @Test
+    public void testFindCrossing() {
+        System.out.println("findCrossing");
+        // Ends inside the triangle
+        assertEquals(0, instance.findCrossing(-1, 2, 2, 2));
+        // Passes through the empty corner of the bounding box
+        assertEquals(-1, instance.findCrossing(9, 7, 7, 9));
+        // Crosses the line
+        assertEquals(1, instance.findCrossing(0, 19, 0, 21));
+        // Stops short of the line
+        assertEquals(-1, instance.findCrossing(0, 15, 0, 19.9));
+    }
+
+    @Test
+    public void testSegmentsIntersect() {
+        System.out.println("segmentsIntersect");
+        assertTrue(GeometryIndex.segmentsIntersect(0, 0, 2, 2, 0, 2, 2, 0));
+        assertTrue(GeometryIndex.segmentsIntersect(0, 0, 2, 2, 2, 2, 3, 0));
+        assertFalse(GeometryIndex.segmentsIntersect(0, 0, 1, 1, 0, 2, 2, 4));
+    }
+
+}
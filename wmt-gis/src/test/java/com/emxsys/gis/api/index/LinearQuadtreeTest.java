@@ -20,8 +20,13 @@ import com.emxsys.gis.api.index.LinearQuadtree;
 import com.emxsys.gis.api.GeoCoord2D;
 import com.emxsys.gis.api.GeoSector;
 import com.emxsys.gis.api.Coord2D;
+import com.emxsys.gis.api.GeoCoord3D;
+import com.emxsys.gis.api.GeoPolygon;
 import com.emxsys.util.TimeUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Random;
 import org.junit.*;
 import static org.junit.Assert.*;
@@ -178,4 +183,82 @@ public class LinearQuadtreeTest
 //        }
     }
 
+    /**
+     * Test of addAll method, of class LinearQuadtree.
+     */
+    @Test
+    public void testAddAll()
+    {
+        System.out.println("addAll");
+        int n = 100000;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        List<Integer> items = new ArrayList<>(n);
+        Random random = new Random(17);
+        for (int i = 0; i < n; i++)
+        {
+            lats[i] = random.nextDouble() * 180 - 90;
+            lons[i] = random.nextDouble() * 360 - 180;
+            items.add(i);
+        }
+        LinearQuadtree<Integer> tree = new LinearQuadtree<>();
+        long startTimeMs = System.currentTimeMillis();
+        assertEquals(n, tree.addAll(lats, lons, items));
+        System.out.println("Elapsed: " + TimeUtil.msToSecs(System.currentTimeMillis() - startTimeMs));
+        // Duplicates are ignored
+        assertEquals(0, tree.addAll(lats, lons, items));
+        assertFalse(tree.add(lats[0], lons[0], 0));
+        assertEquals(n, tree.size());
+
+        int expResult = 0;
+        for (int i = 0; i < n; i++)
+        {
+            if (lats[i] >= 34.2 && lats[i] <= 45.4 && lons[i] >= -119.4 && lons[i] <= -75.2)
+            {
+                expResult++;
+            }
+        }
+        assertEquals(expResult, tree.findByRangeSubDivision(sector).size());
+        assertEquals(expResult, tree.findByBruteForce(sector).size());
+    }
+
+    /**
+     * Test of findNearest method, of class LinearQuadtree.
+     */
+    @Test
+    public void testFindNearest()
+    {
+        System.out.println("findNearest");
+        LinearQuadtree<String> tree = new LinearQuadtree<>();
+        tree.add(34.0, -119.0, "a");
+        tree.add(34.1, -119.0, "b");
+        tree.add(35.0, -119.0, "c");
+        tree.add(-34.0, 119.0, "d");
+        tree.add(34.0, 179.9, "e");
+        assertEquals(Arrays.asList("a", "b"), tree.findNearest(33.9, -119.0, 2));
+        assertEquals(Arrays.asList("d"), tree.findNearest(-30, 120, 1));
+        // Neighbors across the antimeridian
+        assertEquals(Arrays.asList("e"), tree.findNearest(34.0, -179.9, 1));
+        assertEquals(5, tree.findNearest(0, 0, 10).size());
+        assertEquals(50000, instance.findNearest(0, 0, 50000).size());
+    }
+
+    /**
+     * Test of findInPolygon method, of class LinearQuadtree.
+     */
+    @Test
+    public void testFindInPolygon()
+    {
+        System.out.println("findInPolygon");
+        LinearQuadtree<String> tree = new LinearQuadtree<>();
+        tree.add(1, 1, "inside");
+        tree.add(8, 8, "outside");
+        GeoPolygon triangle = new GeoPolygon(Arrays.asList(
+                GeoCoord3D.fromDegrees(0, 0),
+                GeoCoord3D.fromDegrees(0, 10),
+                GeoCoord3D.fromDegrees(10, 0),
+                GeoCoord3D.fromDegrees(0, 0)));
+        assertEquals(Arrays.asList("inside"), tree.findInPolygon(triangle));
+    }
+
 }
@@ -29,6 +29,9 @@
  */
 package com.emxsys.wmt.globe;
 
+import com.emxsys.util.HttpClient;
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.avlist.AVKey;
 import org.openide.modules.ModuleInstall;
 import org.openide.windows.WindowManager;
 
@@ -36,6 +39,11 @@ public class Installer extends ModuleInstall {
 
     @Override
     public void restored() {
+        // Share the offline mode with the web services that don't depend on the globe
+        HttpClient.setOfflineMode(WorldWind.isOfflineMode());
+        WorldWind.addPropertyChangeListener(AVKey.OFFLINE_MODE,
+                (evt) -> HttpClient.setOfflineMode(WorldWind.isOfflineMode()));
+
         WindowManager.getDefault().invokeWhenUIReady(new Runnable() {
 
             @Override
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.globe.analytics;
+
+import java.awt.EventQueue;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.Timer;
+import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
+
+/**
+ * A FramePipeline produces animation frames on a background thread into a ring of reusable
+ * buffers, and displays the finished frames on the EDT at a fixed interval.
+ * <p>
+ * The display only swaps a finished frame in; it never waits for the producer. The producer runs
+ * at most a couple of frames ahead of the display, blocking until a buffer is free. When the
+ * producer falls behind, the display keeps the current frame and the next frame is produced with
+ * the number of intervals it covers, so the animation keeps its pace at a lower frame rate.
+ * <p>
+ * A displayed frame is not reused until two newer frames have been displayed, so the renderer
+ * can finish reading it.
+ *
+ * @author Bruce Schubert
+ * @param <F> The frame buffer type.
+ */
+class FramePipeline<F> {
+
+    /**
+     * Draws the animation frames; called on the producer thread.
+     *
+     * @param <F> The frame buffer type.
+     */
+    interface Producer<F> {
+
+        /**
+         * Draws the next frame.
+         *
+         * @param previous The previous frame, or null for the first frame. Must not be modified.
+         * @param next The buffer to draw, which contains an old frame.
+         * @param numSteps The number of display intervals covered by the frame, from 1 to
+         * MAX_STEPS; more than 1 when the producer has fallen behind.
+         * @throws Exception if the frame cannot be produced, which stops the production.
+         */
+        void produce(F previous, F next, int numSteps) throws Exception;
+    }
+
+    /**
+     * Displays the animation frames; called on the EDT.
+     *
+     * @param <F> The frame buffer type.
+     */
+    interface Consumer<F> {
+
+        /**
+         * Displays a finished frame. The frame must not be modified.
+         *
+         * @param frame The frame to display.
+         */
+        void display(F frame);
+    }
+
+    /** The number of frame buffers needed: displayed, retired, ready and in production. */
+    static final int MIN_BUFFERS = 4;
+    /** The maximum number of display intervals covered by a frame. */
+    static final int MAX_STEPS = 8;
+    private static final Logger logger = Logger.getLogger(FramePipeline.class.getName());
+
+    private final Producer<F> producer;
+    private final Consumer<F> consumer;
+    private final BlockingQueue<F> free;
+    private final BlockingQueue<F> ready;
+    private final AtomicInteger missedIntervals = new AtomicInteger();
+    private final AtomicInteger numSkipped = new AtomicInteger();
+    // Each pipeline has its own producer thread, so concurrent animations don't starve each other
+    private final RequestProcessor processor = new RequestProcessor(FramePipeline.class.getName(), 1, true);
+    // Accessed on the producer thread
+    private F previous;
+    // Accessed on the EDT
+    private Timer timer;
+    private RequestProcessor.Task task;
+    private boolean started;
+    private F displayed;
+    private F retired;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param buffers The frame buffers; at least MIN_BUFFERS.
+     * @param producer Draws the frames.
+     * @param consumer Displays the frames.
+     */
+    FramePipeline(List<F> buffers, Producer<F> producer, Consumer<F> consumer) {
+        if (buffers.size() < MIN_BUFFERS) {
+            throw new IllegalArgumentException("At least " + MIN_BUFFERS + " buffers are required.");
+        }
+        this.producer = producer;
+        this.consumer = consumer;
+        this.free = new ArrayBlockingQueue<>(buffers.size(), false, buffers);
+        this.ready = new ArrayBlockingQueue<>(buffers.size());
+    }
+
+    /**
+     * Starts producing and displaying frames. A pipeline can only be started once. Must be called
+     * on the EDT.
+     *
+     * @param intervalMs The display interval.
+     */
+    void start(int intervalMs) {
+        if (started) {
+            throw new IllegalStateException("The pipeline has already been started.");
+        }
+        this.started = true;
+        this.timer = new Timer(intervalMs, (e) -> displayNext());
+        this.task = processor.post(this::produceFrames);
+        this.timer.start();
+    }
+
+    /**
+     * Stops producing and displaying frames. Must be called on the EDT.
+     */
+    void stop() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Gets the number of display intervals in which no new frame was ready.
+     *
+     * @return The number of skipped frames.
+     */
+    int getNumSkipped() {
+        return numSkipped.get();
+    }
+
+    /**
+     * Swaps the next finished frame into the display.
+     */
+    void displayNext() {
+        assert EventQueue.isDispatchThread();
+        F frame = ready.poll();
+        if (frame == null) {
+            if (displayed != null) {
+                missedIntervals.incrementAndGet();
+                numSkipped.incrementAndGet();
+            }
+            return;
+        }
+        consumer.display(frame);
+        if (retired != null) {
+            free.add(retired);
+        }
+        retired = displayed;
+        displayed = frame;
+    }
+
+    /**
+     * Produces the next frame into a free buffer, blocking until one is available.
+     *
+     * @throws Exception if the frame cannot be produced.
+     */
+    void produceNext() throws Exception {
+        F next = free.take();
+        int numSteps = 1 + Math.min(missedIntervals.getAndSet(0), MAX_STEPS - 1);
+        producer.produce(previous, next, numSteps);
+        ready.put(next);
+        previous = next;
+    }
+
+    private void produceFrames() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                produceNext();
+            }
+        } catch (InterruptedException ex) {
+            // Stopped
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "produceFrames() failed: {0}", ex.toString());
+            Exceptions.printStackTrace(ex);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.globe.analytics;
+
+import gov.nasa.worldwindx.examples.analytics.AnalyticSurface;
+import java.awt.Color;
+import java.rmi.RemoteException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import visad.FieldImpl;
+import visad.FlatField;
+import visad.VisADException;
+
+/**
+ * A GridAttributeCache holds the color gradient attributes of an AnalyticSurface for each time
+ * step of a temporal-spatial field.
+ * <p>
+ * The attributes of a time step are computed once, when first loaded, and packed into primitive
+ * arrays: the grid point values and an index into a palette of gradient colors. A Frame is a
+ * reusable view of a time step that is passed to AnalyticSurface.setValues, so animating through
+ * cached time steps doesn't allocate attributes. A cache may be loaded from one thread at a time.
+ *
+ * @author Bruce Schubert
+ */
+class GridAttributeCache {
+
+    /** The number of colors in the gradient palette. */
+    static final int PALETTE_SIZE = 256;
+
+    private final FieldImpl field;
+    private final int componentIndex;
+    private final int numRows;
+    private final int numCols;
+    private final double minValue;
+    private final double maxValue;
+    private final Color[] palette = new Color[PALETTE_SIZE];
+    /** The grid point values indexed by [time][surface order]. */
+    private final float[][] values;
+    /** The palette indices indexed by [time][surface order]. */
+    private final byte[][] colors;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param field The temporal-spatial field whose time samples are FlatFields over a
+     * LinearLatLonSet.
+     * @param componentIndex The index of the range component to display.
+     * @param numTimes The number of time steps.
+     * @param numRows The number of latitudes.
+     * @param numCols The number of longitudes.
+     * @param minValue The value of the first gradient color.
+     * @param maxValue The value of the last gradient color.
+     * @param minHue The hue of the first gradient color.
+     * @param maxHue The hue of the last gradient color.
+     */
+    GridAttributeCache(FieldImpl field, int componentIndex, int numTimes, int numRows, int numCols,
+                       double minValue, double maxValue, double minHue, double maxHue) {
+        this.field = field;
+        this.componentIndex = componentIndex;
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.values = new float[numTimes][];
+        this.colors = new byte[numTimes][];
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            double value = minValue + (maxValue - minValue) * i / (PALETTE_SIZE - 1);
+            this.palette[i] = AnalyticSurface.createColorGradientAttributes(
+                    value, minValue, maxValue, minHue, maxHue).getColor();
+        }
+    }
+
+    /**
+     * Points a frame at the attributes of a time step, computing them if they are not cached.
+     *
+     * @param timeIndex The time step.
+     * @param frame The frame to update.
+     * @throws VisADException
+     * @throws RemoteException
+     */
+    void load(int timeIndex, Frame frame) throws VisADException, RemoteException {
+        if (values[timeIndex] == null) {
+            FlatField spatialField = (FlatField) field.getSample(timeIndex);
+            put(timeIndex, spatialField.getValues(false)[componentIndex]);
+        }
+        frame.set(values[timeIndex], colors[timeIndex]);
+    }
+
+    /**
+     * Packs the samples of a time step into the cache.
+     *
+     * @param timeIndex The time step.
+     * @param samples The spatial samples in VisAD order: latitudes vary fastest.
+     */
+    void put(int timeIndex, double[] samples) {
+        float[] packedValues = new float[numRows * numCols];
+        byte[] packedColors = new byte[numRows * numCols];
+        // Grid points are assigned attributes starting at the upper left hand corner,
+        // and proceeding in row-first order across the grid.
+        int i = 0;
+        for (int row = numRows - 1; row >= 0; row--) {
+            for (int col = 0; col < numCols; col++) {
+                double value = samples[col * numRows + row];
+                packedValues[i] = (float) value;
+                packedColors[i++] = (byte) getColorIndex(value);
+            }
+        }
+        values[timeIndex] = packedValues;
+        colors[timeIndex] = packedColors;
+    }
+
+    /**
+     * Gets the palette index of a value. Missing values get the first, transparent color.
+     *
+     * @param value The grid point value.
+     * @return The palette index.
+     */
+    int getColorIndex(double value) {
+        double factor = (value - minValue) / (maxValue - minValue);
+        if (!(factor > 0)) {
+            return 0;
+        }
+        return factor >= 1 ? PALETTE_SIZE - 1 : (int) (factor * (PALETTE_SIZE - 1) + 0.5);
+    }
+
+    /**
+     * Gets a gradient color.
+     *
+     * @param index The palette index.
+     * @return The color.
+     */
+    Color getColor(int index) {
+        return palette[index];
+    }
+
+    /**
+     * A view of the cached attributes of a time step. The iterator returns a single, reused
+     * GridPointAttributes instance, so the attributes must be read as they are iterated, as
+     * AnalyticSurface does.
+     */
+    class Frame implements Iterable<AnalyticSurface.GridPointAttributes> {
+
+        private float[] frameValues;
+        private byte[] frameColors;
+
+        private void set(float[] values, byte[] colors) {
+            this.frameValues = values;
+            this.frameColors = colors;
+        }
+
+        @Override
+        public Iterator<AnalyticSurface.GridPointAttributes> iterator() {
+            final float[] iterValues = frameValues;
+            final byte[] iterColors = frameColors;
+            final int length = iterValues == null ? 0 : iterValues.length;
+            return new Iterator<AnalyticSurface.GridPointAttributes>() {
+                private int index = -1;
+                private final AnalyticSurface.GridPointAttributes attributes = new AnalyticSurface.GridPointAttributes() {
+                    @Override
+                    public double getValue() {
+                        return iterValues[index];
+                    }
+
+                    @Override
+                    public Color getColor() {
+                        return palette[iterColors[index] & 0xFF];
+                    }
+                };
+
+                @Override
+                public boolean hasNext() {
+                    return index + 1 < length;
+                }
+
+                @Override
+                public AnalyticSurface.GridPointAttributes next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    index++;
+                    return attributes;
+                }
+            };
+        }
+    }
+}
@@ -40,40 +40,28 @@ import com.emxsys.time.api.TimeListener;
 import com.emxsys.time.api.TimeProvider;
 import com.emxsys.time.spi.TimeProviderFactory;
 import gov.nasa.worldwind.avlist.AVKey;
-import gov.nasa.worldwind.geom.Angle;
-import gov.nasa.worldwind.geom.LatLon;
-import gov.nasa.worldwind.geom.Position;
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.layers.RenderableLayer;
 import gov.nasa.worldwind.render.SurfaceImage;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
-import java.awt.image.RescaleOp;
+import java.awt.image.DataBufferInt;
 import java.rmi.RemoteException;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.swing.Timer;
 import org.openide.util.Exceptions;
 import org.openide.util.NbPreferences;
-import org.openide.util.RequestProcessor;
 import org.openide.util.WeakListeners;
-import visad.Data;
 import visad.DataImpl;
 import visad.FieldImpl;
 import visad.FlatField;
 import visad.FunctionType;
+import visad.Linear1DSet;
+import visad.Linear2DSet;
 import visad.LinearLatLonSet;
 import visad.MathType;
-import visad.Real;
-import visad.RealTuple;
 import visad.RealTupleType;
 import visad.RealType;
 import visad.Set;
@@ -83,19 +71,26 @@ import visad.VisADException;
  * Particle Analytics draws moving particles on the surface of the globe with comet-like trail. This
  * class was inspired the Wind Map by Fernanda Viégas and Martin Wattenberg at
  * http://hint.fm/projects/wind/
+ * <p>
+ * The particles are simulated by a ParticleEngine that draws directly into the image's pixels.
+ * The field values of each time step are extracted once into grids for the engine's lookups.
+ * The frames are produced in the background into a ring of images by a FramePipeline; the EDT
+ * only swaps the finished images into the SurfaceImage.
  *
  * @author Bruce Schubert
  */
 public class ParticleAnalytics {
 
     public static final String PREF_PARTICLE_ANALYTICS_NUM_PARTICLES = "particle_analytics_num_particles";
-    public static final int DEFAULT_NUM_PARTICLES = 2000;
+    public static final int DEFAULT_NUM_PARTICLES = 50000;
     private final String layerName;
     private final TimeProvider controller = TimeProviderFactory.getInstance();
     private SurfaceImage surface;
     private BufferedImage image;
     private Sector sector;
-    private ArrayList<Particle> particles;
+    private int numParticles;
+    private FramePipeline<BufferedImage> pipeline;
+    private ParticleEngine.Grid[] grids;
     private FunctionType temporalFunction;
     private FunctionType spatialFunction;
     private FieldImpl field;
@@ -107,18 +102,10 @@ public class ParticleAnalytics {
     // Annimation controllers
     private ZonedDateTime time;
     private ZonedDateTime oldTime;
-    private Timer timer;
-    private int timeIndex = -1;
+    private volatile int timeIndex = -1;
     private int oldTimeIndex = 0;
     private int startTimeIndex;
     private int endTimeIndex;
-    // Origin and bounds
-    double upperLat;
-    double leftLon;
-    double deltaLatDegrees;
-    double deltaLonDegrees;
-    int height;
-    int width;
     private final TimeListener timerListener = new TimeListener() {
 
         @Override
@@ -140,7 +127,6 @@ public class ParticleAnalytics {
 //            }
 //        }
 //    };
-    private static final RequestProcessor THREAD_POOL = new RequestProcessor(ParticleAnalytics.class.getName(), 1);
     private static final Logger logger = Logger.getLogger(ParticleAnalytics.class.getName());
     private GisLayerProxy gisLayerAdaptor;
 
@@ -255,19 +241,11 @@ public class ParticleAnalytics {
             this.sector = Sector.fromDegrees(minLat, maxLat, minLon, maxLon);
             this.surface = new SurfaceImage(this.image, this.sector);
             this.analyticSurfaceLayer.addRenderable(this.surface);
-
-            // SurfaceImage origin and bounds
-            this.upperLat = sector.getMaxLatitude().degrees;
-            this.leftLon = sector.getMinLongitude().degrees;
-            this.deltaLatDegrees = sector.getDeltaLatDegrees();
-            this.deltaLonDegrees = sector.getDeltaLonDegrees();
-            this.height = image.getHeight();
-            this.width = image.getWidth();
+            this.grids = new ParticleEngine.Grid[numTimeValues];
 
             // TODO: Make number of particles relative to pixel dimensions of sector
-            int numParticles = NbPreferences.forModule(this.getClass()).getInt(
+            this.numParticles = NbPreferences.forModule(this.getClass()).getInt(
                     PREF_PARTICLE_ANALYTICS_NUM_PARTICLES, DEFAULT_NUM_PARTICLES);
-            makeParticles(numParticles);
 
         } catch (VisADException | RemoteException ex) {
             String msg = String.format("initialize() failed! %1s", ex);
@@ -281,36 +259,34 @@ public class ParticleAnalytics {
         return layerName;
     }
 
+    private static int[] getPixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
     /**
-     * Creates the particle collection
+     * Gets the field values of a time step as a grid for the particle engine. The grids are
+     * extracted once, on the producer thread, and reused.
      *
-     * @param count
+     * @param index The time index.
+     * @return The grid of direction, velocity and magnitude values.
      */
-    private void makeParticles(int count) {
-        this.particles = new ArrayList<>(count);
-        for (int i = 0; i < count; i++) {
-            this.particles.add(new Particle());
-        }
-    }
-
-    private void resetParticles() {
-        for (Particle p : particles) {
-            p.firstTime = true;
-            p.initialize();
-            p.firstTime = false;
+    private ParticleEngine.Grid getGrid(int index) throws VisADException, RemoteException {
+        if (this.grids[index] == null) {
+            FlatField spatialField = (FlatField) field.getSample(index);
+            Linear2DSet spatialSet = (Linear2DSet) spatialField.getDomainSet();
+            Linear1DSet lats = spatialSet.getX();
+            Linear1DSet lons = spatialSet.getY();
+            float[][] values = spatialField.getFloats(false);
+            this.grids[index] = new ParticleEngine.Grid(
+                    lats.getFirst(), lats.getStep(), lats.getLength(),
+                    lons.getFirst(), lons.getStep(), lons.getLength(),
+                    values[directionIndex], values[velocityIndex], values[magnitudeIndex]);
         }
-    }
-
-    private void clearImage() {
-        Graphics2D g2 = this.image.createGraphics();
-        g2.setBackground(new Color(0f, 0f, 0f, 0f));
-        g2.clearRect(0, 0, width, height);
-        g2.dispose();
-
+        return this.grids[index];
     }
 
     /**
-     * Initiates the particle animation.
+     * Initiates the particle animation. Must be called on the EDT.
      *
      * @param intervalMs
      */
@@ -320,38 +296,43 @@ public class ParticleAnalytics {
         //this.controller.run();
 
         // Start the animation for a given time slice
-        if (this.timer != null) {
-            this.timer.stop();
+        if (this.pipeline != null) {
+            this.pipeline.stop();
+        }
+        // Each animation has its own engine and buffers: a stopped producer may still be finishing a frame
+        final ParticleEngine engine = new ParticleEngine(numParticles,
+                sector.getMinLatitude().degrees, sector.getMaxLatitude().degrees,
+                sector.getMinLongitude().degrees, sector.getMaxLongitude().degrees,
+                image.getWidth(), image.getHeight());
+        ArrayList<BufferedImage> buffers = new ArrayList<>(FramePipeline.MIN_BUFFERS);
+        for (int i = 0; i < FramePipeline.MIN_BUFFERS; i++) {
+            buffers.add(new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB));
         }
-        this.timer = new Timer(intervalMs, new ActionListener() {
-            private int counter = 0;
-            private int lastTimeIndex = 0;
-            private FlatField spatialField;
-
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if (timeIndex != lastTimeIndex || spatialField == null) {
-                        spatialField = (FlatField) field.getSample(timeIndex);
-                        if (timeIndex < lastTimeIndex) {
-                            clearImage();
-                            resetParticles();
+        this.pipeline = new FramePipeline<>(buffers,
+                new FramePipeline.Producer<BufferedImage>() {
+                    private int lastTimeIndex = 0;
+                    private ParticleEngine.Grid grid;
+
+                    @Override
+                    public void produce(BufferedImage previous, BufferedImage next, int numSteps)
+                            throws VisADException, RemoteException {
+                        int index = Math.max(0, timeIndex);
+                        if (index != lastTimeIndex || grid == null) {
+                            grid = getGrid(index);
+                            if (index < lastTimeIndex) {
+                                engine.reset();
+                                previous = null;
+                            }
+                            lastTimeIndex = index;
                         }
-                        lastTimeIndex = timeIndex;
+                        engine.step(grid, previous == null ? null : getPixels(previous), getPixels(next), numSteps);
                     }
-
-                    moveParticles(spatialField, directionIndex, velocityIndex, magnitudeIndex, particles);
-                    image = drawImage(particles, sector, image);
-                    surface.setImageSource(image, sector);
-
+                },
+                (BufferedImage frame) -> {
+                    surface.setImageSource(frame, sector);
                     analyticSurfaceLayer.firePropertyChange(AVKey.LAYER, null, analyticSurfaceLayer);
-
-                } catch (VisADException | RemoteException ex) {
-                    Exceptions.printStackTrace(ex);
-                }
-            }
-        });
-        timer.start();
+                });
+        this.pipeline.start(intervalMs);
 
         // Add the renderable layer to the viewer's layers (and indirectly to the layer manager) 
         Globe.getInstance().addGisLayer(gisLayerAdaptor);
@@ -372,237 +353,13 @@ public class ParticleAnalytics {
      *
      */
     public void cancel() {
-        timer.stop();
+        if (pipeline != null) {
+            pipeline.stop();
+        }
         this.gisLayerAdaptor.setEnabled(false);
         // FIXME
         //ViewerUtil.getViewerFromLookup().removeParticleAnalytics(this);
         Globe.getInstance().removeGisLayer(gisLayerAdaptor);
 
     }
-
-    /**
-     * Move and age the particles based on their position within the spatial field.
-     *
-     * @param spatialField defines inputs for individual particle movement
-     * @param directionIndex tuple index of direction component
-     * @param velocityIndex tuple index of speed component
-     * @param magnitudeIndex tuple index of size component
-     * @param particles to be moved
-     */
-    static void moveParticles(FlatField spatialField, int directionIndex,
-                              int velocityIndex, int magnitudeIndex, List<Particle> particles) {
-        for (Particle p : particles) {
-            try {
-                // TODO: Fire Behavior -- extinquish this particle if the fuel is unburnable
-
-                // Nearest Neighbor should be faster than weighted average.
-                // Also, the weighted average method causes some strange reversals of particle streamms.
-                RealTuple tuple = (RealTuple) spatialField.evaluate(p.getLatLonTuple(), Data.NEAREST_NEIGHBOR, Data.NO_ERRORS);
-                Real dir = (Real) tuple.getComponent(directionIndex);
-                Real vel = (Real) tuple.getComponent(velocityIndex);
-                Real mag = (Real) tuple.getComponent(magnitudeIndex);
-                p.move(dir, vel, mag);
-            } catch (VisADException | RemoteException ex) {
-                logger.log(Level.SEVERE, "moveParticles() failed: {0}", ex.toString());
-                throw new IllegalStateException(ex);
-            }
-        }
-    }
-
-    /**
-     * Draws the image in a two step process: first, the image is darkened which fades the trails of
-     * the previously rendered particles; then the individual particles are rendered.
-     *
-     * @param particles
-     * @param sector defines lat/lon
-     * @param image
-     */
-    static BufferedImage drawImage(final List<Particle> particles, final Sector sector,
-                                   final BufferedImage image) {
-        // Fade the existing trails of the particles
-
-        BufferedImage newImage = fadeImage(image);
-
-        // Draw the particles
-        Graphics2D g2 = newImage.createGraphics();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR); // or VALUE_INTERPOLATION_BILINEAR
-        for (Particle p : particles) {
-            p.draw(g2);
-        }
-        g2.dispose();
-
-        return newImage;
-    }
-
-    static BufferedImage fadeImage(final BufferedImage image) {
-        // TODO: make darken percentage relative to delay time
-        // Create a new image that is darken by a %
-        //  offsets adjust brightness
-        //  scaleFactors adjust contrast
-        float[] scales
-                = {
-                    0.98f, 0.98f, 0.98f, 0.98f
-                };
-        float[] offsets = new float[4];
-        RescaleOp op = new RescaleOp(scales, offsets, null); // scale factor, offsets, hints
-        BufferedImage newImage = op.filter(image, null);
-        return newImage;
-    }
-
-    /**
-     * Particle class maintains the position, age, and renderable properties of a particle
-     *
-     * @author Bruce Schubert
-     */
-    class Particle {
-
-        public static final double SCALE = 0.0007;
-        public static final int MAX_AGE = 35;
-        private double lat;
-        private double lon;
-        private int x;
-        private int y;
-        private int age;
-        private double dir;
-        private double spd;
-        private double mag;
-        private boolean firstTime = true;
-
-        Particle() {
-            initialize();
-            this.firstTime = false;
-        }
-
-        /**
-         * Assigns a random position and age to the particle.
-         */
-        final void initialize() {
-
-            // Randomly place this particle within the sector bounds
-            double dx = Math.random();
-            double dy = Math.random();
-
-            this.lat = upperLat - (deltaLatDegrees * dy);
-            this.lon = leftLon + (deltaLonDegrees * dx);
-
-            this.x = (int) Math.floor(width * dx);
-            this.y = (int) Math.floor(height * dy);
-
-            // TODO: create configuration option for random age vs fixed age...which is better?
-            // Random Age Theory: more frequent runs should create a higher density of fading trails
-            this.age = (int) (1 + Math.random() * MAX_AGE);  // Random age between 1 and MAX_AGE 
-
-            // TODO: Fix Age particles aren't working correctly: it pulses.  
-            // Hunch: I suspect the first path through move() is reseting all the particles
-            // Fixed Age Theory: longer runs should create a higher density of fading trails             
-            //  Randomizing the age the first time to vary the renew interval
-            //this.age = this.firstTime ? (int) (1 + Math.random() * MAX_AGE) : MAX_AGE;  
-        }
-
-        /**
-         * @return the current lat/lon
-         */
-        RealTuple getLatLonTuple() {
-            // return GeoCoord2D.fromDegrees(this.lat, this.lon);
-            try {
-                // Create a tuple compatible with the spatial field's domain coordinate system.
-                return new RealTuple(RealTupleType.LatitudeLongitudeTuple,
-                        new double[]{
-                            this.lat, this.lon
-                        });
-            } catch (VisADException | RemoteException ex) {
-                throw new RuntimeException(ex);
-            }
-        }
-
-        /**
-         * Moves the particle to a new position based on the direction, speed and magnitude.
-         *
-         * @param direction to move
-         * @param speed velocity
-         * @param size magnitude
-         */
-        void move(Real direction, Real speed, Real size) {
-            // Missing values can result from moving the particle outside of the sector
-            if (direction.isMissing() || speed.isMissing() || size.isMissing()) {
-                initialize();
-            }
-            if (this.age-- > 0) {
-                // TODO: make scale relative to delay time
-
-                // Compute the new lat lon coordinates of particle
-                Angle distToMove = Angle.fromDegrees(speed.getValue() * SCALE);
-                LatLon newPos = Position.linearEndPosition(LatLon.fromDegrees(lat, lon),
-                        Angle.fromDegrees(direction.getValue()), distToMove);
-
-                this.lat = newPos.latitude.degrees;
-                this.lon = newPos.longitude.degrees;
-                this.dir = direction.getValue();    // direction of travel
-                this.spd = speed.getValue();     // meters per sec
-                this.mag = size.getValue();    // meters
-
-                // Extiquish this particle after drawing if it goes outside the sector
-                if (!sector.contains(newPos)) {
-                    // Set to zero to allow this cycle draw up to the sector border.
-                    this.age = 0;
-                }
-            }
-            // Allow the particle to remain idle (invisible) for awhile before renewing
-            if (this.age < -2) {
-                initialize();
-            }
-        }
-
-        /**
-         * Draws this particle via a line segment from previous position to new position with a
-         * color based on the magnitude.
-         *
-         * @param g
-         */
-        void draw(Graphics2D g) {
-            // Don't draw if expired
-            if (this.age < 0) {
-                return;
-            }
-
-            // Dtermine the new end point
-            double dx = Math.abs(leftLon - this.lon) / deltaLonDegrees;
-            double dy = (upperLat - this.lat) / deltaLatDegrees;
-            int x2 = (int) Math.floor(width * dx);
-            int y2 = (int) Math.floor(height * dy);
-
-            // TODO: pass in a lookup table for colors
-            // Compute the color
-            Color c;
-            if (this.mag > 4.5) // 15 ft
-            {
-                c = Color.red;// EXTREME
-            } else if (this.mag > 2.1) // 7ft
-            {
-                c = Color.magenta;// VERY ACTIVE
-            } else if (this.mag > 0.9) // 3ft
-            {
-                c = Color.orange;// ACTIVE
-            } else if (this.mag > 0.3) // 1ft
-            {
-                c = Color.green;// MODERAGE
-            } else {
-                c = Color.blue;// LOW
-            }
-
-            // TODO: Vary the the color and/or the alpha component based on velocity
-            //  Reducing the alpha component if speed less than 1 m/s (~2.25 mph)
-            float[] rgba = c.getRGBComponents(null);
-            rgba[3] = (float) Math.min(1.0, Math.max(0.6, this.spd));
-
-            // Draw the particle trail
-            g.setColor(new Color(rgba[0], rgba[1], rgba[2], rgba[3]));
-            g.drawLine(this.x, this.y, x2, y2);
-
-            // The end point becomes the start point for the next iteration
-            this.x = x2;
-            this.y = y2;
-        }
-    };
 }
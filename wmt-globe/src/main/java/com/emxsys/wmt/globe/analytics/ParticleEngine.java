@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.globe.analytics;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The ParticleEngine moves particles through a gridded vector field and draws their fading trails
+ * into ARGB pixel buffers.
+ * <p>
+ * The particle state is kept in primitive arrays, the field values are looked up by index in the
+ * Grid arrays, the trails are faded from the previous frame's buffer into the next (or in place),
+ * and the particle colors come from a lookup table, so a frame doesn't allocate. The particles
+ * and pixel rows are processed in parallel tiles. Particles may overwrite each other's pixels
+ * where their trails cross.
+ *
+ * @author Bruce Schubert
+ */
+class ParticleEngine {
+
+    /** Degrees moved per unit of speed per frame. */
+    static final double SCALE = 0.0007;
+    static final int MAX_AGE = 35;
+    /** The number of frames an expired particle remains idle before it is renewed. */
+    static final int IDLE_AGE = -2;
+    /** The trail fade per step, about 0.98. */
+    static final double FADE = 0.98;
+    /** The maximum number of steps in a frame. */
+    static final int MAX_STEPS = 8;
+    /** The trail fade for 0..MAX_STEPS steps, as a fraction of 256. */
+    private static final int[] FADES = new int[MAX_STEPS + 1];
+    /** Number of particles or pixels processed per parallel task. */
+    private static final int TILE_SIZE = 4096;
+    /** The magnitude thresholds of the colors [m]: 1 ft, 3 ft, 7 ft and 15 ft. */
+    private static final double[] MAGNITUDES = {0.3, 0.9, 2.1, 4.5};
+    private static final Color[] COLORS = {Color.blue, Color.green, Color.orange, Color.magenta, Color.red};
+    /** The number of alpha levels per color, from 0.6 to 1.0. */
+    private static final int NUM_ALPHAS = 5;
+    /** The ARGB colors indexed by [magnitude class * NUM_ALPHAS + alpha level]. */
+    private static final int[] COLOR_LUT = new int[COLORS.length * NUM_ALPHAS];
+
+    static {
+        for (int i = 0; i <= MAX_STEPS; i++) {
+            FADES[i] = (int) Math.floor(256 * Math.pow(FADE, i));
+        }
+        for (int i = 0; i < COLORS.length; i++) {
+            for (int j = 0; j < NUM_ALPHAS; j++) {
+                int alpha = (int) Math.round(255 * (0.6 + 0.4 * j / (NUM_ALPHAS - 1)));
+                COLOR_LUT[i * NUM_ALPHAS + j] = (alpha << 24) | (COLORS[i].getRGB() & 0xFFFFFF);
+            }
+        }
+    }
+
+    /**
+     * A nearest neighbor lookup into a regular lat/lon grid of direction, speed and magnitude
+     * values. The values are indexed by [latIndex + numLats * lonIndex]; NaN values are missing.
+     */
+    static class Grid {
+
+        final double firstLat;
+        final double stepLat;
+        final int numLats;
+        final double firstLon;
+        final double stepLon;
+        final int numLons;
+        final float[] directions;
+        final float[] speeds;
+        final float[] magnitudes;
+
+        Grid(double firstLat, double stepLat, int numLats, double firstLon, double stepLon, int numLons,
+             float[] directions, float[] speeds, float[] magnitudes) {
+            this.firstLat = firstLat;
+            this.stepLat = stepLat;
+            this.numLats = numLats;
+            this.firstLon = firstLon;
+            this.stepLon = stepLon;
+            this.numLons = numLons;
+            this.directions = directions;
+            this.speeds = speeds;
+            this.magnitudes = magnitudes;
+        }
+
+        /**
+         * Gets the index of the grid point nearest to a location.
+         *
+         * @return The index, or -1 if the location is outside the grid.
+         */
+        int indexOf(double lat, double lon) {
+            int latIndex = (int) Math.round(stepLat == 0 ? 0 : (lat - firstLat) / stepLat);
+            int lonIndex = (int) Math.round(stepLon == 0 ? 0 : (lon - firstLon) / stepLon);
+            if (latIndex < 0 || latIndex >= numLats || lonIndex < 0 || lonIndex >= numLons) {
+                return -1;
+            }
+            return latIndex + numLats * lonIndex;
+        }
+    }
+
+    // Sector bounds
+    private final double upperLat;
+    private final double leftLon;
+    private final double deltaLat;
+    private final double deltaLon;
+    // Raster
+    private final int width;
+    private final int height;
+    // Particle state
+    private final int numParticles;
+    private final double[] lats;
+    private final double[] lons;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] ages;
+    /** The index into the COLOR_LUT; -1 if the particle hasn't moved. */
+    private final int[] colors;
+
+    /**
+     * Creates the particles at random positions within a sector.
+     *
+     * @param numParticles The number of particles.
+     * @param minLat The southern edge of the sector [deg].
+     * @param maxLat The northern edge of the sector [deg].
+     * @param minLon The western edge of the sector [deg].
+     * @param maxLon The eastern edge of the sector [deg].
+     * @param width The width of the rasters covering the sector [pixels].
+     * @param height The height of the rasters, whose first row is at maxLat [pixels].
+     */
+    ParticleEngine(int numParticles, double minLat, double maxLat, double minLon, double maxLon,
+                   int width, int height) {
+        this.upperLat = maxLat;
+        this.leftLon = minLon;
+        this.deltaLat = maxLat - minLat;
+        this.deltaLon = maxLon - minLon;
+        this.width = width;
+        this.height = height;
+        this.numParticles = numParticles;
+        this.lats = new double[numParticles];
+        this.lons = new double[numParticles];
+        this.xs = new int[numParticles];
+        this.ys = new int[numParticles];
+        this.ages = new int[numParticles];
+        this.colors = new int[numParticles];
+        reset();
+    }
+
+    int getNumParticles() {
+        return numParticles;
+    }
+
+    /**
+     * Assigns random positions and ages to all the particles.
+     */
+    final void reset() {
+        for (int i = 0; i < numParticles; i++) {
+            initialize(i);
+        }
+    }
+
+    /**
+     * Erases a raster.
+     *
+     * @param pixels The ARGB raster.
+     */
+    void clear(int[] pixels) {
+        Arrays.fill(pixels, 0, width * height, 0);
+    }
+
+    /**
+     * Produces the next frame of the animation: moves the particles through the field, fades the
+     * existing trails, and draws the particles' new trail segments.
+     *
+     * @param grid The field values for the current time.
+     * @param previous The previous frame's raster; null to start from a clear raster. May be the
+     * same as next.
+     * @param next The raster to draw.
+     * @param numSteps The number of simulation steps in the frame, from 1 to MAX_STEPS. The
+     * particles move and the trails fade as far as in that many single step frames.
+     */
+    void step(Grid grid, int[] previous, int[] next, int numSteps) {
+        numSteps = Math.max(1, Math.min(numSteps, MAX_STEPS));
+        checkSize(next);
+        for (int i = 0; i < numSteps; i++) {
+            move(grid);
+        }
+        if (previous == null) {
+            clear(next);
+        }
+        else {
+            checkSize(previous);
+            fade(previous, next, numSteps);
+        }
+        draw(next);
+    }
+
+    private void checkSize(int[] pixels) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("pixels is smaller than width * height");
+        }
+    }
+
+    /**
+     * Moves and ages the particles based on their position within the field.
+     *
+     * @param grid The field values.
+     */
+    void move(Grid grid) {
+        forEachTile(numParticles, TILE_SIZE, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                move(i, grid);
+            }
+        });
+    }
+
+    /**
+     * Darkens a raster, which fades the trails of the previously drawn particles.
+     *
+     * @param src The raster to fade.
+     * @param dst The faded raster; may be the same as src.
+     * @param numSteps The number of steps to fade.
+     */
+    void fade(int[] src, int[] dst, int numSteps) {
+        int fade = FADES[Math.max(0, Math.min(numSteps, MAX_STEPS))];
+        forEachTile(height, Math.max(1, TILE_SIZE / Math.max(1, width)), (fromRow, toRow) -> {
+            int end = toRow * width;
+            for (int p = fromRow * width; p < end; p++) {
+                int argb = src[p];
+                if (argb != 0) {
+                    argb = ((((argb >>> 24) * fade) >> 8) << 24)
+                            | (((((argb >> 16) & 0xFF) * fade) >> 8) << 16)
+                            | (((((argb >> 8) & 0xFF) * fade) >> 8) << 8)
+                            | (((argb & 0xFF) * fade) >> 8);
+                }
+                dst[p] = argb;
+            }
+        });
+    }
+
+    /**
+     * Draws a line segment from each particle's previous position to its new position.
+     *
+     * @param pixels The ARGB raster.
+     */
+    void draw(int[] pixels) {
+        forEachTile(numParticles, TILE_SIZE, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                draw(i, pixels);
+            }
+        });
+    }
+
+    private void initialize(int i) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double dx = random.nextDouble();
+        double dy = random.nextDouble();
+        lats[i] = upperLat - (deltaLat * dy);
+        lons[i] = leftLon + (deltaLon * dx);
+        xs[i] = (int) Math.floor(width * dx);
+        ys[i] = (int) Math.floor(height * dy);
+        // Random ages vary the renewal of the particles
+        ages[i] = 1 + random.nextInt(MAX_AGE);
+        colors[i] = -1;
+    }
+
+    private void move(int i, Grid grid) {
+        int index = grid.indexOf(lats[i], lons[i]);
+        float dir = index < 0 ? Float.NaN : grid.directions[index];
+        float spd = index < 0 ? Float.NaN : grid.speeds[index];
+        float mag = index < 0 ? Float.NaN : grid.magnitudes[index];
+        // Missing values can result from moving the particle outside of the grid
+        if (Float.isNaN(dir) || Float.isNaN(spd) || Float.isNaN(mag)) {
+            initialize(i);
+            return;
+        }
+        if (ages[i]-- > 0) {
+            // Linear end position: the distance is applied along the azimuth in degrees
+            double distance = spd * SCALE;
+            double azimuth = Math.toRadians(dir);
+            double lat = lats[i] + distance * Math.cos(azimuth);
+            double lon = lons[i] + distance * Math.sin(azimuth);
+            lats[i] = lat;
+            lons[i] = lon;
+            colors[i] = getColorIndex(mag, spd);
+            // Extinguish this particle after drawing if it goes outside the sector
+            if (lat > upperLat || lat < upperLat - deltaLat || lon < leftLon || lon > leftLon + deltaLon) {
+                ages[i] = 0;
+            }
+        }
+        // Allow the particle to remain idle (invisible) for awhile before renewing
+        if (ages[i] < IDLE_AGE) {
+            initialize(i);
+        }
+    }
+
+    private void draw(int i, int[] pixels) {
+        // Don't draw if expired
+        if (ages[i] < 0) {
+            return;
+        }
+        int x2 = (int) Math.floor(width * (lons[i] - leftLon) / deltaLon);
+        int y2 = (int) Math.floor(height * (upperLat - lats[i]) / deltaLat);
+        if (colors[i] >= 0) {
+            drawLine(pixels, xs[i], ys[i], x2, y2, COLOR_LUT[colors[i]]);
+        }
+        // The end point becomes the start point for the next iteration
+        xs[i] = x2;
+        ys[i] = y2;
+    }
+
+    /**
+     * Draws a Bresenham line, clipped to the raster.
+     */
+    private void drawLine(int[] pixels, int x0, int y0, int x1, int y1, int argb) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+        while (true) {
+            if (x0 >= 0 && x0 < width && y0 >= 0 && y0 < height) {
+                pixels[y0 * width + x0] = argb;
+            }
+            if (x0 == x1 && y0 == y1) {
+                break;
+            }
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x0 += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y0 += sy;
+            }
+        }
+    }
+
+    /**
+     * Gets the COLOR_LUT index for a magnitude and a speed. The color is based on the magnitude;
+     * the alpha is reduced for speeds less than 1 m/s (about 2.25 mph), down to 0.6.
+     */
+    static int getColorIndex(double magnitude, double speed) {
+        int colorClass = 0;
+        while (colorClass < MAGNITUDES.length && magnitude > MAGNITUDES[colorClass]) {
+            colorClass++;
+        }
+        double alpha = Math.min(1.0, Math.max(0.6, speed));
+        int alphaLevel = (int) Math.round((alpha - 0.6) / 0.4 * (NUM_ALPHAS - 1));
+        return colorClass * NUM_ALPHAS + alphaLevel;
+    }
+
+    static int getColor(int colorIndex) {
+        return COLOR_LUT[colorIndex];
+    }
+
+    private interface TileAction {
+
+        void run(int from, int to);
+    }
+
+    private static void forEachTile(int count, int tileSize, TileAction action) {
+        int numTiles = (count + tileSize - 1) / tileSize;
+        IntStream tiles = IntStream.range(0, numTiles);
+        (numTiles > 1 ? tiles.parallel() : tiles).forEach(tile -> {
+            int from = tile * tileSize;
+            action.run(from, Math.min(from + tileSize, count));
+        });
+    }
+}
@@ -39,13 +39,10 @@ import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.layers.RenderableLayer;
 import gov.nasa.worldwindx.examples.analytics.AnalyticSurface;
 import gov.nasa.worldwindx.examples.analytics.AnalyticSurfaceAttributes;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.swing.Timer;
 import org.openide.util.Exceptions;
 import visad.DataImpl;
 import visad.FieldImpl;
@@ -60,6 +57,9 @@ import visad.VisADException;
 
 
 /**
+ * Animates a temporal-spatial field on an AnalyticSurface. The grid attributes of each time step
+ * are computed once, in the background by a FramePipeline, and kept in a GridAttributeCache; the
+ * EDT only swaps the cached attributes into the surface.
  *
  * @author Bruce Schubert
  * @version $Id$
@@ -77,6 +77,8 @@ public class TemporalSpatialAnalytics
     protected static final double HUE_BLUE = 240d / 360d;
     protected static final double HUE_RED = 0d / 360d;
     protected RenderableLayer analyticSurfaceLayer;
+    private GridAttributeCache cache;
+    private FramePipeline<GridAttributeCache.Frame> pipeline;
     private static final Logger logger = Logger.getLogger(TemporalSpatialAnalytics.class.getName());
 
 
@@ -183,6 +185,9 @@ public class TemporalSpatialAnalytics
             attr.setOutlineWidth(3);
             this.surface.setSurfaceAttributes(attr);
 
+            this.cache = new GridAttributeCache(this.field, this.componentIndex, this.numTimeValues,
+                rows, cols, 0, 5, HUE_BLUE, HUE_RED);
+
         }
         catch (VisADException | RemoteException ex)
         {
@@ -195,41 +200,57 @@ public class TemporalSpatialAnalytics
 
 
     /**
+     * Initiates the animation of the time steps. Must be called on the EDT.
      *
      * @param intervalMs
      */
     public final void animate(final int intervalMs)
     {
-        Timer timer = new Timer(intervalMs, new ActionListener()
+        if (this.pipeline != null)
+        {
+            this.pipeline.stop();
+        }
+        ArrayList<GridAttributeCache.Frame> buffers = new ArrayList<>(FramePipeline.MIN_BUFFERS);
+        for (int i = 0; i < FramePipeline.MIN_BUFFERS; i++)
         {
-            protected int timeIndex = 0;
+            buffers.add(this.cache.new Frame());
+        }
+        this.pipeline = new FramePipeline<>(buffers,
+            new FramePipeline.Producer<GridAttributeCache.Frame>()
+            {
+                private int timeIndex = -1;
 
 
-            @Override
-            public void actionPerformed(ActionEvent e)
-            {
-                try
+                @Override
+                public void produce(GridAttributeCache.Frame previous, GridAttributeCache.Frame next, int numSteps)
+                    throws VisADException, RemoteException
                 {
-                    if (timeIndex == numTimeValues)
-                    {
-                        timeIndex = 0;
-                    }
-                    FlatField spatialField = (FlatField) field.getSample(timeIndex++);
-                    
-                    surface.setValues(createColorGradientGridValues(spatialField, componentIndex, 0, 5, HUE_BLUE, HUE_RED));
-
-                    if (surface.getClientLayer() != null)
-                    {
-                        surface.getClientLayer().firePropertyChange(AVKey.LAYER, null, surface.getClientLayer());
-                    }
+                    // Skip the time steps of the missed intervals
+                    timeIndex = (timeIndex + numSteps) % numTimeValues;
+                    cache.load(timeIndex, next);
                 }
-                catch (VisADException | RemoteException ex)
+            },
+            (GridAttributeCache.Frame frame) ->
+            {
+                surface.setValues(frame);
+                if (surface.getClientLayer() != null)
                 {
-                    Exceptions.printStackTrace(ex);
+                    surface.getClientLayer().firePropertyChange(AVKey.LAYER, null, surface.getClientLayer());
                 }
-            }
-        });
-        timer.start();
+            });
+        this.pipeline.start(intervalMs);
+    }
+
+
+    /**
+     * Stops the animation. Must be called on the EDT.
+     */
+    public void cancel()
+    {
+        if (this.pipeline != null)
+        {
+            this.pipeline.stop();
+        }
     }
 
 
@@ -31,38 +31,73 @@
 package com.emxsys.wmt.globe.render;
 
 import com.emxsys.gis.api.GeoPolygon;
-import com.emxsys.gis.api.Part;
+import com.emxsys.gis.api.MultiResolutionPart;
 import gov.nasa.worldwind.geom.LatLon;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.geom.Vec4;
+import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.render.SurfacePolygon;
 import java.util.ArrayList;
-import java.util.Iterator;
 
 /**
+ * A surface polygon for a GeoPolygon feature. The polygon is drawn at the level of detail that
+ * matches the view: vertices that deviate less than a pixel from the simplified outline are
+ * omitted. The levels are precomputed by the GeoPolygon.
  *
  * @author Bruce Schubert
  */
 public class GlobePolygon extends SurfacePolygon {
 
-    
+    private MultiResolutionPart ring;
+    private Sector extent;
+    private int level = -1;
+
     public GlobePolygon() {
     }
 
     public GlobePolygon(GeoPolygon polygon) {
-        super(convertToLatLons(polygon));
+        this.ring = polygon.getMultiResolutionPart();
+        this.setLevel(0);
+        this.extent = Sector.boundingSector(this.getLocations());
     }
-    
-    static Iterable<? extends LatLon> convertToLatLons(GeoPolygon polygon) {
-        Iterator<Part> parts = polygon.getParts().iterator();
-        if (parts.hasNext()) {
-            Part part = parts.next();
-            ArrayList<LatLon> latLons = new ArrayList<>(part.getNumPoints());
-            Iterable<double[]> points = part.getPoints();
-            for (double[] pt : points) {
-                latLons.add(LatLon.fromDegrees(pt[1], pt[0]));
-            }
-            return latLons;
-        } 
-        return new ArrayList<>();
+
+    @Override
+    public void preRender(DrawContext dc) {
+        if (this.ring != null && this.ring.getNumPoints() > 0) {
+            this.setLevel(computeLevel(dc, this.extent));
+        }
+        super.preRender(dc);
     }
-    
+
+    private void setLevel(int newLevel) {
+        if (newLevel != this.level) {
+            this.level = newLevel;
+            this.setLocations(convertToLatLons(this.ring, newLevel));
+        }
+    }
+
+    /**
+     * Computes the level of detail for the view of a sector.
+     *
+     * @param dc the current draw context
+     * @param sector the extents of the shape
+     * @return the level of detail
+     */
+    static int computeLevel(DrawContext dc, Sector sector) {
+        Vec4 center = dc.getGlobe().computePointFromLocation(sector.getCentroid());
+        Vec4 corner = dc.getGlobe().computePointFromLocation(new LatLon(sector.getMinLatitude(), sector.getMinLongitude()));
+        return MultiResolutionPart.getLevelForView(dc.getView().getEyePoint().distanceTo3(center),
+                center.distanceTo3(corner), dc.getView().getEyePosition().getElevation(),
+                dc.getView()::computePixelSizeAtDistance);
+    }
+
+    static Iterable<? extends LatLon> convertToLatLons(MultiResolutionPart ring, int level) {
+        int[] indices = ring.getIndices(level);
+        ArrayList<LatLon> latLons = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            latLons.add(LatLon.fromDegrees(ring.getY(index), ring.getX(index)));
+        }
+        return latLons;
+    }
+
 }
@@ -29,6 +29,7 @@
  */
 package com.emxsys.wmt.globe.terrain;
 
+import com.emxsys.gis.api.Box;
 import com.emxsys.gis.api.Coord2D;
 import com.emxsys.gis.api.Coord3D;
 import static com.emxsys.gis.api.GisType.DISTANCE;
@@ -44,11 +45,15 @@ import gov.nasa.worldwind.geom.Intersection;
 import gov.nasa.worldwind.geom.LatLon;
 import gov.nasa.worldwind.geom.Line;
 import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.geom.Vec4;
 import gov.nasa.worldwind.terrain.HighResolutionTerrain;
 import static java.lang.Math.PI;
 import static java.lang.Math.tan;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.util.Exceptions;
@@ -109,6 +114,54 @@ public class GlobeTerrainProvider implements ShadedTerrainProvider {
         return new Real(RealType.Altitude, bestElevation);
     }
 
+    /**
+     * Gets the elevations for a grid of locations with a single request to the globe's elevation
+     * model. If the elevation model's tiles are not yet available at the best resolution for the
+     * sector, then each elevation is obtained from the high resolution terrain, which waits for
+     * the tiles.
+     *
+     * @param sector the extents of the grid
+     * @param numRows the number of latitudes
+     * @param numCols the number of longitudes
+     * @return the elevations [meters], indexed by [row + col * numRows]
+     */
+    @Override
+    public double[] getElevations(Box sector, int numRows, int numCols) {
+        double[] elevations = new double[numRows * numCols];
+        gov.nasa.worldwind.globes.Globe g = getGlobe();
+        if (g == null) {
+            Arrays.fill(elevations, Double.NaN);
+            return elevations;
+        }
+        double south = sector.getSouthwest().getLatitudeDegrees();
+        double west = sector.getSouthwest().getLongitudeDegrees();
+        double north = sector.getNortheast().getLatitudeDegrees();
+        double east = sector.getNortheast().getLongitudeDegrees();
+        double dLat = numRows > 1 ? (north - south) / (numRows - 1) : 0;
+        double dLon = numCols > 1 ? (east - west) / (numCols - 1) : 0;
+
+        // Locations are ordered with the latitudes varying fastest, matching a VisAD Linear2DSet
+        List<LatLon> latLons = new ArrayList<>(elevations.length);
+        for (int col = 0; col < numCols; col++) {
+            for (int row = 0; row < numRows; row++) {
+                latLons.add(LatLon.fromDegrees(south + row * dLat, west + col * dLon));
+            }
+        }
+        Sector wwSector = Sector.fromDegrees(south, north, west, east);
+        double targetResolution = TARGET_RESOLUTION != null
+                ? TARGET_RESOLUTION / g.getRadius()
+                : g.getElevationModel().getBestResolution(wwSector);
+        double actualResolution = g.getElevations(wwSector, latLons, targetResolution, elevations);
+        if (actualResolution > targetResolution) {
+            logger.log(Level.FINE, "Elevation tiles not yet available at target resolution for {0}. "
+                    + "Using high resolution terrain.", wwSector);
+            for (int i = 0; i < elevations.length; i++) {
+                elevations[i] = getBestElevation(latLons.get(i));
+            }
+        }
+        return elevations;
+    }
+
     /**
      * Creates a VisAD based {@link BasicTerrain} from the WorldWind terrain model.
      * @param coord the coordinate where terrain should be determined
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.globe.analytics;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class FramePipelineTest {
+
+    private final List<int[]> buffers = new ArrayList<>();
+    private final List<int[]> produced = new ArrayList<>();
+    private final List<Integer> steps = new ArrayList<>();
+    private final List<int[]> displayed = new ArrayList<>();
+    private final FramePipeline<int[]> pipeline;
+
+    public FramePipelineTest() {
+        for (int i = 0; i < FramePipeline.MIN_BUFFERS; i++) {
+            buffers.add(new int[1]);
+        }
+        pipeline = new FramePipeline<>(buffers,
+                (previous, next, numSteps) -> {
+                    next[0] = (previous == null ? 0 : previous[0]) + numSteps;
+                    produced.add(next);
+                    steps.add(numSteps);
+                },
+                (frame) -> displayed.add(frame));
+    }
+
+    /**
+     * Displays the next frame on the EDT, as the pipeline's timer would.
+     */
+    private void displayNext(int count) throws Exception {
+        EventQueue.invokeAndWait(() -> {
+            for (int i = 0; i < count; i++) {
+                pipeline.displayNext();
+            }
+        });
+    }
+
+    @Test
+    public void testRecycling() throws Exception {
+        System.out.println("recycling");
+        pipeline.produceNext();
+        pipeline.produceNext();
+        displayNext(2);
+        assertEquals(Arrays.asList(buffers.get(0), buffers.get(1)), displayed);
+
+        // Only the displayed and retired frames are held back
+        pipeline.produceNext();
+        pipeline.produceNext();
+        assertEquals(4, produced.size());
+        displayNext(1);
+        assertSame(buffers.get(2), displayed.get(2));
+
+        // The first frame was retired two frames ago, so it is reused
+        pipeline.produceNext();
+        assertSame(buffers.get(0), produced.get(4));
+        assertEquals(5, buffers.get(0)[0]);
+        assertEquals(0, pipeline.getNumSkipped());
+    }
+
+    @Test
+    public void testCatchUp() throws Exception {
+        System.out.println("catchUp");
+        // Nothing is skipped before the first frame
+        displayNext(2);
+        assertEquals(0, pipeline.getNumSkipped());
+
+        pipeline.produceNext();
+        displayNext(4);
+        assertEquals(3, pipeline.getNumSkipped());
+        pipeline.produceNext();
+        assertEquals(Integer.valueOf(4), steps.get(1));
+
+        // The missed intervals are reset once a frame covers them
+        pipeline.produceNext();
+        assertEquals(Integer.valueOf(1), steps.get(2));
+
+        // A frame covers at most MAX_STEPS intervals
+        displayNext(2);
+        displayNext(20);
+        pipeline.produceNext();
+        assertEquals(Integer.valueOf(FramePipeline.MAX_STEPS), steps.get(3));
+        assertEquals(23, pipeline.getNumSkipped());
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.globe.analytics;
+
+import gov.nasa.worldwindx.examples.analytics.AnalyticSurface;
+import java.util.Iterator;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class GridAttributeCacheTest {
+
+    private static final double MIN_VALUE = 0;
+    private static final double MAX_VALUE = 5;
+    private static final double MIN_HUE = 240d / 360d;
+    private static final double MAX_HUE = 0;
+
+    public GridAttributeCacheTest() {
+    }
+
+    private static GridAttributeCache createCache(int numTimes, int numRows, int numCols) {
+        return new GridAttributeCache(null, 0, numTimes, numRows, numCols, MIN_VALUE, MAX_VALUE, MIN_HUE, MAX_HUE);
+    }
+
+    @Test
+    public void testGetColorIndex() {
+        System.out.println("getColorIndex");
+        GridAttributeCache instance = createCache(1, 1, 1);
+        assertEquals(0, instance.getColorIndex(MIN_VALUE));
+        assertEquals(0, instance.getColorIndex(-1));
+        assertEquals(0, instance.getColorIndex(Double.NaN));
+        assertEquals(GridAttributeCache.PALETTE_SIZE - 1, instance.getColorIndex(MAX_VALUE));
+        assertEquals(GridAttributeCache.PALETTE_SIZE - 1, instance.getColorIndex(10));
+        assertEquals(128, instance.getColorIndex(2.5));
+    }
+
+    @Test
+    public void testGetColor() {
+        System.out.println("getColor");
+        GridAttributeCache instance = createCache(1, 1, 1);
+        assertEquals(AnalyticSurface.createColorGradientAttributes(MIN_VALUE, MIN_VALUE, MAX_VALUE, MIN_HUE, MAX_HUE).getColor(),
+                instance.getColor(0));
+        assertEquals(AnalyticSurface.createColorGradientAttributes(MAX_VALUE, MIN_VALUE, MAX_VALUE, MIN_HUE, MAX_HUE).getColor(),
+                instance.getColor(GridAttributeCache.PALETTE_SIZE - 1));
+    }
+
+    @Test
+    public void testFrame() throws Exception {
+        System.out.println("frame");
+        // Two latitudes by three longitudes in VisAD order: latitudes vary fastest
+        double[] samples = {0, 1, 2, 3, 4, 5};
+        GridAttributeCache instance = createCache(2, 2, 3);
+        instance.put(1, samples);
+        GridAttributeCache.Frame frame = instance.new Frame();
+        instance.load(1, frame);
+
+        // Surface order: the upper (second) latitude row first
+        double[] expected = {1, 3, 5, 0, 2, 4};
+        Iterator<AnalyticSurface.GridPointAttributes> iterator = frame.iterator();
+        for (double value : expected) {
+            assertTrue(iterator.hasNext());
+            AnalyticSurface.GridPointAttributes attributes = iterator.next();
+            assertEquals(value, attributes.getValue(), 0);
+            assertSame(instance.getColor(instance.getColorIndex(value)), attributes.getColor());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testEmptyFrame() {
+        System.out.println("emptyFrame");
+        GridAttributeCache instance = createCache(1, 1, 1);
+        assertFalse(instance.new Frame().iterator().hasNext());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.globe.analytics;
+
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class ParticleEngineTest {
+
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 80;
+
+    public ParticleEngineTest() {
+    }
+
+    /**
+     * Creates a 5 x 4 grid over the test sector with a uniform field.
+     */
+    private static ParticleEngine.Grid createGrid(float direction, float speed, float magnitude) {
+        int numLats = 5;
+        int numLons = 4;
+        float[] directions = new float[numLats * numLons];
+        float[] speeds = new float[numLats * numLons];
+        float[] magnitudes = new float[numLats * numLons];
+        Arrays.fill(directions, direction);
+        Arrays.fill(speeds, speed);
+        Arrays.fill(magnitudes, magnitude);
+        return new ParticleEngine.Grid(34.0, 0.25, numLats, -120.0, 0.25, numLons, directions, speeds, magnitudes);
+    }
+
+    private static ParticleEngine createEngine(int numParticles) {
+        return new ParticleEngine(numParticles, 34.0, 35.0, -120.0, -119.25, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void testIndexOf() {
+        System.out.println("indexOf");
+        ParticleEngine.Grid grid = createGrid(0, 1, 1);
+        assertEquals(0, grid.indexOf(34.0, -120.0));
+        assertEquals(1, grid.indexOf(34.2, -120.1));
+        assertEquals(5 * 2 + 4, grid.indexOf(35.0, -119.5));
+        assertEquals(-1, grid.indexOf(35.2, -119.5));
+        assertEquals(-1, grid.indexOf(34.5, -119.0));
+    }
+
+    @Test
+    public void testStep() {
+        System.out.println("step");
+        int[] pixels = new int[WIDTH * HEIGHT];
+        ParticleEngine engine = createEngine(5000);
+        ParticleEngine.Grid grid = createGrid(45, 2, 1.0f);
+        engine.step(grid, null, pixels, 1);
+        for (int i = 0; i < 10; i++) {
+            engine.step(grid, pixels, pixels, 1);
+        }
+        // Trails are drawn in the orange, full alpha color...
+        int orange = ParticleEngine.getColor(ParticleEngine.getColorIndex(1.0, 2));
+        assertTrue(Arrays.stream(pixels).anyMatch(p -> p == orange));
+        // ... and fade to transparent
+        for (int i = 0; i < 300; i++) {
+            engine.fade(pixels, pixels, 1);
+        }
+        assertTrue(Arrays.stream(pixels).allMatch(p -> p == 0));
+    }
+
+    @Test
+    public void testStepBuffers() {
+        System.out.println("step buffers");
+        int[] previous = new int[WIDTH * HEIGHT];
+        int[] next = new int[WIDTH * HEIGHT];
+        Arrays.fill(previous, 0xFF808080);
+        ParticleEngine engine = createEngine(0);
+        engine.step(createGrid(45, 2, 1.0f), previous, next, 2);
+        // The previous frame is faded into the next, two steps at a time
+        assertEquals(0xFF808080, previous[0]);
+        int fade2 = (int) Math.floor(256 * ParticleEngine.FADE * ParticleEngine.FADE);
+        int channel = (0x80 * fade2) >> 8;
+        assertEquals(((0xFF * fade2) >> 8) << 24 | channel << 16 | channel << 8 | channel, next[0]);
+        engine.step(createGrid(45, 2, 1.0f), null, next, 1);
+        assertEquals(0, next[0]);
+    }
+
+    @Test
+    public void testMissingValues() {
+        System.out.println("missing values");
+        int[] pixels = new int[WIDTH * HEIGHT];
+        ParticleEngine engine = createEngine(1000);
+        ParticleEngine.Grid grid = createGrid(Float.NaN, 1, 1);
+        for (int i = 0; i < 10; i++) {
+            engine.step(grid, pixels, pixels, 1);
+        }
+        assertTrue(Arrays.stream(pixels).allMatch(p -> p == 0));
+    }
+
+    @Test
+    public void testGetColorIndex() {
+        System.out.println("getColorIndex");
+        assertEquals(0xFF0000FF, ParticleEngine.getColor(ParticleEngine.getColorIndex(0.1, 5)));
+        assertEquals(0xFFFF0000, ParticleEngine.getColor(ParticleEngine.getColorIndex(5, 5)));
+        // Slow particles are translucent
+        assertEquals(0x99, ParticleEngine.getColor(ParticleEngine.getColorIndex(5, 0.1)) >>> 24);
+    }
+
+}
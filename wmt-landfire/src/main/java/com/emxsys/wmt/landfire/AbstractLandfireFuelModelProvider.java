@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.landfire;
+
+import com.emxsys.gis.api.Box;
+import com.emxsys.gis.api.Coord2D;
+import com.emxsys.gis.api.GeoSector;
+import com.emxsys.gis.api.capabilities.QueryableByPoint;
+import com.emxsys.gis.api.viewer.GisViewer;
+import com.emxsys.wildfire.api.AbstractFuelModelProvider;
+import com.emxsys.wildfire.api.BasicFuelModel;
+import com.emxsys.wildfire.api.FuelModel;
+import com.emxsys.wmt.landfire.layers.LandfireTiledImageLayer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.Lookup;
+import org.openide.util.LookupEvent;
+
+/**
+ * The AbstractLandfireFuelModelProvider provides the fuel models decoded from a LANDFIRE fuel
+ * model layer. Subclasses specify the layer type for their fuel model standard.
+ *
+ * @param <T> The fuel model layer type.
+ * @author Bruce Schubert
+ */
+public abstract class AbstractLandfireFuelModelProvider<T extends LandfireTiledImageLayer> extends AbstractFuelModelProvider {
+
+    private static final Logger logger = Logger.getLogger(AbstractLandfireFuelModelProvider.class.getName());
+    private final GeoSector extents = new GeoSector(22.6952681387, -128.0067177405, 51.6768794844, -65.2077897436);
+    private final Class<T> layerClass;
+    private Lookup.Result<T> fuelModelLayers;
+    private T fuelModelLayer;
+
+    /**
+     * Constructor.
+     *
+     * @param layerClass The type of fuel model layer to look for in the viewer's layers.
+     */
+    protected AbstractLandfireFuelModelProvider(Class<T> layerClass) {
+        this.layerClass = layerClass;
+
+        GisViewer viewer = Lookup.getDefault().lookup(GisViewer.class);
+        if (viewer == null) {
+            logger.severe("A GisViewer was not found.  Fuel Model layer monitoring is disabled.");
+            throw new IllegalStateException("A GisViewer was not found.");
+        } else {
+            // Listen for the existance of fuel model layers
+            // TODO: this seems kinda clunky...we 'should' be able to interrogate fuels w/o a viewer
+            this.fuelModelLayers = viewer.getGisLayerList().getLookup().lookupResult(layerClass);
+            this.fuelModelLayers.addLookupListener((LookupEvent ev) -> {
+                checkForFuelModelLayer();
+            });
+        }
+        checkForFuelModelLayer();
+    }
+
+    /**
+     * Examines the currently loaded data providers looking for a FuelModel
+     * capability. If one is found, then a lookup result listener is established
+     * on that provider.
+     */
+    private void checkForFuelModelLayer() {
+        Collection<? extends T> allInstances = this.fuelModelLayers.allInstances();
+        if (allInstances.isEmpty()) {
+            this.fuelModelLayer = null;
+            logger.log(Level.CONFIG, "A {0} is not yet available. Fuel Model lookup is disabled.", layerClass.getSimpleName());
+            return;
+        }
+
+        for (T layer : allInstances) {
+            this.fuelModelLayer = layer;
+            logger.log(Level.CONFIG, "Found a fuel model provider for {0}: {1}", new Object[]{getName(), layer.toString()});
+            break;
+        }
+    }
+
+    @Override
+    public Box getExtents() {
+        return this.extents;
+    }
+
+    /**
+     * Gets the FuelModel at the given location.
+     *
+     * @param location The location where the fuel model is sampled.
+     * @return The fuel model at the location, or BasicFuelModel.INVALID_FUEL_MODEL if not
+ found.
+     */
+    @Override
+    public FuelModel getFuelModel(Coord2D location) {
+        if (this.fuelModelLayer == null) {
+            return BasicFuelModel.INVALID_FUEL_MODEL;
+        }
+        // Get the query capability object
+        QueryableByPoint query = this.fuelModelLayer.getLookup().lookup(QueryableByPoint.class);
+        if (query == null) {
+            throw new IllegalStateException("FuelModel layer doesn't support QueryableByPoint");
+        }
+        // Find the fuel model at this location
+        if (!location.isMissing() && getExtents().contains(location)) {
+            Iterator<?> results = query.getObjectsAtLatLon(location).getResults().iterator();
+            if (results.hasNext()) {
+                Object objectAtLatLon = results.next();
+                if (objectAtLatLon != null && objectAtLatLon instanceof BasicFuelModel) {
+                    return (BasicFuelModel) objectAtLatLon;
+                }
+            }
+        }
+        logger.log(Level.FINE, "No FuelModel found for {0}", location);
+        return BasicFuelModel.INVALID_FUEL_MODEL;
+    }
+
+    /**
+     * Gets the FuelModels at the given locations. The layer decodes each tile needed by the
+     * locations once and retains the decoded tiles for subsequent requests.
+     *
+     * @param latitudes the latitudes of the locations [degrees]
+     * @param longitudes the longitudes of the locations [degrees]
+     * @return the fuel models, or BasicFuelModel.INVALID_FUEL_MODEL where not found.
+     */
+    @Override
+    public FuelModel[] getFuelModels(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("The latitudes and longitudes must have the same length.");
+        }
+        FuelModel[] fuelModels = new FuelModel[latitudes.length];
+        Arrays.fill(fuelModels, BasicFuelModel.INVALID_FUEL_MODEL);
+        if (this.fuelModelLayer == null) {
+            return fuelModels;
+        }
+        // Only query the locations within the extents of the layer
+        int[] indices = new int[latitudes.length];
+        int count = 0;
+        for (int i = 0; i < latitudes.length; i++) {
+            if (this.extents.contains(latitudes[i], longitudes[i])) {
+                indices[count++] = i;
+            }
+        }
+        double[] lats = latitudes;
+        double[] lons = longitudes;
+        if (count < latitudes.length) {
+            lats = new double[count];
+            lons = new double[count];
+            for (int j = 0; j < count; j++) {
+                lats[j] = latitudes[indices[j]];
+                lons[j] = longitudes[indices[j]];
+            }
+        }
+        Object[] objects = this.fuelModelLayer.getObjectsAtLatLons(lats, lons);
+        for (int j = 0; j < count; j++) {
+            if (objects[j] instanceof BasicFuelModel) {
+                fuelModels[indices[j]] = (BasicFuelModel) objects[j];
+            }
+        }
+        return fuelModels;
+    }
+
+    @Override
+    public String getSource() {
+        return "LANDFIRE";
+    }
+
+}
@@ -49,15 +49,19 @@ import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.event.EventListenerList;
 import org.openide.filesystems.FileObject;
-import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.AbstractLookup;
 import org.openide.util.lookup.InstanceContent;
@@ -84,9 +88,6 @@ public abstract class LandfireTiledImageLayer extends WMSTiledImageLayer impleme
     /** lastPosition is used to determine if the position of interest has moved. */
     private Position lastPosition;
 
-    /** Decoder that decodes a color into a code. May be replaced by sub-classes */
-    protected ColorDecoder decoder = new ColorDecoder();
-
     /** Decoder object that runs in a worker thread. */
     protected ColorDecoder threadedDecoder = new ColorDecoder();
 
@@ -94,6 +95,24 @@ public abstract class LandfireTiledImageLayer extends WMSTiledImageLayer impleme
     private BlockingDeque<DecoderArgs> deque = new LinkedBlockingDeque<>();
     private EventListenerList listenerList = new EventListenerList();
 
+    /** The maximum number of decoded tile rasters retained for queries. */
+    private static final int MAX_DECODED_TILES = 32;
+
+    /** The decoded tile rasters used by the queries; the most recently used tiles are retained. */
+    private final Map<TileKey, DecodedTile> decodedTiles = new LinkedHashMap<TileKey, DecodedTile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, DecodedTile> eldest) {
+            return size() > MAX_DECODED_TILES;
+        }
+    };
+
+    /** The color map values indexed by their decoded code; code 0 represents no value. Set once
+     * by initColorCodes. */
+    private volatile List<Object> codeValues;
+
+    /** The packed RGB to code table; fuzzy matches are added as the tiles are decoded. */
+    private final Map<Integer, Integer> rgbCodes = new ConcurrentHashMap<>();
+
     private static final Logger LOG = Logger.getLogger(LandfireTiledImageLayer.class.getName());
 
     /**
@@ -218,10 +237,199 @@ public abstract class LandfireTiledImageLayer extends WMSTiledImageLayer impleme
      */
     @Override
     public QueryResult<?> getObjectsAtLatLon(Coord2D point) {
-        DecoderArgs args = new DecoderArgs(Position.fromDegrees(
-            point.getLatitudeDegrees(),
-            point.getLongitudeDegrees()));
-        return new BasicQueryResult<>(this.decoder.lookupObjectAtPosition(args));
+        Object[] objects = getObjectsAtLatLons(
+            new double[]{point.getLatitudeDegrees()},
+            new double[]{point.getLongitudeDegrees()});
+        return new BasicQueryResult<>(objects[0]);
+    }
+
+    /**
+     * Decodes the colors at the lat/lons. Each tile needed by the query is decoded once into a
+     * raster of color map codes, which is retained for subsequent queries.
+     *
+     * @param latitudes the latitudes [degrees]
+     * @param longitudes the longitudes [degrees]
+     * @return the objects represented by the colors at the lat/lons; null where a color could not
+     * be decoded.
+     */
+    public Object[] getObjectsAtLatLons(double[] latitudes, double[] longitudes) {
+        Object[] objects = new Object[latitudes.length];
+        DecodedTile tile = null;
+        for (int i = 0; i < latitudes.length; i++) {
+            if (tile == null || !tile.sector.containsDegrees(latitudes[i], longitudes[i])) {
+                tile = getDecodedTile(LatLon.fromDegrees(latitudes[i], longitudes[i]));
+                if (tile == null) {
+                    continue;
+                }
+            }
+            // The code values are fixed once the first tile has been decoded
+            objects[i] = this.codeValues.get(tile.getCode(latitudes[i], longitudes[i]));
+        }
+        return objects;
+    }
+
+    /**
+     * Gets the decoded raster for the tile containing the lat/lon, decoding the tile image if
+     * it's not in the cache.
+     *
+     * @param latLon the position
+     * @return the decoded tile, or null if the tile image is not available
+     */
+    private DecodedTile getDecodedTile(LatLon latLon) {
+        TextureTile textureTile = getTileContainingLatLon(latLon);
+        TileKey key = textureTile.getTileKey();
+        synchronized (this.decodedTiles) {
+            DecodedTile tile = this.decodedTiles.get(key);
+            if (tile != null) {
+                return tile;
+            }
+        }
+        if (getLevels().getLastLevel().getFormatSuffix().endsWith("dds")) {
+            LOG.severe("The local file cache contains .dds files which cannot be converted to images. "
+                + "See the map's config file's FormatSuffix settings.");
+            return null;
+        }
+        // Fetch and decode the image without holding the lock, so a slow fetch doesn't block the
+        // queries of other tiles
+        BufferedImage image;
+        try {
+            image = getImage(textureTile, "image/png", 20000);
+        }
+        catch (Exception ex) {
+            LOG.log(Level.SEVERE, "getDecodedTile() failed! The {0} layer is not available. {1}",
+                new Object[]{getName(), ex.getMessage()});
+            return null;
+        }
+        if (image == null) {
+            LOG.log(Level.WARNING, "The {0} tile image is null.", getName());
+            return null;
+        }
+        DecodedTile tile = decodeTile(textureTile.getSector(), image);
+        synchronized (this.decodedTiles) {
+            // Another thread may have decoded the same tile meanwhile
+            DecodedTile existing = this.decodedTiles.putIfAbsent(key, tile);
+            return existing != null ? existing : tile;
+        }
+    }
+
+    /**
+     * Decodes a tile image into a raster of color map codes.
+     */
+    private DecodedTile decodeTile(Sector sector, BufferedImage image) {
+        if (this.codeValues == null) {
+            initColorCodes();
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        short[] codes = new short[pixels.length];
+        // Fuel rasters contain long runs of a single color; only changes in color require a lookup
+        int lastRgb = -1;
+        short lastCode = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            int rgb = pixels[i] & 0xFFFFFF;
+            if (rgb != lastRgb) {
+                lastRgb = rgb;
+                lastCode = (short) lookupColorCode(rgb);
+            }
+            codes[i] = lastCode;
+        }
+        return new DecodedTile(sector, width, height, codes);
+    }
+
+    /**
+     * Assigns a code to each distinct value in the color map and initializes the packed RGB to
+     * code table from the color map's colors.
+     */
+    private void initColorCodes() {
+        synchronized (this.rgbCodes) {
+            if (this.codeValues != null) {
+                return;
+            }
+            List<Object> values = new ArrayList<>();
+            values.add(null);  // code 0: no value
+            Map<Object, Integer> valueCodes = new HashMap<>();
+            for (Map.Entry<Color, Object> entry : getColorMap().entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                Integer code = valueCodes.get(entry.getValue());
+                if (code == null) {
+                    code = values.size();
+                    values.add(entry.getValue());
+                    valueCodes.put(entry.getValue(), code);
+                }
+                this.rgbCodes.put(entry.getKey().getRGB() & 0xFFFFFF, code);
+            }
+            // Publish the codes after the table is complete
+            this.codeValues = values;
+        }
+    }
+
+    /**
+     * Lookup the code for a packed RGB color - examine nearby colors for a fuzzy lookup. The
+     * result is added to the table to speed up future lookups.
+     *
+     * @param rgb the packed RGB color
+     * @return the code, or 0 if the color is not in the color map
+     */
+    private int lookupColorCode(int rgb) {
+        Integer code = this.rgbCodes.get(rgb);
+        if (code != null) {
+            return code;
+        }
+        int red = (rgb >> 16) & 0xFF;
+        int grn = (rgb >> 8) & 0xFF;
+        int blu = rgb & 0xFF;
+        code = 0;
+        fuzzy_loop:
+        for (int r = Math.max(red - 2, 0); r <= Math.min(red + 2, 255); r++) {
+            for (int g = Math.max(grn - 2, 0); g <= Math.min(grn + 2, 255); g++) {
+                for (int b = Math.max(blu - 2, 0); b <= Math.min(blu + 2, 255); b++) {
+                    Integer fuzzyCode = this.rgbCodes.get((r << 16) | (g << 8) | b);
+                    if (fuzzyCode != null && fuzzyCode != 0) {
+                        code = fuzzyCode;
+                        break fuzzy_loop;
+                    }
+                }
+            }
+        }
+        if (code == 0) {
+            LOG.log(Level.WARNING, "Image Color =={0} Value Not Found!", new Color(rgb).toString());
+        }
+        this.rgbCodes.put(rgb, code);
+        return code;
+    }
+
+    /**
+     * A tile image decoded into color map codes.
+     */
+    private static class DecodedTile {
+        final Sector sector;
+        final int width;
+        final int height;
+        final short[] codes;
+
+        DecodedTile(Sector sector, int width, int height, short[] codes) {
+            this.sector = sector;
+            this.width = width;
+            this.height = height;
+            this.codes = codes;
+        }
+
+        /**
+         * Gets the code for the pixel at the lat/lon, which must be within the sector.
+         */
+        int getCode(double latitude, double longitude) {
+            // Interpolate lat/lon within sector
+            double xn = (longitude - this.sector.getMinLongitude().degrees) / this.sector.getDeltaLonDegrees();
+            double yn = (latitude - this.sector.getMinLatitude().degrees) / this.sector.getDeltaLatDegrees();
+
+            // Sample the pixel at the lat/lon offset
+            int x = (int) Math.floor((this.width - 1) * xn);
+            int y = (this.height - 1) - (int) Math.floor((this.height - 1) * yn);
+            return this.codes[y * this.width + x];
+        }
     }
 
     /**
@@ -306,21 +514,6 @@ public abstract class LandfireTiledImageLayer extends WMSTiledImageLayer impleme
             super("Landfire:ColorDecoder");
         }
 
-        Object lookupObjectAtPosition(DecoderArgs args) {
-            try {
-                updateSectorAndImageFromTile(args);
-            }
-            catch (Exception ex) {
-                Exceptions.printStackTrace(ex);
-                return null;
-            }
-            Color color = decoder.getColorFromTileAtPosition(args.position);
-            if (color != null) {
-                return lookupColor(color);
-            }
-            return null;
-        }
-
         /**
          * Processes the requests for retrieving a color key's value at from the queued positions.
          */
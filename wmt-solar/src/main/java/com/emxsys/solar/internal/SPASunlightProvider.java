@@ -39,6 +39,7 @@ import java.rmi.RemoteException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.stream.IntStream;
 import java.util.logging.Logger;
 import org.openide.util.Exceptions;
 import visad.Field;
@@ -60,6 +61,8 @@ import visad.VisADException;
 public class SPASunlightProvider implements SunlightProvider {
 
     private static final Logger logger = Logger.getLogger(SPASunlightProvider.class.getName());
+    /** The number of lat/lons computed by a single task when computing gridded sunlight. */
+    private static final int TILE_SIZE = 1024;
 
     /**
      * Gets a Sunlight instance at the given time and location.
@@ -106,44 +109,68 @@ public class SPASunlightProvider implements SunlightProvider {
      * @param spatialDomainSet
      */
     public FieldImpl getSunlight(Gridded1DDoubleSet temporalDomainSet, Linear2DSet spatialDomainSet) {
+        return getSunlight(temporalDomainSet, spatialDomainSet, true);
+    }
+
+    /**
+     * Compute the solar data which varies by time and location:
+     * <br/>
+     * (time -> ((latitude, longitude) -> (sunlight))
+     * <p>
+     * The time dependent terms of the SPA (e.g., the Julian day, the heliocentric position, nutation
+     * and obliquity) are computed once per time step; only the topocentric corrections are computed
+     * for each lat/lon.
+     *
+     * @param temporalDomainSet To create, see DateTime.makeTimeSet()
+     * @param spatialDomainSet
+     * @param parallel if true, the lat/lons are computed concurrently
+     */
+    public FieldImpl getSunlight(Gridded1DDoubleSet temporalDomainSet, Linear2DSet spatialDomainSet,
+                                 boolean parallel) {
 
         try {
             // Spatial function: ((latitude, longitude) -> (sunlight))
             FunctionType spatial = new FunctionType(RealTupleType.LatitudeLongitudeTuple, SolarType.SUNLIGHT);
-            FlatField spatialFlatField = new FlatField(spatial, spatialDomainSet);
 
             // Temporal function: (time -> ((latitude, longitude) -> (sunlight)))
-            FunctionType spatialTemporal = new FunctionType(RealType.Time, spatialFlatField.getType());
+            FunctionType spatialTemporal = new FunctionType(RealType.Time, spatial);
             FieldImpl spatioTemporalField = new FieldImpl(spatialTemporal, temporalDomainSet);
 
-            // Create the samples for the sunlight data
+            // Get the domain samples once
             final int numTimes = temporalDomainSet.getLength();
             final int numLatLons = spatialDomainSet.getLength();
-            double[][] solarSamples = new double[SolarType.SUNLIGHT.getDimension()][numLatLons];
+            final double[] times = temporalDomainSet.getDoubles(false)[0];
+            final double[][] latLons = spatialDomainSet.getDoubles(false);
+            final int numTiles = (numLatLons + TILE_SIZE - 1) / TILE_SIZE;
 
             // Update the the field samples: loop through the time domain
             for (int t = 0; t < numTimes; t++) {
-                double secsSinceEpoch = temporalDomainSet.getSamples(false)[0][t];
-                Instant instant = Instant.ofEpochSecond((long) secsSinceEpoch);
+                Instant instant = Instant.ofEpochSecond((long) times[t]);
                 ZonedDateTime time = ZonedDateTime.ofInstant(instant, ZoneId.of("UTC"));
 
+                // Compute the time dependent terms shared by all the lat/lons
+                final SolarData geocentric = new SolarData(time, GeoCoord3D.ZERO_COORD);
+                spa_calculate_geocentric(geocentric);
+
                 // Set the solar sample(s) in the lat/lon domain
-                for (int xy = 0; xy < numLatLons; xy++) {
-                    double lat = spatialDomainSet.getDoubles(false)[0][xy];
-                    double lon = spatialDomainSet.getDoubles(false)[1][xy];
-                    GeoCoord3D coord = GeoCoord3D.fromDegrees(lat, lon);
-
-                    // Compute solar data at time and place
-                    RealTuple sunlight = getSunlight(time, coord).getTuple();
-                    double[] values = sunlight.getValues();
-                    for (int dim = 0; dim < SolarType.SUNLIGHT.getDimension(); dim++) {
-                        solarSamples[dim][xy] = values[dim];
+                final double[][] solarSamples = new double[SolarType.SUNLIGHT.getDimension()][numLatLons];
+                IntStream tiles = IntStream.range(0, numTiles);
+                (parallel ? tiles.parallel() : tiles).forEach(tile -> {
+                    SolarData spa = new SolarData(time, GeoCoord3D.ZERO_COORD);
+                    spa.setGeocentricValues(geocentric);
+                    int to = Math.min((tile + 1) * TILE_SIZE, numLatLons);
+                    for (int xy = tile * TILE_SIZE; xy < to; xy++) {
+                        spa.latitude = latLons[0][xy];
+                        spa.longitude = latLons[1][xy];
+                        spa_calculate_topocentric(spa);
+                        setSunlightSamples(spa, solarSamples, xy);
                     }
-                }
-                // Add our samples to the FlatField
-                spatialFlatField.setSamples(solarSamples);
+                });
+                // Add our samples to a new FlatField
+                FlatField spatialFlatField = new FlatField(spatial, spatialDomainSet);
+                spatialFlatField.setSamples(solarSamples, false);   // false = don't copy
                 // ... and then set the sample in the temporal field
-                spatioTemporalField.setSample(t, spatialFlatField);
+                spatioTemporalField.setSample(t, spatialFlatField, false);
             }
             return spatioTemporalField;
         } catch (VisADException | RemoteException ex) {
@@ -152,6 +179,25 @@ public class SPASunlightProvider implements SunlightProvider {
         }
     }
 
+    /**
+     * Sets the SUNLIGHT range samples from the computed solar data; the sample values match the
+     * tuple created by getSunlight(time, observer).
+     */
+    private static void setSunlightSamples(SolarData spa, double[][] samples, int index) {
+        samples[SolarType.SUBSOLAR_LATITUDE_INDEX][index] = spa.getTopocentricSunDeclination();
+        samples[SolarType.SUBSOLAR_LONGITIDUE_INDEX][index] = limit_degrees180pm(spa.longitude - spa.getTopocentricLocalHourAngle());
+        samples[SolarType.AZIMUTH_ANGLE_INDEX][index] = spa.getAzimuth();
+        samples[SolarType.ZENITH_ANGLE_INDEX][index] = spa.getZenith();
+        samples[SolarType.ALTITUDE_ANGLE_INDEX][index] = spa.getTopocentricElevationAngleCorrected();
+        samples[SolarType.HOUR_ANGLE_INDEX][index] = spa.getTopocentricLocalHourAngle();
+        samples[SolarType.SUNRISE_HOUR_ANGLE_INDEX][index] = spa.getSunriseHourAngle();
+        samples[SolarType.SUNSET_HOUR_ANGLE_INDEX][index] = spa.getSunsetHourAngle();
+        samples[SolarType.SUNRISE_HOUR_INDEX][index] = spa.getSunrise();
+        samples[SolarType.SUNSET_HOUR_INDEX][index] = spa.getSunset();
+        samples[SolarType.SUNTRANSIT_HOUR_INDEX][index] = spa.getSunTransit();
+        samples[SolarType.ZONE_OFFSET_HOUR_INDEX][index] = spa.getTimezone();
+    }
+
     public RealTuple getSubsolarPoint(ZonedDateTime time) {
         SolarData spa = new SolarData(time, GeoCoord3D.ZERO_COORD);
         spa_calculate(spa);
@@ -158,6 +158,12 @@ public class SolarData implements Cloneable {
     double ssha;
     /** sun transit altitude [degrees] */
     double sta;
+    /** Greenwich sidereal time at 0 UT on the day [degrees] */
+    double rts_nu;
+    /** geocentric sun right ascension at 0 UT on the previous, current and next day [degrees] */
+    double[] rts_alpha = new double[SolarPositionAlgorithms.JD_COUNT];
+    /** geocentric sun declination at 0 UT on the previous, current and next day [degrees] */
+    double[] rts_delta = new double[SolarPositionAlgorithms.JD_COUNT];
 
     //---------------------Final OUTPUT VALUES------------------------
     /** topocentric zenith angle [degrees] */
@@ -204,6 +210,54 @@ public class SolarData implements Cloneable {
         }
     }
 
+    /**
+     * Copies the time dependent inputs and the geocentric values computed by
+     * SolarPositionAlgorithms.spa_calculate_geocentric from another instance, so that only the
+     * observer dependent values need to be computed for this instance. The observer's location,
+     * terrain and atmosphere are not copied.
+     *
+     * @param other an instance with computed geocentric values for the same time
+     */
+    void setGeocentricValues(SolarData other) {
+        this.year = other.year;
+        this.month = other.month;
+        this.day = other.day;
+        this.hour = other.hour;
+        this.minute = other.minute;
+        this.second = other.second;
+        this.timezone = other.timezone;
+        this.delta_t = other.delta_t;
+        this.jd = other.jd;
+        this.jc = other.jc;
+        this.jde = other.jde;
+        this.jce = other.jce;
+        this.jme = other.jme;
+        this.l = other.l;
+        this.b = other.b;
+        this.r = other.r;
+        this.theta = other.theta;
+        this.beta = other.beta;
+        this.x0 = other.x0;
+        this.x1 = other.x1;
+        this.x2 = other.x2;
+        this.x3 = other.x3;
+        this.x4 = other.x4;
+        this.del_psi = other.del_psi;
+        this.del_epsilon = other.del_epsilon;
+        this.epsilon0 = other.epsilon0;
+        this.epsilon = other.epsilon;
+        this.del_tau = other.del_tau;
+        this.lamda = other.lamda;
+        this.nu0 = other.nu0;
+        this.nu = other.nu;
+        this.alpha = other.alpha;
+        this.delta = other.delta;
+        this.eot = other.eot;
+        this.rts_nu = other.rts_nu;
+        System.arraycopy(other.rts_alpha, 0, this.rts_alpha, 0, this.rts_alpha.length);
+        System.arraycopy(other.rts_delta, 0, this.rts_delta, 0, this.rts_delta.length);
+    }
+
     public int getYear() {
         return year;
     }
@@ -677,7 +731,10 @@ public class SolarData implements Cloneable {
 
     @Override
     protected Object clone() throws CloneNotSupportedException {
-        return super.clone();
+        SolarData clone = (SolarData) super.clone();
+        clone.rts_alpha = this.rts_alpha.clone();
+        clone.rts_delta = this.rts_delta.clone();
+        return clone;
     }
 
 }
@@ -877,24 +877,26 @@ public class SolarPositionAlgorithms  {
      * @param spa
      */
     public static void calculate_eot_and_sun_rise_transit_set(SolarData spa) {
+        calculate_eot_and_rts_geocentric_values(spa);
+        calculate_sun_rise_transit_set(spa);
+    }
+
+    /**
+     * Calculate the Equation of Time (EOT) and the time dependent values used for the Sun Rise,
+     * Transit, & Set (RTS): the sidereal time and the geocentric sun right ascension and declination
+     * at 0 UT on the previous, current and next days.
+     *
+     * Precondition: the geocentric values must be already calculated and in structure.
+     * @param spa
+     */
+    static void calculate_eot_and_rts_geocentric_values(SolarData spa) {
         SolarData sun_rts;
         try {
             sun_rts = (SolarData) spa.clone();
         } catch (CloneNotSupportedException ex) {
             throw new RuntimeException(ex.getMessage());
         }
-        double nu, m, h0, n;
-        double alpha[] = new double[JD_COUNT];
-        double delta[] = new double[JD_COUNT];
-        double m_rts[] = new double[SUN_COUNT];
-        double nu_rts[] = new double[SUN_COUNT];
-        double h_rts[] = new double[SUN_COUNT];
-        double alpha_prime[] = new double[SUN_COUNT];
-        double delta_prime[] = new double[SUN_COUNT];
-        double h_prime[] = new double[SUN_COUNT];
-        double h0_prime = -1 * (SUN_RADIUS + spa.atmos_refract);
-
-        m = sun_mean_longitude(spa.jme);
+        double m = sun_mean_longitude(spa.jme);
         spa.eot = eot(m, spa.alpha, spa.del_psi, spa.epsilon);
 
         sun_rts.hour = sun_rts.minute = sun_rts.second = 0;
@@ -902,15 +904,37 @@ public class SolarPositionAlgorithms  {
         sun_rts.jd = julian_day(sun_rts.year, sun_rts.month, sun_rts.day,
                 sun_rts.hour, sun_rts.minute, sun_rts.second, sun_rts.timezone);
         calculate_geocentric_sun_right_ascension_and_declination(sun_rts);
-        nu = sun_rts.nu;
+        spa.rts_nu = sun_rts.nu;
         sun_rts.delta_t = 0;
         sun_rts.jd--;
         for (int i = 0; i < JD_COUNT; i++) {
             calculate_geocentric_sun_right_ascension_and_declination(sun_rts);
-            alpha[i] = sun_rts.alpha;
-            delta[i] = sun_rts.delta;
+            spa.rts_alpha[i] = sun_rts.alpha;
+            spa.rts_delta[i] = sun_rts.delta;
             sun_rts.jd++;
         }
+    }
+
+    /**
+     * Calculate the Sun Rise, Transit, & Set (RTS) for the observer.
+     *
+     * Precondition: calculate_eot_and_rts_geocentric_values must be already calculated and in
+     * structure.
+     * @param spa
+     */
+    static void calculate_sun_rise_transit_set(SolarData spa) {
+        double nu = spa.rts_nu;
+        double alpha[] = spa.rts_alpha;
+        double delta[] = spa.rts_delta;
+        double h0, n;
+        double m_rts[] = new double[SUN_COUNT];
+        double nu_rts[] = new double[SUN_COUNT];
+        double h_rts[] = new double[SUN_COUNT];
+        double alpha_prime[] = new double[SUN_COUNT];
+        double delta_prime[] = new double[SUN_COUNT];
+        double h_prime[] = new double[SUN_COUNT];
+        double h0_prime = -1 * (SUN_RADIUS + spa.atmos_refract);
+
         m_rts[SUN_TRANSIT] = approx_sun_transit_time(alpha[JD_ZERO], spa.longitude, nu);
         h0 = sun_hour_angle_at_rise_set(spa.latitude, delta[JD_ZERO], h0_prime);
         if (h0 >= 0) {
@@ -944,9 +968,32 @@ public class SolarPositionAlgorithms  {
      */
     static void spa_calculate(SolarData spa) {
         //validate_inputs();
+        spa_calculate_geocentric(spa);
+        spa_calculate_topocentric(spa);
+    }
+
+    /**
+     * Calculate the SolarPositionAlgorithms parameters that depend only upon the time: the Julian
+     * day, the geocentric sun position, the equation of time and the values used for the sun rise,
+     * transit and set. These are the expensive terms, and they can be shared by all the observers
+     * at the same time via SolarData.setGeocentricValues.
+     *
+     * Prerequisite: The time input values must already be in structure.
+     */
+    static void spa_calculate_geocentric(SolarData spa) {
         spa.jd = julian_day(spa.year, spa.month, spa.day,
                 spa.hour, spa.minute, spa.second, spa.timezone);
         calculate_geocentric_sun_right_ascension_and_declination(spa);
+        calculate_eot_and_rts_geocentric_values(spa);
+    }
+
+    /**
+     * Calculate the SolarPositionAlgorithms parameters that depend upon the observer's location.
+     *
+     * Prerequisite: spa_calculate_geocentric must be already calculated and in structure, and the
+     * observer input values must already be in structure.
+     */
+    static void spa_calculate_topocentric(SolarData spa) {
         spa.h = observer_hour_angle(spa.nu, spa.longitude, spa.alpha);
         spa.xi = sun_equatorial_horizontal_parallax(spa.r);
         double[] result = sun_right_ascension_parallax_and_topocentric_dec(
@@ -966,7 +1013,7 @@ public class SolarPositionAlgorithms  {
         spa.incidence = surface_incidence_angle(spa.zenith, spa.azimuth180, spa.azm_rotation, spa.slope);
 //        }
 //        if ((this.function == SPA_ZA_RTS) || (this.function == SPA_ALL)) {
-        calculate_eot_and_sun_rise_transit_set(spa);
+        calculate_sun_rise_transit_set(spa);
 //        }
     }
 
@@ -154,4 +154,38 @@ public class SolarPositionAlgorithmTest {
         assertEquals("Incidence", 25.187000, spa.getIncidence(), .000001);
     }
 
+    /**
+     * Test the time dependent and observer dependent stages produce the same results as the
+     * complete calculation.
+     */
+    @Test
+    public void testGeocentricAndTopocentricStages() {
+        System.out.println("testGeocentricAndTopocentricStages");
+        ZonedDateTime date = ZonedDateTime.of(2003, 10, 17, 19, 30, 30, 0, ZoneId.of("UTC"));
+        SolarData geocentric = new SolarData(date, GeoCoord3D.ZERO_COORD);
+        SolarPositionAlgorithms.spa_calculate_geocentric(geocentric);
+
+        double[][] observers = {{39.742476, -105.1786}, {34.25, -119.2}, {-33.9, 18.4}, {65.0, 25.5}};
+        for (double[] latLon : observers) {
+            GeoCoord3D observer = GeoCoord3D.fromDegrees(latLon[0], latLon[1]);
+            SolarData expResult = new SolarData(date, observer);
+            SolarPositionAlgorithms.spa_calculate(expResult);
+
+            SolarData result = new SolarData(date, GeoCoord3D.ZERO_COORD);
+            result.setGeocentricValues(geocentric);
+            result.latitude = latLon[0];
+            result.longitude = latLon[1];
+            SolarPositionAlgorithms.spa_calculate_topocentric(result);
+
+            String msg = observer.toString();
+            assertEquals(msg + " Zenith", expResult.getZenith(), result.getZenith(), 0);
+            assertEquals(msg + " Azimuth", expResult.getAzimuth(), result.getAzimuth(), 0);
+            assertEquals(msg + " Declination", expResult.getTopocentricSunDeclination(), result.getTopocentricSunDeclination(), 0);
+            assertEquals(msg + " Hour Angle", expResult.getTopocentricLocalHourAngle(), result.getTopocentricLocalHourAngle(), 0);
+            assertEquals(msg + " Sunrise", expResult.getSunrise(), result.getSunrise(), 0);
+            assertEquals(msg + " Sunset", expResult.getSunset(), result.getSunset(), 0);
+            assertEquals(msg + " Transit", expResult.getSunTransit(), result.getSunTransit(), 0);
+        }
+    }
+
 }
@@ -33,6 +33,7 @@ import com.emxsys.gis.api.Box;
 import com.emxsys.gis.api.Coord2D;
 import com.emxsys.gis.api.Terrain;
 import com.emxsys.gis.api.TerrainProvider;
+import com.emxsys.gis.api.index.GeometryIndex;
 import com.emxsys.gis.spi.TerrainProviderFactory;
 import com.emxsys.weather.api.DiurnalWeatherProvider;
 import com.emxsys.weather.api.Weather;
@@ -59,6 +60,11 @@ public class Environment implements Lookup.Provider {
     private TerrainProvider terrainProvider;
     private WeatherModel weatherModel;
     private final ArrayList<Path> paths = new ArrayList<>();
+    private volatile GeometryIndex<Asset> assetIndex;
+    private volatile GeometryIndex<Obstacle> obstacleIndex;
+    private final Object indexLock = new Object();
+    private int assetVersion;
+    private int obstacleVersion;
 
     @Override
     public Lookup getLookup() {
@@ -91,7 +97,19 @@ public class Environment implements Lookup.Provider {
     }
 
     public void addAsset(Asset asset) {
-        content.add(asset);
+        synchronized (indexLock) {
+            content.add(asset);
+            assetVersion++;
+            assetIndex = null;
+        }
+    }
+
+    public void addObstacle(Obstacle obstacle) {
+        synchronized (indexLock) {
+            content.add(obstacle);
+            obstacleVersion++;
+            obstacleIndex = null;
+        }
     }
 
     public Collection<? extends Asset> getAssets() {
@@ -117,28 +135,100 @@ public class Environment implements Lookup.Provider {
         return weatherModel.getWeather(time, coord);
     }
 
-    public boolean doesPointIntersectAsset(Coord2D destination) {
-        Collection<? extends Asset> assets = getAssets();
-        for (Asset asset : assets) {
-            if (asset.getGeometry().getExtents().contains(destination)) {
-                // TODO - add point-in-polygon test.
-                // TODO - add segment line-intersection-test
-                return true;
+    public Weather getWeather(ZonedDateTime time, Coord2D coord) {
+        return weatherModel.getWeather(time, coord);
+    }
+
+    /**
+     * Gets a spatial index of the assets, built on demand after assets are added. The item
+     * indices match the order of getAssets(). The index is built outside the lock and is only
+     * cached if no asset was added while it was being built.
+     * @return An immutable index of the assets.
+     */
+    public GeometryIndex<Asset> getAssetIndex() {
+        GeometryIndex<Asset> index = assetIndex;
+        if (index == null) {
+            int version;
+            synchronized (indexLock) {
+                version = assetVersion;
+            }
+            index = new GeometryIndex<>(new ArrayList<>(getAssets()), Asset::getGeometry);
+            synchronized (indexLock) {
+                if (version == assetVersion) {
+                    assetIndex = index;
+                }
             }
         }
-        return false;            
+        return index;
     }
 
-    public boolean doesPointIntersectObstacle(Coord2D destination) {
-        Collection<? extends Obstacle> obstacles = getObstacles();
-        for (Obstacle obstacle : obstacles) {
-            if (obstacle.getGeometry().getExtents().contains(destination)) {
-                // TODO - add point-in-polygon test.
-                // TODO - add segment line-intersection-test
-                return true;
+    /**
+     * Gets a spatial index of the obstacles, built on demand after obstacles are added. The item
+     * indices match the order of getObstacles(). As with the asset index, a stale index is never
+     * cached.
+     * @return An immutable index of the obstacles.
+     */
+    public GeometryIndex<Obstacle> getObstacleIndex() {
+        GeometryIndex<Obstacle> index = obstacleIndex;
+        if (index == null) {
+            int version;
+            synchronized (indexLock) {
+                version = obstacleVersion;
+            }
+            index = new GeometryIndex<>(new ArrayList<>(getObstacles()), Obstacle::getGeometry);
+            synchronized (indexLock) {
+                if (version == obstacleVersion) {
+                    obstacleIndex = index;
+                }
             }
         }
-        return false;
+        return index;
+    }
+
+    /**
+     * Tests whether a point is inside an asset's area.
+     * @param destination The point to test.
+     * @return True if an asset polygon contains the point.
+     */
+    public boolean doesPointIntersectAsset(Coord2D destination) {
+        return getAssetIndex().findContaining(
+                destination.getLatitudeDegrees(), destination.getLongitudeDegrees()) >= 0;
+    }
+
+    /**
+     * Tests whether a point is inside an obstacle's area.
+     * @param destination The point to test.
+     * @return True if an obstacle polygon contains the point.
+     */
+    public boolean doesPointIntersectObstacle(Coord2D destination) {
+        return getObstacleIndex().findContaining(
+                destination.getLatitudeDegrees(), destination.getLongitudeDegrees()) >= 0;
+    }
+
+    /**
+     * Tests whether a step from one point to another reaches an asset, either by crossing one of
+     * its edges or by ending inside it.
+     * @param origin The start of the step.
+     * @param destination The end of the step.
+     * @return True if the step intersects an asset.
+     */
+    public boolean doesSegmentIntersectAsset(Coord2D origin, Coord2D destination) {
+        return getAssetIndex().findCrossing(
+                origin.getLatitudeDegrees(), origin.getLongitudeDegrees(),
+                destination.getLatitudeDegrees(), destination.getLongitudeDegrees()) >= 0;
+    }
+
+    /**
+     * Tests whether a step from one point to another crosses an obstacle, e.g., a road or a river,
+     * or ends inside one.
+     * @param origin The start of the step.
+     * @param destination The end of the step.
+     * @return True if the step intersects an obstacle.
+     */
+    public boolean doesSegmentIntersectObstacle(Coord2D origin, Coord2D destination) {
+        return getObstacleIndex().findCrossing(
+                origin.getLatitudeDegrees(), origin.getLongitudeDegrees(),
+                destination.getLatitudeDegrees(), destination.getLongitudeDegrees()) >= 0;
     }
 
     public void addPath(Path path) {
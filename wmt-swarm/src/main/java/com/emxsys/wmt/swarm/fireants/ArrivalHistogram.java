@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.swarm.fireants;
+
+import java.time.Duration;
+
+/**
+ * An ArrivalHistogram is an EnsembleReducer that counts, for each SpreadGrid cell and asset, the
+ * number of replicates that reached it within each arrival time bin. Arrivals later than the last
+ * bin are counted in the last bin. The memory used is fixed by the grid size and the number of
+ * bins, regardless of the number of replicates.
+ *
+ * @author Bruce Schubert
+ */
+public class ArrivalHistogram implements EnsembleReducer {
+
+    private final int numCells;
+    private final int numBins;
+    private final double binSeconds;
+    private final int[] cellCounts;
+    private final int[] assetCounts;
+    private int numReplicates;
+    private long numPaths;
+    private double sumPathLengths;
+    private double maxPathLength;
+
+    /**
+     * Constructor.
+     *
+     * @param numCells The number of cells in the ensemble's SpreadGrid.
+     * @param numAssets The number of assets in the environment.
+     * @param binWidth The duration of each arrival time bin; at least one millisecond.
+     * @param numBins The number of bins.
+     */
+    public ArrivalHistogram(int numCells, int numAssets, Duration binWidth, int numBins) {
+        if (numBins < 1 || binWidth.isNegative() || binWidth.toMillis() < 1) {
+            throw new IllegalArgumentException("ArrivalHistogram: numBins must be greater than zero and binWidth at least one millisecond.");
+        }
+        this.numCells = numCells;
+        this.numBins = numBins;
+        this.binSeconds = binWidth.toMillis() / 1000.0;
+        this.cellCounts = new int[numCells * numBins];
+        this.assetCounts = new int[numAssets * numBins];
+    }
+
+    @Override
+    public void accept(ReplicateResult result) {
+        numReplicates++;
+        addArrivals(result.getCellArrivals(), cellCounts);
+        addArrivals(result.getAssetArrivals(), assetCounts);
+        for (double length : result.getPathLengths()) {
+            numPaths++;
+            sumPathLengths += length;
+            maxPathLength = Math.max(maxPathLength, length);
+        }
+    }
+
+    private void addArrivals(double[] arrivals, int[] counts) {
+        int n = Math.min(arrivals.length, counts.length / numBins);
+        for (int i = 0; i < n; i++) {
+            if (!Double.isInfinite(arrivals[i])) {
+                int bin = Math.min((int) (arrivals[i] / binSeconds), numBins - 1);
+                counts[i * numBins + bin]++;
+            }
+        }
+    }
+
+    /**
+     * Gets the fraction of the replicates that reached a cell within the given time.
+     *
+     * @param cell The SpreadGrid cell index.
+     * @param time The time since the start of the replicates.
+     * @return The probability of arrival [0..1].
+     */
+    public double getCellProbability(int cell, Duration time) {
+        return getProbability(cellCounts, cell, time);
+    }
+
+    /**
+     * Gets the fraction of the replicates that reached an asset within the given time.
+     *
+     * @param asset The asset index.
+     * @param time The time since the start of the replicates.
+     * @return The probability of arrival [0..1].
+     */
+    public double getAssetProbability(int asset, Duration time) {
+        return getProbability(assetCounts, asset, time);
+    }
+
+    private double getProbability(int[] counts, int index, Duration time) {
+        if (numReplicates == 0) {
+            return 0;
+        }
+        int lastBin = Math.min((int) (time.toMillis() / 1000.0 / binSeconds), numBins - 1);
+        int count = 0;
+        for (int bin = 0; bin <= lastBin; bin++) {
+            count += counts[index * numBins + bin];
+        }
+        return count / (double) numReplicates;
+    }
+
+    /**
+     * Gets the arrival counts for a cell.
+     * @param cell The SpreadGrid cell index.
+     * @return A new array with the number of replicates that arrived within each bin.
+     */
+    public int[] getCellHistogram(int cell) {
+        int[] histogram = new int[numBins];
+        System.arraycopy(cellCounts, cell * numBins, histogram, 0, numBins);
+        return histogram;
+    }
+
+    /**
+     * Gets the arrival counts for an asset.
+     * @param asset The asset index.
+     * @return A new array with the number of replicates that arrived within each bin.
+     */
+    public int[] getAssetHistogram(int asset) {
+        int[] histogram = new int[numBins];
+        System.arraycopy(assetCounts, asset * numBins, histogram, 0, numBins);
+        return histogram;
+    }
+
+    public int getNumReplicates() {
+        return numReplicates;
+    }
+
+    public int getNumCells() {
+        return numCells;
+    }
+
+    public int getNumBins() {
+        return numBins;
+    }
+
+    /**
+     * Gets the mean length of the paths that reached an asset.
+     * @return The mean path length [meters].
+     */
+    public double getMeanPathLength() {
+        return numPaths == 0 ? 0 : sumPathLengths / numPaths;
+    }
+
+    /**
+     * Gets the longest path that reached an asset.
+     * @return The maximum path length [meters].
+     */
+    public double getMaxPathLength() {
+        return maxPathLength;
+    }
+
+}
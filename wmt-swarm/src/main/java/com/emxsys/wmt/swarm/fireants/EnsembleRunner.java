@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.swarm.fireants;
+
+import com.emxsys.gis.api.Coord2D;
+import static com.emxsys.wildfire.api.StdFuelMoistureScenario.VeryLowDead_FullyCuredHerb;
+import com.emxsys.wmt.swarm.api.Environment;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The EnsembleRunner runs Monte-Carlo replicates of a fire ant swarm on a bounded thread pool.
+ * Each replicate gets its own seed and perturbation, both drawn in order from the ensemble's seed,
+ * so an ensemble is reproducible regardless of the number of threads. The replicates share the
+ * fuel, terrain and weather samples of a single SpreadGrid, and their results are streamed to an
+ * EnsembleReducer as they complete rather than being kept in the Environment.
+ *
+ * @author Bruce Schubert
+ */
+public class EnsembleRunner {
+
+    /** Default number of ants in each replicate. */
+    public static final int DEFAULT_NUM_ANTS = 1000;
+    /** Default maximum number of steps in a replicate: 48 hours of 10 minute steps. */
+    public static final int DEFAULT_MAX_STEPS = 288;
+    private static final Logger logger = Logger.getLogger(EnsembleRunner.class.getName());
+
+    private final SpreadGrid grid;
+    private final Coord2D nest;
+    private int numAnts = DEFAULT_NUM_ANTS;
+    private Duration timeStep = SwarmSimulator.DEFAULT_TIME_STEP;
+    private int maxSteps = DEFAULT_MAX_STEPS;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates an ensemble runner for an environment using the LANDFIRE 40 fuel models and the
+     * environment's current time and weather.
+     *
+     * @param environment The environment.
+     * @param nest The starting location for the ants.
+     */
+    public EnsembleRunner(Environment environment, Coord2D nest) {
+        this(SpreadGrid.from(environment, Forage.getFuelModelProvider(),
+                VeryLowDead_FullyCuredHerb.getFuelMoisture(), SpreadGrid.DEFAULT_CELL_SIZE_METERS), nest);
+    }
+
+    /**
+     * Creates an ensemble runner for a SpreadGrid. The replicates start at the grid's weather time.
+     *
+     * @param grid The unperturbed fuel, terrain and fire spread lookups.
+     * @param nest The starting location for the ants.
+     */
+    public EnsembleRunner(SpreadGrid grid, Coord2D nest) {
+        this.grid = grid;
+        this.nest = nest;
+    }
+
+    /**
+     * Runs the replicates and waits for them to complete.
+     *
+     * @param numReplicates The number of replicates.
+     * @param seed The ensemble seed.
+     * @param perturbation The weather and fuel moisture variations.
+     * @param reducer The aggregator for the replicate results.
+     * @throws InterruptedException if interrupted while waiting; the remaining replicates are
+     * cancelled.
+     */
+    public void run(int numReplicates, long seed, Perturbation perturbation, EnsembleReducer reducer)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> futures = new ArrayList<>(numReplicates);
+        try {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int i = 0; i < numReplicates; i++) {
+                final int replicate = i;
+                final SplittableRandom replicateRandom = random.split();
+                futures.add(executor.submit(() -> {
+                    ReplicateResult result = runReplicate(replicate, replicateRandom, perturbation);
+                    if (Thread.currentThread().isInterrupted()) {
+                        // Cancelled; don't reduce a partial replicate
+                        return;
+                    }
+                    synchronized (reducer) {
+                        reducer.accept(result);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            logger.log(Level.SEVERE, "Replicate failed.", ex.getCause());
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ReplicateResult runReplicate(int replicate, SplittableRandom random, Perturbation perturbation) {
+        double[] variation = perturbation.sample(random);
+        SpreadGrid replicateGrid = grid.perturb(variation[0], variation[1], variation[2], false);
+        // The replicate grid is not shared, so the simulator can update it without a copy
+        SwarmSimulator swarm = new SwarmSimulator(replicateGrid, nest, numAnts, random.nextLong(), false, false);
+        swarm.setParallel(false);
+        swarm.run(timeStep, maxSteps);
+        return ReplicateResult.from(replicate, variation, swarm);
+    }
+
+    public SpreadGrid getSpreadGrid() {
+        return grid;
+    }
+
+    public int getNumAnts() {
+        return numAnts;
+    }
+
+    public void setNumAnts(int numAnts) {
+        this.numAnts = numAnts;
+    }
+
+    public Duration getTimeStep() {
+        return timeStep;
+    }
+
+    public void setTimeStep(Duration timeStep) {
+        this.timeStep = timeStep;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    public void setMaxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Sets the size of the thread pool used to run the replicates.
+     * @param numThreads The maximum number of concurrent replicates.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("numThreads must be greater than zero.");
+        }
+        this.numThreads = numThreads;
+    }
+
+}
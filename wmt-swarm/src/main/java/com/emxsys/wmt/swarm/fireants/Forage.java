@@ -52,6 +52,7 @@ import com.emxsys.wmt.swarm.api.Agent;
 import com.emxsys.wmt.swarm.api.GoalForage;
 import java.time.Duration;
 import java.util.List;
+import java.util.Random;
 import org.openide.util.Exceptions;
 import visad.CommonUnit;
 import static visad.CommonUnit.meter;
@@ -69,8 +70,18 @@ public class Forage extends GoalForage {
     private static final SurfaceFireProvider fireProvider = new SurfaceFireProvider();
     private static FuelModelProvider fuelModelProvider;
     private FuelModel lastFuelModel;
+    private final Random random;
 
     public Forage() {
+        this(new Random());
+    }
+
+    /**
+     * Constructs a Forage goal with a seeded random number generator for reproducible runs.
+     * @param random The generator used to choose the direction of travel.
+     */
+    public Forage(Random random) {
+        this.random = random;
     }
 
     @Override
@@ -114,13 +125,13 @@ public class Forage extends GoalForage {
         if (!extents.contains(destination)) {
             return Validation.Invalid;
         }
-        // >>>> Test for intersection with an asset (food) <<<<
-        if (agent.getEnvironment().doesPointIntersectAsset(destination)) {
+        // >>>> Test for intersection with an asset (food) along the step <<<<
+        if (agent.getEnvironment().doesSegmentIntersectAsset(agent.getLocation(), destination)) {
             return Validation.Success;
         }
 
-        // Test for intersection with obstacle
-        if (agent.getEnvironment().doesPointIntersectObstacle(destination)) {
+        // Test for crossing an obstacle, e.g., a fire break
+        if (agent.getEnvironment().doesSegmentIntersectObstacle(agent.getLocation(), destination)) {
             return Validation.Invalid;
         }
 
@@ -136,7 +147,7 @@ public class Forage extends GoalForage {
     }
 
     private Real chooseDirection() {
-        return new Real(ANGLE, Math.random() * 360.);
+        return new Real(ANGLE, random.nextDouble() * 360.);
     }
 
     /**
@@ -147,17 +158,7 @@ public class Forage extends GoalForage {
      * @throws UnitException
      */
     private Real computeSpreadDistance(Agent agent, long millis, Real direction) throws UnitException, VisADException {
-        if (fuelModelProvider == null) {
-            List<FuelModelProvider> providers = FuelModelProviderFactory.getInstances();
-            for (FuelModelProvider provider : providers) {
-                if (provider.getClass().getName().equals("com.emxsys.wmt.landfire.Std40FuelModelProvider")) {
-                    fuelModelProvider = provider;
-                }
-            }
-            if (fuelModelProvider == null) {
-                throw new IllegalStateException("com.emxsys.wmt.landfire.Std40FuelModelProvider not found.");
-            }
-        }
+        getFuelModelProvider();
         Coord2D location = agent.getLocation();
         if (lastFuelModel == null) {
             lastFuelModel = fuelModelProvider.getFuelModel(location);
@@ -177,6 +178,25 @@ public class Forage extends GoalForage {
         return new Real(DISTANCE, meters);
     }
 
+    /**
+     * Gets the LANDFIRE 40 fuel model provider used by the fire ants.
+     * @return The Std40FuelModelProvider.
+     */
+    static synchronized FuelModelProvider getFuelModelProvider() {
+        if (fuelModelProvider == null) {
+            List<FuelModelProvider> providers = FuelModelProviderFactory.getInstances();
+            for (FuelModelProvider provider : providers) {
+                if (provider.getClass().getName().equals("com.emxsys.wmt.landfire.Std40FuelModelProvider")) {
+                    fuelModelProvider = provider;
+                }
+            }
+            if (fuelModelProvider == null) {
+                throw new IllegalStateException("com.emxsys.wmt.landfire.Std40FuelModelProvider not found.");
+            }
+        }
+        return fuelModelProvider;
+    }
+
     private class UnburnableException extends RuntimeException {
 
         public UnburnableException(String message) {
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.swarm.fireants;
+
+import java.util.SplittableRandom;
+
+/**
+ * A Perturbation specifies the random variations of the weather and fuel moisture applied to each
+ * replicate of an ensemble. Each variation is sampled uniformly from [-variance, +variance].
+ *
+ * @author Bruce Schubert
+ */
+public class Perturbation {
+
+    /** No perturbation: every replicate uses the unmodified weather and fuel moisture. */
+    public static final Perturbation NONE = new Perturbation(0, 0, 0);
+
+    private final double moistureVariance;
+    private final double windSpeedVariance;
+    private final double windDirVariance;
+
+    /**
+     * Constructor.
+     *
+     * @param moistureVariance The fraction by which the fuel moistures can vary, e.g., 0.1 = 10%.
+     * @param windSpeedVariance The fraction by which the wind speeds can vary, e.g., 0.2 = 20%.
+     * @param windDirVariance The amount by which the wind directions can vary [degrees].
+     */
+    public Perturbation(double moistureVariance, double windSpeedVariance, double windDirVariance) {
+        if (moistureVariance < 0 || moistureVariance >= 1 || windSpeedVariance < 0 || windDirVariance < 0) {
+            throw new IllegalArgumentException("Perturbation: variances must be non-negative and fractions less than one.");
+        }
+        this.moistureVariance = moistureVariance;
+        this.windSpeedVariance = windSpeedVariance;
+        this.windDirVariance = windDirVariance;
+    }
+
+    /**
+     * Samples the variations for one replicate.
+     *
+     * @param random The replicate's random number generator.
+     * @return A new array containing the moisture scale, wind speed scale and wind direction
+     * offset, in that order.
+     */
+    double[] sample(SplittableRandom random) {
+        return new double[]{
+            1 + moistureVariance * (2 * random.nextDouble() - 1),
+            Math.max(0, 1 + windSpeedVariance * (2 * random.nextDouble() - 1)),
+            windDirVariance * (2 * random.nextDouble() - 1)};
+    }
+
+    public double getMoistureVariance() {
+        return moistureVariance;
+    }
+
+    public double getWindSpeedVariance() {
+        return windSpeedVariance;
+    }
+
+    public double getWindDirVariance() {
+        return windDirVariance;
+    }
+
+    @Override
+    public String toString() {
+        return "Perturbation{" + "moisture=" + moistureVariance + ", windSpeed=" + windSpeedVariance + ", windDir=" + windDirVariance + '}';
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.swarm.fireants;
+
+/**
+ * The result of one replicate of an ensemble. The arrays belong to the replicate's simulator and
+ * are discarded after the result has been reduced.
+ *
+ * @author Bruce Schubert
+ */
+public class ReplicateResult {
+
+    private final int replicate;
+    private final double[] perturbation;
+    private final double[] cellArrivals;
+    private final double[] assetArrivals;
+    private final double[] pathLengths;
+    private final int numAnts;
+
+    static ReplicateResult from(int replicate, double[] perturbation, SwarmSimulator swarm) {
+        int numFinished = 0;
+        for (int i = 0; i < swarm.getNumAnts(); i++) {
+            if (swarm.getState(i) == SwarmSimulator.FINISHED) {
+                numFinished++;
+            }
+        }
+        double[] pathLengths = new double[numFinished];
+        for (int i = 0, j = 0; i < swarm.getNumAnts(); i++) {
+            if (swarm.getState(i) == SwarmSimulator.FINISHED) {
+                pathLengths[j++] = swarm.getDistanceMeters(i);
+            }
+        }
+        return new ReplicateResult(replicate, perturbation, swarm.getCellArrivals(),
+                swarm.getAssetArrivals(), pathLengths, swarm.getNumAnts());
+    }
+
+    ReplicateResult(int replicate, double[] perturbation, double[] cellArrivals,
+                    double[] assetArrivals, double[] pathLengths, int numAnts) {
+        this.replicate = replicate;
+        this.perturbation = perturbation;
+        this.cellArrivals = cellArrivals;
+        this.assetArrivals = assetArrivals;
+        this.pathLengths = pathLengths;
+        this.numAnts = numAnts;
+    }
+
+    /**
+     * Gets the replicate number.
+     * @return The index of the replicate within the ensemble.
+     */
+    public int getReplicate() {
+        return replicate;
+    }
+
+    public double getMoistureScale() {
+        return perturbation[0];
+    }
+
+    public double getWindSpeedScale() {
+        return perturbation[1];
+    }
+
+    public double getWindDirOffset() {
+        return perturbation[2];
+    }
+
+    /**
+     * Gets the earliest arrival times at each grid cell; see SwarmSimulator.getCellArrivals.
+     * @return The seconds since the start of the replicate, indexed by SpreadGrid cell.
+     */
+    public double[] getCellArrivals() {
+        return cellArrivals;
+    }
+
+    /**
+     * Gets the earliest arrival times at each asset; see SwarmSimulator.getAssetArrivals.
+     * @return The seconds since the start of the replicate, indexed by asset.
+     */
+    public double[] getAssetArrivals() {
+        return assetArrivals;
+    }
+
+    /**
+     * Gets the path lengths of the ants that reached an asset.
+     * @return The path lengths [meters].
+     */
+    public double[] getPathLengths() {
+        return pathLengths;
+    }
+
+    public int getNumAnts() {
+        return numAnts;
+    }
+
+}
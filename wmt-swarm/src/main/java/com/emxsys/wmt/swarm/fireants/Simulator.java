@@ -34,10 +34,14 @@ import com.emxsys.gis.api.GeoCoord2D;
 import com.emxsys.gis.api.GeoCoord3D;
 import com.emxsys.gis.api.GeoSector;
 import com.emxsys.weather.api.DiurnalWeatherProvider;
+import static com.emxsys.wildfire.api.StdFuelMoistureScenario.VeryLowDead_FullyCuredHerb;
 import com.emxsys.wmt.swarm.api.Asset;
 import com.emxsys.wmt.swarm.api.Path;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *
@@ -45,6 +49,7 @@ import java.util.ArrayList;
  */
 public class Simulator {
 
+    private static final Logger logger = Logger.getLogger(Simulator.class.getName());
     private final World world = new World();
 
     private Simulator() {
@@ -83,6 +88,57 @@ public class Simulator {
         }
     }
 
+    /**
+     * Runs the fire ants with the data-oriented SwarmSimulator engine. The paths are returned to
+     * the caller and are not added to the world.
+     *
+     * @param numAnts The number of ants.
+     * @param seed The seed for the random number generators.
+     * @param recordPaths If true, the ants record their paths.
+     * @return The paths of the ants that reached an asset; empty if the paths were not recorded.
+     */
+    public List<Path> run(int numAnts, long seed, boolean recordPaths) {
+        return run(numAnts, seed, recordPaths, false);
+    }
+
+    /**
+     * Runs the fire ants with the data-oriented SwarmSimulator engine.
+     *
+     * @param numAnts The number of ants.
+     * @param seed The seed for the random number generators.
+     * @param recordPaths If true, the ants record their paths.
+     * @param addToWorld If true, the recorded paths are also added to the world.
+     * @return The paths of the ants that reached an asset; empty if the paths were not recorded.
+     */
+    public List<Path> run(int numAnts, long seed, boolean recordPaths, boolean addToWorld) {
+        SpreadGrid grid = SpreadGrid.from(world, Forage.getFuelModelProvider(),
+                VeryLowDead_FullyCuredHerb.getFuelMoisture(), SpreadGrid.DEFAULT_CELL_SIZE_METERS);
+        SwarmSimulator swarm = new SwarmSimulator(grid, world.getNest(), numAnts, seed, recordPaths);
+
+        // Process until all ants have reached their goal (or died)
+        int counter = 0;
+        while (swarm.getNumWorking() > 0 && !Thread.currentThread().isInterrupted()) {
+            counter++;
+            int numWorking = swarm.step(SwarmSimulator.DEFAULT_TIME_STEP);
+            if (counter % 100 == 0) {
+                logger.log(Level.FINE, "Step {0}: {1} working", new Object[]{counter, numWorking});
+            }
+        }
+        List<Path> paths = swarm.getPaths();
+        if (addToWorld) {
+            for (Path path : paths) {
+                world.addPath(path);
+            }
+        }
+        logger.log(Level.FINE, "{0} of {1} ants completed a path in {2} steps",
+                new Object[]{paths.size(), numAnts, counter});
+        return paths;
+    }
+
+    World getWorld() {
+        return world;
+    }
+
     public static Simulator getInstance() {
         return SimulatorHolder.INSTANCE;
     }
@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.swarm.fireants;
+
+import com.emxsys.gis.api.Box;
+import com.emxsys.gis.api.GeoCoord2D;
+import com.emxsys.gis.api.Terrain;
+import static com.emxsys.visad.GeneralUnit.mph;
+import com.emxsys.weather.api.Weather;
+import com.emxsys.wildfire.api.FuelModel;
+import com.emxsys.wildfire.api.FuelModelProvider;
+import com.emxsys.wildfire.api.FuelMoisture;
+import com.emxsys.wildfire.behavior.FuelModelConstants;
+import com.emxsys.wildfire.behavior.SurfaceFireKernel;
+import static com.emxsys.wildfire.behavior.SurfaceFireKernel.*;
+import com.emxsys.wmt.swarm.api.Environment;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import visad.VisADException;
+
+/**
+ * A SpreadGrid is a raster of the fuel, terrain and fire spread within an Environment's extents.
+ * The fuel models and terrain are sampled once; the rate of spread ellipses are recomputed for
+ * all cells at once whenever the weather is updated. The grid is read-only between weather
+ * updates and can be read by any number of threads, but updateWeather rewrites the spread
+ * ellipses in place, so a grid whose weather is updated must not be shared. Each SwarmSimulator
+ * works on its own copy of the grid.
+ * <p>
+ * A copy of the grid (see copy and perturb) shares the fuel, terrain and hourly weather samples
+ * with the original but has its own fuel moistures, wind adjustments and spread ellipses.
+ *
+ * @author Bruce Schubert
+ */
+public class SpreadGrid {
+
+    /** Default cell size: 100 meters */
+    public static final double DEFAULT_CELL_SIZE_METERS = 100;
+    /** The number of cells (in each direction) that share a weather sample. */
+    static final int WEATHER_STRIDE = 10;
+    /** Mean earth radius used to size the cells. */
+    private static final double EARTH_RADIUS_METERS = 6371009;
+    /** Number of cells computed per parallel task. */
+    private static final int TILE_SIZE = 4096;
+    private static final Logger logger = Logger.getLogger(SpreadGrid.class.getName());
+
+    private final Environment environment;
+    private final double south;
+    private final double west;
+    private final double north;
+    private final double east;
+    private final double dLat;
+    private final double dLon;
+    private final int nrows;
+    private final int ncols;
+    private final FuelModelConstants[] fuels;
+    private final int[] fuelIndex;
+    private final double[] slopes;
+    private final double[] aspects;
+    /** Hourly wind speed [0] and direction [1] samples shared by the perturbed grids. */
+    private final ConcurrentHashMap<ZonedDateTime, double[][]> winds;
+    private final double[] moistures;
+    private final double windSpeedScale;
+    private final double windDirOffset;
+    private final double[][] fire;
+    private ZonedDateTime weatherTime;
+
+    /**
+     * Creates a SpreadGrid for the environment's extents with cells of approximately the given
+     * size. The weather is sampled at the environment's current time.
+     *
+     * @param environment The environment providing the extents, terrain and weather.
+     * @param provider The fuel model provider.
+     * @param moisture The fuel moisture used for all the cells.
+     * @param cellSizeMeters The approximate size of a cell [meters].
+     * @return A new SpreadGrid.
+     */
+    public static SpreadGrid from(Environment environment, FuelModelProvider provider,
+                                  FuelMoisture moisture, double cellSizeMeters) {
+        SpreadGrid grid = new SpreadGrid(environment, provider, moisture, cellSizeMeters);
+        grid.updateWeather(environment.getTime(), true);
+        return grid;
+    }
+
+    private SpreadGrid(Environment environment, FuelModelProvider provider,
+                       FuelMoisture moisture, double cellSizeMeters) {
+        if (cellSizeMeters <= 0) {
+            throw new IllegalArgumentException("cellSizeMeters must be greater than zero.");
+        }
+        this.environment = environment;
+        Box extents = environment.getExtents();
+        double lat1 = extents.getSouthwest().getLatitudeDegrees();
+        double lat2 = extents.getNortheast().getLatitudeDegrees();
+        double lon1 = extents.getSouthwest().getLongitudeDegrees();
+        double lon2 = extents.getNortheast().getLongitudeDegrees();
+        this.south = Math.min(lat1, lat2);
+        this.north = Math.max(lat1, lat2);
+        this.west = Math.min(lon1, lon2);
+        this.east = Math.max(lon1, lon2);
+
+        double metersPerDegree = Math.toRadians(1) * EARTH_RADIUS_METERS;
+        double metersPerDegreeLon = metersPerDegree * Math.cos(Math.toRadians((south + north) / 2));
+        this.nrows = Math.max(1, (int) Math.ceil((north - south) * metersPerDegree / cellSizeMeters));
+        this.ncols = Math.max(1, (int) Math.ceil((east - west) * metersPerDegreeLon / cellSizeMeters));
+        this.dLat = (north - south) / nrows;
+        this.dLon = (east - west) / ncols;
+
+        final int numCells = nrows * ncols;
+        this.fuelIndex = new int[numCells];
+        this.slopes = new double[numCells];
+        this.aspects = new double[numCells];
+        this.winds = new ConcurrentHashMap<>();
+        this.windSpeedScale = 1;
+        this.windDirOffset = 0;
+        this.fire = new double[NUM_OUTPUTS][numCells];
+        this.moistures = new double[]{
+            moisture.getDead1HrFuelMoisture().getValue(),
+            moisture.getDead10HrFuelMoisture().getValue(),
+            moisture.getDead100HrFuelMoisture().getValue(),
+            moisture.getLiveHerbFuelMoisture().getValue(),
+            moisture.getLiveWoodyFuelMoisture().getValue()};
+
+        // Sample the fuel models with one batch request
+        double[] lats = new double[numCells];
+        double[] lons = new double[numCells];
+        for (int i = 0; i < numCells; i++) {
+            lats[i] = getLatitude(i);
+            lons[i] = getLongitude(i);
+        }
+        FuelModel[] models = provider.getFuelModels(lats, lons);
+        ArrayList<FuelModelConstants> constants = new ArrayList<>();
+        HashMap<Integer, Integer> modelIndex = new HashMap<>();
+        for (int i = 0; i < numCells; i++) {
+            FuelModel model = models[i];
+            if (model == null || !model.isBurnable()) {
+                fuelIndex[i] = -1;
+                continue;
+            }
+            fuelIndex[i] = modelIndex.computeIfAbsent(model.getModelNo(), (modelNo) -> {
+                constants.add(FuelModelConstants.forModelNo(modelNo));
+                return constants.size() - 1;
+            });
+        }
+        this.fuels = constants.toArray(new FuelModelConstants[constants.size()]);
+
+        // Sample the terrain
+        for (int i = 0; i < numCells; i++) {
+            if (fuelIndex[i] < 0) {
+                continue;
+            }
+            Terrain terrain = environment.getTerrain(GeoCoord2D.fromDegrees(lats[i], lons[i]));
+            slopes[i] = terrain.getSlopeDegrees();
+            aspects[i] = terrain.getAspectDegrees();
+        }
+    }
+
+    /**
+     * Creates a copy of another grid with its own fuel moisture and wind adjustments.
+     */
+    private SpreadGrid(SpreadGrid other, double moistureScale, double windSpeedScale, double windDirOffset) {
+        this.environment = other.environment;
+        this.south = other.south;
+        this.west = other.west;
+        this.north = other.north;
+        this.east = other.east;
+        this.dLat = other.dLat;
+        this.dLon = other.dLon;
+        this.nrows = other.nrows;
+        this.ncols = other.ncols;
+        this.fuels = other.fuels;
+        this.fuelIndex = other.fuelIndex;
+        this.slopes = other.slopes;
+        this.aspects = other.aspects;
+        this.winds = other.winds;
+        this.moistures = new double[other.moistures.length];
+        for (int i = 0; i < moistures.length; i++) {
+            moistures[i] = other.moistures[i] * moistureScale;
+        }
+        this.windSpeedScale = other.windSpeedScale * windSpeedScale;
+        this.windDirOffset = other.windDirOffset + windDirOffset;
+        this.fire = new double[NUM_OUTPUTS][nrows * ncols];
+    }
+
+    /**
+     * Creates a copy of this grid with its own spread ellipses, so the copy's weather can be
+     * updated independently of this grid. The copy shares the fuel, terrain and weather samples
+     * with this grid.
+     *
+     * @return A new SpreadGrid with this grid's weather time and rates of spread.
+     */
+    public SpreadGrid copy() {
+        SpreadGrid grid = new SpreadGrid(this, 1, 1, 0);
+        for (int i = 0; i < NUM_OUTPUTS; i++) {
+            System.arraycopy(fire[i], 0, grid.fire[i], 0, fire[i].length);
+        }
+        grid.weatherTime = weatherTime;
+        return grid;
+    }
+
+    /**
+     * Creates a copy of this grid with scaled fuel moistures and adjusted winds, e.g., for an
+     * ensemble replicate. The copy shares the fuel, terrain and weather samples with this grid and
+     * has its spread ellipses computed for this grid's weather time.
+     *
+     * @param moistureScale The fuel moisture multiplier.
+     * @param windSpeedScale The wind speed multiplier.
+     * @param windDirOffset The wind direction offset [degrees].
+     * @param parallel If true, the spread ellipses are computed in parallel.
+     * @return A new SpreadGrid.
+     */
+    public SpreadGrid perturb(double moistureScale, double windSpeedScale, double windDirOffset,
+                              boolean parallel) {
+        SpreadGrid grid = new SpreadGrid(this, moistureScale, windSpeedScale, windDirOffset);
+        grid.updateWeather(weatherTime, parallel);
+        return grid;
+    }
+
+    /**
+     * Recomputes the rate of spread ellipses for all the cells with the weather at the given time.
+     * The weather is sampled from the environment once per hour and shared with the copies of
+     * this grid. The spread ellipses are rewritten in place, so the grid must not be read by
+     * other threads during the update.
+     *
+     * @param time The simulation time.
+     * @param parallel If true, the cells are computed in parallel.
+     */
+    public void updateWeather(ZonedDateTime time, boolean parallel) {
+        final double[][] wind = winds.computeIfAbsent(time.truncatedTo(ChronoUnit.HOURS), this::sampleWinds);
+        final double[] windSpds = wind[0];
+        final double[] windDirs = wind[1];
+        final int numCells = nrows * ncols;
+        final int numTiles = (numCells + TILE_SIZE - 1) / TILE_SIZE;
+        IntStream tiles = IntStream.range(0, numTiles);
+        (parallel ? tiles.parallel() : tiles).forEach(tile -> {
+            int from = tile * TILE_SIZE;
+            int to = Math.min(from + TILE_SIZE, numCells);
+            for (int i = from; i < to; i++) {
+                if (fuelIndex[i] < 0) {
+                    continue;
+                }
+                SurfaceFireKernel.computeFireBehavior(fuels[fuelIndex[i]],
+                        moistures[0], moistures[1], moistures[2], moistures[3], moistures[4],
+                        windSpds[i] * windSpeedScale, windDirs[i] + windDirOffset,
+                        slopes[i], aspects[i], fire, i);
+            }
+        });
+        weatherTime = time;
+    }
+
+    /**
+     * Samples the wind speeds [mph] and directions [degrees] from the environment's weather.
+     */
+    private double[][] sampleWinds(ZonedDateTime time) {
+        final double[] windSpds = new double[nrows * ncols];
+        final double[] windDirs = new double[nrows * ncols];
+        // Weather varies slowly in space: sample every WEATHER_STRIDE cells
+        for (int row = 0; row < nrows; row += WEATHER_STRIDE) {
+            for (int col = 0; col < ncols; col += WEATHER_STRIDE) {
+                int rowCenter = Math.min(row + WEATHER_STRIDE / 2, nrows - 1);
+                int colCenter = Math.min(col + WEATHER_STRIDE / 2, ncols - 1);
+                Weather weather = environment.getWeather(time, GeoCoord2D.fromDegrees(
+                        south + (rowCenter + 0.5) * dLat, west + (colCenter + 0.5) * dLon));
+                double windSpd = 0;
+                double windDir = 0;
+                try {
+                    windSpd = weather.getWindSpeed().getValue(mph);
+                    windDir = weather.getWindDirection().getValue();
+                } catch (VisADException ex) {
+                    logger.log(Level.SEVERE, "Cannot convert the wind speed.", ex);
+                }
+                for (int r = row; r < Math.min(row + WEATHER_STRIDE, nrows); r++) {
+                    for (int c = col; c < Math.min(col + WEATHER_STRIDE, ncols); c++) {
+                        windSpds[r + c * nrows] = windSpd;
+                        windDirs[r + c * nrows] = windDir;
+                    }
+                }
+            }
+        }
+        return new double[][]{windSpds, windDirs};
+    }
+
+    /**
+     * Gets the time of the weather used to compute the rates of spread.
+     * @return The time of the last weather update.
+     */
+    public ZonedDateTime getWeatherTime() {
+        return weatherTime;
+    }
+
+    /**
+     * Gets the index of the cell containing a coordinate.
+     * @param lat Latitude [degrees].
+     * @param lon Longitude [degrees].
+     * @return The cell index, or -1 if the coordinate is outside the grid.
+     */
+    public int getCellIndex(double lat, double lon) {
+        if (!(lat >= south && lat <= north && lon >= west && lon <= east)) {
+            return -1;
+        }
+        int row = Math.min((int) ((lat - south) / dLat), nrows - 1);
+        int col = Math.min((int) ((lon - west) / dLon), ncols - 1);
+        return row + col * nrows;
+    }
+
+    /**
+     * Tests whether a cell contains a burnable fuel model.
+     * @param cell The cell index.
+     * @return False if the cell is outside the grid or not burnable.
+     */
+    public boolean isBurnable(int cell) {
+        return cell >= 0 && fuelIndex[cell] >= 0 && fire[ROS_MAX][cell] > 0;
+    }
+
+    /**
+     * Gets the rate of spread along an azimuth within a cell. From FireLib 1.04, firelib.c by
+     * Collin D. Bevins; see SurfaceFire.getRateOfSpreadAtAzimuth.
+     *
+     * @param cell The cell index.
+     * @param azimuth A true north azimuth [degrees].
+     * @return The rate of spread [ft/min].
+     */
+    public double getRateOfSpread(int cell, double azimuth) {
+        if (!isBurnable(cell)) {
+            return 0;
+        }
+        double eccentricity = fire[ECCENTRICITY][cell];
+        double dir = Math.abs(fire[DIR_MAX_SPREAD][cell] - azimuth) % 360;
+        if (dir > 180) {
+            dir = 360 - dir;
+        }
+        double denom = 1. - eccentricity * Math.cos(Math.toRadians(dir));
+        if (denom > 0) {
+            return fire[ROS_MAX][cell] * (1. - eccentricity) / denom;
+        } else {
+            return fire[ROS_NO_WIND_NO_SLOPE][cell];
+        }
+    }
+
+    /**
+     * Gets the latitude of a cell center.
+     * @param cell The cell index.
+     * @return Latitude [degrees].
+     */
+    public double getLatitude(int cell) {
+        return south + (cell % nrows + 0.5) * dLat;
+    }
+
+    /**
+     * Gets the longitude of a cell center.
+     * @param cell The cell index.
+     * @return Longitude [degrees].
+     */
+    public double getLongitude(int cell) {
+        return west + (cell / nrows + 0.5) * dLon;
+    }
+
+    public int getNumRows() {
+        return nrows;
+    }
+
+    public int getNumColumns() {
+        return ncols;
+    }
+
+    public int getNumCells() {
+        return nrows * ncols;
+    }
+
+    public Environment getEnvironment() {
+        return environment;
+    }
+
+}
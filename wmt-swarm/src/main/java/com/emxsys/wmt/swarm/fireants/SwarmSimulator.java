@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.swarm.fireants;
+
+import com.emxsys.gis.api.Box;
+import com.emxsys.gis.api.Coord2D;
+import com.emxsys.gis.api.GeoCoord2D;
+import com.emxsys.gis.api.index.GeometryIndex;
+import com.emxsys.wmt.swarm.api.Asset;
+import com.emxsys.wmt.swarm.api.Environment;
+import com.emxsys.wmt.swarm.api.Obstacle;
+import com.emxsys.wmt.swarm.api.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The SwarmSimulator is a data-oriented fire ant simulation engine. The state of each ant is
+ * stored in primitive arrays indexed by ant, and the ants are stepped in parallel chunks; each
+ * chunk has its own random number generator so that a run is reproducible for a given seed
+ * regardless of the number of threads. The fuel, terrain and rates of spread are looked up in the
+ * simulator's own copy of a SpreadGrid. The ants follow the same foraging rules as the Forage goal: a random
+ * heading, a step sized by the rate of spread along that heading, and up to MAX_TRIES attempts
+ * to find a valid destination before the ant dies.
+ * <p>
+ * The simulator keeps its own clock, starting at the grid's weather time, and updates the weather
+ * of its own grid, so any number of simulators can share an Environment and a SpreadGrid. Besides the ant state it records the earliest arrival time
+ * at each grid cell and at each asset.
+ *
+ * @author Bruce Schubert
+ */
+public class SwarmSimulator {
+
+    /** The ant is still foraging. */
+    public static final byte WORKING = 0;
+    /** The ant has reached an asset. */
+    public static final byte FINISHED = 1;
+    /** The ant is trapped or has left the environment. */
+    public static final byte DEAD = 2;
+    /** Default time step: 10 minutes */
+    public static final Duration DEFAULT_TIME_STEP = Duration.ofMinutes(10);
+    /** The number of attempts to find a valid destination; see GoalForage. */
+    static final int MAX_TRIES = 20;
+    /** Number of ants stepped per parallel task. */
+    static final int CHUNK_SIZE = 4096;
+    /** Equatorial radius used for the great circle computations; see Globe. */
+    private static final double EARTH_RADIUS_METERS = 6378137;
+    /** Converts ft/min to m/s. */
+    private static final double FT_MIN_TO_M_S = 0.3048 / 60;
+
+    private final Environment environment;
+    private final SpreadGrid grid;
+    private final int numAnts;
+    private final double[] lats;
+    private final double[] lons;
+    private final double[] elapsedSeconds;
+    private final double[] distances;
+    private final byte[] states;
+    private final double[][] paths;
+    private final int[] pathLengths;
+    private final SplittableRandom[] randoms;
+    private final GeometryIndex<Asset> assets;
+    private final GeometryIndex<Obstacle> obstacles;
+    private final double[] cellArrivals;
+    private final double[] assetArrivals;
+    private final double south;
+    private final double west;
+    private final double north;
+    private final double east;
+    private int numWorking;
+    private ZonedDateTime time;
+    private double simulationSeconds;
+    private boolean parallel = true;
+
+    /**
+     * Constructs a swarm of ants at the nest.
+     *
+     * @param grid The fuel, terrain and fire spread lookups for the environment; the simulator
+     * works on a copy (see SpreadGrid.copy), so the grid isn't changed by the simulation.
+     * @param nest The starting location for all the ants.
+     * @param numAnts The number of ants.
+     * @param seed The seed for the random number generators.
+     * @param recordPaths If true, the ants record their paths; see getPaths().
+     */
+    public SwarmSimulator(SpreadGrid grid, Coord2D nest, int numAnts, long seed, boolean recordPaths) {
+        this(grid, nest, numAnts, seed, recordPaths, true);
+    }
+
+    /**
+     * Constructs a swarm of ants at the nest.
+     *
+     * @param copyGrid If false, the simulator updates the weather of the given grid, which must
+     * not be shared, e.g., a perturbed grid.
+     */
+    SwarmSimulator(SpreadGrid grid, Coord2D nest, int numAnts, long seed, boolean recordPaths, boolean copyGrid) {
+        this.grid = copyGrid ? grid.copy() : grid;
+        this.environment = grid.getEnvironment();
+        this.numAnts = numAnts;
+        this.lats = new double[numAnts];
+        this.lons = new double[numAnts];
+        this.elapsedSeconds = new double[numAnts];
+        this.distances = new double[numAnts];
+        this.states = new byte[numAnts];
+        this.paths = recordPaths ? new double[numAnts][] : null;
+        this.pathLengths = recordPaths ? new int[numAnts] : null;
+        Arrays.fill(lats, nest.getLatitudeDegrees());
+        Arrays.fill(lons, nest.getLongitudeDegrees());
+        if (recordPaths) {
+            for (int i = 0; i < numAnts; i++) {
+                paths[i] = new double[16];
+                addToPath(i);
+            }
+        }
+        this.numWorking = numAnts;
+        this.time = grid.getWeatherTime();
+
+        // Split the random number generators up front so each chunk's sequence is fixed
+        SplittableRandom random = new SplittableRandom(seed);
+        this.randoms = new SplittableRandom[(numAnts + CHUNK_SIZE - 1) / CHUNK_SIZE];
+        for (int i = 0; i < randoms.length; i++) {
+            randoms[i] = random.split();
+        }
+
+        Box extents = environment.getExtents();
+        double lat1 = extents.getSouthwest().getLatitudeDegrees();
+        double lat2 = extents.getNortheast().getLatitudeDegrees();
+        double lon1 = extents.getSouthwest().getLongitudeDegrees();
+        double lon2 = extents.getNortheast().getLongitudeDegrees();
+        this.south = Math.min(lat1, lat2);
+        this.north = Math.max(lat1, lat2);
+        this.west = Math.min(lon1, lon2);
+        this.east = Math.max(lon1, lon2);
+        this.assets = environment.getAssetIndex();
+        this.obstacles = environment.getObstacleIndex();
+        this.cellArrivals = new double[grid.getNumCells()];
+        this.assetArrivals = new double[assets.size()];
+        Arrays.fill(cellArrivals, Double.POSITIVE_INFINITY);
+        Arrays.fill(assetArrivals, Double.POSITIVE_INFINITY);
+        int nestCell = grid.getCellIndex(nest.getLatitudeDegrees(), nest.getLongitudeDegrees());
+        if (nestCell >= 0) {
+            cellArrivals[nestCell] = 0;
+        }
+    }
+
+    /**
+     * Advances the clock by the time step and moves all the working ants. The rates of spread are
+     * recomputed whenever the clock crosses into a new hour.
+     *
+     * @param timeStep The duration of the step.
+     * @return The number of ants still working.
+     */
+    public int step(Duration timeStep) {
+        time = time.plus(timeStep);
+        if (!time.truncatedTo(ChronoUnit.HOURS).equals(grid.getWeatherTime().truncatedTo(ChronoUnit.HOURS))) {
+            grid.updateWeather(time, parallel);
+        }
+        final double seconds = timeStep.toMillis() / 1000.;
+        simulationSeconds += seconds;
+        IntStream chunks = IntStream.range(0, randoms.length);
+        numWorking = (parallel ? chunks.parallel() : chunks).map(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, numAnts);
+            return stepChunk(from, to, seconds, randoms[chunk]);
+        }).sum();
+        return numWorking;
+    }
+
+    /**
+     * Steps the simulation until all the ants have finished or died, until the maximum number of
+     * steps has been taken, or until the current thread is interrupted. The interrupt status is
+     * left set so the caller can discard the incomplete run.
+     *
+     * @param timeStep The duration of each step.
+     * @param maxSteps The maximum number of steps.
+     * @return The number of steps taken.
+     */
+    public int run(Duration timeStep, int maxSteps) {
+        int counter = 0;
+        while (numWorking > 0 && counter < maxSteps && !Thread.currentThread().isInterrupted()) {
+            step(timeStep);
+            counter++;
+        }
+        return counter;
+    }
+
+    private int stepChunk(int from, int to, double seconds, SplittableRandom random) {
+        int working = 0;
+        for (int i = from; i < to; i++) {
+            if (states[i] != WORKING) {
+                continue;
+            }
+            stepAnt(i, seconds, random);
+            if (states[i] == WORKING) {
+                working++;
+            }
+        }
+        return working;
+    }
+
+    private void stepAnt(int i, double seconds, SplittableRandom random) {
+        final double lat = lats[i];
+        final double lon = lons[i];
+        final int cell = grid.getCellIndex(lat, lon);
+        if (!grid.isBurnable(cell)) {
+            states[i] = DEAD;
+            return;
+        }
+        for (int tries = 0; tries < MAX_TRIES; tries++) {
+            // Choose a direction to travel and the distance along the azimuth
+            double azimuth = random.nextDouble() * 360.;
+            double meters = grid.getRateOfSpread(cell, azimuth) * FT_MIN_TO_M_S * seconds;
+            double destLat = lat;
+            double destLon = lon;
+            if (meters > 0) {
+                // Great circle end position; see LatLon.greatCircleEndPosition
+                double phi = Math.toRadians(lat);
+                double az = Math.toRadians(azimuth);
+                double d = meters / EARTH_RADIUS_METERS;
+                double sinPhi2 = Math.sin(phi) * Math.cos(d) + Math.cos(phi) * Math.sin(d) * Math.cos(az);
+                double phi2 = Math.asin(sinPhi2);
+                double dLambda = Math.atan2(Math.sin(az) * Math.sin(d) * Math.cos(phi),
+                        Math.cos(d) - Math.sin(phi) * sinPhi2);
+                destLat = Math.toDegrees(phi2);
+                destLon = lon + Math.toDegrees(dLambda);
+            }
+            // Validate the destination
+            if (!(destLat >= south && destLat <= north && destLon >= west && destLon <= east)) {
+                continue;
+            }
+            int asset = assets.findCrossing(lat, lon, destLat, destLon);
+            if (asset >= 0) {
+                moveTo(i, destLat, destLon, meters, seconds);
+                // All the ants moving in this step write the same time, so the race is benign
+                if (simulationSeconds < assetArrivals[asset]) {
+                    assetArrivals[asset] = simulationSeconds;
+                }
+                states[i] = FINISHED;
+                return;
+            }
+            if (obstacles.findCrossing(lat, lon, destLat, destLon) >= 0
+                    || !grid.isBurnable(grid.getCellIndex(destLat, destLon))) {
+                continue;
+            }
+            moveTo(i, destLat, destLon, meters, seconds);
+            return;
+        }
+        // Kill the ant if it's unable to complete it's foraging task (trapped?)
+        states[i] = DEAD;
+    }
+
+    private void moveTo(int i, double lat, double lon, double meters, double seconds) {
+        lats[i] = lat;
+        lons[i] = lon;
+        elapsedSeconds[i] += seconds;
+        distances[i] += meters;
+        int cell = grid.getCellIndex(lat, lon);
+        if (cell >= 0 && simulationSeconds < cellArrivals[cell]) {
+            cellArrivals[cell] = simulationSeconds;
+        }
+        if (paths != null) {
+            addToPath(i);
+        }
+    }
+
+    private void addToPath(int i) {
+        int n = pathLengths[i];
+        if (n + 2 > paths[i].length) {
+            paths[i] = Arrays.copyOf(paths[i], paths[i].length * 2);
+        }
+        paths[i][n] = lats[i];
+        paths[i][n + 1] = lons[i];
+        pathLengths[i] = n + 2;
+    }
+
+    /**
+     * Creates Paths from the recorded paths of the ants that reached an asset.
+     * @return The completed paths; empty if the paths were not recorded.
+     */
+    public List<Path> getPaths() {
+        ArrayList<Path> list = new ArrayList<>();
+        if (paths == null) {
+            return list;
+        }
+        for (int i = 0; i < numAnts; i++) {
+            if (states[i] != FINISHED) {
+                continue;
+            }
+            ArrayList<Coord2D> coords = new ArrayList<>(pathLengths[i] / 2);
+            for (int j = 0; j < pathLengths[i]; j += 2) {
+                coords.add(GeoCoord2D.fromDegrees(paths[i][j], paths[i][j + 1]));
+            }
+            list.add(new Path(coords, Duration.ofMillis((long) (elapsedSeconds[i] * 1000))));
+        }
+        return list;
+    }
+
+    public int getNumAnts() {
+        return numAnts;
+    }
+
+    public int getNumWorking() {
+        return numWorking;
+    }
+
+    public byte getState(int ant) {
+        return states[ant];
+    }
+
+    public double getLatitude(int ant) {
+        return lats[ant];
+    }
+
+    public double getLongitude(int ant) {
+        return lons[ant];
+    }
+
+    public double getElapsedSeconds(int ant) {
+        return elapsedSeconds[ant];
+    }
+
+    /**
+     * Gets the distance traveled by an ant.
+     * @param ant The ant index.
+     * @return The path length [meters].
+     */
+    public double getDistanceMeters(int ant) {
+        return distances[ant];
+    }
+
+    /**
+     * Gets the earliest arrival times at each grid cell, indexed by SpreadGrid cell.
+     * @return The seconds since the start of the simulation; infinite if never reached.
+     */
+    public double[] getCellArrivals() {
+        return cellArrivals;
+    }
+
+    /**
+     * Gets the earliest arrival times at each asset, in Environment.getAssets() order.
+     * @return The seconds since the start of the simulation; infinite if never reached.
+     */
+    public double[] getAssetArrivals() {
+        return assetArrivals;
+    }
+
+    /**
+     * Gets the simulation clock.
+     * @return The time after the last step.
+     */
+    public ZonedDateTime getTime() {
+        return time;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Sets whether the ants and the spread ellipses are computed in parallel. Turn this off when
+     * the simulator itself runs on a worker thread, e.g., in an ensemble.
+     * @param parallel If true, use the common fork-join pool.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Gets the simulator's own copy of the SpreadGrid.
+     * @return The grid with the simulator's current weather.
+     */
+    public SpreadGrid getSpreadGrid() {
+        return grid;
+    }
+
+}
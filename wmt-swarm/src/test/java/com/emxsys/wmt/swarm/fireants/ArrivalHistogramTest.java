@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wmt.swarm.fireants;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class ArrivalHistogramTest {
+
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    public ArrivalHistogramTest() {
+    }
+
+    @Test
+    public void testAccept() {
+        System.out.println("accept");
+        ArrivalHistogram instance = new ArrivalHistogram(3, 1, Duration.ofHours(1), 4);
+        double[] perturbation = {1, 1, 0};
+        instance.accept(new ReplicateResult(0, perturbation,
+                new double[]{0, 1800, INF}, new double[]{5400}, new double[]{100, 300}, 10));
+        instance.accept(new ReplicateResult(1, perturbation,
+                new double[]{0, 7200, 36000}, new double[]{INF}, new double[0], 10));
+
+        assertEquals(2, instance.getNumReplicates());
+        assertArrayEquals(new int[]{2, 0, 0, 0}, instance.getCellHistogram(0));
+        assertArrayEquals(new int[]{1, 0, 1, 0}, instance.getCellHistogram(1));
+        // Late arrivals are counted in the last bin
+        assertArrayEquals(new int[]{0, 0, 0, 1}, instance.getCellHistogram(2));
+        assertEquals(0.5, instance.getCellProbability(1, Duration.ofMinutes(30)), 0);
+        assertEquals(1.0, instance.getCellProbability(1, Duration.ofHours(2)), 0);
+        assertEquals(0.5, instance.getCellProbability(2, Duration.ofDays(1)), 0);
+        assertEquals(0.0, instance.getAssetProbability(0, Duration.ofMinutes(30)), 0);
+        assertEquals(0.5, instance.getAssetProbability(0, Duration.ofHours(2)), 0);
+        assertEquals(200, instance.getMeanPathLength(), 0);
+        assertEquals(300, instance.getMaxPathLength(), 0);
+    }
+
+    @Test
+    public void testSubSecondBins() {
+        System.out.println("subSecondBins");
+        ArrivalHistogram instance = new ArrivalHistogram(1, 0, Duration.ofMillis(500), 4);
+        instance.accept(new ReplicateResult(0, new double[]{1, 1, 0},
+                new double[]{0.75}, new double[0], new double[0], 10));
+        assertArrayEquals(new int[]{0, 1, 0, 0}, instance.getCellHistogram(0));
+        assertEquals(0.0, instance.getCellProbability(0, Duration.ofMillis(400)), 0);
+        assertEquals(1.0, instance.getCellProbability(0, Duration.ofMillis(600)), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroBinWidth() {
+        System.out.println("zeroBinWidth");
+        new ArrivalHistogram(1, 0, Duration.ofNanos(999), 4);
+    }
+
+    @Test
+    public void testPerturbationIsReproducible() {
+        System.out.println("perturbation");
+        Perturbation perturbation = new Perturbation(0.1, 0.2, 15);
+        double[] expResult = perturbation.sample(new SplittableRandom(42).split());
+        double[] result = perturbation.sample(new SplittableRandom(42).split());
+        assertArrayEquals(expResult, result, 0);
+        assertEquals(1, result[0], 0.1);
+        assertEquals(1, result[1], 0.2);
+        assertEquals(0, result[2], 15);
+        assertArrayEquals(new double[]{1, 1, 0}, Perturbation.NONE.sample(new SplittableRandom(1)), 0);
+    }
+
+}
@@ -34,6 +34,8 @@ import com.emxsys.solar.api.SunlightProvider;
 import com.emxsys.solar.internal.SPASunlightProvider;
 import com.emxsys.solar.spi.SunlightProviderFactory;
 import com.emxsys.wmt.globe.Globe;
+import com.emxsys.wmt.swarm.api.Path;
+import java.util.List;
 import org.junit.After;
 import org.junit.AfterClass;
 import static org.junit.Assert.*;
@@ -79,6 +81,32 @@ public class SimulatorTest {
         instance.run();
     }
 
+    @Test
+    public void testRunSwarm() {
+        System.out.println("run swarm");
+        Simulator instance = Simulator.getInstance();
+        int numWorldPaths = instance.getWorld().getPaths().size();
+        List<Path> paths = instance.run(1000, 1L, true);
+        assertFalse("ants should reach an asset", paths.isEmpty());
+        assertTrue(paths.size() <= 1000);
+
+        // The same seed produces the same outcome
+        List<Path> again = instance.run(1000, 1L, true);
+        assertEquals(paths.size(), again.size());
+        for (int i = 0; i < paths.size(); i++) {
+            assertEquals(paths.get(i).getDuration(), again.get(i).getDuration());
+            assertEquals(paths.get(i).getLengthMeters(), again.get(i).getLengthMeters(), 0.0);
+        }
+
+        // Paths aren't recorded on request
+        assertTrue(instance.run(100, 1L, false).isEmpty());
+
+        // Only the caller decides whether the paths are kept in the world
+        assertEquals(numWorldPaths, instance.getWorld().getPaths().size());
+        instance.run(1000, 1L, true, true);
+        assertEquals(numWorldPaths + paths.size(), instance.getWorld().getPaths().size());
+    }
+
     @Test
     public void testGetInstance() {
     }
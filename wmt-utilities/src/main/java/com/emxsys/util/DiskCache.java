@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An HttpClient Cache that persists the responses in a directory, so they survive restarts and
+ * can be served offline. Each response is a file named by a hash of its key. When the directory
+ * exceeds its size limit, the least recently used responses are deleted.
+ *
+ * @author Bruce Schubert
+ */
+public class DiskCache implements HttpClient.Cache {
+
+    static final int VERSION = 1;
+    static final String SUFFIX = ".cache";
+    private static final Logger logger = Logger.getLogger(DiskCache.class.getName());
+
+    private final File directory;
+    private final long maxBytes;
+    /** The approximate size of the directory; -1 until it is measured. */
+    private final AtomicLong size = new AtomicLong(-1);
+
+    /**
+     * Constructs a cache.
+     *
+     * @param directory The cache directory; created if needed.
+     * @param maxBytes The size limit of the directory.
+     */
+    public DiskCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            logger.log(Level.WARNING, "Cannot create the cache directory: {0}", directory);
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public HttpClient.CachedResponse get(String key) {
+        File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != VERSION || !key.equals(in.readUTF())) {
+                return null;
+            }
+            long storedTime = in.readLong();
+            String etag = readString(in);
+            long lastModified = in.readLong();
+            String contentType = readString(in);
+            int length = in.readInt();
+            if (length < 0 || length > HttpClient.MAX_CACHED_BYTES || length > file.length()) {
+                logger.log(Level.WARNING, "Deleting the corrupt cached response for {0}: invalid length {1}",
+                        new Object[]{key, length});
+                in.close();
+                file.delete();
+                return null;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            // Mark the file as recently used
+            file.setLastModified(System.currentTimeMillis());
+            return new HttpClient.CachedResponse(etag, lastModified, contentType, body, storedTime);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot read the cached response for {0}: {1}", new Object[]{key, ex.getMessage()});
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, HttpClient.CachedResponse response) {
+        File file = getFile(key);
+        File temp = new File(directory, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(VERSION);
+                out.writeUTF(key);
+                out.writeLong(response.getStoredTime());
+                writeString(out, response.getETag());
+                out.writeLong(response.getLastModified());
+                writeString(out, response.getContentType());
+                out.writeInt(response.getBody().length);
+                out.write(response.getBody());
+            }
+            long oldLength = file.length();
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (size.get() < 0 || size.addAndGet(file.length() - oldLength) > maxBytes) {
+                trim();
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot cache the response for {0}: {1}", new Object[]{key, ex.getMessage()});
+            temp.delete();
+        }
+    }
+
+    /**
+     * Measures the directory and deletes the least recently used responses until it is within
+     * 90% of the size limit.
+     */
+    synchronized void trim() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total > maxBytes) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (int i = 0; i < files.length && total > maxBytes * 9 / 10; i++) {
+                long length = files[i].length();
+                if (files[i].delete()) {
+                    total -= length;
+                }
+            }
+        }
+        size.set(total);
+    }
+
+    File getFile(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return new File(directory, name.append(SUFFIX).toString());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
@@ -0,0 +1,726 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import org.openide.util.RequestProcessor;
+
+/**
+ * An HTTP client for Web service GET requests. The response bodies are streamed to the caller,
+ * and the client adds:
+ * <ul>
+ * <li>connect and read timeouts, so a stalled service fails instead of blocking;</li>
+ * <li>gzip transfer encoding;</li>
+ * <li>conditional GETs with ETag and If-Modified-Since, answered from a response Cache;</li>
+ * <li>cached responses served within the time-to-live of a CachePolicy, stale responses served
+ * while they are revalidated in the background, and cached responses served when offline or
+ * when the service can't be reached;</li>
+ * <li>asynchronous requests that complete a CompletableFuture.</li>
+ * </ul>
+ * The connections are reused with HTTP keep-alive by the JDK's connection pool, which requires
+ * that each Response is closed.
+ * <pre>
+ * try (HttpClient.Response response = HttpClient.getDefault().get(url)) {
+ *     return parser.parse(response.getReader());
+ * }
+ * </pre>
+ *
+ * @author Bruce Schubert
+ */
+public class HttpClient {
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 15000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 60000;
+    /** Responses larger than this are not cached. */
+    public static final int MAX_CACHED_BYTES = 4 * 1024 * 1024;
+    private static final RequestProcessor processor = new RequestProcessor(HttpClient.class.getName(), 8, true);
+    private static final Logger logger = Logger.getLogger(HttpClient.class.getName());
+    private static HttpClient instance;
+    private static volatile boolean offlineMode;
+
+    private volatile int connectTimeoutMs;
+    private volatile int readTimeoutMs;
+    private final Cache cache;
+    /** The keys of the responses being revalidated in the background. */
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Handles the Response of an asynchronous request.
+     *
+     * @param <T> The result type.
+     */
+    public interface ResponseHandler<T> {
+
+        /**
+         * Reads the response body.
+         *
+         * @param response The response; closed by the client.
+         * @return The result.
+         * @throws Exception if the response cannot be handled.
+         */
+        T handle(Response response) throws Exception;
+    }
+
+    /**
+     * A store of responses for conditional GETs. Implementations must be thread safe.
+     */
+    public interface Cache {
+
+        /**
+         * Gets a cached response.
+         *
+         * @param url The request URL.
+         * @return The cached response, or null.
+         */
+        CachedResponse get(String url);
+
+        /**
+         * Stores a response.
+         *
+         * @param url The request URL.
+         * @param response The response to store.
+         */
+        void put(String url, CachedResponse response);
+    }
+
+    /**
+     * A response body with the validators needed to revalidate it.
+     */
+    public static class CachedResponse {
+
+        private final String etag;
+        private final long lastModified;
+        private final String contentType;
+        private final byte[] body;
+        private final long storedTime;
+
+        /**
+         * Constructs a cached response stored now.
+         *
+         * @param etag The ETag header, or null.
+         * @param lastModified The Last-Modified header in milliseconds, or 0.
+         * @param contentType The Content-Type header, or null.
+         * @param body The uncompressed body.
+         */
+        public CachedResponse(String etag, long lastModified, String contentType, byte[] body) {
+            this(etag, lastModified, contentType, body, System.currentTimeMillis());
+        }
+
+        /**
+         * Constructs a cached response.
+         *
+         * @param etag The ETag header, or null.
+         * @param lastModified The Last-Modified header in milliseconds, or 0.
+         * @param contentType The Content-Type header, or null.
+         * @param body The uncompressed body.
+         * @param storedTime The time the response was received or last revalidated, in
+         * milliseconds.
+         */
+        public CachedResponse(String etag, long lastModified, String contentType, byte[] body, long storedTime) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.body = body;
+            this.storedTime = storedTime;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public long getStoredTime() {
+            return storedTime;
+        }
+
+        /**
+         * Gets the time since the response was received or last revalidated.
+         *
+         * @return The age in milliseconds.
+         */
+        public long getAge() {
+            return System.currentTimeMillis() - storedTime;
+        }
+    }
+
+    /**
+     * How a request uses cached responses.
+     */
+    public static class CachePolicy {
+
+        private final String key;
+        private final Duration timeToLive;
+        private final Duration staleWhileRevalidate;
+        private final boolean offline;
+        private final Predicate<byte[]> validator;
+
+        /**
+         * Constructs a policy that stores every complete response.
+         *
+         * @param key The cache key; requests with equal keys share a response.
+         * @param timeToLive How long a response is served without contacting the service.
+         * @param staleWhileRevalidate How long after the time-to-live a response is still served
+         * while it is revalidated in the background.
+         * @param offline If true, the service is not contacted and a cached response of any age is
+         * served.
+         */
+        public CachePolicy(String key, Duration timeToLive, Duration staleWhileRevalidate, boolean offline) {
+            this(key, timeToLive, staleWhileRevalidate, offline, null);
+        }
+
+        /**
+         * Constructs a policy with a validator for the response bodies, e.g., to reject the error
+         * payloads of services that answer failed queries with 200 OK.
+         *
+         * @param key The cache key; requests with equal keys share a response.
+         * @param timeToLive How long a response is served without contacting the service.
+         * @param staleWhileRevalidate How long after the time-to-live a response is still served
+         * while it is revalidated in the background.
+         * @param offline If true, the service is not contacted and a cached response of any age is
+         * served.
+         * @param validator Tests a complete response body before it is stored; a rejected body is
+         * not cached. May be null to store every response.
+         */
+        public CachePolicy(String key, Duration timeToLive, Duration staleWhileRevalidate, boolean offline,
+                           Predicate<byte[]> validator) {
+            this.key = key;
+            this.timeToLive = timeToLive;
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            this.offline = offline;
+            this.validator = validator;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public Duration getStaleWhileRevalidate() {
+            return staleWhileRevalidate;
+        }
+
+        public boolean isOffline() {
+            return offline;
+        }
+
+        /**
+         * Tests whether a response body may be stored.
+         *
+         * @param body The complete response body.
+         * @return True if there is no validator or the validator accepts the body.
+         */
+        public boolean isValid(byte[] body) {
+            return validator == null || validator.test(body);
+        }
+    }
+
+    /**
+     * A Cache that keeps the most recently used responses in memory.
+     */
+    public static class MemoryCache implements Cache {
+
+        private final Map<String, CachedResponse> responses;
+
+        /**
+         * Constructs a cache.
+         *
+         * @param maxEntries The maximum number of responses kept.
+         */
+        public MemoryCache(final int maxEntries) {
+            this.responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        @Override
+        public synchronized CachedResponse get(String url) {
+            return responses.get(url);
+        }
+
+        @Override
+        public synchronized void put(String url, CachedResponse response) {
+            responses.put(url, response);
+        }
+    }
+
+    /**
+     * An HTTP response whose body is read from a stream. Closing the response releases the
+     * connection for reuse.
+     */
+    public static class Response implements Closeable {
+
+        private final URL url;
+        private final String contentType;
+        private final boolean notModified;
+        private final InputStream stream;
+
+        Response(URL url, String contentType, boolean notModified, InputStream stream) {
+            this.url = url;
+            this.contentType = contentType;
+            this.notModified = notModified;
+            this.stream = stream;
+        }
+
+        public URL getURL() {
+            return url;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Gets the charset of the body.
+         *
+         * @return The charset of the Content-Type, or UTF-8.
+         */
+        public String getCharsetName() {
+            return HttpUtil.getCharsetName(contentType);
+        }
+
+        /**
+         * Gets whether the body came from the cache because the service answered a conditional
+         * GET with 304 Not Modified.
+         *
+         * @return True if the body was not transferred.
+         */
+        public boolean isNotModified() {
+            return notModified;
+        }
+
+        /**
+         * Gets the uncompressed body.
+         *
+         * @return The body stream; closed with the response.
+         */
+        public InputStream getInputStream() {
+            return stream;
+        }
+
+        /**
+         * Gets the body decoded with its charset.
+         *
+         * @return A reader of the body; closed with the response.
+         * @throws UnsupportedEncodingException if the charset is not supported.
+         */
+        public Reader getReader() throws UnsupportedEncodingException {
+            return new InputStreamReader(stream, getCharsetName());
+        }
+
+        /**
+         * Reads the body to a String.
+         *
+         * @return The body text.
+         * @throws IOException if the body cannot be read.
+         */
+        public String getText() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            char[] buffer = new char[8192];
+            Reader reader = getReader();
+            int length;
+            while ((length = reader.read(buffer)) >= 0) {
+                sb.append(buffer, 0, length);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+
+    /**
+     * Gets the shared client, which has the default timeouts and a MemoryCache.
+     *
+     * @return The default client.
+     */
+    public static synchronized HttpClient getDefault() {
+        if (instance == null) {
+            instance = new HttpClient(DEFAULT_CONNECT_TIMEOUT_MS, DEFAULT_READ_TIMEOUT_MS, new MemoryCache(64));
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the application's network mode, which the services pass to their CachePolicy.
+     *
+     * @return True if the application is working offline.
+     */
+    public static boolean isOfflineMode() {
+        return offlineMode;
+    }
+
+    /**
+     * Sets the application's network mode. The globe keeps this in step with its own offline
+     * mode.
+     *
+     * @param offline True if the application is working offline.
+     */
+    public static void setOfflineMode(boolean offline) {
+        offlineMode = offline;
+    }
+
+    /**
+     * Constructs a client.
+     *
+     * @param connectTimeoutMs The connect timeout; zero waits indefinitely.
+     * @param readTimeoutMs The read timeout; zero waits indefinitely.
+     * @param cache The store for conditional GETs; may be null.
+     */
+    public HttpClient(int connectTimeoutMs, int readTimeoutMs, Cache cache) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.cache = cache;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeout(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public int getReadTimeout() {
+        return readTimeoutMs;
+    }
+
+    public void setReadTimeout(int readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * Requests a Web service with an HTTP GET. The response must be closed.
+     *
+     * @param url The request URL.
+     * @return The response.
+     * @throws IOException if the request fails, times out, or is not answered with 200 OK.
+     */
+    public Response get(URL url) throws IOException {
+        if (url == null) {
+            throw new IllegalArgumentException("URL cannot be null.");
+        }
+        String key = url.toString();
+        return get(url, key, cache == null ? null : cache.get(key), null);
+    }
+
+    /**
+     * Requests a Web service with an HTTP GET, answering from the cache according to a policy.
+     * A cached response within its time-to-live is served without contacting the service. A
+     * stale response within the stale-while-revalidate period is served immediately and
+     * refreshed in the background. Otherwise the service is requested, and if it can't be reached
+     * the last cached response is served. The response must be closed.
+     *
+     * @param url The request URL.
+     * @param policy The cache policy.
+     * @return The response.
+     * @throws IOException if the request fails and there is no cached response, or if offline
+     * and there is no cached response.
+     */
+    public Response get(URL url, CachePolicy policy) throws IOException {
+        if (url == null) {
+            throw new IllegalArgumentException("URL cannot be null.");
+        }
+        String key = policy.getKey();
+        CachedResponse cached = cache == null ? null : cache.get(key);
+        if (cached != null) {
+            long age = cached.getAge();
+            if (policy.isOffline() || age < policy.getTimeToLive().toMillis()) {
+                return createResponse(url, cached);
+            }
+            if (age < policy.getTimeToLive().plus(policy.getStaleWhileRevalidate()).toMillis()) {
+                revalidate(url, policy, cached);
+                return createResponse(url, cached);
+            }
+        }
+        else if (policy.isOffline()) {
+            throw new IOException("Offline, and no cached response for " + key);
+        }
+        try {
+            return get(url, key, cached, policy);
+        } catch (IOException ex) {
+            if (cached == null) {
+                throw ex;
+            }
+            logger.log(Level.WARNING, "Serving a cached response for {0}: {1}", new Object[]{key, ex.getMessage()});
+            return createResponse(url, cached);
+        }
+    }
+
+    /**
+     * Requests a Web service, revalidating a cached response.
+     *
+     * @param policy If not null, a response without validators is also stored, provided the
+     * policy accepts its body.
+     */
+    private Response get(URL url, String key, CachedResponse cached, CachePolicy policy) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (cached != null) {
+            if (cached.getETag() != null) {
+                connection.setRequestProperty("If-None-Match", cached.getETag());
+            }
+            if (cached.getLastModified() > 0) {
+                connection.setIfModifiedSince(cached.getLastModified());
+            }
+        }
+        int responseCode = connection.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            discard(connection);
+            logger.log(Level.FINE, "Not modified: {0}", key);
+            // Restart the time-to-live
+            cache.put(key, new CachedResponse(cached.getETag(), cached.getLastModified(),
+                    cached.getContentType(), cached.getBody()));
+            return new Response(url, cached.getContentType(), true,
+                    new ByteArrayInputStream(cached.getBody()));
+        }
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            String responseMessage = connection.getResponseMessage();
+            discard(connection);
+            throw new IOException("Connection Failed: " + responseMessage + " [" + url + "]");
+        }
+        InputStream stream = connection.getInputStream();
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            stream = new GZIPInputStream(stream, 8192);
+        }
+        String etag = connection.getHeaderField("ETag");
+        long lastModified = connection.getLastModified();
+        String contentType = connection.getContentType();
+        if (cache != null && (policy != null || etag != null || lastModified > 0)) {
+            stream = new CachingInputStream(stream, key, etag, lastModified, contentType, policy);
+        }
+        return new Response(url, contentType, false, stream);
+    }
+
+    /**
+     * Requests a Web service with an HTTP GET on a background thread.
+     *
+     * @param <T> The result type.
+     * @param url The request URL.
+     * @param handler Reads the response on the background thread.
+     * @return The future result, which completes exceptionally if the request or the handler
+     * fails.
+     */
+    public <T> CompletableFuture<T> getAsync(final URL url, final ResponseHandler<T> handler) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Response response = get(url)) {
+                return handler.handle(response);
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, processor);
+    }
+
+    private static Response createResponse(URL url, CachedResponse cached) {
+        return new Response(url, cached.getContentType(), false, new ByteArrayInputStream(cached.getBody()));
+    }
+
+    /**
+     * Refreshes a cached response in the background, once per key at a time.
+     */
+    private void revalidate(final URL url, final CachePolicy policy, final CachedResponse cached) {
+        final String key = policy.getKey();
+        if (!revalidating.add(key)) {
+            return;
+        }
+        processor.post(() -> {
+            try (Response response = get(url, key, cached, policy)) {
+                // Reading to the end stores the response
+                InputStream stream = response.getInputStream();
+                byte[] buffer = new byte[8192];
+                while (stream.read(buffer) >= 0) {
+                    // Skip
+                }
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Cannot revalidate {0}: {1}", new Object[]{key, ex.getMessage()});
+            } finally {
+                revalidating.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Reads and closes the rest of an unused response so the connection can be reused.
+     */
+    private static void discard(HttpURLConnection connection) {
+        try (InputStream stream = connection.getErrorStream() != null
+                ? connection.getErrorStream() : connection.getInputStream()) {
+            byte[] buffer = new byte[1024];
+            while (stream != null && stream.read(buffer) >= 0) {
+                // Skip
+            }
+        } catch (IOException ex) {
+            // The connection is not reused
+        }
+    }
+
+    /**
+     * Copies the body into the cache as it is read, once it has been read to the end. Closing the
+     * stream early reads the rest of the body first. A body rejected by the cache policy is not
+     * stored.
+     */
+    private class CachingInputStream extends FilterInputStream {
+
+        private final String key;
+        private final String etag;
+        private final long lastModified;
+        private final String contentType;
+        private final CachePolicy policy;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream(8192);
+
+        CachingInputStream(InputStream in, String key, String etag, long lastModified, String contentType,
+                           CachePolicy policy) {
+            super(in);
+            this.key = key;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.policy = policy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                store();
+            }
+            else if (copy != null) {
+                copy.write(b);
+                checkSize();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int length = super.read(b, off, len);
+            if (length < 0) {
+                store();
+            }
+            else if (copy != null) {
+                copy.write(b, off, length);
+                checkSize();
+            }
+            return length;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // The copy would be incomplete
+            copy = null;
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // Complete the copy if the caller stopped reading before the end
+                byte[] buffer = new byte[8192];
+                while (copy != null && read(buffer, 0, buffer.length) >= 0) {
+                    // Copied by read
+                }
+            } catch (IOException ex) {
+                copy = null;
+                logger.log(Level.FINE, "Cannot read the rest of {0}: {1}", new Object[]{key, ex.getMessage()});
+            } finally {
+                super.close();
+            }
+        }
+
+        private void checkSize() {
+            if (copy.size() > MAX_CACHED_BYTES) {
+                copy = null;
+            }
+        }
+
+        private void store() {
+            if (copy != null) {
+                byte[] body = copy.toByteArray();
+                copy = null;
+                if (policy == null || policy.isValid(body)) {
+                    cache.put(key, new CachedResponse(etag, lastModified, contentType, body));
+                }
+                else {
+                    logger.log(Level.FINE, "Not cached, rejected by the cache policy: {0}", key);
+                }
+            }
+        }
+    }
+}
@@ -34,14 +34,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 import org.openide.util.Exceptions;
 
 /**
- * HTTP utility class.
+ * HTTP utility class. The Web service calls are made with the default HttpClient, which applies
+ * timeouts, gzip and conditional GETs; use the HttpClient directly to stream large responses.
  *
  * @author Bruce Schubert
  */
@@ -60,7 +61,7 @@ public class HttpUtil {
      * @throws RuntimeException
      */
     @Deprecated
-    public static synchronized String callWebService(String urlString) throws MalformedURLException, IOException {
+    public static String callWebService(String urlString) throws MalformedURLException, IOException {
         if (urlString == null || urlString.isEmpty()) {
             throw new IllegalArgumentException("URL cannot be null or empty.");
         }
@@ -74,23 +75,22 @@ public class HttpUtil {
      * @param url The HTTP GET request URL.
      * @return The web service results (e.g., HTML, XML, JSON, ...).
      * @throws MalformedURLException
-     * @throws IOException
-     * @throws RuntimeException
+     * @throws IOException if the request fails, times out or is not answered with 200 OK.
      */
     public static String callWebService(URL url) throws MalformedURLException, IOException {
-        if (url == null) {
-            throw new IllegalArgumentException("URL cannot be null.");
+        try (HttpClient.Response response = HttpClient.getDefault().get(url)) {
+            return response.getText();
         }
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    }
 
-        int responseCode = connection.getResponseCode();
-        String responseMessage = connection.getResponseMessage();
-        if (responseCode != HttpURLConnection.HTTP_OK) {
-            throw new RuntimeException("Connection Failed: " + responseMessage + " [" + url.toString() + "]");
-        }
-        String contentType = connection.getContentType();
-        String charsetName = getCharsetName(contentType);
-        return readStreamToString(connection.getInputStream(), charsetName);
+    /**
+     * Requests a Web service with an HTTP GET on a background thread.
+     *
+     * @param url The HTTP GET request URL.
+     * @return The future web service results.
+     */
+    public static CompletableFuture<String> callWebServiceAsync(URL url) {
+        return HttpClient.getDefault().getAsync(url, HttpClient.Response::getText);
     }
 
     /**
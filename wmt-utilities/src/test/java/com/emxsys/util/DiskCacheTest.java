@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class DiskCacheTest {
+
+    private File directory;
+
+    public DiskCacheTest() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("DiskCacheTest").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testPutGet() {
+        System.out.println("putGet");
+        DiskCache instance = new DiskCache(directory, 1024 * 1024);
+        assertNull(instance.get("key"));
+
+        byte[] body = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        instance.put("key", new HttpClient.CachedResponse("\"v1\"", 1000L, "application/json", body, 2000L));
+
+        // A new instance reads the persisted response
+        HttpClient.CachedResponse result = new DiskCache(directory, 1024 * 1024).get("key");
+        assertNotNull(result);
+        assertEquals("\"v1\"", result.getETag());
+        assertEquals(1000L, result.getLastModified());
+        assertEquals("application/json", result.getContentType());
+        assertEquals(2000L, result.getStoredTime());
+        assertArrayEquals(body, result.getBody());
+        assertNull(instance.get("other"));
+    }
+
+    @Test
+    public void testPutNulls() {
+        System.out.println("putNulls");
+        DiskCache instance = new DiskCache(directory, 1024 * 1024);
+        instance.put("key", new HttpClient.CachedResponse(null, 0, null, new byte[0]));
+        HttpClient.CachedResponse result = instance.get("key");
+        assertNull(result.getETag());
+        assertNull(result.getContentType());
+        assertEquals(0, result.getBody().length);
+    }
+
+    @Test
+    public void testCorruptLength() throws IOException {
+        System.out.println("corruptLength");
+        DiskCache instance = new DiskCache(directory, 1024 * 1024);
+        instance.put("key", new HttpClient.CachedResponse(null, 0, null, new byte[10]));
+        File file = instance.getFile("key");
+        // Overwrite the body length, which precedes the body
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(file.length() - 10 - 4);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+        assertNull(instance.get("key"));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testTrim() {
+        System.out.println("trim");
+        DiskCache instance = new DiskCache(directory, 3000);
+        for (int i = 0; i < 5; i++) {
+            instance.put("key" + i, new HttpClient.CachedResponse(null, 0, null, new byte[1000]));
+            instance.getFile("key" + i).setLastModified(1000L * (i + 1));
+        }
+        long total = 0;
+        for (File file : directory.listFiles()) {
+            total += file.length();
+        }
+        assertTrue(total <= 3000);
+        // The least recently used responses are deleted first
+        assertNull(instance.get("key0"));
+        assertNotNull(instance.get("key4"));
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.util;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Bruce Schubert
+ */
+public class HttpClientTest {
+
+    private static final String BODY = "{\"SUMMARY\":{\"RESPONSE_CODE\":1}}";
+    private static final String ETAG = "\"v1\"";
+    private HttpServer server;
+    private final AtomicInteger numFullResponses = new AtomicInteger();
+
+    public HttpClientTest() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/data", (exchange) -> {
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(bytes);
+                }
+                bytes = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+            numFullResponses.incrementAndGet();
+        });
+        server.createContext("/missing", (exchange) -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", (exchange) -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException ex) {
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private URL getURL(String path) throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        System.out.println("get");
+        HttpClient instance = new HttpClient(5000, 5000, null);
+        try (HttpClient.Response response = instance.get(getURL("/data"))) {
+            assertEquals("UTF-8", response.getCharsetName());
+            assertFalse(response.isNotModified());
+            assertEquals(BODY, response.getText());
+        }
+    }
+
+    @Test
+    public void testConditionalGet() throws Exception {
+        System.out.println("conditionalGet");
+        HttpClient instance = new HttpClient(5000, 5000, new HttpClient.MemoryCache(4));
+        URL url = getURL("/data");
+        try (HttpClient.Response response = instance.get(url)) {
+            assertEquals(BODY, response.getText());
+        }
+        assertNotNull(instance.getCache().get(url.toString()));
+        try (HttpClient.Response response = instance.get(url)) {
+            assertTrue(response.isNotModified());
+            assertEquals(BODY, response.getText());
+        }
+        assertEquals(1, numFullResponses.get());
+    }
+
+    @Test
+    public void testCloseBeforeEnd() throws Exception {
+        System.out.println("closeBeforeEnd");
+        HttpClient instance = new HttpClient(5000, 5000, new HttpClient.MemoryCache(4));
+        HttpClient.CachePolicy policy = new HttpClient.CachePolicy("data", Duration.ofHours(1), Duration.ZERO, false);
+        try (HttpClient.Response response = instance.get(getURL("/data"), policy)) {
+            // Read only the first byte
+            assertEquals(BODY.charAt(0), response.getInputStream().read());
+        }
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), instance.getCache().get("data").getBody());
+        // A cache hit within the time-to-live doesn't request the (missing) resource
+        try (HttpClient.Response response = instance.get(getURL("/missing"), policy)) {
+            assertEquals(BODY, response.getText());
+        }
+    }
+
+    @Test
+    public void testCachePolicy() throws Exception {
+        System.out.println("cachePolicy");
+        HttpClient instance = new HttpClient(5000, 5000, new HttpClient.MemoryCache(4));
+        HttpClient.CachePolicy policy = new HttpClient.CachePolicy("data", Duration.ofHours(1), Duration.ZERO, false);
+        for (int i = 0; i < 2; i++) {
+            try (HttpClient.Response response = instance.get(getURL("/data"), policy)) {
+                assertEquals(BODY, response.getText());
+            }
+        }
+        // The second response was served within its time-to-live
+        assertEquals(1, numFullResponses.get());
+
+        // A cached response is served offline, or when the service fails
+        HttpClient.CachePolicy offline = new HttpClient.CachePolicy("data", Duration.ZERO, Duration.ZERO, true);
+        try (HttpClient.Response response = instance.get(getURL("/missing"), offline)) {
+            assertEquals(BODY, response.getText());
+        }
+        HttpClient.CachePolicy expired = new HttpClient.CachePolicy("data", Duration.ZERO, Duration.ZERO, false);
+        try (HttpClient.Response response = instance.get(getURL("/missing"), expired)) {
+            assertEquals(BODY, response.getText());
+        }
+    }
+
+    @Test
+    public void testCachePolicyValidator() throws Exception {
+        System.out.println("cachePolicyValidator");
+        HttpClient instance = new HttpClient(5000, 5000, new HttpClient.MemoryCache(4));
+        HttpClient.CachePolicy policy = new HttpClient.CachePolicy("data", Duration.ofHours(1), Duration.ZERO, false,
+                (body) -> !new String(body, StandardCharsets.UTF_8).contains("\"RESPONSE_CODE\":1"));
+        // The rejected response is returned to the caller, but not stored
+        try (HttpClient.Response response = instance.get(getURL("/data"), policy)) {
+            assertEquals(BODY, response.getText());
+        }
+        assertNull(instance.getCache().get("data"));
+
+        HttpClient.CachePolicy accept = new HttpClient.CachePolicy("data", Duration.ofHours(1), Duration.ZERO, false,
+                (body) -> true);
+        try (HttpClient.Response response = instance.get(getURL("/data"), accept)) {
+            assertEquals(BODY, response.getText());
+        }
+        assertNotNull(instance.getCache().get("data"));
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        System.out.println("staleWhileRevalidate");
+        HttpClient.MemoryCache cache = new HttpClient.MemoryCache(4);
+        HttpClient instance = new HttpClient(5000, 5000, cache);
+        cache.put("data", new HttpClient.CachedResponse(null, 0, "text/plain", "stale".getBytes(StandardCharsets.UTF_8),
+                System.currentTimeMillis() - 2000));
+        HttpClient.CachePolicy policy = new HttpClient.CachePolicy("data", Duration.ofSeconds(1), Duration.ofHours(1), false);
+        try (HttpClient.Response response = instance.get(getURL("/data"), policy)) {
+            assertEquals("stale", response.getText());
+        }
+        // The response is refreshed in the background
+        for (int i = 0; i < 50 && cache.get("data").getAge() > 1000; i++) {
+            Thread.sleep(100);
+        }
+        assertArrayEquals(BODY.getBytes(StandardCharsets.UTF_8), cache.get("data").getBody());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOfflineNotCached() throws Exception {
+        System.out.println("offlineNotCached");
+        HttpClient instance = new HttpClient(5000, 5000, new HttpClient.MemoryCache(4));
+        instance.get(getURL("/data"), new HttpClient.CachePolicy("data", Duration.ZERO, Duration.ZERO, true)).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testGetNotFound() throws Exception {
+        System.out.println("getNotFound");
+        HttpClient instance = new HttpClient(5000, 5000, null);
+        instance.get(getURL("/missing")).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadTimeout() throws Exception {
+        System.out.println("readTimeout");
+        HttpClient instance = new HttpClient(5000, 200, null);
+        instance.get(getURL("/slow")).close();
+    }
+
+    @Test
+    public void testGetAsync() throws Exception {
+        System.out.println("getAsync");
+        HttpClient instance = new HttpClient(5000, 5000, null);
+        CompletableFuture<Integer> result = instance.getAsync(getURL("/data"), (response) -> response.getText().length());
+        assertEquals(BODY.length(), (int) result.get(5, TimeUnit.SECONDS));
+    }
+}
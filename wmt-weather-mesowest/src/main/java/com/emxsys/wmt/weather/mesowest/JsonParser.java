@@ -37,6 +37,10 @@ import static com.emxsys.weather.api.WeatherType.REL_HUMIDITY_INDEX;
 import static com.emxsys.weather.api.WeatherType.WIND_DIR_INDEX;
 import static com.emxsys.weather.api.WeatherType.WIND_SPEED_INDEX;
 import static java.lang.Double.max;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.rmi.RemoteException;
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -172,14 +176,40 @@ class JsonParser {
 
     private static final Logger logger = Logger.getLogger(JsonParser.class.getName());
 
+    /**
+     * Tests whether a MesoWest response reports success. MesoWest answers failed queries with
+     * 200 OK and an error in the SUMMARY, so responses are checked before they are cached.
+     *
+     * @param body The JSON response body.
+     * @return True if the SUMMARY.RESPONSE_CODE is 1.
+     */
+    public static boolean isSuccessful(byte[] body) {
+        try {
+            JSONObject results = (JSONObject) new JSONParser().parse(new String(body, StandardCharsets.UTF_8));
+            JSONObject summary = (JSONObject) results.get("SUMMARY");
+            Number respCode = (Number) summary.get("RESPONSE_CODE");
+            return respCode != null && respCode.intValue() == 1;
+        } catch (ParseException | ClassCastException | NullPointerException ex) {
+            logger.log(Level.FINE, "Not a MesoWest response: {0}", ex.toString());
+            return false;
+        }
+    }
+
     public static WeatherModel parseSingleObservation(String jsonResult) throws NumberFormatException, ParseException, VisADException, java.text.ParseException, RemoteException {
+        try {
+            return parseSingleObservation(new StringReader(jsonResult));
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static WeatherModel parseSingleObservation(Reader jsonReader) throws NumberFormatException, ParseException, VisADException, java.text.ParseException, RemoteException, IOException {
         JSONObject results;
 
-        // Parse the JSON string. JSONParser is not thread safe.
-        synchronized (JSONParser.class) {
-            JSONParser parser = new JSONParser();
-            results = (JSONObject) parser.parse(jsonResult);
-        }
+        // Parse the JSON stream. JSONParser is not thread safe, so each call has its own parser,
+        // and no lock is held while the stream is read from the network.
+        JSONParser parser = new JSONParser();
+        results = (JSONObject) parser.parse(jsonReader);
 
         JSONObject summary = (JSONObject) results.get("SUMMARY");
         Number numObjects = (Number) summary.get("NUMBER_OF_OBJECTS");
@@ -310,13 +340,20 @@ class JsonParser {
     }
 
     public static WeatherModel parseTimeSeries(String jsonResult) throws NumberFormatException, ParseException, VisADException, java.text.ParseException, RemoteException {
+        try {
+            return parseTimeSeries(new StringReader(jsonResult));
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static WeatherModel parseTimeSeries(Reader jsonReader) throws NumberFormatException, ParseException, VisADException, java.text.ParseException, RemoteException, IOException {
         JSONObject results;
 
-        // Parse the JSON string. JSONParser is not thread safe.
-        synchronized (JSONParser.class) {
-            JSONParser parser = new JSONParser();
-            results = (JSONObject) parser.parse(jsonResult);
-        }
+        // Parse the JSON stream. JSONParser is not thread safe, so each call has its own parser,
+        // and no lock is held while the stream is read from the network.
+        JSONParser parser = new JSONParser();
+        results = (JSONObject) parser.parse(jsonReader);
 
         JSONObject summary = (JSONObject) results.get("SUMMARY");
         Number numObjects = (Number) summary.get("NUMBER_OF_OBJECTS");
@@ -29,7 +29,8 @@
  */
 package com.emxsys.wmt.weather.mesowest;
 
-import com.emxsys.util.HttpUtil;
+import com.emxsys.util.DiskCache;
+import com.emxsys.util.HttpClient;
 import com.emxsys.visad.SpatialDomain;
 import com.emxsys.visad.TemporalDomain;
 import com.emxsys.weather.api.services.WeatherObserver;
@@ -42,6 +43,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.json.simple.parser.ParseException;
+import org.openide.modules.Places;
 import org.openide.util.NbBundle;
 import visad.VisADException;
 import visad.georef.LatLonPoint;
@@ -220,7 +222,52 @@ public class WeatherObserverService implements WeatherObserver {
             + "&end=%6$s" // end time
             + "&token=%7$s";                // app token
 
+    /** The latest observations are reported every 5 to 15 minutes. */
+    static final Duration LATEST_TIME_TO_LIVE = Duration.ofMinutes(5);
+    static final Duration LATEST_STALE_WHILE_REVALIDATE = Duration.ofMinutes(30);
+    static final Duration OBSERVATIONS_TIME_TO_LIVE = Duration.ofMinutes(10);
+    static final Duration OBSERVATIONS_STALE_WHILE_REVALIDATE = Duration.ofHours(1);
+    static final long CACHE_SIZE = 50 * 1024 * 1024;
+
     private static final Logger logger = Logger.getLogger(WeatherObserverService.class.getName());
+    private static HttpClient client;
+
+    /**
+     * Gets the client for the MesoWest services, which keeps the responses in a disk cache so
+     * that repeated queries are answered locally, and offline.
+     *
+     * @return The shared client.
+     */
+    static synchronized HttpClient getClient() {
+        if (client == null) {
+            client = new HttpClient(HttpClient.DEFAULT_CONNECT_TIMEOUT_MS, HttpClient.DEFAULT_READ_TIMEOUT_MS,
+                    new DiskCache(Places.getCacheSubdirectory("weather/mesowest"), CACHE_SIZE));
+        }
+        return client;
+    }
+
+    /**
+     * Creates a cache key from a bounding box rounded to about 100 meters, so repeated queries of
+     * the same area share a response, and the other query parameters.
+     *
+     * @param query The query name.
+     * @param minLatLon The bounding box corner.
+     * @param maxLatLon The opposite bounding box corner.
+     * @param params The other query parameters, excluding the app token.
+     * @return A normalized key.
+     */
+    static String createCacheKey(String query, LatLonPoint minLatLon, LatLonPoint maxLatLon, Object... params) {
+        StringBuilder sb = new StringBuilder(query);
+        sb.append(String.format(":%.3f,%.3f,%.3f,%.3f",
+                minLatLon.getLongitude().getValue(),
+                minLatLon.getLatitude().getValue(),
+                maxLatLon.getLongitude().getValue(),
+                maxLatLon.getLatitude().getValue()));
+        for (Object param : params) {
+            sb.append(':').append(param);
+        }
+        return sb.toString();
+    }
 
     /**
      * Gets the latest weather observations within the age and inside the area of interest.
@@ -235,25 +282,29 @@ public class WeatherObserverService implements WeatherObserver {
             LatLonPoint maxLatLon = areaOfInterest.getMaxLatLon();
 
             // Build the query string and URL
+            long within = age != null ? age.toMinutes() : 3600;
             String query = String.format(LATEST_WX_BOUNDING_BOX_QUERY_V2,
                     minLatLon.getLongitude().getValue(),
                     minLatLon.getLatitude().getValue(),
                     maxLatLon.getLongitude().getValue(),
                     maxLatLon.getLatitude().getValue(),
-                    age != null ? age.toMinutes() : 3600,
+                    within,
                     APP_TOKEN);
             StringBuilder sb = new StringBuilder();
             sb.append(STATIONS_LATEST_URI).append(query);
 
             String urlString = sb.toString();
             logger.fine(urlString);
-            System.out.println(urlString);
-
-            // Invoke the REST service and get the JSON results
-            String jsonResult = HttpUtil.callWebService(new URL(urlString));
-            System.out.println(jsonResult);
 
-            WeatherModel wxModel = JsonParser.parseSingleObservation(jsonResult);
+            // Invoke the REST service, or the cache, and parse the streamed JSON results
+            HttpClient.CachePolicy policy = new HttpClient.CachePolicy(
+                    createCacheKey("latest", minLatLon, maxLatLon, within),
+                    LATEST_TIME_TO_LIVE, LATEST_STALE_WHILE_REVALIDATE, HttpClient.isOfflineMode(),
+                    JsonParser::isSuccessful);
+            WeatherModel wxModel;
+            try (HttpClient.Response response = getClient().get(new URL(urlString), policy)) {
+                wxModel = JsonParser.parseSingleObservation(response.getReader());
+            }
             if (wxModel == null) {
                 logger.log(Level.SEVERE, "getCurrentConditions failed to process this URL: {0}", urlString);
             }
@@ -301,13 +352,18 @@ public class WeatherObserverService implements WeatherObserver {
 
             String urlString = sb.toString();
             logger.fine(urlString);
-            System.out.println(urlString);
-
-            // Invoke the REST service and get the JSON results
-            String jsonResult = HttpUtil.callWebService(new URL(urlString));
-            System.out.println(jsonResult);
 
-            return JsonParser.parseTimeSeries(jsonResult);
+            // Invoke the REST service, or the cache, and parse the streamed JSON results.
+            // The key's time window is rounded to the time-to-live so a sliding window is reused.
+            long interval = OBSERVATIONS_TIME_TO_LIVE.getSeconds();
+            HttpClient.CachePolicy policy = new HttpClient.CachePolicy(
+                    createCacheKey("nearesttime", minLatLon, maxLatLon,
+                            start.toEpochSecond() / interval, end.toEpochSecond() / interval),
+                    OBSERVATIONS_TIME_TO_LIVE, OBSERVATIONS_STALE_WHILE_REVALIDATE, HttpClient.isOfflineMode(),
+                    JsonParser::isSuccessful);
+            try (HttpClient.Response response = getClient().get(new URL(urlString), policy)) {
+                return JsonParser.parseTimeSeries(response.getReader());
+            }
 
         } catch (RuntimeException ex) {
             logger.severe(ex.getMessage());
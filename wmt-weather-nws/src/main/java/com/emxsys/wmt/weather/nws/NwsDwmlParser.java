@@ -37,6 +37,7 @@ import com.emxsys.visad.Times;
 import com.emxsys.weather.api.WeatherModel;
 import com.emxsys.weather.api.WeatherType;
 import static com.emxsys.weather.api.WeatherType.*;
+import java.io.InputStream;
 import java.rmi.RemoteException;
 import java.time.Instant;
 import java.time.OffsetDateTime;
@@ -202,7 +203,17 @@ public class NwsDwmlParser {
     public static final String TAG_DATA = "/dwml/data";
 
     public static WeatherModel parse(String dwml) {
-        NwsDwmlParser parser = new NwsDwmlParser(dwml);
+        NwsDwmlParser parser = new NwsDwmlParser(XmlUtil.newDocumentFromString(dwml));
+        return parser.parseDocument();
+    }
+
+    /**
+     * Parses a DWML document as it is read from a stream.
+     * @param dwml The DWML content.
+     * @return A WeatherModel.
+     */
+    public static WeatherModel parse(InputStream dwml) {
+        NwsDwmlParser parser = new NwsDwmlParser(XmlUtil.newDocumentFromInputStream(dwml));
         return parser.parseDocument();
     }
 
@@ -217,10 +228,10 @@ public class NwsDwmlParser {
 
     /**
      * Constructs a parser for the given XML document.
-     * @param xmlString
+     * @param doc
      */
-    private NwsDwmlParser(String xmlString) {
-        doc = XmlUtil.newDocumentFromString(xmlString);
+    private NwsDwmlParser(Document doc) {
+        this.doc = doc;
         xpath = XPathFactory.newInstance().newXPath();
     }
 
@@ -29,7 +29,8 @@
  */
 package com.emxsys.wmt.weather.nws;
 
-import com.emxsys.util.HttpUtil;
+import com.emxsys.util.DiskCache;
+import com.emxsys.util.HttpClient;
 import com.emxsys.visad.SpatialDomain;
 import com.emxsys.visad.TemporalDomain;
 import com.emxsys.weather.api.services.WeatherForecaster;
@@ -37,9 +38,11 @@ import com.emxsys.weather.api.WeatherModel;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.logging.Logger;
+import org.openide.modules.Places;
 import org.openide.util.Exceptions;
 import visad.VisADException;
 
@@ -148,7 +151,27 @@ public class NwsForecastService implements WeatherForecaster {
             + "&wx=wx"
             + "&critfireo=critfireo";
     
+    /** The NDFD forecasts are updated hourly. */
+    static final Duration FORECAST_TIME_TO_LIVE = Duration.ofHours(1);
+    static final Duration FORECAST_STALE_WHILE_REVALIDATE = Duration.ofHours(6);
+    static final long CACHE_SIZE = 50 * 1024 * 1024;
+
     private static final Logger logger = Logger.getLogger(NwsForecastService.class.getName());
+    private static HttpClient client;
+
+    /**
+     * Gets the client for the NDFD service, which keeps the responses in a disk cache so that
+     * repeated queries are answered locally, and offline.
+     *
+     * @return The shared client.
+     */
+    static synchronized HttpClient getClient() {
+        if (client == null) {
+            client = new HttpClient(HttpClient.DEFAULT_CONNECT_TIMEOUT_MS, HttpClient.DEFAULT_READ_TIMEOUT_MS,
+                    new DiskCache(Places.getCacheSubdirectory("weather/nws"), CACHE_SIZE));
+        }
+        return client;
+    }
 
     public NwsForecastService() {
     }
@@ -158,6 +181,8 @@ public class NwsForecastService implements WeatherForecaster {
         try {
             // Build the lat/lon list, example: ?listLatLon=38.99,-77.02%2039.70,-104.80%2047.6,-122.30&    
             StringBuilder coords = new StringBuilder();
+            // The cache key has the points rounded to about 100 meters
+            StringBuilder cacheKey = new StringBuilder("ndfd:");
             float[][] samples = spatialDomain.getDomainSet().getSamples();
             int numSamples = spatialDomain.getDomainSet().getLength();
             for (int xy = 0; xy < numSamples; xy++) {
@@ -166,6 +191,7 @@ public class NwsForecastService implements WeatherForecaster {
                         samples[0][xy],
                         samples[1][xy],
                         xy + 1 < numSamples ? "%20" : ""));
+                cacheKey.append(String.format("%.3f,%.3f ", samples[0][xy], samples[1][xy]));
             }
             // Build the query string and URL
             
@@ -187,11 +213,16 @@ public class NwsForecastService implements WeatherForecaster {
             URL url = new URL(urlSpec.toString());            
             //System.out.println(url.toString());
 
-            // Invoke the REST service and get the JSON results
-            String dwml = HttpUtil.callWebService(url);
-            //System.out.println(dwml);
-            
-            WeatherModel weatherModel = NwsDwmlParser.parse(dwml);
+            // Invoke the REST service, or the cache, and parse the streamed DWML results.
+            // The key's time window is rounded to the hour, the forecast's time step.
+            cacheKey.append(startTime.isEmpty() ? "" : startTime.substring(0, 13)).append(':')
+                    .append(endTime.isEmpty() ? "" : endTime.substring(0, 13));
+            HttpClient.CachePolicy policy = new HttpClient.CachePolicy(cacheKey.toString(),
+                    FORECAST_TIME_TO_LIVE, FORECAST_STALE_WHILE_REVALIDATE, HttpClient.isOfflineMode());
+            WeatherModel weatherModel;
+            try (HttpClient.Response response = getClient().get(url, policy)) {
+                weatherModel = NwsDwmlParser.parse(response.getInputStream());
+            }
             //System.out.println(weatherModel);
             
             return weatherModel;
@@ -49,13 +49,18 @@ import static java.lang.Math.sin;
 import static java.lang.Math.toRadians;
 import java.time.Duration;
 import java.time.LocalTime;
+import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.prefs.PreferenceChangeEvent;
 import java.util.prefs.PreferenceChangeListener;
+import java.util.stream.IntStream;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ImageIcon;
@@ -64,7 +69,6 @@ import org.openide.util.NbBundle.Messages;
 import org.openide.util.WeakListeners;
 import visad.FlatField;
 import visad.Real;
-import visad.RealTuple;
 
 /**
  * The DiurnalWeatherProvider creates hourly weather for 24 hour cycle.
@@ -77,6 +81,9 @@ import visad.RealTuple;
 })
 public class DiurnalWeatherProvider extends AbstractWeatherProvider {
 
+    /** Default size of the lat/lon bands that share a sunrise and sunset time [degrees]. */
+    public static final double DEFAULT_SUNLIGHT_TOLERANCE = 0.1;
+
     private Real tempAtSunrise = new Real(AIR_TEMP_F);
     private Real tempAtNoon = new Real(AIR_TEMP_F);
     private Real tempAt1400 = new Real(AIR_TEMP_F);
@@ -89,6 +96,7 @@ public class DiurnalWeatherProvider extends AbstractWeatherProvider {
     private TreeMap<LocalTime, Real> windSpds = new TreeMap<>();
     private TreeMap<LocalTime, Real> windDirs = new TreeMap<>();
     private TreeMap<LocalTime, Real> clouds = new TreeMap<>();
+    private double sunlightTolerance = DEFAULT_SUNLIGHT_TOLERANCE;
 
     // Initialize the WeatherObserver service.  It will be place in the lookup.
     private WeatherObserver observer = new WeatherObserver() {
@@ -229,6 +237,10 @@ public class DiurnalWeatherProvider extends AbstractWeatherProvider {
     /**
      * Gets a WeatherModel from the weather values stored in this provider.
      *
+     * The sunrise and sunset times are computed once per date for each lat/lon band (see
+     * {@link #setSunlightTolerance(double)}) and the diurnal curves are evaluated directly into
+     * the range samples. The time slices are computed in parallel.
+     *
      * @param areaOfInterest Each coordinate in the domain will use the same diurnal values, with
      * variations based on sunrise/sunset times for the locations.
      * @param timeframe Each time in the domain will get an hourly diurnal value.
@@ -239,27 +251,120 @@ public class DiurnalWeatherProvider extends AbstractWeatherProvider {
         final int numTimes = timeframe.getDomainSetLength();
         final int numLatLons = areaOfInterest.getDomainSetLength();
 
+        // Get the coordinates once; they're shared by all the time slices
+        final double[] lats = new double[numLatLons];
+        final double[] lons = new double[numLatLons];
+        for (int xy = 0; xy < numLatLons; xy++) {
+            GeoCoord3D coord = GeoCoord3D.fromLatLonPoint(areaOfInterest.getLatLonPointAt(xy));
+            lats[xy] = coord.getLatitudeDegrees();
+            lons[xy] = coord.getLongitudeDegrees();
+        }
+
+        // Get the sunrise and sunset hours for each date in the timeframe
+        final ZonedDateTime[] times = new ZonedDateTime[numTimes];
+        final double[][][] sunHours = new double[numTimes][][];
+        HashMap<OffsetDateTime, double[][]> dates = new HashMap<>();
+        for (int t = 0; t < numTimes; t++) {
+            times[t] = timeframe.getZonedDateTimeAt(t);
+            OffsetDateTime date = times[t].toOffsetDateTime().truncatedTo(ChronoUnit.DAYS);
+            sunHours[t] = dates.get(date);
+            if (sunHours[t] == null) {
+                sunHours[t] = getSunriseSunsetHours(times[t], lats, lons);
+                dates.put(date, sunHours[t]);
+            }
+        }
+
         // Create and populate array of fields indexed by time to create a WeatherModel
+        final double[] temps = {tempAtSunrise.getValue(), tempAtNoon.getValue(),
+            tempAt1400.getValue(), tempAtSunset.getValue()};
+        final double[] rhs = {rhAtSunrise.getValue(), rhAtNoon.getValue(),
+            rhAt1400.getValue(), rhAtSunset.getValue()};
         SpatialField[] fields = new SpatialField[numTimes];
-        for (int t = 0; t < numTimes; t++) {
+        IntStream.range(0, numTimes).parallel().forEach(t -> {
+            LocalTime localTime = times[t].toLocalTime();
+            double hour = localTime.get(ChronoField.SECOND_OF_DAY) / 3600.;
+            double[] sunrises = sunHours[t][0];
+            double[] sunsets = sunHours[t][1];
+
             // Create spatial range samples for the selected time [t].
             double[][] rangeSamples = new double[FIRE_WEATHER.getDimension()][numLatLons];
             for (int xy = 0; xy < numLatLons; xy++) {
-                // Get the weather for time and place
-                GeoCoord3D coord = GeoCoord3D.fromLatLonPoint(areaOfInterest.getLatLonPointAt(xy));
-                BasicWeather weather = getWeather(timeframe.getZonedDateTimeAt(t), coord);
-                // Populate the range samples
-                RealTuple tuple = weather.getTuple();
-                double[] values = tuple.getValues();
-                for (int dim = 0; dim < tuple.getDimension(); dim++) {
-                    rangeSamples[dim][xy] = values[dim];
-                }
+                rangeSamples[AIR_TEMP_INDEX][xy] = calcDiurnalValue(hour, sunrises[xy], sunsets[xy],
+                        temps[0], temps[1], temps[2], temps[3]);
+                rangeSamples[REL_HUMIDITY_INDEX][xy] = calcDiurnalValue(hour, sunrises[xy], sunsets[xy],
+                        rhs[0], rhs[1], rhs[2], rhs[3]);
             }
+            // The winds and clouds do not vary by location
+            Arrays.fill(rangeSamples[WIND_SPEED_INDEX], getWindSpeed(localTime).getValue());
+            Arrays.fill(rangeSamples[WIND_DIR_INDEX], getWindDirection(localTime).getValue());
+            Arrays.fill(rangeSamples[CLOUD_COVER_INDEX], getCloudCover(localTime).getValue());
+
             fields[t] = SpatialField.from(areaOfInterest, FIRE_WEATHER, rangeSamples);
-        }
+        });
         return WeatherModel.from(timeframe, fields);
     }
 
+    /**
+     * Gets the sunrise and sunset hours for each of the given coordinates on the given date.
+     * Coordinates within the same lat/lon band share the sunrise and sunset computed at the center
+     * of the band.
+     *
+     * @param date The date used to determine sunrise and sunset.
+     * @param lats The latitudes [degrees].
+     * @param lons The longitudes [degrees].
+     * @return A two element array containing the sunrise hours and the sunset hours.
+     */
+    private double[][] getSunriseSunsetHours(ZonedDateTime date, double[] lats, double[] lons) {
+        final double tolerance = sunlightTolerance;
+        double[][] hours = new double[2][lats.length];
+        HashMap<Long, double[]> bands = new HashMap<>();
+        for (int xy = 0; xy < lats.length; xy++) {
+            double[] sunriseSunset;
+            if (tolerance > 0) {
+                long latBand = Math.round(lats[xy] / tolerance);
+                long lonBand = Math.round(lons[xy] / tolerance);
+                Long key = (latBand << 32) ^ (lonBand & 0xFFFFFFFFL);
+                sunriseSunset = bands.get(key);
+                if (sunriseSunset == null) {
+                    double lat = Math.max(-90, Math.min(90, latBand * tolerance));
+                    sunriseSunset = calcSunriseSunset(date, lat, lonBand * tolerance);
+                    bands.put(key, sunriseSunset);
+                }
+            } else {
+                sunriseSunset = calcSunriseSunset(date, lats[xy], lons[xy]);
+            }
+            hours[0][xy] = sunriseSunset[0];
+            hours[1][xy] = sunriseSunset[1];
+        }
+        return hours;
+    }
+
+    private static double[] calcSunriseSunset(ZonedDateTime date, double lat, double lon) {
+        Sunlight sun = SunlightProviderFactory.getInstance().getSunlight(date, GeoCoord3D.fromDegrees(lat, lon));
+        return new double[]{sun.getSunriseHour().getValue(), sun.getSunsetHour().getValue()};
+    }
+
+    /**
+     * Gets the size of the lat/lon bands that share a sunrise and sunset time in
+     * getWeatherModel.
+     * @return The tolerance [degrees].
+     */
+    public double getSunlightTolerance() {
+        return sunlightTolerance;
+    }
+
+    /**
+     * Sets the size of the lat/lon bands that share a sunrise and sunset time in getWeatherModel.
+     * A value of zero computes the sunrise and sunset for every coordinate.
+     * @param degrees The tolerance [degrees].
+     */
+    public void setSunlightTolerance(double degrees) {
+        if (degrees < 0) {
+            throw new IllegalArgumentException(Bundle.ERR_DiurnalNegativeValues());
+        }
+        this.sunlightTolerance = degrees;
+    }
+
     public Real getTempAtSunrise() {
         return tempAtSunrise;
     }
@@ -378,42 +483,16 @@ public class DiurnalWeatherProvider extends AbstractWeatherProvider {
     }
 
     protected Real getAirTemperature(LocalTime localTime) {
-        Real sunrise = sunlight.getSunriseHour();
-        Real sunset = sunlight.getSunsetHour();
-        double t_sr = sunrise.getValue();
-        double t_ss = sunset.getValue();
-        double t = localTime.get(ChronoField.SECOND_OF_DAY) / 3600.;
-
-        double val;
-        if (t < t_sr || t > t_ss) {
-            val = calcValueNighttime(t, t_ss, t_sr, tempAtSunset.getValue(), tempAtSunrise.getValue());
-        } else if (t < 12.) {
-            val = calcValueMorning(t, t_sr, tempAtSunrise.getValue(), tempAtNoon.getValue());
-        } else if (t > 14.) {
-            val = calcValueLateAfternoon(t, t_ss, tempAt1400.getValue(), tempAtSunset.getValue());
-        } else {
-            val = calcValueEarlyAfternoon(t, tempAtNoon.getValue(), tempAt1400.getValue());
-        }
+        double val = calcDiurnalValue(localTime.get(ChronoField.SECOND_OF_DAY) / 3600.,
+                sunlight.getSunriseHour().getValue(), sunlight.getSunsetHour().getValue(),
+                tempAtSunrise.getValue(), tempAtNoon.getValue(), tempAt1400.getValue(), tempAtSunset.getValue());
         return new Real(WeatherType.AIR_TEMP_F, val);
     }
 
     protected Real getRelativeHumidity(LocalTime localTime) {
-        Real sunrise = sunlight.getSunriseHour();
-        Real sunset = sunlight.getSunsetHour();
-        double t_sr = sunrise.getValue();
-        double t_ss = sunset.getValue();
-        double t = localTime.get(ChronoField.SECOND_OF_DAY) / 3600.;
-
-        double val;
-        if (t < t_sr || t > t_ss) {
-            val = calcValueNighttime(t, t_ss, t_sr, rhAtSunset.getValue(), rhAtSunrise.getValue());
-        } else if (t < 12.) {
-            val = calcValueMorning(t, t_sr, rhAtSunrise.getValue(), rhAtNoon.getValue());
-        } else if (t > 14.) {
-            val = calcValueLateAfternoon(t, t_ss, rhAt1400.getValue(), rhAtSunset.getValue());
-        } else {
-            val = calcValueEarlyAfternoon(t, rhAtNoon.getValue(), rhAt1400.getValue());
-        }
+        double val = calcDiurnalValue(localTime.get(ChronoField.SECOND_OF_DAY) / 3600.,
+                sunlight.getSunriseHour().getValue(), sunlight.getSunsetHour().getValue(),
+                rhAtSunrise.getValue(), rhAtNoon.getValue(), rhAt1400.getValue(), rhAtSunset.getValue());
         return new Real(WeatherType.REL_HUMIDITY, val);
     }
 
@@ -432,6 +511,33 @@ public class DiurnalWeatherProvider extends AbstractWeatherProvider {
         return (entry == null) ? new Real(CLOUD_COVER, 0) : entry.getValue();
     }
 
+    /**
+     * Computes the diurnal temperature or humidity at the given time from the values at sunrise,
+     * noon, 1400 and sunset.
+     *
+     * @param t The local time [hours].
+     * @param t_sr The local time of sunrise [hours].
+     * @param t_ss The local time of sunset [hours].
+     * @param valueAtSunrise
+     * @param valueAtNoon
+     * @param valueAt1400
+     * @param valueAtSunset
+     * @return The value at time t.
+     */
+    static double calcDiurnalValue(double t, double t_sr, double t_ss,
+                                   double valueAtSunrise, double valueAtNoon,
+                                   double valueAt1400, double valueAtSunset) {
+        if (t < t_sr || t > t_ss) {
+            return calcValueNighttime(t, t_ss, t_sr, valueAtSunset, valueAtSunrise);
+        } else if (t < 12.) {
+            return calcValueMorning(t, t_sr, valueAtSunrise, valueAtNoon);
+        } else if (t > 14.) {
+            return calcValueLateAfternoon(t, t_ss, valueAt1400, valueAtSunset);
+        } else {
+            return calcValueEarlyAfternoon(t, valueAtNoon, valueAt1400);
+        }
+    }
+
     /**
      * Sinusoidal curve linking 1400 value to value at sunset - used to calculate temperature and
      * humidity between between 1400 and sunset.
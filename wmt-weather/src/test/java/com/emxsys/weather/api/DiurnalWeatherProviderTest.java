@@ -31,6 +31,7 @@ package com.emxsys.weather.api;
 
 import com.emxsys.gis.api.Coord2D;
 import com.emxsys.gis.api.GeoCoord3D;
+import com.emxsys.visad.SpatialDomain;
 import com.emxsys.visad.TemporalDomain;
 import com.emxsys.visad.Times;
 import java.time.Duration;
@@ -47,6 +48,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 import visad.Field;
 import visad.Real;
+import visad.georef.LatLonPoint;
 
 /**
  *
@@ -234,4 +236,57 @@ public class DiurnalWeatherProviderTest {
             fail(e.toString());
         }
     }
+
+    /**
+     * Test of getWeatherModel method, of class DiurnalWeatherProvider.
+     */
+    @Test
+    public void testGetWeatherModel() {
+        System.out.println("getWeatherModel");
+        try {
+            instance.initializeAirTemperatures(new Real(WeatherType.AIR_TEMP_F, 60),
+                    new Real(WeatherType.AIR_TEMP_F, 85), new Real(WeatherType.AIR_TEMP_F, 90),
+                    new Real(WeatherType.AIR_TEMP_F, 70));
+            instance.initializeRelativeHumidities(new Real(WeatherType.REL_HUMIDITY, 80),
+                    new Real(WeatherType.REL_HUMIDITY, 25), new Real(WeatherType.REL_HUMIDITY, 15),
+                    new Real(WeatherType.REL_HUMIDITY, 40));
+            TreeMap<LocalTime, Real> windSpeeds = new TreeMap<>();
+            windSpeeds.put(LocalTime.of(0, 00), new Real(WeatherType.WIND_SPEED_KTS, 5));
+            windSpeeds.put(LocalTime.of(12, 00), new Real(WeatherType.WIND_SPEED_KTS, 15));
+            instance.initializeWindSpeeds(windSpeeds);
+
+            SpatialDomain spatial = SpatialDomain.from(
+                    GeoCoord3D.fromDegrees(34.0, -120.0), GeoCoord3D.fromDegrees(35.0, -119.0), 5, 5);
+            TemporalDomain temporal = new TemporalDomain(ZonedDateTime.now(), 24);
+
+            // A zero tolerance must reproduce the weather computed for each individual coordinate
+            instance.setSunlightTolerance(0);
+            WeatherModel result = instance.getWeatherModel(spatial, temporal);
+            assertNotNull(result);
+            for (int t = 0; t < temporal.getDomainSetLength(); t++) {
+                ZonedDateTime time = temporal.getZonedDateTimeAt(t);
+                double[][] values = result.getSpatialWeatherAt(time).getValues(false);
+                for (int xy = 0; xy < spatial.getDomainSetLength(); xy++) {
+                    LatLonPoint latLon = spatial.getLatLonPointAt(xy);
+                    double[] expResult = instance.getWeather(time, GeoCoord3D.fromLatLonPoint(latLon)).getTuple().getValues();
+                    for (int dim = 0; dim < expResult.length; dim++) {
+                        assertEquals(expResult[dim], values[dim][xy], 1e-3);
+                    }
+                }
+            }
+
+            // Sharing the sunrise/sunset within a band only shifts the curves by a few minutes
+            instance.setSunlightTolerance(0.5);
+            WeatherModel banded = instance.getWeatherModel(spatial, temporal);
+            for (int t = 0; t < temporal.getDomainSetLength(); t++) {
+                ZonedDateTime time = temporal.getZonedDateTimeAt(t);
+                double[][] expValues = result.getSpatialWeatherAt(time).getValues(false);
+                double[][] values = banded.getSpatialWeatherAt(time).getValues(false);
+                assertEquals(expValues[WeatherType.AIR_TEMP_INDEX][0], values[WeatherType.AIR_TEMP_INDEX][0], 2.0);
+                assertEquals(expValues[WeatherType.REL_HUMIDITY_INDEX][0], values[WeatherType.REL_HUMIDITY_INDEX][0], 2.0);
+            }
+        } catch (Exception e) {
+            fail(e.toString());
+        }
+    }
 }
@@ -32,6 +32,7 @@ package com.emxsys.wildfire.api;
 import com.emxsys.visad.RealXmlAdapter;
 import com.emxsys.visad.Reals;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
@@ -85,8 +86,8 @@ public class BasicFuelModel implements FuelModel {
     private static Set<String> fuelModelGroups;
 
     static {
-        fuelModels = new HashMap<>();
-        fuelModelGroups = new HashSet<>();
+        fuelModels = new ConcurrentHashMap<>();
+        fuelModelGroups = ConcurrentHashMap.newKeySet();
         INVALID_FUEL_MODEL = new BasicFuelModel.Builder(-1, "INVALID", "Invalid Fuel Model",
                 Builder.FUEL_LOAD_ZERO,
                 Builder.SAV_RATIO_ZERO,
@@ -29,8 +29,14 @@
  */
 package com.emxsys.wildfire.api;
 
+import com.emxsys.gis.api.BasicTerrain;
 import com.emxsys.gis.api.Terrain;
 import com.emxsys.weather.api.Weather;
+import static com.emxsys.wildfire.api.WildfireType.FUEL_TEMP_C;
+import java.rmi.RemoteException;
+import visad.Real;
+import visad.RealTuple;
+import visad.VisADException;
 
 /**
  * A service interface for computing fire behavior.
@@ -51,4 +57,65 @@ public interface FireBehaviorProvider {
     public FireEnvironment computeFireBehavior(FuelModel fuelModel, FuelCondition condition,
                                                Weather weather, Terrain terrain);
 
+    /**
+     * Computes the wildfire fire behavior for a batch of cells, e.g., a spatial slice of a grid at
+     * one point in time. The inputs are column arrays indexed by cell, and the outputs are filled
+     * in the VisAD sample layout of the {@link WildfireType#FIRE_BEHAVIOR} tuple, i.e.,
+     * [fireline intensity, flame length, rate of spread, direction of spread][cell], in SI units.
+     * <p>
+     * The default implementation calls {@link #computeFireBehavior(FuelModel, FuelCondition,
+     * Weather, Terrain)} for each cell; implementations should override it to compute the cells
+     * without the per-cell tuples.
+     *
+     * @param fuelModels The distinct fuel models referenced by fuelIndex.
+     * @param fuelIndex The index into fuelModels for each cell; a negative index yields missing
+     * (NaN) outputs.
+     * @param fuelTemps The fuel temperatures [Celsius].
+     * @param dead1Hr The dead 1 hour fuel moistures [percent].
+     * @param dead10Hr The dead 10 hour fuel moistures [percent].
+     * @param dead100Hr The dead 100 hour fuel moistures [percent].
+     * @param liveHerb The live herbaceous fuel moistures [percent].
+     * @param liveWoody The live woody fuel moistures [percent].
+     * @param slopes The terrain slopes [degrees].
+     * @param aspects The terrain aspects [degrees].
+     * @param weather The general wind speed and wind direction common to all the cells.
+     * @param maxBehaviors Receives the fire behavior in the direction of max spread.
+     * @param noWindBehaviors Receives the fire behavior without wind and slope.
+     * @param from The first cell index, inclusive.
+     * @param to The last cell index, exclusive.
+     */
+    default void computeFireBehavior(FuelModel[] fuelModels, int[] fuelIndex, double[] fuelTemps,
+                                     double[] dead1Hr, double[] dead10Hr, double[] dead100Hr,
+                                     double[] liveHerb, double[] liveWoody,
+                                     double[] slopes, double[] aspects, Weather weather,
+                                     double[][] maxBehaviors, double[][] noWindBehaviors,
+                                     int from, int to) {
+        try {
+            for (int i = from; i < to; i++) {
+                if (fuelIndex[i] < 0) {
+                    for (int dim = 0; dim < maxBehaviors.length; dim++) {
+                        maxBehaviors[dim][i] = Double.NaN;
+                        noWindBehaviors[dim][i] = Double.NaN;
+                    }
+                    continue;
+                }
+                FuelCondition condition = BasicFuelCondition.fromReals(
+                        BasicFuelMoisture.fromDoubles(dead1Hr[i], dead10Hr[i], dead100Hr[i], liveHerb[i], liveWoody[i]),
+                        new Real(FUEL_TEMP_C, fuelTemps[i]));
+                Terrain terrain = new BasicTerrain(aspects[i], slopes[i], 0);
+
+                FireEnvironment fire = computeFireBehavior(fuelModels[fuelIndex[i]], condition, weather, terrain);
+
+                RealTuple max = (RealTuple) fire.fireBehavior;
+                RealTuple noWnd = (RealTuple) fire.fireBehaviorNoWnd;
+                for (int dim = 0; dim < maxBehaviors.length; dim++) {
+                    maxBehaviors[dim][i] = ((Real) max.getComponent(dim)).getValue();
+                    noWindBehaviors[dim][i] = ((Real) noWnd.getComponent(dim)).getValue();
+                }
+            }
+        } catch (VisADException | RemoteException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
 }
@@ -31,6 +31,7 @@ package com.emxsys.wildfire.api;
 
 import com.emxsys.gis.api.Box;
 import com.emxsys.gis.api.Coord2D;
+import com.emxsys.gis.api.GeoCoord2D;
 
 
 /**
@@ -72,4 +73,29 @@ public interface FuelModelProvider
      * @return
      */
     FuelModel getFuelModel(Coord2D location);
+
+
+    /**
+     * Gets the FuelModels at the given locations. The default implementation gets each fuel model
+     * individually; raster based providers should override this method to decode the raster
+     * tiles in bulk.
+     *
+     * @param latitudes the latitudes of the locations [degrees]
+     * @param longitudes the longitudes of the locations [degrees]
+     * @return the fuel models, indexed like the locations; never null elements
+     */
+    default FuelModel[] getFuelModels(double[] latitudes, double[] longitudes)
+    {
+        if (latitudes.length != longitudes.length)
+        {
+            throw new IllegalArgumentException("The latitudes and longitudes must have the same length.");
+        }
+        FuelModel[] fuelModels = new FuelModel[latitudes.length];
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            FuelModel fuelModel = getFuelModel(GeoCoord2D.fromDegrees(latitudes[i], longitudes[i]));
+            fuelModels[i] = fuelModel == null ? BasicFuelModel.INVALID_FUEL_MODEL : fuelModel;
+        }
+        return fuelModels;
+    }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wildfire.behavior;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A bounded, thread-safe, least-recently-used cache with hit, miss and eviction counters. Used by
+ * the SurfaceFuelProvider and SurfaceFireProvider to memoize their computations. The counters
+ * indicate whether the cache is earning its memory: a low hit ratio with a high eviction count
+ * suggests the maximum size is too small or the keys too fine grained.
+ * <p>
+ * Values are computed outside of the lock, so concurrent misses on the same key may compute the
+ * value more than once; the first value stored wins.
+ *
+ * @author Bruce Schubert
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BehaviorCache<K, V> {
+
+    private final int maximumSize;
+    private final LinkedHashMap<K, V> map;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructs a cache that evicts the least recently used entry when full.
+     *
+     * @param maximumSize the maximum number of entries; zero disables caching.
+     */
+    public BehaviorCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize cannot be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) { // true = access order
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > BehaviorCache.this.maximumSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached value for the key, computing and caching the value if not found.
+     *
+     * @param key the cache key
+     * @param loader computes the value for a key that is not in the cache
+     * @return the cached or computed value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value;
+        synchronized (map) {
+            value = map.get(key);
+        }
+        if (value != null) {
+            hits.incrementAndGet();
+            return value;
+        }
+        misses.incrementAndGet();
+        value = loader.apply(key);
+        if (value == null || maximumSize == 0) {
+            return value;
+        }
+        synchronized (map) {
+            V existing = map.putIfAbsent(key, value);
+            return existing != null ? existing : value;
+        }
+    }
+
+    /**
+     * Removes all the entries; the counters are not reset.
+     */
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    /**
+     * @return the current number of entries.
+     */
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * @return the maximum number of entries.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return the number of lookups that found a cached value.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that computed a value.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries removed to honor the maximum size.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the ratio of hits to lookups, or zero if there have been no lookups.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Rounds a continuous key input to the nearest multiple of the given resolution so that
+     * nearly identical inputs share a cache entry.
+     *
+     * @param value the value to quantize
+     * @param resolution the quantization step; zero or less returns the value unchanged.
+     * @return the quantized value
+     */
+    public static double quantize(double value, double resolution) {
+        if (resolution <= 0 || Double.isNaN(value)) {
+            return value;
+        }
+        return Math.round(value / resolution) * resolution;
+    }
+
+    @Override
+    public String toString() {
+        return "BehaviorCache{" + "size=" + size() + ", maximumSize=" + maximumSize
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + '}';
+    }
+}
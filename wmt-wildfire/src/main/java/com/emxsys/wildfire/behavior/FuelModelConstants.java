@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wildfire.behavior;
+
+import com.emxsys.visad.FireUnit;
+import static com.emxsys.visad.GeneralUnit.foot;
+import com.emxsys.wildfire.api.BasicFuelModel;
+import com.emxsys.wildfire.api.FuelModel;
+import static java.lang.Math.exp;
+import java.util.concurrent.ConcurrentHashMap;
+import visad.VisADException;
+
+/**
+ * The FuelModelConstants class holds the Rothermel intermediates that depend only upon the fuel
+ * model, e.g., the SAV-weighted loadings, characteristic SAV ratio, packing ratios, reaction
+ * velocity, propagating flux ratio, wind coefficients C, B and E, and the effective heating
+ * numbers. The {@link SurfaceFireKernel} reads these constants so that only the moisture dependent
+ * terms are computed for each cell.
+ * <p>
+ * The fuel bed of a dynamic fuel model changes with the curing of its herbaceous fuels, so its
+ * intermediates are precomputed for the green (uncured) and fully cured states; partially cured
+ * fuel beds are computed per cell.
+ * <p>
+ * Instances are immutable. The instances for the standard fuel models are created lazily and
+ * shared via {@link #forModelNo(int)}.
+ *
+ * @author Bruce Schubert
+ * @see SurfaceFireKernel
+ */
+public final class FuelModelConstants {
+
+    /** Fuel model constants keyed by fuel model number; built lazily. */
+    private static final ConcurrentHashMap<Integer, FuelModelConstants> TABLE = new ConcurrentHashMap<>();
+
+    // Fuel model parameters. Loads [lb/ft2], SAV ratios [ft2/ft3], depth [ft],
+    // moisture of extinction [%], heat content [Btu/lb].
+    final int modelNo;
+    final boolean dynamic;
+    final boolean burnable;
+    /** SH9 uses a different algorithm for mixing the dead herbaceous and dead 1hr fuels. */
+    final boolean sh9Mixing;
+    final double w0_d1;
+    final double w0_10;
+    final double w0_100;
+    final double w0_herb;
+    final double w0_woody;
+    final double sv_d1;
+    final double sv_10;
+    final double sv_100;
+    final double sv_herb;
+    final double sv_woody;
+    final double depth;
+    final double mxDead;
+    final double heatContent;
+
+    // Curing independent intermediates for the dead 10hr, dead 100hr and live woody classes
+    final double sw_1;
+    final double sw_2;
+    final double sw_4;
+    final double epsSw_1;
+    final double epsSw_2;
+    final double epsSw_4;
+    final double e1;
+    final double e2;
+    final double liveWoodyExp;
+    final double epsHerb;
+
+    /** The fuel bed without curing; used by all static fuel models. */
+    final FuelBed green;
+    /** The fuel bed with fully cured herbaceous fuels; null for static fuel models. */
+    final FuelBed cured;
+
+    /**
+     * Gets the shared constants for a fuel model number, creating them on first use.
+     *
+     * @param modelNo A standard fuel model number; see BasicFuelModel.from(int).
+     * @return The constants for the fuel model.
+     */
+    public static FuelModelConstants forModelNo(int modelNo) {
+        return TABLE.computeIfAbsent(modelNo, (no) -> from(BasicFuelModel.from(no)));
+    }
+
+    /**
+     * Creates the constants for an arbitrary fuel model, e.g., a custom fuel model. Callers should
+     * create the constants once per fuel model and reuse them for every cell.
+     *
+     * @param model The fuel model.
+     * @return A new instance.
+     */
+    public static FuelModelConstants from(FuelModel model) {
+        try {
+            return new FuelModelConstants(model);
+        } catch (VisADException ex) {
+            throw new IllegalArgumentException("Cannot convert fuel model " + model + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private FuelModelConstants(FuelModel model) throws VisADException {
+        this.modelNo = model.getModelNo();
+        this.dynamic = model.isDynamic();
+        this.burnable = model.isBurnable();
+        this.sh9Mixing = "SH9".equalsIgnoreCase(model.getModelCode());
+        this.w0_d1 = model.getDead1HrFuelLoad().getValue(FireUnit.lb_ft2);
+        this.w0_10 = model.getDead10HrFuelLoad().getValue(FireUnit.lb_ft2);
+        this.w0_100 = model.getDead100HrFuelLoad().getValue(FireUnit.lb_ft2);
+        this.w0_herb = model.getLiveHerbFuelLoad().getValue(FireUnit.lb_ft2);
+        this.w0_woody = model.getLiveWoodyFuelLoad().getValue(FireUnit.lb_ft2);
+        this.sv_d1 = model.getDead1HrSAVRatio().getValue(FireUnit.ft2_ft3);
+        this.sv_10 = model.getDead10HrSAVRatio().getValue(FireUnit.ft2_ft3);
+        this.sv_100 = model.getDead100HrSAVRatio().getValue(FireUnit.ft2_ft3);
+        this.sv_herb = model.getLiveHerbSAVRatio().getValue(FireUnit.ft2_ft3);
+        this.sv_woody = model.getLiveWoodySAVRatio().getValue(FireUnit.ft2_ft3);
+        this.depth = model.getFuelBedDepth().getValue(foot);
+        this.mxDead = model.getMoistureOfExtinction().getValue();
+        this.heatContent = model.getLowHeatContent().getValue(FireUnit.Btu_lb);
+
+        this.sw_1 = sv_10 * w0_10;
+        this.sw_2 = sv_100 * w0_100;
+        this.sw_4 = sv_woody * w0_woody;
+        this.epsSw_1 = Rothermel.effectiveHeatingNumber(sv_10) * sw_1;
+        this.epsSw_2 = Rothermel.effectiveHeatingNumber(sv_100) * sw_2;
+        this.epsSw_4 = Rothermel.effectiveHeatingNumber(sv_woody) * sw_4;
+        this.epsHerb = Rothermel.effectiveHeatingNumber(sv_herb);
+        this.e1 = exp138(sv_10, w0_10);
+        this.e2 = exp138(sv_100, w0_100);
+        this.liveWoodyExp = sv_woody > 0 ? w0_woody * exp(-500 / sv_woody) : 0;
+
+        this.green = new FuelBed(this, 0);
+        this.cured = dynamic ? new FuelBed(this, 1) : null;
+    }
+
+    /**
+     * Gets the fuel bed for the given herbaceous curing.
+     *
+     * @param curing The cured fraction of the live herbaceous fuel [0..1].
+     * @return A precomputed fuel bed for the green or fully cured states, otherwise a new fuel bed.
+     */
+    FuelBed getFuelBed(double curing) {
+        if (curing <= 0 || !dynamic) {
+            return green;
+        } else if (curing >= 1) {
+            return cured;
+        }
+        return new FuelBed(this, curing);
+    }
+
+    /**
+     * @return The fuel model number.
+     */
+    public int getModelNo() {
+        return modelNo;
+    }
+
+    static double exp138(double sv, double w0) {
+        return sv > 0 ? w0 * exp(-138 / sv) : 0;
+    }
+
+    /**
+     * The curing dependent intermediates of the fuel bed. The dead herbaceous fuel created by
+     * curing is mixed with the dead 1hr fuel to form the dead fine fuel class.
+     */
+    static final class FuelBed {
+
+        /** True if the fuel bed can carry a fire. */
+        final boolean burnable;
+        final double w0_dh;
+        final double w0_0;
+        final double sv_0;
+        final double w0_3;
+        final double sw_0;
+        final double sw_3;
+        final double sw_total;
+        final double sigma;
+        final double rho_b;
+        final double beta;
+        final double beta_ratio;
+        final double e0;
+        final double sumDead;
+        final double sumLive;
+        /** The dead fine fuel coefficient of the dead 1hr moisture in the dead moisture sum. */
+        final double swm_0;
+        final double sw_d;
+        final double sw_l;
+        final double wn_dead;
+        final double wn_live;
+        /** gamma * heat content * eta_S */
+        final double reactionFactor;
+        final double xi;
+        final double C;
+        final double B;
+        final double E;
+        final double tau;
+        final double epsSw_0;
+        final double epsSw_3;
+
+        FuelBed(FuelModelConstants fuel, double curing) {
+            // Transfer cured herbaceous fuel into the dead herbaceous fuel load
+            double w0_lh = fuel.w0_herb;
+            double w0_dh_ = 0;
+            if (w0_lh > 0) {
+                w0_dh_ = w0_lh * curing;
+                w0_lh -= w0_dh_;
+            }
+            this.w0_dh = w0_dh_;
+
+            // Mix the dead herbaceous fuels with the dead 1hr fuels
+            double sv_dh = fuel.sv_herb; // dead SAV ratio is same as live SAV ratio
+            double sw_fine = fuel.sv_d1 * fuel.w0_d1 + sv_dh * w0_dh;
+            this.burnable = sw_fine > 0 && fuel.burnable && fuel.depth > 0;
+            this.w0_0 = fuel.w0_d1 + w0_dh;
+            this.sv_0 = sw_fine > 0 ? (fuel.sv_d1 * fuel.sv_d1 * fuel.w0_d1 + sv_dh * sv_dh * w0_dh) / sw_fine : 0;
+            this.w0_3 = w0_lh;
+
+            // Rothermel 1972: eq. (71) and (72), (74), and Albini 1976
+            double w0_live = w0_3 + fuel.w0_woody;
+            double w0_total = w0_0 + fuel.w0_10 + fuel.w0_100 + w0_live;
+            this.sw_0 = sv_0 * w0_0;
+            this.sw_3 = fuel.sv_herb * w0_3;
+            this.sw_total = sw_0 + fuel.sw_1 + fuel.sw_2 + sw_3 + fuel.sw_4;
+            this.sigma = sw_total > 0
+                    ? (sv_0 * sw_0 + fuel.sv_10 * fuel.sw_1 + fuel.sv_100 * fuel.sw_2
+                    + fuel.sv_herb * sw_3 + fuel.sv_woody * fuel.sw_4) / sw_total
+                    : 0;
+            this.rho_b = fuel.depth > 0 ? w0_total / fuel.depth : 0;
+            this.beta = rho_b / SurfaceFuel.rho_p;
+            this.beta_ratio = burnable ? beta / Rothermel.optimalPackingRatio(sigma) : 0;
+
+            // Live moisture of extinction. Albini (1976): page 89
+            this.e0 = exp138(sv_0, w0_0);
+            this.sumDead = e0 + fuel.e1 + fuel.e2;
+            this.sumLive = (fuel.sv_herb > 0 ? w0_3 * exp(-500 / fuel.sv_herb) : 0) + fuel.liveWoodyExp;
+
+            // Moisture damping. Rothermel 1972: eq. (29), (65) and (66)
+            double sw2_d;
+            if (fuel.sh9Mixing) {
+                // SH9 mixes the dead herbaceous with the dead 1hr fuels with a different algorithm
+                double sw_d0 = (fuel.sv_d1 * fuel.w0_d1) + (sv_dh * w0_dh);
+                this.swm_0 = sw_d0;
+                this.sw_d = sw_d0 + fuel.sw_1 + fuel.sw_2;
+                sw2_d = (fuel.sv_d1 * fuel.w0_d1 * fuel.w0_d1) + (sv_dh * w0_dh * w0_dh);
+            } else {
+                this.swm_0 = sw_0;
+                this.sw_d = sw_0 + fuel.sw_1 + fuel.sw_2;
+                sw2_d = sw_0 * w0_0;
+            }
+            sw2_d += fuel.sw_1 * fuel.w0_10 + fuel.sw_2 * fuel.w0_100;
+            this.sw_l = sw_3 + fuel.sw_4;
+            this.wn_dead = (sw_d > 0) ? (SurfaceFireKernel.NET_FRACTION * sw2_d) / sw_d : 0;
+            this.wn_live = (sw_l > 0) ? SurfaceFireKernel.NET_FRACTION * w0_live : 0;
+
+            // Reaction intensity, propagating flux and wind factors. Rothermel 1972
+            this.reactionFactor = burnable
+                    ? Rothermel.reactionVelocity(sigma, beta_ratio) * fuel.heatContent * SurfaceFireKernel.ETA_S
+                    : 0;
+            this.xi = burnable ? Rothermel.propagatingFluxRatio(sigma, beta) : 0;
+            this.C = burnable ? Rothermel.windParameterC(sigma) : 0;
+            this.B = burnable ? Rothermel.windParameterB(sigma) : 0;
+            this.E = burnable ? Rothermel.windParameterE(sigma) : 0;
+            this.tau = burnable ? Rothermel.flameResidenceTime(sigma) : 0;
+
+            // Heat sink terms. Rothermel 1972: eq. (77)
+            this.epsSw_0 = burnable ? Rothermel.effectiveHeatingNumber(sv_0) * sw_0 : 0;
+            this.epsSw_3 = fuel.epsHerb * sw_3;
+        }
+    }
+}
@@ -106,17 +106,31 @@ public class SurfaceFire implements FireBehavior {
      * @return A new SurfaceFire instance.
      */
     public static SurfaceFire from(SurfaceFuel fuelbed, Weather weather, Terrain terrain) {
+        return from(fuelbed, weather.getWindSpeed(), weather.getWindDirection(),
+                terrain.getAspect(), terrain.getSlope());
+    }
+
+    /**
+     * Creates a SurfaceFire instance.
+     * @param fuelbed The conditioned fuel complex.
+     * @param windSpd20Ft The 20ft wind speed.
+     * @param windDir Customary wind direction (direction wind is blowing FROM).
+     * @param aspect Terrain aspect (South-facing slope is 180 degrees).
+     * @param slope Terrain slope angle (steepness) in degrees.
+     * @return A new SurfaceFire instance.
+     */
+    static SurfaceFire from(SurfaceFuel fuelbed, Real windSpd20Ft, Real windDir, Real aspect, Real slope) {
 
         try {
             // TODO: Convert 10m wind speeds to 20' winds if units in KPH/SI 
-            double wndSpd20Ft = weather.getWindSpeed().getValue(mph);
+            double wndSpd20Ft = windSpd20Ft.getValue(mph);
             double fuelDepth = fuelbed.getFuelBedDepth().getValue(foot);
             double midFlameWndSpd = Rothermel.calcWindSpeedMidFlame(wndSpd20Ft, fuelDepth);
             return new SurfaceFire(fuelbed,
                     new Real(WIND_SPEED_MPH, midFlameWndSpd),
-                    weather.getWindDirection(),
-                    terrain.getAspect(),
-                    terrain.getSlope());
+                    windDir,
+                    aspect,
+                    slope);
         } catch (VisADException ex) {
             Exceptions.printStackTrace(ex);
             throw new RuntimeException(ex);
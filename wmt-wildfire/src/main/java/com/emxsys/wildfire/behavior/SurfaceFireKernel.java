@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wildfire.behavior;
+
+import com.emxsys.util.AngleUtil;
+import static java.lang.Math.*;
+
+/**
+ * The SurfaceFireKernel is a primitive, allocation-free implementation of the Rothermel surface
+ * fire computations performed by the {@link SurfaceFuel} and {@link SurfaceFire} classes. It is
+ * intended for gridded analyses where the fire behavior is computed for millions of cells and the
+ * overhead of creating VisAD Reals, unit conversions and exception handling for each cell dominates
+ * the cost of the math.
+ * <p>
+ * The fuel model invariants are read from {@link FuelModelConstants}, so only the moisture
+ * dependent terms are computed for each cell. The per-cell inputs (fuel moistures, wind, slope and
+ * aspect) are supplied as doubles or as struct-of-arrays columns, and the outputs are written into
+ * preallocated arrays indexed by the output constants, e.g., <code>outputs[ROS_MAX][cell]</code>.
+ * No objects are allocated per cell, except for the fuel bed of a partially cured dynamic fuel
+ * model.
+ * <p>
+ * Units:
+ * <ul>
+ * <li>Fuel moistures [percent]
+ * <li>20 foot wind speed [mph], wind direction (the direction the wind is blowing FROM) [degrees]
+ * <li>Terrain slope [degrees], terrain aspect (e.g., a South-facing slope is 180) [degrees]
+ * </ul>
+ *
+ * @author Bruce Schubert
+ * @see Rothermel
+ */
+public final class SurfaceFireKernel {
+
+    // Output indices
+    /** Heading fire rate of spread [ft/min] */
+    public static final int ROS_MAX = 0;
+    /** Backing fire rate of spread [ft/min] */
+    public static final int ROS_BACKING = 1;
+    /** Flanking fire rate of spread [ft/min] */
+    public static final int ROS_FLANKING = 2;
+    /** Rate of spread without wind or slope [ft/min] */
+    public static final int ROS_NO_WIND_NO_SLOPE = 3;
+    /** Direction of maximum spread [degrees] */
+    public static final int DIR_MAX_SPREAD = 4;
+    /** Fire ellipse eccentricity [0..1] */
+    public static final int ECCENTRICITY = 5;
+    /** Effective wind speed of the combined wind and slope [mph] */
+    public static final int EFFECTIVE_WIND_SPEED = 6;
+    /** Byram's fireline intensity [Btu/ft/s] */
+    public static final int FIRELINE_INTENSITY = 7;
+    /** Flame length [ft] */
+    public static final int FLAME_LENGTH = 8;
+    /** Reaction intensity [Btu/ft2/min] */
+    public static final int REACTION_INTENSITY = 9;
+    public static final int NUM_OUTPUTS = 10;
+
+    /** Mineral damping coefficient, Rothermel 1972: eq. (62). Constant for all fuels. */
+    static final double ETA_S = 0.174 * pow(SurfaceFuel.s_e / 100., -0.19);
+    /** Net fuel loading factor: the non-mineral fraction of the fuel. */
+    static final double NET_FRACTION = 1 - SurfaceFuel.s_t / 100;
+    /** Converts mph to ft/min. */
+    private static final double MPH_TO_FT_MIN = 88.;
+
+    private SurfaceFireKernel() {
+    }
+
+    /**
+     * Computes the surface fire behavior for a batch of cells stored as struct-of-arrays columns.
+     *
+     * @param fuels The constants for each fuel model; see FuelModelConstants.forModelNo.
+     * @param fuelIndex The index into fuels for each cell; cells with a negative index are
+     * considered non-burnable.
+     * @param m1 Dead 1 hour fuel moistures [%].
+     * @param m10 Dead 10 hour fuel moistures [%].
+     * @param m100 Dead 100 hour fuel moistures [%].
+     * @param mHerb Live herbaceous fuel moistures [%].
+     * @param mWoody Live woody fuel moistures [%].
+     * @param windSpd 20 foot wind speeds [mph].
+     * @param windDir Wind directions (from) [degrees].
+     * @param slope Terrain slopes [degrees].
+     * @param aspect Terrain aspects [degrees].
+     * @param outputs The preallocated outputs: [NUM_OUTPUTS][number of cells].
+     * @param from The first cell index (inclusive).
+     * @param to The last cell index (exclusive).
+     */
+    public static void computeFireBehavior(FuelModelConstants[] fuels, int[] fuelIndex,
+                                           double[] m1, double[] m10, double[] m100,
+                                           double[] mHerb, double[] mWoody,
+                                           double[] windSpd, double[] windDir,
+                                           double[] slope, double[] aspect,
+                                           double[][] outputs, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int f = fuelIndex[i];
+            if (f < 0) {
+                clear(outputs, i);
+                continue;
+            }
+            computeFireBehavior(fuels[f],
+                    m1[i], m10[i], m100[i], mHerb[i], mWoody[i],
+                    windSpd[i], windDir[i], slope[i], aspect[i],
+                    outputs, i);
+        }
+    }
+
+    /**
+     * Computes the surface fire behavior for a single cell.
+     *
+     * @param fuel The fuel model constants; see FuelModelConstants.forModelNo.
+     * @param m1 Dead 1 hour fuel moisture [%].
+     * @param m10 Dead 10 hour fuel moisture [%].
+     * @param m100 Dead 100 hour fuel moisture [%].
+     * @param mHerb Live herbaceous fuel moisture [%].
+     * @param mWoody Live woody fuel moisture [%].
+     * @param windSpd20Ft 20 foot wind speed [mph].
+     * @param windDir Wind direction (from) [degrees].
+     * @param slope Terrain slope [degrees].
+     * @param aspect Terrain aspect [degrees].
+     * @param outputs The preallocated outputs: [NUM_OUTPUTS][number of cells].
+     * @param index The cell index into the outputs.
+     */
+    public static void computeFireBehavior(FuelModelConstants fuel,
+                                           double m1, double m10, double m100,
+                                           double mHerb, double mWoody,
+                                           double windSpd20Ft, double windDir,
+                                           double slope, double aspect,
+                                           double[][] outputs, int index) {
+        // Transfer cured herbaceous fuel into the dead herbaceous fuel load; the fuel bed
+        // intermediates are precomputed for the green and fully cured states.
+        double curing = fuel.dynamic ? herbaceousCuring(mHerb) : 0;
+        FuelModelConstants.FuelBed bed = fuel.getFuelBed(curing);
+        if (!bed.burnable) {
+            clear(outputs, index);
+            return;
+        }
+        double beta = bed.beta;
+        double beta_ratio = bed.beta_ratio;
+
+        // Live moisture of extinction. Albini (1976): page 89
+        double Mx_dead = fuel.mxDead;
+        double sumDeadMoisture = m1 * bed.e0 + m10 * fuel.e1 + m100 * fuel.e2;
+        double W_prime = (bed.sumLive > 0) ? (bed.sumDead / bed.sumLive) : 0;
+        double Mf_dead_t = (bed.sumDead > 0) ? (sumDeadMoisture / bed.sumDead) : 0;
+        double Mx_live = max(Mx_dead, (2.9 * W_prime * (1 - Mf_dead_t / Mx_dead) - 0.226) * 100);
+
+        // Moisture damping. Rothermel 1972: eq. (29), (65) and (66)
+        double swm_d = bed.swm_0 * m1 + fuel.sw_1 * m10 + fuel.sw_2 * m100;
+        double swm_l = bed.sw_3 * mHerb + fuel.sw_4 * mWoody;
+        double ratio_dead = (bed.sw_d > 0) ? swm_d / (bed.sw_d * Mx_dead) : 0;
+        double ratio_live = (bed.sw_l > 0) ? swm_l / (bed.sw_l * Mx_live) : 0;
+        double eta_M = bed.wn_dead * moistureDamping(ratio_dead) + bed.wn_live * moistureDamping(ratio_live);
+
+        // Reaction intensity. Rothermel 1972: eq. (58), (59) thru (60)
+        double I_r = bed.reactionFactor * eta_M;
+
+        // Heat sink. Rothermel 1972: eq. (77)
+        double Qig_t = Rothermel.heatOfPreignition(m1) * bed.epsSw_0
+                + Rothermel.heatOfPreignition(m10) * fuel.epsSw_1
+                + Rothermel.heatOfPreignition(m100) * fuel.epsSw_2
+                + Rothermel.heatOfPreignition(mHerb) * bed.epsSw_3
+                + Rothermel.heatOfPreignition(mWoody) * fuel.epsSw_4;
+        double hsk = bed.rho_b * (Qig_t / bed.sw_total);
+
+        double ros0 = (I_r * bed.xi) / hsk;
+
+        // Wind and slope effects. Rothermel 1972: eq. (44)
+        double C = bed.C;
+        double B = bed.B;
+        double E = bed.E;
+        double midFlameWndSpd = Rothermel.calcWindSpeedMidFlame(windSpd20Ft, fuel.depth) * MPH_TO_FT_MIN;
+        double windFactor = Rothermel.windFactor(midFlameWndSpd, C, B, E, beta_ratio);
+        double slopeFactor = Rothermel.slopeFactor(slope, beta);
+
+        // Wind direction blowing TO and the upslope direction
+        double wndDir = AngleUtil.normalize360(windDir + 180);
+        double slpDir = AngleUtil.normalize360(aspect + 180);
+        double slpRad = toRadians(slpDir);
+        double splitRad = toRadians(wndDir - slpDir);
+
+        // Combined wind and slope vector for max ROS
+        double vx = slopeFactor + (windFactor * cos(splitRad));
+        double vy = windFactor * sin(splitRad);
+        double vl = sqrt(vx * vx + vy * vy);
+
+        // Direction of maximum spread; defaults to upslope when there is no wind and no slope
+        double aRad = vl > 0 ? asin(vy / vl) : 0;
+        double dirRad;
+        if (vx >= 0.) {
+            dirRad = (vy >= 0.) ? slpRad + aRad : slpRad + aRad + 2 * PI;
+        } else {
+            dirRad = slpRad - aRad + PI;
+        }
+        double spreadDirMax = AngleUtil.normalize360(toDegrees(dirRad));
+
+        // Effective windspeed. Rothermel eq. (87) sets an upper limit on the wind multiplication factor
+        double phiEw = vl;
+        double effectiveWnd = Rothermel.effectiveWindSpeed(phiEw, C, B, E, beta_ratio);
+        if (effectiveWnd > 0.9 * I_r) {
+            effectiveWnd = 0.9 * I_r;
+            phiEw = Rothermel.windFactor(effectiveWnd, C, B, E, beta_ratio);
+        }
+        double eccentricity = Rothermel.eccentricity(effectiveWnd);
+
+        double rosMax = phiEw <= 0 ? ros0 : ros0 * (1 + phiEw);
+        double fli = Rothermel.firelineIntensity(Rothermel.flameZoneDepth(rosMax, bed.tau), I_r);
+
+        // Outputs. From FireLib 1.04, firelib.c by Collin D. Bevins
+        outputs[ROS_MAX][index] = rosMax;
+        outputs[ROS_BACKING][index] = rosMax * (1. - eccentricity) / (1. + eccentricity);
+        outputs[ROS_FLANKING][index] = rosMax * (1. - eccentricity);
+        outputs[ROS_NO_WIND_NO_SLOPE][index] = ros0;
+        outputs[DIR_MAX_SPREAD][index] = spreadDirMax;
+        outputs[ECCENTRICITY][index] = eccentricity;
+        outputs[EFFECTIVE_WIND_SPEED][index] = effectiveWnd / MPH_TO_FT_MIN;
+        outputs[FIRELINE_INTENSITY][index] = fli;
+        outputs[FLAME_LENGTH][index] = Rothermel.flameLength(fli);
+        outputs[REACTION_INTENSITY][index] = I_r;
+    }
+
+    /**
+     * Computes the cured portion of live herbaceous fuels. Same as
+     * {@link SurfaceFuel#calcHerbaceousCuring}.
+     *
+     * @param herbMoisture The live herbaceous fuel moisture [%].
+     * @return The cured fraction [0..1].
+     */
+    static double herbaceousCuring(double herbMoisture) {
+        if (herbMoisture == 0 || herbMoisture >= 120.) {
+            return 0.0;     // fully green
+        } else if (herbMoisture <= 30) {
+            return 1.0;     // fully cured
+        }
+        // interpolate between 30 and 120 percents
+        return 1.0 - ((herbMoisture - 30.) / 90.);
+    }
+
+    private static double moistureDamping(double ratio) {
+        // 1 - 2.59 * (Mf/Mx) + 5.11 * (Mf/Mx)^2 - 3.52 * (Mf/Mx)^3
+        return max(0, 1 - 2.59 * ratio + 5.11 * ratio * ratio - 3.52 * ratio * ratio * ratio);
+    }
+
+    private static void clear(double[][] outputs, int index) {
+        for (double[] output : outputs) {
+            output[index] = 0;
+        }
+    }
+}
@@ -32,64 +32,126 @@ package com.emxsys.wildfire.behavior;
 import com.emxsys.gis.api.Terrain;
 import com.emxsys.weather.api.Weather;
 import static java.lang.Math.round;
-import java.util.HashMap;
 import java.util.Objects;
 import java.util.logging.Logger;
 import visad.Real;
+import visad.RealType;
+import visad.Unit;
+import visad.VisADException;
 
 /**
+ * The SurfaceFireProvider is a SurfaceFire factory that caches SurfaceFire objects in a bounded,
+ * thread-safe cache. Instances may be shared by concurrent callers.
  *
  * @author Bruce Schubert
  */
 public class SurfaceFireProvider {
 
+    /** The default maximum number of cached SurfaceFire objects. */
+    public static final int DEFAULT_CACHE_SIZE = 10000;
     private static final Logger logger = Logger.getLogger(SurfaceFireProvider.class.getName());
-    private final HashMap<FireEnvironment, SurfaceFire> fires = new HashMap<>();
+    private final BehaviorCache<FireEnvironment, SurfaceFire> fires;
+    private final double windSpdResolution;
 
+    /**
+     * Constructs a provider with the default cache size and without wind speed quantization.
+     */
     public SurfaceFireProvider() {
+        this(DEFAULT_CACHE_SIZE, 0);
+    }
+
+    /**
+     * Constructs a provider with the given cache size and wind speed quantization.
+     *
+     * @param maxCacheSize the maximum number of cached SurfaceFire objects; zero disables caching.
+     * @param windSpdResolution the wind speed step (in the weather's wind speed units) used to
+     * quantize the cache keys, e.g., 0.5; zero or less uses exact keys and computes the fire from
+     * the given values. Otherwise the directions, aspect and slope are also rounded to whole
+     * degrees, and the fire is computed from the quantized values held in the key so the result
+     * doesn't depend on the order of the requests.
+     */
+    public SurfaceFireProvider(int maxCacheSize, double windSpdResolution) {
+        this.fires = new BehaviorCache<>(maxCacheSize);
+        this.windSpdResolution = windSpdResolution;
     }
 
     public SurfaceFire getFireBehavior(SurfaceFuel fuel, Weather weather, Terrain terrain) {
+        FireEnvironment key = new FireEnvironment(fuel, weather, terrain, windSpdResolution);
+        return fires.get(key, (k) -> SurfaceFire.from(k.fuelbed, k.windSpdReal, k.windDirReal, k.aspectReal, k.slopeReal));
+    }
 
-        FireEnvironment key = new FireEnvironment(fuel, weather, terrain);
-        SurfaceFire fire = fires.get(key);
-        if (fire == null) {
-            fire = SurfaceFire.from(fuel, weather, terrain);
-            fires.put(key, fire);
-        }
-        return fire;
+    /**
+     * Gets the fire behavior cache, e.g., for reporting its hit, miss and eviction counts.
+     *
+     * @return the SurfaceFire cache
+     */
+    public BehaviorCache<?, SurfaceFire> getCache() {
+        return fires;
     }
 
     /**
-     * A simple POD structure used as a key in the 'fires' HashMap.
+     * A simple POD structure used as a key in the 'fires' cache. The key also holds the quantized
+     * values as Reals for computing the fire.
      */
-    private class FireEnvironment {
+    private static class FireEnvironment {
 
-        SurfaceFuel fuelbed;
-        double windSpd;
-        int windDir;
-        int aspect;
-        int slope;
+        final SurfaceFuel fuelbed;
+        final double windSpd;
+        final Unit windSpdUnit;
+        final double windDir;
+        final double aspect;
+        final double slope;
+        final Real windSpdReal;
+        final Real windDirReal;
+        final Real aspectReal;
+        final Real slopeReal;
 
-        FireEnvironment(SurfaceFuel fuelbed, Weather weather, Terrain terrain) {
-            this(fuelbed, weather.getWindSpeed(), weather.getWindDirection(), terrain.getAspect(), terrain.getSlope());
+        FireEnvironment(SurfaceFuel fuelbed, Weather weather, Terrain terrain, double windSpdResolution) {
+            this(fuelbed, weather.getWindSpeed(), weather.getWindDirection(), terrain.getAspect(), terrain.getSlope(), windSpdResolution);
         }
 
-        FireEnvironment(SurfaceFuel fuelbed, Real windSpd, Real windDir, Real aspect, Real slope) {
+        FireEnvironment(SurfaceFuel fuelbed, Real windSpd, Real windDir, Real aspect, Real slope, double windSpdResolution) {
             this.fuelbed = fuelbed;
-            this.windSpd = windSpd.getValue();
-            this.windDir = (int) round(windDir.getValue());
-            this.aspect = (int) round(aspect.getValue());
-            this.slope = (int) round(slope.getValue());
+            this.windSpdUnit = windSpd.getUnit();
+            if (windSpdResolution > 0) {
+                this.windSpd = BehaviorCache.quantize(windSpd.getValue(), windSpdResolution);
+                this.windDir = round(windDir.getValue());
+                this.aspect = round(aspect.getValue());
+                this.slope = round(slope.getValue());
+                this.windSpdReal = withValue(windSpd, this.windSpd);
+                this.windDirReal = withValue(windDir, this.windDir);
+                this.aspectReal = withValue(aspect, this.aspect);
+                this.slopeReal = withValue(slope, this.slope);
+            } else {
+                // Exact keys
+                this.windSpd = windSpd.getValue();
+                this.windDir = windDir.getValue();
+                this.aspect = aspect.getValue();
+                this.slope = slope.getValue();
+                this.windSpdReal = windSpd;
+                this.windDirReal = windDir;
+                this.aspectReal = aspect;
+                this.slopeReal = slope;
+            }
+        }
+
+        private static Real withValue(Real real, double value) {
+            try {
+                return new Real((RealType) real.getType(), value, real.getUnit());
+            } catch (VisADException ex) {
+                throw new IllegalArgumentException(ex);
+            }
         }
 
         @Override
         public int hashCode() {
             int hash = 7;
             hash = 37 * hash + Objects.hashCode(this.fuelbed);
-            hash = 37 * hash + (int) (Double.doubleToLongBits(this.windSpd) ^ (Double.doubleToLongBits(this.windSpd) >>> 32));
-            hash = 37 * hash + this.windDir;
-            hash = 37 * hash + this.slope;
+            hash = 37 * hash + Double.hashCode(this.windSpd);
+            hash = 37 * hash + Objects.hashCode(this.windSpdUnit);
+            hash = 37 * hash + Double.hashCode(this.windDir);
+            hash = 37 * hash + Double.hashCode(this.aspect);
+            hash = 37 * hash + Double.hashCode(this.slope);
             return hash;
         }
 
@@ -105,16 +167,13 @@ public class SurfaceFireProvider {
             if (!Objects.equals(this.fuelbed, other.fuelbed)) {
                 return false;
             }
-            if (Double.doubleToLongBits(this.windSpd) != Double.doubleToLongBits(other.windSpd)) {
-                return false;
-            }
-            if (this.windDir != other.windDir) {
-                return false;
-            }
-            if (this.aspect != other.aspect) {
+            if (!Objects.equals(this.windSpdUnit, other.windSpdUnit)) {
                 return false;
             }
-            return this.slope == other.slope;
+            return Double.compare(this.windSpd, other.windSpd) == 0
+                    && Double.compare(this.windDir, other.windDir) == 0
+                    && Double.compare(this.aspect, other.aspect) == 0
+                    && Double.compare(this.slope, other.slope) == 0;
         }
 
     }
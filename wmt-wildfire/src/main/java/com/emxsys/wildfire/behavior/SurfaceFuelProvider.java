@@ -36,7 +36,7 @@ import com.emxsys.wildfire.api.FuelModel;
 import com.emxsys.wildfire.api.FuelMoisture;
 import com.emxsys.wildfire.api.BasicFuelMoisture;
 import static com.emxsys.wildfire.api.WildfireType.FUEL_TEMP_F;
-import java.util.HashMap;
+import static com.emxsys.wildfire.behavior.BehaviorCache.quantize;
 import java.util.Objects;
 import visad.Real;
 
@@ -52,13 +52,50 @@ import visad.Real;
  * <li><a name="bib_1002"></a>Anderson, K., 2009, A Comparison of Hourly Fire Fuel Moisture Code
  * Calculations within Canada, Canadian Forest Service
  * </ul>
+ * <p>
+ * The SurfaceFuel cache is bounded and thread-safe, so instances may be shared by concurrent
+ * callers.
  *
  * @author Bruce Schubert
  */
 public class SurfaceFuelProvider {
 
+    /** The default maximum number of cached SurfaceFuel objects. */
+    public static final int DEFAULT_CACHE_SIZE = 10000;
     /** SurfaceFuel cache */
-    private final HashMap<FuelScenario, SurfaceFuel> cache = new HashMap<>();
+    private final BehaviorCache<FuelScenario, SurfaceFuel> cache;
+    /** Fuel moisture quantization step [percent] */
+    private final double moistureResolution;
+
+    /**
+     * Constructs a provider with the default cache size and without fuel moisture quantization.
+     */
+    public SurfaceFuelProvider() {
+        this(DEFAULT_CACHE_SIZE, 0);
+    }
+
+    /**
+     * Constructs a provider with the given cache size and fuel moisture quantization.
+     *
+     * @param maxCacheSize The maximum number of cached SurfaceFuel objects; zero disables caching.
+     * @param moistureResolution The fuel moisture step [percent] used to quantize the cache keys,
+     * e.g., 0.5; zero or less uses exact keys and computes the fuel from the given moistures.
+     * Otherwise the fuel is computed from the quantized moistures held in the key, so the result
+     * doesn't depend on the order of the requests.
+     */
+    public SurfaceFuelProvider(int maxCacheSize, double moistureResolution) {
+        this.cache = new BehaviorCache<>(maxCacheSize);
+        this.moistureResolution = moistureResolution;
+    }
+
+    /**
+     * Gets the SurfaceFuel cache, e.g., for reporting its hit, miss and eviction counts.
+     *
+     * @return The SurfaceFuel cache.
+     */
+    public BehaviorCache<?, SurfaceFuel> getCache() {
+        return cache;
+    }
 
     /**
      * Gets a cached SurfaceFuel object the from the given parameters, computes and caches the fuel
@@ -70,14 +107,11 @@ public class SurfaceFuelProvider {
      */
     public SurfaceFuel getSurfaceFuel(FuelModel fuelModel, FuelMoisture fuelMoisture) {
 
-        FuelScenario key = new FuelScenario(fuelModel, fuelMoisture);
-        SurfaceFuel fuel = cache.get(key);
-        if (fuel == null) {
+        FuelScenario key = new FuelScenario(fuelModel, fuelMoisture, moistureResolution);
+        return cache.get(key, (k) -> {
             Real fuelTemp = new Real(FUEL_TEMP_F); // "missing" value
-            fuel = SurfaceFuel.from(fuelModel, fuelMoisture, fuelTemp);
-            cache.put(key, fuel);
-        }
-        return fuel;
+            return SurfaceFuel.from(k.fuelModel, k.getFuelMoisture(), fuelTemp);
+        });
     }
 
     /**
@@ -145,23 +179,48 @@ public class SurfaceFuelProvider {
     }
 
     /**
-     * A simple POD structure used as a key in the 'fuels' HashMap.
+     * A simple POD structure used as a key in the 'fuels' cache.
      */
-    private class FuelScenario {
-
-        FuelModel fuelModel;
-        FuelMoisture fuelMoisture;
-
-        FuelScenario(FuelModel fuelModel, FuelMoisture fuelMoisture) {
+    private static class FuelScenario {
+
+        final FuelModel fuelModel;
+        final double dead1Hr;
+        final double dead10Hr;
+        final double dead100Hr;
+        final double liveHerb;
+        final double liveWoody;
+        /** The given fuel moisture when the key is exact; otherwise null. */
+        final FuelMoisture exactFuelMoisture;
+
+        FuelScenario(FuelModel fuelModel, FuelMoisture fuelMoisture, double resolution) {
             this.fuelModel = fuelModel;
-            this.fuelMoisture = fuelMoisture;
+            this.exactFuelMoisture = resolution > 0 ? null : fuelMoisture;
+            this.dead1Hr = quantize(fuelMoisture.getDead1HrFuelMoisture().getValue(), resolution);
+            this.dead10Hr = quantize(fuelMoisture.getDead10HrFuelMoisture().getValue(), resolution);
+            this.dead100Hr = quantize(fuelMoisture.getDead100HrFuelMoisture().getValue(), resolution);
+            this.liveHerb = quantize(fuelMoisture.getLiveHerbFuelMoisture().getValue(), resolution);
+            this.liveWoody = quantize(fuelMoisture.getLiveWoodyFuelMoisture().getValue(), resolution);
+        }
+
+        /**
+         * Gets the quantized fuel moisture, or the given fuel moisture if the key is exact.
+         */
+        FuelMoisture getFuelMoisture() {
+            if (exactFuelMoisture != null) {
+                return exactFuelMoisture;
+            }
+            return BasicFuelMoisture.fromDoubles(dead1Hr, dead10Hr, dead100Hr, liveHerb, liveWoody);
         }
 
         @Override
         public int hashCode() {
             int hash = 7;
             hash = 61 * hash + Objects.hashCode(this.fuelModel);
-            hash = 61 * hash + Objects.hashCode(this.fuelMoisture);
+            hash = 61 * hash + Double.hashCode(this.dead1Hr);
+            hash = 61 * hash + Double.hashCode(this.dead10Hr);
+            hash = 61 * hash + Double.hashCode(this.dead100Hr);
+            hash = 61 * hash + Double.hashCode(this.liveHerb);
+            hash = 61 * hash + Double.hashCode(this.liveWoody);
             return hash;
         }
 
@@ -177,7 +236,11 @@ public class SurfaceFuelProvider {
             if (!Objects.equals(this.fuelModel, other.fuelModel)) {
                 return false;
             }
-            return Objects.equals(this.fuelMoisture, other.fuelMoisture);
+            return Double.compare(this.dead1Hr, other.dead1Hr) == 0
+                    && Double.compare(this.dead10Hr, other.dead10Hr) == 0
+                    && Double.compare(this.dead100Hr, other.dead100Hr) == 0
+                    && Double.compare(this.liveHerb, other.liveHerb) == 0
+                    && Double.compare(this.liveWoody, other.liveWoody) == 0;
         }
     }
 
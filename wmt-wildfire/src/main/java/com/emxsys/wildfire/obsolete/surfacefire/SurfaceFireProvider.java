@@ -51,11 +51,11 @@ import visad.VisADException;
 @Deprecated
 public class SurfaceFireProvider implements FireBehaviorProvider {
 
-    private final Behave behave;
+    /** Behave holds its inputs and results in fields, so each thread gets its own instance. */
+    private final ThreadLocal<Behave> behaves = ThreadLocal.withInitial(Behave::new);
     //private BehaveExp behave;    // experimental version
 
     public SurfaceFireProvider() {
-        behave = new Behave();
         //behave = new BehaveExp();
     }
 
@@ -74,22 +74,10 @@ public class SurfaceFireProvider implements FireBehaviorProvider {
                                                Weather weather,
                                                Terrain terrain) {
         try {
+            Behave behave = behaves.get();
+
             // Set static fuel model vars
-            behave.fuelModel = fuelModel.getModelNo();
-            behave.isDynamic = fuelModel.isDynamic();
-            behave.w0_d1 = fuelModel.getDead1HrFuelLoad().getValue(kg_m2);
-            behave.w0_d2 = fuelModel.getDead10HrFuelLoad().getValue(kg_m2);
-            behave.w0_d3 = fuelModel.getDead100HrFuelLoad().getValue(kg_m2);
-            behave.w0_lh = fuelModel.getLiveHerbFuelLoad().getValue(kg_m2);
-            behave.w0_lw = fuelModel.getLiveWoodyFuelLoad().getValue(kg_m2);
-            behave.sv_d1 = fuelModel.getDead1HrSAVRatio().getValue();
-            behave.sv_d2 = fuelModel.getDead10HrSAVRatio().getValue();
-            behave.sv_d3 = fuelModel.getDead100HrSAVRatio().getValue();
-            behave.sv_lh = fuelModel.getLiveHerbSAVRatio().getValue();
-            behave.sv_lw = fuelModel.getLiveWoodySAVRatio().getValue();
-            behave.depth = fuelModel.getFuelBedDepth().getValue();
-            behave.mx = fuelModel.getMoistureOfExtinction().getValue();
-            behave.heat = fuelModel.getLowHeatContent().getValue();
+            setFuelModel(behave, fuelModel);
 
             // Set moisture content variables
             behave.m_d1 = condition.getDead1HrFuelMoisture().getValue();
@@ -140,4 +128,94 @@ public class SurfaceFireProvider implements FireBehaviorProvider {
         }
 
     }
+
+    /**
+     * Computes a batch of cells with a per-thread Behave instance, loading the fuel model
+     * parameters only when the fuel model changes from one cell to the next. Cells that cannot be
+     * computed are set to NaN.
+     */
+    @Override
+    public void computeFireBehavior(FuelModel[] fuelModels, int[] fuelIndex, double[] fuelTemps,
+                                    double[] dead1Hr, double[] dead10Hr, double[] dead100Hr,
+                                    double[] liveHerb, double[] liveWoody,
+                                    double[] slopes, double[] aspects, Weather weather,
+                                    double[][] maxBehaviors, double[][] noWindBehaviors,
+                                    int from, int to) {
+        Behave behave = behaves.get();
+        try {
+            behave.wsp = weather.getWindSpeed().getValue(CommonUnit.meterPerSecond);
+            behave.wdr = weather.getWindDirection().getValue();
+        } catch (VisADException ex) {
+            Exceptions.printStackTrace(ex);
+            for (int i = from; i < to; i++) {
+                setMissing(maxBehaviors, noWindBehaviors, i);
+            }
+            return;
+        }
+
+        int currentFuel = -1;
+        for (int i = from; i < to; i++) {
+            int fuel = fuelIndex[i];
+            if (fuel < 0) {
+                setMissing(maxBehaviors, noWindBehaviors, i);
+                continue;
+            }
+            if (fuel != currentFuel) {
+                try {
+                    setFuelModel(behave, fuelModels[fuel]);
+                    currentFuel = fuel;
+                } catch (VisADException ex) {
+                    Exceptions.printStackTrace(ex);
+                    setMissing(maxBehaviors, noWindBehaviors, i);
+                    currentFuel = -1;
+                    continue;
+                }
+            }
+            behave.m_d1 = dead1Hr[i];
+            behave.m_d2 = dead10Hr[i];
+            behave.m_d3 = dead100Hr[i];
+            behave.m_lh = liveHerb[i];
+            behave.m_lw = liveWoody[i];
+            behave.slp = slopes[i];
+            behave.asp = aspects[i];
+
+            behave.calc();
+
+            // The max spread results remain in the fields after calc()
+            maxBehaviors[0][i] = behave.fli;
+            maxBehaviors[1][i] = behave.fln;
+            maxBehaviors[2][i] = behave.ros;
+            maxBehaviors[3][i] = behave.sdr;
+            Map<String, Double> noWndNoSlpResults = behave.getNoWindNoSlopeResults();
+            noWindBehaviors[0][i] = noWndNoSlpResults.get("fli");
+            noWindBehaviors[1][i] = noWndNoSlpResults.get("fln");
+            noWindBehaviors[2][i] = noWndNoSlpResults.get("ros");
+            noWindBehaviors[3][i] = noWndNoSlpResults.get("sdr");
+        }
+    }
+
+    private static void setMissing(double[][] maxBehaviors, double[][] noWindBehaviors, int i) {
+        for (int dim = 0; dim < maxBehaviors.length; dim++) {
+            maxBehaviors[dim][i] = Double.NaN;
+            noWindBehaviors[dim][i] = Double.NaN;
+        }
+    }
+
+    private static void setFuelModel(Behave behave, FuelModel fuelModel) throws VisADException {
+        behave.fuelModel = fuelModel.getModelNo();
+        behave.isDynamic = fuelModel.isDynamic();
+        behave.w0_d1 = fuelModel.getDead1HrFuelLoad().getValue(kg_m2);
+        behave.w0_d2 = fuelModel.getDead10HrFuelLoad().getValue(kg_m2);
+        behave.w0_d3 = fuelModel.getDead100HrFuelLoad().getValue(kg_m2);
+        behave.w0_lh = fuelModel.getLiveHerbFuelLoad().getValue(kg_m2);
+        behave.w0_lw = fuelModel.getLiveWoodyFuelLoad().getValue(kg_m2);
+        behave.sv_d1 = fuelModel.getDead1HrSAVRatio().getValue();
+        behave.sv_d2 = fuelModel.getDead10HrSAVRatio().getValue();
+        behave.sv_d3 = fuelModel.getDead100HrSAVRatio().getValue();
+        behave.sv_lh = fuelModel.getLiveHerbSAVRatio().getValue();
+        behave.sv_lw = fuelModel.getLiveWoodySAVRatio().getValue();
+        behave.depth = fuelModel.getFuelBedDepth().getValue();
+        behave.mx = fuelModel.getMoistureOfExtinction().getValue();
+        behave.heat = fuelModel.getLowHeatContent().getValue();
+    }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2016, Bruce Schubert <bruce@emxsys.com>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *
+ *     - Neither the name of Bruce Schubert, Emxsys nor the names of its 
+ *       contributors may be used to endorse or promote products derived
+ *       from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.emxsys.wildfire.behavior;
+
+import com.emxsys.gis.api.BasicTerrain;
+import com.emxsys.weather.api.BasicWeather;
+import com.emxsys.weather.api.WeatherType;
+import com.emxsys.wildfire.api.BasicFuelModel;
+import com.emxsys.wildfire.api.BasicFuelMoisture;
+import com.emxsys.wildfire.api.FuelModel;
+import com.emxsys.wildfire.api.FuelMoisture;
+import com.emxsys.wildfire.api.StdFuelModelParams13;
+import com.emxsys.wildfire.api.StdFuelModelParams40;
+import com.emxsys.wildfire.api.WeatherConditions;
+import static com.emxsys.wildfire.behavior.SurfaceFireKernel.*;
+import java.util.ArrayList;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import visad.Real;
+
+/**
+ * Verifies the SurfaceFireKernel produces the same fire behavior as SurfaceFuel and SurfaceFire.
+ *
+ * @author Bruce Schubert
+ */
+public class SurfaceFireKernelTest {
+
+    private static final double TOLERANCE = 1e-6;
+
+    public SurfaceFireKernelTest() {
+    }
+
+    @Test
+    public void testComputeFireBehavior() {
+        System.out.println("computeFireBehavior");
+
+        ArrayList<FuelModel> models = new ArrayList<>();
+        for (StdFuelModelParams13 fbfm13 : StdFuelModelParams13.values()) {
+            models.add(new BasicFuelModel.Builder(fbfm13).build());
+        }
+        for (StdFuelModelParams40 fbfm40 : StdFuelModelParams40.values()) {
+            models.add(new BasicFuelModel.Builder(fbfm40).build());
+        }
+        BasicWeather weather = BasicWeather.fromReals(
+                new Real(WeatherType.AIR_TEMP_F, 70),
+                new Real(WeatherType.REL_HUMIDITY, 20),
+                new Real(WeatherType.WIND_SPEED_MPH, 5),
+                new Real(WeatherType.WIND_DIR, 215),
+                new Real(WeatherType.CLOUD_COVER, 0));
+        BasicTerrain terrain = new BasicTerrain(180, 16.7, 0);
+
+        double[][] outputs = new double[NUM_OUTPUTS][1];
+        for (FuelModel model : models) {
+            FuelModelConstants params = FuelModelConstants.from(model);
+            for (WeatherConditions conditions : WeatherConditions.values()) {
+                FuelMoisture moisture = BasicFuelMoisture.fromWeatherConditions(conditions);
+                SurfaceFuel fuel = SurfaceFuel.from(model, moisture);
+                SurfaceFire expResult = SurfaceFire.from(fuel, weather, terrain);
+
+                SurfaceFireKernel.computeFireBehavior(params,
+                        moisture.getDead1HrFuelMoisture().getValue(),
+                        moisture.getDead10HrFuelMoisture().getValue(),
+                        moisture.getDead100HrFuelMoisture().getValue(),
+                        moisture.getLiveHerbFuelMoisture().getValue(),
+                        moisture.getLiveWoodyFuelMoisture().getValue(),
+                        5, 215, 16.7, 180, outputs, 0);
+
+                String msg = model.getModelCode() + " " + conditions;
+                assertEquals(msg + " ROS", expResult.getRateOfSpreadMax().getValue(),
+                        outputs[ROS_MAX][0], delta(outputs[ROS_MAX][0]));
+                assertEquals(msg + " Backing ROS", expResult.getRateOfSpreadBacking().getValue(),
+                        outputs[ROS_BACKING][0], delta(outputs[ROS_BACKING][0]));
+                assertEquals(msg + " Eccentricity", expResult.getEccentricity(),
+                        outputs[ECCENTRICITY][0], TOLERANCE);
+                assertEquals(msg + " FLI", expResult.getFirelineIntensity().getValue(),
+                        outputs[FIRELINE_INTENSITY][0], delta(outputs[FIRELINE_INTENSITY][0]));
+                assertEquals(msg + " FL", expResult.getFlameLength().getValue(),
+                        outputs[FLAME_LENGTH][0], delta(outputs[FLAME_LENGTH][0]));
+                if (fuel.isBurnable()) {
+                    assertEquals(msg + " DIR", expResult.getDirectionMaxSpread().getValue(),
+                            outputs[DIR_MAX_SPREAD][0], TOLERANCE);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNonBurnable() {
+        System.out.println("testNonBurnable");
+        FuelModelConstants params = FuelModelConstants.forModelNo(98);
+        double[][] outputs = new double[NUM_OUTPUTS][1];
+        outputs[ROS_MAX][0] = -1;
+        SurfaceFireKernel.computeFireBehavior(params, 6, 7, 8, 60, 90, 10, 270, 20, 90, outputs, 0);
+        for (int i = 0; i < NUM_OUTPUTS; i++) {
+            assertEquals(0, outputs[i][0], 0);
+        }
+    }
+
+    @Test
+    public void testFuelModelConstantsTable() {
+        System.out.println("testFuelModelConstantsTable");
+        FuelModelConstants fm1 = FuelModelConstants.forModelNo(1);
+        assertSame(fm1, FuelModelConstants.forModelNo(1));
+        assertEquals(1, fm1.getModelNo());
+        // Dynamic models precompute the green and cured fuel beds
+        FuelModelConstants gr2 = FuelModelConstants.forModelNo(102);
+        assertSame(gr2.green, gr2.getFuelBed(0));
+        assertSame(gr2.cured, gr2.getFuelBed(1));
+        assertNotSame(gr2.green, gr2.getFuelBed(0.5));
+    }
+
+    private static double delta(double value) {
+        return Math.max(TOLERANCE, Math.abs(value) * TOLERANCE);
+    }
+}
@@ -39,9 +39,12 @@ import com.emxsys.wildfire.api.BasicFuelModel;
 import com.emxsys.wildfire.api.StdFuelModelParams13;
 import com.emxsys.wildfire.api.StdFuelModelParams40;
 import com.emxsys.wildfire.api.WeatherConditions;
+import com.emxsys.wildfire.api.WildfireType;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -110,4 +113,106 @@ public class SurfaceFireProviderTest {
             System.out.printf(">>> Pass %d completed in %dms%n", i + 1, end - start);
         }
     }
+
+    @Test
+    public void testCache() {
+        System.out.println("testCache");
+
+        SurfaceFuelProvider fuels = new SurfaceFuelProvider();
+        SurfaceFireProvider instance = new SurfaceFireProvider(2, 0.5);
+        FuelModel fuelModel = BasicFuelModel.from(1);
+        FuelMoisture fuelMoisture = BasicFuelMoisture.fromWeatherConditions(WeatherConditions.HOT_AND_DRY);
+        SurfaceFuel fuel = fuels.getSurfaceFuel(fuelModel, fuelMoisture);
+        assertSame(fuel, fuels.getSurfaceFuel(fuelModel, fuelMoisture));
+
+        BasicTerrain terrain = new BasicTerrain(180, 16.7, 0);
+        SurfaceFire fire = instance.getFireBehavior(fuel, windyWeather(5.0), terrain);
+        // Quantized to the same key
+        assertSame(fire, instance.getFireBehavior(fuel, windyWeather(5.2), terrain));
+        // Aspect is part of the key
+        instance.getFireBehavior(fuel, windyWeather(5.0), new BasicTerrain(90, 16.7, 0));
+        instance.getFireBehavior(fuel, windyWeather(10.0), terrain);
+
+        BehaviorCache<?, SurfaceFire> cache = instance.getCache();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testQuantizedKeyOrder() {
+        System.out.println("testQuantizedKeyOrder");
+
+        FuelModel fuelModel = BasicFuelModel.from(1);
+        FuelMoisture exact = BasicFuelMoisture.fromDoubles(6, 7, 8, 70, 100);
+        FuelMoisture nearby = BasicFuelMoisture.fromDoubles(6.2, 7.1, 8.2, 70.1, 100.2);
+        BasicTerrain terrain = new BasicTerrain(180, 16.7, 0);
+
+        // The first request to reach a quantized key must not determine the cached value
+        SurfaceFuelProvider fuels1 = new SurfaceFuelProvider(10, 0.5);
+        SurfaceFuel fuel1 = fuels1.getSurfaceFuel(fuelModel, nearby);
+        SurfaceFuelProvider fuels2 = new SurfaceFuelProvider(10, 0.5);
+        SurfaceFuel fuel2 = fuels2.getSurfaceFuel(fuelModel, exact);
+        assertEquals(fuel2.getReactionIntensity().getValue(), fuel1.getReactionIntensity().getValue(), 0.0);
+
+        SurfaceFireProvider fires1 = new SurfaceFireProvider(10, 0.5);
+        SurfaceFire fire1 = fires1.getFireBehavior(fuel2, windyWeather(5.2), terrain);
+        SurfaceFireProvider fires2 = new SurfaceFireProvider(10, 0.5);
+        SurfaceFire fire2 = fires2.getFireBehavior(fuel2, windyWeather(5.0), terrain);
+        assertEquals(fire2.getRateOfSpreadMax().getValue(), fire1.getRateOfSpreadMax().getValue(), 0.0);
+    }
+
+    @Test
+    public void testExactKeys() {
+        System.out.println("testExactKeys");
+
+        FuelModel fuelModel = BasicFuelModel.from(1);
+        FuelMoisture fuelMoisture = BasicFuelMoisture.fromDoubles(6.2, 7.1, 8.2, 70.1, 100.2);
+        BasicTerrain terrain = new BasicTerrain(180.4, 16.7, 0);
+        BasicWeather weather = windyWeather(5.2);
+
+        // A zero resolution computes from the given values, without rounding
+        SurfaceFuelProvider fuels = new SurfaceFuelProvider(10, 0);
+        SurfaceFuel fuel = fuels.getSurfaceFuel(fuelModel, fuelMoisture);
+        SurfaceFuel expectedFuel = SurfaceFuel.from(fuelModel, fuelMoisture, new Real(WildfireType.FUEL_TEMP_F));
+        assertEquals(expectedFuel.getReactionIntensity().getValue(), fuel.getReactionIntensity().getValue(), 0.0);
+
+        SurfaceFireProvider fires = new SurfaceFireProvider(10, 0);
+        SurfaceFire fire = fires.getFireBehavior(fuel, weather, terrain);
+        SurfaceFire expectedFire = SurfaceFire.from(fuel, weather, terrain);
+        assertEquals(expectedFire.getRateOfSpreadMax().getValue(), fire.getRateOfSpreadMax().getValue(), 0.0);
+        assertEquals(expectedFire.getDirectionMaxSpread().getValue(), fire.getDirectionMaxSpread().getValue(), 0.0);
+
+        // Nearby values are distinct keys
+        fires.getFireBehavior(fuel, weather, new BasicTerrain(180.0, 16.7, 0));
+        assertEquals(2, fires.getCache().getMissCount());
+    }
+
+    @Test
+    public void testEqualFuelsShareKeys() {
+        System.out.println("testEqualFuelsShareKeys");
+
+        // E.g., fuels deserialized by separate web service requests
+        FuelModel fuelModel = BasicFuelModel.from(1);
+        FuelMoisture fuelMoisture = BasicFuelMoisture.fromWeatherConditions(WeatherConditions.HOT_AND_DRY);
+        SurfaceFuel fuel1 = new SurfaceFuelProvider().getSurfaceFuel(fuelModel, fuelMoisture);
+        SurfaceFuel fuel2 = new SurfaceFuelProvider().getSurfaceFuel(fuelModel, fuelMoisture);
+        assertEquals(fuel1, fuel2);
+
+        SurfaceFireProvider instance = new SurfaceFireProvider();
+        BasicTerrain terrain = new BasicTerrain(180, 16.7, 0);
+        SurfaceFire fire = instance.getFireBehavior(fuel1, windyWeather(5.0), terrain);
+        assertSame(fire, instance.getFireBehavior(fuel2, windyWeather(5.0), terrain));
+        assertEquals(1, instance.getCache().size());
+    }
+
+    private static BasicWeather windyWeather(double windSpd) {
+        return BasicWeather.fromReals(
+                new Real(WeatherType.AIR_TEMP_F, 70),
+                new Real(WeatherType.REL_HUMIDITY, 20),
+                new Real(WeatherType.WIND_SPEED_MPH, windSpd),
+                new Real(WeatherType.WIND_DIR, 215),
+                new Real(WeatherType.CLOUD_COVER, 0));
+    }
 }